@@ -0,0 +1,123 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.HashingStrategy;
+import com.carrotsearch.hppc.ObjectIntCustomHashMap;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.carrotsearch.hppc.XorShift128P;
+import java.util.Arrays;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares lookups of <code>char[]</code> keys in a map with a {@link HashingStrategy} against
+ * lookups of the same keys wrapped in an object implementing hashCode/equals (allocated per
+ * lookup, as one has to without a strategy).
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class B010_CustomHashMap_Get {
+  private static final HashingStrategy<char[]> CHAR_ARRAY_STRATEGY =
+      new HashingStrategy<char[]>() {
+        @Override
+        public int computeHashCode(char[] object) {
+          return Arrays.hashCode(object);
+        }
+
+        @Override
+        public boolean equals(char[] o1, char[] o2) {
+          return Arrays.equals(o1, o2);
+        }
+      };
+
+  private static final class CharArrayKey {
+    private final char[] chars;
+
+    CharArrayKey(char[] chars) {
+      this.chars = chars;
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(chars);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof CharArrayKey && Arrays.equals(chars, ((CharArrayKey) obj).chars);
+    }
+  }
+
+  @Param({"1000", "100000"})
+  public int keyCount;
+
+  @Param({"8", "32"})
+  public int keyLength;
+
+  public ObjectIntCustomHashMap<char[]> customMap;
+  public ObjectIntHashMap<CharArrayKey> wrapperMap;
+  public char[][] lookups;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    customMap = new ObjectIntCustomHashMap<>(keyCount, CHAR_ARRAY_STRATEGY);
+    wrapperMap = new ObjectIntHashMap<>(keyCount);
+
+    char[][] keys = new char[keyCount][];
+    for (int i = 0; i < keyCount; i++) {
+      char[] key = new char[keyLength];
+      for (int j = 0; j < key.length; j++) {
+        key[j] = (char) ('a' + rnd.nextInt(26));
+      }
+      keys[i] = key;
+      customMap.put(key, i + 1);
+      wrapperMap.put(new CharArrayKey(key), i + 1);
+    }
+
+    // Look up copies (not the same instances) of existing keys, in random order.
+    lookups = new char[1 << 16][];
+    for (int i = 0; i < lookups.length; i++) {
+      lookups[i] = keys[rnd.nextInt(keyCount)].clone();
+    }
+  }
+
+  @Benchmark
+  public int strategy() {
+    final ObjectIntCustomHashMap<char[]> map = this.customMap;
+    int v = 0;
+    for (char[] key : lookups) {
+      v += map.get(key);
+    }
+    return v;
+  }
+
+  @Benchmark
+  public int wrapper() {
+    final ObjectIntHashMap<CharArrayKey> map = this.wrapperMap;
+    int v = 0;
+    for (char[] key : lookups) {
+      v += map.get(new CharArrayKey(key));
+    }
+    return v;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder().include(B010_CustomHashMap_Get.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
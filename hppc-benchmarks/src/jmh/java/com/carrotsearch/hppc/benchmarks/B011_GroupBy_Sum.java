@@ -0,0 +1,75 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.IntLongGroupBy;
+import com.carrotsearch.hppc.IntLongHashMap;
+import com.carrotsearch.hppc.XorShift128P;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares summing a column of values grouped by a column of keys with per-row {@link
+ * IntLongHashMap#addTo} calls against the batched {@link IntLongGroupBy} kernels.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class B011_GroupBy_Sum {
+  @Param({"1000000"})
+  public int rows;
+
+  @Param({"100", "100000"})
+  public int distinctKeys;
+
+  public int[] keys;
+  public long[] values;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    keys = new int[rows];
+    values = new long[rows];
+    for (int i = 0; i < rows; i++) {
+      keys[i] = rnd.nextInt(distinctKeys);
+      values[i] = rnd.nextInt(1000);
+    }
+  }
+
+  @Benchmark
+  public int addTo() {
+    final IntLongHashMap map = new IntLongHashMap();
+    final int[] keys = this.keys;
+    final long[] values = this.values;
+    for (int i = 0; i < keys.length; i++) {
+      map.addTo(keys[i], values[i]);
+    }
+    return map.size();
+  }
+
+  @Benchmark
+  public int groupBy() {
+    return IntLongGroupBy.sum(keys, values, 0, keys.length, new IntLongHashMap()).size();
+  }
+
+  @Benchmark
+  public int groupByParallel() {
+    return IntLongGroupBy.sumParallel(keys, values, 0, keys.length).size();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder().include(B011_GroupBy_Sum.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
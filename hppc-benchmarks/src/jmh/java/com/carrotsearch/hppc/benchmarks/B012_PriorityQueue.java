@@ -0,0 +1,91 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.IntHeapPriorityQueue;
+import com.carrotsearch.hppc.XorShift128P;
+import java.util.PriorityQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares {@link IntHeapPriorityQueue} of different arities against the JDK's (binary, boxed)
+ * {@link PriorityQueue}: adds random elements, then keeps replacing the top element (a top-k style
+ * workload) and finally drains the queue.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class B012_PriorityQueue {
+  @Param({"1000", "1000000"})
+  public int size;
+
+  @Param({"2", "4", "8"})
+  public int arity;
+
+  public int[] elements;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    elements = new int[size * 2];
+    for (int i = 0; i < elements.length; i++) {
+      elements[i] = rnd.nextInt();
+    }
+  }
+
+  @Benchmark
+  public long hppc() {
+    final int[] elements = this.elements;
+    final IntHeapPriorityQueue queue = new IntHeapPriorityQueue(size, null, arity);
+    for (int i = 0; i < size; i++) {
+      queue.add(elements[i]);
+    }
+    for (int i = size; i < elements.length; i++) {
+      if (elements[i] > queue.top()) {
+        queue.replaceTop(elements[i]);
+      }
+    }
+    long sum = 0;
+    while (!queue.isEmpty()) {
+      sum += queue.removeTop();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long jdk() {
+    final int[] elements = this.elements;
+    final PriorityQueue<Integer> queue = new PriorityQueue<>(size);
+    for (int i = 0; i < size; i++) {
+      queue.add(elements[i]);
+    }
+    for (int i = size; i < elements.length; i++) {
+      if (elements[i] > queue.peek()) {
+        queue.poll();
+        queue.add(elements[i]);
+      }
+    }
+    long sum = 0;
+    while (!queue.isEmpty()) {
+      sum += queue.poll();
+    }
+    return sum;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder().include(B012_PriorityQueue.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
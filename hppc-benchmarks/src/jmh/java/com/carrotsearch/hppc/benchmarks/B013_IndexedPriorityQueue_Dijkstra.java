@@ -0,0 +1,138 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.CsrGraph;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntIndexedPriorityQueue;
+import com.carrotsearch.hppc.XorShift128P;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Single-source shortest paths (Dijkstra) on a random weighted graph: {@link
+ * IntIndexedPriorityQueue} with decrease-key against the JDK's {@link PriorityQueue} with lazy
+ * deletion (re-inserting improved nodes and skipping stale entries).
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class B013_IndexedPriorityQueue_Dijkstra {
+  @Param({"100000"})
+  public int nodes;
+
+  @Param({"8"})
+  public int averageDegree;
+
+  @Param({"2", "4"})
+  public int arity;
+
+  public CsrGraph graph;
+  public int[] weights;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    IntArrayList sources = new IntArrayList();
+    IntArrayList targets = new IntArrayList();
+    for (int i = nodes * averageDegree; i > 0; i--) {
+      sources.add(rnd.nextInt(nodes));
+      targets.add(rnd.nextInt(nodes));
+    }
+    graph = CsrGraph.fromEdges(nodes, sources, targets);
+    weights = new int[graph.edgeCount()];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = 1 + rnd.nextInt(1000);
+    }
+  }
+
+  @Benchmark
+  public long hppc() {
+    final CsrGraph graph = this.graph;
+    final int[] weights = this.weights;
+    final long[] distance = new long[nodes];
+    Arrays.fill(distance, Long.MAX_VALUE);
+    final IntIndexedPriorityQueue queue =
+        new IntIndexedPriorityQueue(nodes, (a, b) -> Long.compare(distance[a], distance[b]), arity);
+
+    distance[0] = 0;
+    queue.add(0);
+    while (!queue.isEmpty()) {
+      final int node = queue.removeTop();
+      for (int e = graph.edgesStart(node), end = graph.edgesEnd(node); e < end; e++) {
+        final int target = graph.target(e);
+        final long d = distance[node] + weights[e];
+        if (d < distance[target]) {
+          final boolean queued = distance[target] != Long.MAX_VALUE;
+          distance[target] = d;
+          if (queued) {
+            queue.decreaseKey(target);
+          } else {
+            queue.add(target);
+          }
+        }
+      }
+    }
+    return checksum(distance);
+  }
+
+  @Benchmark
+  public long jdk() {
+    final CsrGraph graph = this.graph;
+    final int[] weights = this.weights;
+    final long[] distance = new long[nodes];
+    Arrays.fill(distance, Long.MAX_VALUE);
+    final PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+
+    distance[0] = 0;
+    queue.add(new long[] {0, 0});
+    while (!queue.isEmpty()) {
+      final long[] entry = queue.poll();
+      final int node = (int) entry[1];
+      if (entry[0] > distance[node]) {
+        // Stale entry.
+        continue;
+      }
+      for (int e = graph.edgesStart(node), end = graph.edgesEnd(node); e < end; e++) {
+        final int target = graph.target(e);
+        final long d = distance[node] + weights[e];
+        if (d < distance[target]) {
+          distance[target] = d;
+          queue.add(new long[] {d, target});
+        }
+      }
+    }
+    return checksum(distance);
+  }
+
+  private static long checksum(long[] distance) {
+    long sum = 0;
+    for (long d : distance) {
+      if (d != Long.MAX_VALUE) {
+        sum += d;
+      }
+    }
+    return sum;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder()
+            .include(B013_IndexedPriorityQueue_Dijkstra.class.getSimpleName())
+            .build();
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.LongHeapPriorityQueue;
+import com.carrotsearch.hppc.LongRadixHeap;
+import com.carrotsearch.hppc.XorShift128P;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The "hold" model of discrete event simulation: a queue of pending events (a timestamp and an
+ * <code>int</code> event id) repeatedly removes the earliest event and schedules a new one at a
+ * random delay after it. Compares {@link LongRadixHeap} against binary and 4-ary {@link
+ * LongHeapPriorityQueue}s, with event ids packed in the low bits of the keys.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class B014_RadixHeap_Hold {
+  private static final int ID_BITS = 20;
+  private static final int OPERATIONS = 1_000_000;
+
+  @Param({"1000", "1000000"})
+  public int pending;
+
+  public int[] delays;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    delays = new int[pending + OPERATIONS];
+    for (int i = 0; i < delays.length; i++) {
+      delays[i] = rnd.nextInt(1 << 16);
+    }
+  }
+
+  @Benchmark
+  public long radixHeap() {
+    final int[] delays = this.delays;
+    final LongRadixHeap heap = new LongRadixHeap();
+    for (int i = 0; i < pending; i++) {
+      heap.add(delays[i], i);
+    }
+    long sum = 0;
+    for (int i = pending; i < delays.length; i++) {
+      final int id = heap.removeTop();
+      sum += id;
+      heap.add(heap.lastKey() + delays[i], id);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long binaryHeap() {
+    return heap(2);
+  }
+
+  @Benchmark
+  public long quaternaryHeap() {
+    return heap(4);
+  }
+
+  private long heap(int arity) {
+    final int[] delays = this.delays;
+    final long idMask = (1L << ID_BITS) - 1;
+    final LongHeapPriorityQueue heap = new LongHeapPriorityQueue(pending, null, arity);
+    for (int i = 0; i < pending; i++) {
+      heap.add(((long) delays[i] << ID_BITS) | i);
+    }
+    long sum = 0;
+    for (int i = pending; i < delays.length; i++) {
+      final long top = heap.top();
+      final long id = top & idMask;
+      sum += id;
+      heap.replaceTop((((top >>> ID_BITS) + delays[i]) << ID_BITS) | id);
+    }
+    return sum;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder().include(B014_RadixHeap_Hold.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
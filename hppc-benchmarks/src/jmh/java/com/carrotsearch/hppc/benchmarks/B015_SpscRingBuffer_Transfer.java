@@ -0,0 +1,150 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.LongSpscRingBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Hands a sequence of <code>long</code> event ids from a producer thread to a consumer (the
+ * benchmark thread): {@link LongSpscRingBuffer} with single-element and batched operations against
+ * an {@link ArrayBlockingQueue} of boxed longs.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class B015_SpscRingBuffer_Transfer {
+  @Param({"1000000"})
+  public int elements;
+
+  @Param({"1024"})
+  public int capacity;
+
+  @Param({"64"})
+  public int batch;
+
+  @Benchmark
+  public long ringBuffer() throws InterruptedException {
+    final LongSpscRingBuffer ring = new LongSpscRingBuffer(capacity);
+    final int elements = this.elements;
+    Thread producer =
+        new Thread(
+            () -> {
+              for (long i = 0; i < elements; ) {
+                if (ring.offer(i)) {
+                  i++;
+                } else {
+                  Thread.onSpinWait();
+                }
+              }
+            });
+    producer.start();
+
+    long sum = 0;
+    for (int received = 0; received < elements; ) {
+      final long next = ring.pollOrDefault(-1);
+      if (next >= 0) {
+        sum += next;
+        received++;
+      } else {
+        Thread.onSpinWait();
+      }
+    }
+    producer.join();
+    return sum;
+  }
+
+  @Benchmark
+  public long ringBufferBatched() throws InterruptedException {
+    final LongSpscRingBuffer ring = new LongSpscRingBuffer(capacity);
+    final int elements = this.elements;
+    final int batch = this.batch;
+    Thread producer =
+        new Thread(
+            () -> {
+              final long[] buffer = new long[batch];
+              for (int i = 0; i < elements; ) {
+                final int length = Math.min(batch, elements - i);
+                for (int j = 0; j < length; j++) {
+                  buffer[j] = i + j;
+                }
+                for (int offered = 0; offered < length; ) {
+                  final int added = ring.offer(buffer, offered, length - offered);
+                  if (added == 0) {
+                    Thread.onSpinWait();
+                  }
+                  offered += added;
+                }
+                i += length;
+              }
+            });
+    producer.start();
+
+    final long[] buffer = new long[batch];
+    long sum = 0;
+    for (int received = 0; received < elements; ) {
+      final int count = ring.poll(buffer, 0, batch);
+      if (count == 0) {
+        Thread.onSpinWait();
+      }
+      for (int j = 0; j < count; j++) {
+        sum += buffer[j];
+      }
+      received += count;
+    }
+    producer.join();
+    return sum;
+  }
+
+  @Benchmark
+  public long arrayBlockingQueue() throws InterruptedException {
+    final ArrayBlockingQueue<Long> queue = new ArrayBlockingQueue<>(capacity);
+    final int elements = this.elements;
+    Thread producer =
+        new Thread(
+            () -> {
+              try {
+                for (long i = 0; i < elements; i++) {
+                  queue.put(i);
+                }
+              } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+              }
+            });
+    producer.start();
+
+    final ArrayList<Long> drained = new ArrayList<>(batch);
+    long sum = 0;
+    for (int received = 0; received < elements; ) {
+      drained.add(queue.take());
+      queue.drainTo(drained, batch - 1);
+      for (Long value : drained) {
+        sum += value;
+      }
+      received += drained.size();
+      drained.clear();
+    }
+    producer.join();
+    return sum;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder().include(B015_SpscRingBuffer_Transfer.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
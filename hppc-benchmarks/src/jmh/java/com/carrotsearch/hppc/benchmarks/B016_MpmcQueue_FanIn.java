@@ -0,0 +1,85 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntMpmcQueue;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * A fan-in work queue of <code>int</code> task ids: three producer threads offer to, and one
+ * consumer thread drains from, an {@link IntMpmcQueue} or an {@link ArrayBlockingQueue} of boxed
+ * integers. Reports the throughput of each thread group's operations.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Group)
+public class B016_MpmcQueue_FanIn {
+  @Param({"1024"})
+  public int capacity;
+
+  public IntMpmcQueue hppcQueue;
+  public ArrayBlockingQueue<Integer> jdkQueue;
+
+  @Setup(Level.Iteration)
+  public void prepare() {
+    hppcQueue = new IntMpmcQueue(capacity);
+    jdkQueue = new ArrayBlockingQueue<>(capacity);
+  }
+
+  @State(Scope.Thread)
+  public static class ConsumerState {
+    public final IntArrayList hppcBatch = new IntArrayList();
+    public final ArrayList<Integer> jdkBatch = new ArrayList<>();
+  }
+
+  @Benchmark
+  @Group("hppc")
+  @GroupThreads(3)
+  public boolean hppcOffer() {
+    return hppcQueue.offer(42);
+  }
+
+  @Benchmark
+  @Group("hppc")
+  @GroupThreads(1)
+  public int hppcDrain(ConsumerState state) {
+    state.hppcBatch.clear();
+    return hppcQueue.drainTo(state.hppcBatch, 64);
+  }
+
+  @Benchmark
+  @Group("jdk")
+  @GroupThreads(3)
+  public boolean jdkOffer() {
+    return jdkQueue.offer(42);
+  }
+
+  @Benchmark
+  @Group("jdk")
+  @GroupThreads(1)
+  public int jdkDrain(ConsumerState state) {
+    state.jdkBatch.clear();
+    return jdkQueue.drainTo(state.jdkBatch, 64);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder().include(B016_MpmcQueue_FanIn.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.IntArrayDeque;
+import com.carrotsearch.hppc.IntChunkedDeque;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Grows a deque from empty to a number of <code>int</code> elements (added at alternating ends),
+ * then drains it: {@link IntChunkedDeque} (linked chunks) against {@link IntArrayDeque} (a
+ * single, reallocated buffer). Sample time mode reports the latency distribution of individual
+ * additions, including the spikes caused by buffer reallocation.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class B017_ChunkedDeque_Growth {
+  @Param({"1000000", "10000000"})
+  public int elements;
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public long chunkedDeque() {
+    final IntChunkedDeque deque = new IntChunkedDeque();
+    for (int i = 0; i < elements; i++) {
+      if ((i & 1) == 0) {
+        deque.addLast(i);
+      } else {
+        deque.addFirst(i);
+      }
+    }
+    long sum = 0;
+    while (!deque.isEmpty()) {
+      sum += deque.removeFirst();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public long arrayDeque() {
+    final IntArrayDeque deque = new IntArrayDeque();
+    for (int i = 0; i < elements; i++) {
+      if ((i & 1) == 0) {
+        deque.addLast(i);
+      } else {
+        deque.addFirst(i);
+      }
+    }
+    long sum = 0;
+    while (!deque.isEmpty()) {
+      sum += deque.removeFirst();
+    }
+    return sum;
+  }
+
+  /** Deques restarted from empty once they reach the benchmark's number of elements. */
+  @State(Scope.Thread)
+  public static class GrowingDeques {
+    public IntChunkedDeque chunked = new IntChunkedDeque();
+    public IntArrayDeque array = new IntArrayDeque();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void chunkedDequeAddLatency(GrowingDeques state) {
+    if (state.chunked.size() == elements) {
+      state.chunked = new IntChunkedDeque();
+    }
+    state.chunked.addLast(42);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void arrayDequeAddLatency(GrowingDeques state) {
+    if (state.array.size() == elements) {
+      state.array = new IntArrayDeque();
+    }
+    state.array.addLast(42);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder().include(B017_ChunkedDeque_Growth.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.IntWorkStealingDeque;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Visits all vertices of an implicit binary tree (vertex <code>v</code> has children <code>2v + 1
+ * </code> and <code>2v + 2</code>), summing their ids: worker threads owning an {@link
+ * IntWorkStealingDeque} each (and stealing from random victims when idle) against a {@link
+ * ForkJoinPool} with one (boxed) task per vertex.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class B018_WorkStealing_TreeSum {
+  @Param({"4"})
+  public int workers;
+
+  @Param({"1000000"})
+  public int vertices;
+
+  public ForkJoinPool pool;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    pool = new ForkJoinPool(workers);
+  }
+
+  @TearDown(Level.Trial)
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public long workStealingDeques() throws InterruptedException {
+    final int vertices = this.vertices;
+    final IntWorkStealingDeque[] deques = new IntWorkStealingDeque[workers];
+    for (int w = 0; w < workers; w++) {
+      deques[w] = new IntWorkStealingDeque();
+    }
+    deques[0].push(0);
+
+    final AtomicInteger remaining = new AtomicInteger(vertices);
+    final AtomicLong total = new AtomicLong();
+    final Thread[] threads = new Thread[workers];
+    for (int w = 0; w < workers; w++) {
+      final int self = w;
+      threads[w] =
+          new Thread(
+              () -> {
+                final IntWorkStealingDeque own = deques[self];
+                final Random rnd = new Random(self);
+                long sum = 0;
+                int done = 0;
+                while (remaining.get() > 0) {
+                  int v = own.popOrDefault(-1);
+                  if (v < 0) {
+                    // Publish progress before going idle, then try a random victim.
+                    remaining.addAndGet(-done);
+                    done = 0;
+                    v = deques[rnd.nextInt(deques.length)].stealOrDefault(-1);
+                    if (v < 0) {
+                      Thread.onSpinWait();
+                      continue;
+                    }
+                  }
+                  sum += v;
+                  final int left = 2 * v + 1;
+                  if (left < vertices) {
+                    own.push(left);
+                    if (left + 1 < vertices) {
+                      own.push(left + 1);
+                    }
+                  }
+                  if (++done == 1024) {
+                    remaining.addAndGet(-done);
+                    done = 0;
+                  }
+                }
+                total.addAndGet(sum);
+              });
+      threads[w].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    return total.get();
+  }
+
+  /** One task per vertex. */
+  @SuppressWarnings("serial")
+  static final class VertexTask extends RecursiveTask<Long> {
+    private final int vertex;
+    private final int vertices;
+
+    VertexTask(int vertex, int vertices) {
+      this.vertex = vertex;
+      this.vertices = vertices;
+    }
+
+    @Override
+    protected Long compute() {
+      long sum = vertex;
+      final int left = 2 * vertex + 1;
+      if (left < vertices) {
+        final ForkJoinTask<Long> leftTask = new VertexTask(left, vertices).fork();
+        if (left + 1 < vertices) {
+          sum += new VertexTask(left + 1, vertices).compute();
+        }
+        sum += leftTask.join();
+      }
+      return sum;
+    }
+  }
+
+  @Benchmark
+  public long forkJoinPool() {
+    return pool.invoke(new VertexTask(0, vertices));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder().include(B018_WorkStealing_TreeSum.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
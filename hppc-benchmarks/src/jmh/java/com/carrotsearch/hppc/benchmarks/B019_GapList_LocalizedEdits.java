@@ -0,0 +1,96 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntGapList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Editor-like workload: a cursor wanders slowly over a list of <code>int</code> elements and
+ * each step inserts or removes an element at the cursor. {@link IntGapList} only shifts the
+ * elements between consecutive cursor positions, {@link IntArrayList} shifts the whole tail of
+ * the list on every edit. The list size is kept constant, so state survives across invocations.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class B019_GapList_LocalizedEdits {
+  private static final int EDITS = 10_000;
+
+  @Param({"10000", "1000000"})
+  public int size;
+
+  /** The maximum distance the cursor moves between two edits. */
+  @Param({"1", "16"})
+  public int maxStep;
+
+  private IntGapList gapList;
+  private IntArrayList arrayList;
+  private int[] steps;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random rnd = new Random(0xdeadbeef);
+    gapList = new IntGapList(size + 1);
+    arrayList = new IntArrayList(size + 1);
+    for (int i = 0; i < size; i++) {
+      final int v = rnd.nextInt();
+      gapList.add(v);
+      arrayList.add(v);
+    }
+
+    steps = new int[EDITS];
+    for (int i = 0; i < steps.length; i++) {
+      steps[i] = rnd.nextInt(2 * maxStep + 1) - maxStep;
+    }
+  }
+
+  @Benchmark
+  public int gapList() {
+    final IntGapList list = this.gapList;
+    int cursor = list.size() / 2;
+    int sum = 0;
+    for (int i = 0; i < steps.length; i++) {
+      cursor = Math.max(0, Math.min(list.size() - 1, cursor + steps[i]));
+      list.insert(cursor, i);
+      sum += list.removeAt(cursor + 1);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int arrayList() {
+    final IntArrayList list = this.arrayList;
+    int cursor = list.size() / 2;
+    int sum = 0;
+    for (int i = 0; i < steps.length; i++) {
+      cursor = Math.max(0, Math.min(list.size() - 1, cursor + steps[i]));
+      list.insert(cursor, i);
+      sum += list.removeAt(cursor + 1);
+    }
+    return sum;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder().include(B019_GapList_LocalizedEdits.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
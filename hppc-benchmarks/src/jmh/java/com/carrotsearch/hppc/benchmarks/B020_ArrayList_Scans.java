@@ -0,0 +1,440 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.ByteArrayList;
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Linear scans of primitive array lists: <code>indexOf</code>, <code>lastIndexOf</code>, <code>
+ * removeAll(e)</code> and <code>equals</code>, each compared against a plain element-by-element
+ * loop over the list's buffer (the implementation before scans were unrolled).
+ *
+ * <p>The searched value is absent, except for <code>removeAll</code> where it occurs at about 10%
+ * of random positions; removals run on a fresh copy of the list, in both variants.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class B020_ArrayList_Scans {
+  @Param({"1000", "100000"})
+  public int size;
+
+  @Param({"int", "long", "double", "byte"})
+  public String type;
+
+  private Scans scans;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random rnd = new Random(0xdeadbeef);
+    final int[] values = new int[size];
+    for (int i = 0; i < size; i++) {
+      values[i] = rnd.nextInt(10) == 0 ? 0 : 1 + rnd.nextInt(100);
+    }
+
+    switch (type) {
+      case "int":
+        scans = new IntScans(values);
+        break;
+      case "long":
+        scans = new LongScans(values);
+        break;
+      case "double":
+        scans = new DoubleScans(values);
+        break;
+      case "byte":
+        scans = new ByteScans(values);
+        break;
+      default:
+        throw new RuntimeException("Unknown type: " + type);
+    }
+  }
+
+  @Benchmark
+  public int indexOf() {
+    return scans.indexOf();
+  }
+
+  @Benchmark
+  public int indexOfScalar() {
+    return scans.indexOfScalar();
+  }
+
+  @Benchmark
+  public int lastIndexOf() {
+    return scans.lastIndexOf();
+  }
+
+  @Benchmark
+  public int lastIndexOfScalar() {
+    return scans.lastIndexOfScalar();
+  }
+
+  @Benchmark
+  public int removeAll() {
+    return scans.removeAll();
+  }
+
+  @Benchmark
+  public int removeAllScalar() {
+    return scans.removeAllScalar();
+  }
+
+  @Benchmark
+  public boolean equalsList() {
+    return scans.equalsList();
+  }
+
+  @Benchmark
+  public boolean equalsScalar() {
+    return scans.equalsScalar();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder().include(B020_ArrayList_Scans.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+
+  /** The benchmarked operations for a single element type. */
+  private interface Scans {
+    int indexOf();
+
+    int indexOfScalar();
+
+    int lastIndexOf();
+
+    int lastIndexOfScalar();
+
+    int removeAll();
+
+    int removeAllScalar();
+
+    boolean equalsList();
+
+    boolean equalsScalar();
+  }
+
+  private static final class IntScans implements Scans {
+    private final IntArrayList list = new IntArrayList();
+    private final IntArrayList other;
+
+    IntScans(int[] values) {
+      for (int v : values) {
+        list.add(v);
+      }
+      other = list.clone();
+    }
+
+    public int indexOf() {
+      return list.indexOf(-1);
+    }
+
+    public int indexOfScalar() {
+      final int[] buffer = list.buffer;
+      for (int i = 0; i < list.elementsCount; i++) {
+        if (buffer[i] == -1) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    public int lastIndexOf() {
+      return list.lastIndexOf(-1);
+    }
+
+    public int lastIndexOfScalar() {
+      final int[] buffer = list.buffer;
+      for (int i = list.elementsCount - 1; i >= 0; i--) {
+        if (buffer[i] == -1) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    public int removeAll() {
+      return list.clone().removeAll(0);
+    }
+
+    public int removeAllScalar() {
+      final IntArrayList copy = list.clone();
+      final int[] buffer = copy.buffer;
+      int to = 0;
+      for (int from = 0; from < copy.elementsCount; from++) {
+        if (buffer[from] == 0) {
+          continue;
+        }
+        if (to != from) {
+          buffer[to] = buffer[from];
+        }
+        to++;
+      }
+      final int deleted = copy.elementsCount - to;
+      copy.elementsCount = to;
+      return deleted;
+    }
+
+    public boolean equalsList() {
+      return list.equals(other);
+    }
+
+    public boolean equalsScalar() {
+      for (int i = 0; i < list.elementsCount; i++) {
+        if (list.get(i) != other.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class LongScans implements Scans {
+    private final LongArrayList list = new LongArrayList();
+    private final LongArrayList other;
+
+    LongScans(int[] values) {
+      for (int v : values) {
+        list.add(v);
+      }
+      other = list.clone();
+    }
+
+    public int indexOf() {
+      return list.indexOf(-1);
+    }
+
+    public int indexOfScalar() {
+      final long[] buffer = list.buffer;
+      for (int i = 0; i < list.elementsCount; i++) {
+        if (buffer[i] == -1) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    public int lastIndexOf() {
+      return list.lastIndexOf(-1);
+    }
+
+    public int lastIndexOfScalar() {
+      final long[] buffer = list.buffer;
+      for (int i = list.elementsCount - 1; i >= 0; i--) {
+        if (buffer[i] == -1) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    public int removeAll() {
+      return list.clone().removeAll(0);
+    }
+
+    public int removeAllScalar() {
+      final LongArrayList copy = list.clone();
+      final long[] buffer = copy.buffer;
+      int to = 0;
+      for (int from = 0; from < copy.elementsCount; from++) {
+        if (buffer[from] == 0) {
+          continue;
+        }
+        if (to != from) {
+          buffer[to] = buffer[from];
+        }
+        to++;
+      }
+      final int deleted = copy.elementsCount - to;
+      copy.elementsCount = to;
+      return deleted;
+    }
+
+    public boolean equalsList() {
+      return list.equals(other);
+    }
+
+    public boolean equalsScalar() {
+      for (int i = 0; i < list.elementsCount; i++) {
+        if (list.get(i) != other.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class DoubleScans implements Scans {
+    private final DoubleArrayList list = new DoubleArrayList();
+    private final DoubleArrayList other;
+
+    DoubleScans(int[] values) {
+      for (int v : values) {
+        list.add(v);
+      }
+      other = list.clone();
+    }
+
+    public int indexOf() {
+      return list.indexOf(-1);
+    }
+
+    public int indexOfScalar() {
+      final double[] buffer = list.buffer;
+      final long key = Double.doubleToLongBits(-1);
+      for (int i = 0; i < list.elementsCount; i++) {
+        if (Double.doubleToLongBits(buffer[i]) == key) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    public int lastIndexOf() {
+      return list.lastIndexOf(-1);
+    }
+
+    public int lastIndexOfScalar() {
+      final double[] buffer = list.buffer;
+      final long key = Double.doubleToLongBits(-1);
+      for (int i = list.elementsCount - 1; i >= 0; i--) {
+        if (Double.doubleToLongBits(buffer[i]) == key) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    public int removeAll() {
+      return list.clone().removeAll(0);
+    }
+
+    public int removeAllScalar() {
+      final DoubleArrayList copy = list.clone();
+      final double[] buffer = copy.buffer;
+      final long key = Double.doubleToLongBits(0);
+      int to = 0;
+      for (int from = 0; from < copy.elementsCount; from++) {
+        if (Double.doubleToLongBits(buffer[from]) == key) {
+          continue;
+        }
+        if (to != from) {
+          buffer[to] = buffer[from];
+        }
+        to++;
+      }
+      final int deleted = copy.elementsCount - to;
+      copy.elementsCount = to;
+      return deleted;
+    }
+
+    public boolean equalsList() {
+      return list.equals(other);
+    }
+
+    public boolean equalsScalar() {
+      for (int i = 0; i < list.elementsCount; i++) {
+        if (Double.doubleToLongBits(list.get(i)) != Double.doubleToLongBits(other.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class ByteScans implements Scans {
+    private final ByteArrayList list = new ByteArrayList();
+    private final ByteArrayList other;
+
+    ByteScans(int[] values) {
+      for (int v : values) {
+        list.add((byte) v);
+      }
+      other = list.clone();
+    }
+
+    public int indexOf() {
+      return list.indexOf((byte) -1);
+    }
+
+    public int indexOfScalar() {
+      final byte[] buffer = list.buffer;
+      for (int i = 0; i < list.elementsCount; i++) {
+        if (buffer[i] == (byte) -1) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    public int lastIndexOf() {
+      return list.lastIndexOf((byte) -1);
+    }
+
+    public int lastIndexOfScalar() {
+      final byte[] buffer = list.buffer;
+      for (int i = list.elementsCount - 1; i >= 0; i--) {
+        if (buffer[i] == (byte) -1) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    public int removeAll() {
+      return list.clone().removeAll((byte) 0);
+    }
+
+    public int removeAllScalar() {
+      final ByteArrayList copy = list.clone();
+      final byte[] buffer = copy.buffer;
+      int to = 0;
+      for (int from = 0; from < copy.elementsCount; from++) {
+        if (buffer[from] == 0) {
+          continue;
+        }
+        if (to != from) {
+          buffer[to] = buffer[from];
+        }
+        to++;
+      }
+      final int deleted = copy.elementsCount - to;
+      copy.elementsCount = to;
+      return deleted;
+    }
+
+    public boolean equalsList() {
+      return list.equals(other);
+    }
+
+    public boolean equalsScalar() {
+      for (int i = 0; i < list.elementsCount; i++) {
+        if (list.get(i) != other.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
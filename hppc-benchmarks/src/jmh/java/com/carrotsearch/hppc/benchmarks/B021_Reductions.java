@@ -0,0 +1,137 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.DoubleReductions;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntReductions;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Sum and maximum of an {@link IntArrayList} and a {@link DoubleArrayList}: through the list's
+ * <code>stream()</code>, a plain loop over the buffer, {@link IntReductions} / {@link
+ * DoubleReductions} and their parallel variants.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class B021_Reductions {
+  @Param({"100000", "10000000"})
+  public int size;
+
+  private IntArrayList ints;
+  private DoubleArrayList doubles;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random rnd = new Random(0xdeadbeef);
+    ints = new IntArrayList(size);
+    doubles = new DoubleArrayList(size);
+    for (int i = 0; i < size; i++) {
+      ints.add(rnd.nextInt(1000));
+      doubles.add(rnd.nextDouble());
+    }
+  }
+
+  @Benchmark
+  public long intSumStream() {
+    return ints.stream().asLongStream().sum();
+  }
+
+  @Benchmark
+  public long intSumLoop() {
+    final int[] buffer = ints.buffer;
+    long sum = 0;
+    for (int i = 0; i < ints.elementsCount; i++) {
+      sum += buffer[i];
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long intSum() {
+    return IntReductions.sum(ints);
+  }
+
+  @Benchmark
+  public long intParallelSum() {
+    return IntReductions.parallelSum(ints);
+  }
+
+  @Benchmark
+  public int intMaxLoop() {
+    final int[] buffer = ints.buffer;
+    int max = Integer.MIN_VALUE;
+    for (int i = 0; i < ints.elementsCount; i++) {
+      max = Math.max(max, buffer[i]);
+    }
+    return max;
+  }
+
+  @Benchmark
+  public int intMax() {
+    return IntReductions.max(ints);
+  }
+
+  @Benchmark
+  public int intParallelMax() {
+    return IntReductions.parallelMax(ints);
+  }
+
+  @Benchmark
+  public double doubleSumStream() {
+    return doubles.stream().sum();
+  }
+
+  @Benchmark
+  public double doubleSumLoop() {
+    final double[] buffer = doubles.buffer;
+    double sum = 0;
+    for (int i = 0; i < doubles.elementsCount; i++) {
+      sum += buffer[i];
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double doubleSum() {
+    return DoubleReductions.sum(doubles);
+  }
+
+  @Benchmark
+  public double doubleParallelSum() {
+    return DoubleReductions.parallelSum(doubles);
+  }
+
+  @Benchmark
+  public double doubleDot() {
+    return DoubleReductions.dot(doubles, doubles);
+  }
+
+  @Benchmark
+  public double doubleParallelDot() {
+    return DoubleReductions.parallelDot(doubles, doubles);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder().include(B021_Reductions.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
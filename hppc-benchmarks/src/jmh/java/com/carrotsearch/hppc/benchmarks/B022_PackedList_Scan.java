@@ -0,0 +1,114 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntPackedList;
+import com.carrotsearch.hppc.procedures.IntProcedure;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Sequential scans and random access over sorted document ids held in an {@link IntArrayList} and
+ * in an {@link IntPackedList} (plain and delta-encoded).
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class B022_PackedList_Scan {
+  @Param({"1000000"})
+  public int size;
+
+  private IntArrayList list;
+  private IntPackedList packed;
+  private IntPackedList deltas;
+  private int[] probes;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random rnd = new Random(0xdeadbeef);
+    list = new IntArrayList(size);
+    int id = 0;
+    for (int i = 0; i < size; i++) {
+      list.add(id += 1 + rnd.nextInt(16));
+    }
+    packed = new IntPackedList(list);
+    deltas = new IntPackedList(list, true);
+
+    probes = new int[1024];
+    for (int i = 0; i < probes.length; i++) {
+      probes[i] = rnd.nextInt(size);
+    }
+  }
+
+  private static final class Sum implements IntProcedure {
+    long sum;
+
+    @Override
+    public void apply(int value) {
+      sum += value;
+    }
+  }
+
+  @Benchmark
+  public long scanList() {
+    return list.forEach(new Sum()).sum;
+  }
+
+  @Benchmark
+  public long scanPacked() {
+    return packed.forEach(new Sum()).sum;
+  }
+
+  @Benchmark
+  public long scanDeltas() {
+    return deltas.forEach(new Sum()).sum;
+  }
+
+  @Benchmark
+  public long getList() {
+    long sum = 0;
+    for (int index : probes) {
+      sum += list.get(index);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long getPacked() {
+    long sum = 0;
+    for (int index : probes) {
+      sum += packed.get(index);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long getDeltas() {
+    long sum = 0;
+    for (int index : probes) {
+      sum += deltas.get(index);
+    }
+    return sum;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder().include(B022_PackedList_Scan.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.DoubleXorCompressedList;
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongDeltaOfDeltaList;
+import com.carrotsearch.hppc.procedures.DoubleProcedure;
+import com.carrotsearch.hppc.procedures.LongProcedure;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Appending and scanning a metric time series (timestamps and values) held in plain {@link
+ * LongArrayList} / {@link DoubleArrayList} and in compressed {@link LongDeltaOfDeltaList} / {@link
+ * DoubleXorCompressedList}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class B023_TimeSeries_Compression {
+  @Param({"1000000"})
+  public int size;
+
+  private long[] timestamps;
+  private double[] values;
+
+  private LongArrayList timestampList;
+  private DoubleArrayList valueList;
+  private LongDeltaOfDeltaList timestampDeltas;
+  private DoubleXorCompressedList valueXors;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random rnd = new Random(0xdeadbeef);
+    timestamps = new long[size];
+    values = new double[size];
+    long timestamp = 1_700_000_000_000L;
+    double value = 50;
+    for (int i = 0; i < size; i++) {
+      timestamp += rnd.nextInt(100) == 0 ? 1000 + rnd.nextInt(50) : 1000;
+      if (rnd.nextInt(10) == 0) {
+        value = Math.round(value * 10 + rnd.nextInt(11) - 5) / 10d;
+      }
+      timestamps[i] = timestamp;
+      values[i] = value;
+    }
+
+    timestampList = LongArrayList.from(timestamps);
+    valueList = DoubleArrayList.from(values);
+    timestampDeltas = append();
+    valueXors = new DoubleXorCompressedList();
+    valueXors.add(values, 0, size);
+    valueXors.trimToSize();
+  }
+
+  private LongDeltaOfDeltaList append() {
+    final LongDeltaOfDeltaList list = new LongDeltaOfDeltaList();
+    list.add(timestamps, 0, size);
+    list.trimToSize();
+    return list;
+  }
+
+  private static final class LongSum implements LongProcedure {
+    long sum;
+
+    @Override
+    public void apply(long value) {
+      sum += value;
+    }
+  }
+
+  private static final class DoubleSum implements DoubleProcedure {
+    double sum;
+
+    @Override
+    public void apply(double value) {
+      sum += value;
+    }
+  }
+
+  @Benchmark
+  public LongDeltaOfDeltaList appendTimestamps() {
+    return append();
+  }
+
+  @Benchmark
+  public DoubleXorCompressedList appendValues() {
+    final DoubleXorCompressedList list = new DoubleXorCompressedList();
+    list.add(values, 0, size);
+    return list;
+  }
+
+  @Benchmark
+  public long scanTimestampList() {
+    return timestampList.forEach(new LongSum()).sum;
+  }
+
+  @Benchmark
+  public long scanTimestampDeltas() {
+    return timestampDeltas.forEach(new LongSum()).sum;
+  }
+
+  @Benchmark
+  public double scanValueList() {
+    return valueList.forEach(new DoubleSum()).sum;
+  }
+
+  @Benchmark
+  public double scanValueXors() {
+    return valueXors.forEach(new DoubleSum()).sum;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder().include(B023_TimeSeries_Compression.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Sorting random {@link IntArrayList} and {@link LongArrayList} lists with <code>sort()</code>,
+ * <code>sortRadix()</code>, <code>parallelSort()</code> and the stable <code>sortRadix(payloads)
+ * </code>.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class B024_ArrayList_Sort {
+  @Param({"100000", "10000000"})
+  public int size;
+
+  private int[] intData;
+  private long[] longData;
+
+  private IntArrayList ints;
+  private IntArrayList payloads;
+  private LongArrayList longs;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random rnd = new Random(0xdeadbeef);
+    intData = new int[size];
+    longData = new long[size];
+    for (int i = 0; i < size; i++) {
+      intData[i] = rnd.nextInt();
+      longData[i] = rnd.nextLong();
+    }
+    ints = new IntArrayList(size);
+    payloads = new IntArrayList(size);
+    longs = new LongArrayList(size);
+  }
+
+  @Setup(Level.Invocation)
+  public void reset() {
+    ints.clear();
+    ints.add(intData);
+    longs.clear();
+    longs.add(longData);
+    payloads.clear();
+    for (int i = 0; i < size; i++) {
+      payloads.add(i);
+    }
+  }
+
+  @Benchmark
+  public Object intSort() {
+    return ints.sort();
+  }
+
+  @Benchmark
+  public Object intSortRadix() {
+    return ints.sortRadix();
+  }
+
+  @Benchmark
+  public Object intParallelSort() {
+    return ints.parallelSort();
+  }
+
+  @Benchmark
+  public Object intSortRadixWithPayloads() {
+    return ints.sortRadix(payloads);
+  }
+
+  @Benchmark
+  public Object longSort() {
+    return longs.sort();
+  }
+
+  @Benchmark
+  public Object longSortRadix() {
+    return longs.sortRadix();
+  }
+
+  @Benchmark
+  public Object longParallelSort() {
+    return longs.parallelSort();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder().include(B024_ArrayList_Sort.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
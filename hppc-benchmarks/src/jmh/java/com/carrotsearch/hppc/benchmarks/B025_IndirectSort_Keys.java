@@ -0,0 +1,134 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.benchmarks;
+
+import com.carrotsearch.hppc.sorting.IndirectSort;
+import com.carrotsearch.hppc.sorting.QuickSort;
+import com.carrotsearch.hppc.sorting.RadixSort;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Sorting orders of <code>long</code> and <code>double</code> keys, and co-sorting (keys, values)
+ * arrays: the comparator-based {@link IndirectSort#mergesort} and {@link QuickSort} versus the
+ * key-array entry points of {@link IndirectSort} and {@link RadixSort}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class B025_IndirectSort_Keys {
+  @Param({"100000", "10000000"})
+  public int size;
+
+  private long[] longs;
+  private double[] doubles;
+
+  private long[] keys;
+  private int[] values;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random rnd = new Random(0xdeadbeef);
+    longs = new long[size];
+    doubles = new double[size];
+    for (int i = 0; i < size; i++) {
+      longs[i] = rnd.nextLong();
+      doubles[i] = rnd.nextGaussian();
+    }
+    keys = new long[size];
+    values = new int[size];
+  }
+
+  @Setup(Level.Invocation)
+  public void reset() {
+    System.arraycopy(longs, 0, keys, 0, size);
+    for (int i = 0; i < size; i++) {
+      values[i] = i;
+    }
+  }
+
+  @Benchmark
+  public int[] longOrderComparator() {
+    final long[] longs = this.longs;
+    return IndirectSort.mergesort(0, size, (a, b) -> Long.compare(longs[a], longs[b]));
+  }
+
+  @Benchmark
+  public int[] longOrder() {
+    return IndirectSort.order(longs);
+  }
+
+  @Benchmark
+  public int[] longParallelOrder() {
+    return IndirectSort.parallelOrder(longs);
+  }
+
+  @Benchmark
+  public int[] doubleOrderComparator() {
+    final double[] doubles = this.doubles;
+    return IndirectSort.mergesort(0, size, (a, b) -> Double.compare(doubles[a], doubles[b]));
+  }
+
+  @Benchmark
+  public int[] doubleOrder() {
+    return IndirectSort.order(doubles);
+  }
+
+  @Benchmark
+  public int[] doubleParallelOrder() {
+    return IndirectSort.parallelOrder(doubles);
+  }
+
+  @Benchmark
+  public long[] coSortComparator() {
+    final long[] keys = this.keys;
+    final int[] values = this.values;
+    QuickSort.sort(
+        0,
+        size,
+        (i, j) -> Long.compare(keys[i], keys[j]),
+        (i, j) -> {
+          final long key = keys[i];
+          keys[i] = keys[j];
+          keys[j] = key;
+          final int value = values[i];
+          values[i] = values[j];
+          values[j] = value;
+          return 0;
+        });
+    return keys;
+  }
+
+  @Benchmark
+  public long[] coSortRadix() {
+    RadixSort.sort(keys, values, 0, size);
+    return keys;
+  }
+
+  @Benchmark
+  public long[] coSortParallelRadix() {
+    RadixSort.parallelSort(keys, values, 0, size);
+    return keys;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt =
+        new OptionsBuilder().include(B025_IndirectSort_Keys.class.getSimpleName()).build();
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+/**
+ * Reading and writing bit strings in a <code>long[]</code>. Bits are addressed by a <code>long
+ * </code> position and stored least significant bit first, so a value may span two adjacent
+ * words.
+ */
+final class BitStreamUtil {
+  private BitStreamUtil() {} // no instance
+
+  /**
+   * Writes the lowest <code>bits</code> bits of <code>value</code> at the given position. The
+   * bits at and after the position must be zero.
+   *
+   * @param bits The number of bits to write, between 0 and 64.
+   */
+  static void write(long[] words, long position, long value, int bits) {
+    assert bits >= 0 && bits <= Long.SIZE;
+    if (bits == 0) {
+      return;
+    }
+    value &= mask(bits);
+    final int word = (int) (position >>> 6);
+    final int shift = (int) position & 63;
+    words[word] |= value << shift;
+    if (shift + bits > Long.SIZE) {
+      words[word + 1] |= value >>> (Long.SIZE - shift);
+    }
+  }
+
+  /**
+   * Reads <code>bits</code> bits at the given position.
+   *
+   * @param bits The number of bits to read, between 0 and 64.
+   * @return Returns the bits as an unsigned value.
+   */
+  static long read(long[] words, long position, int bits) {
+    assert bits >= 0 && bits <= Long.SIZE;
+    if (bits == 0) {
+      return 0;
+    }
+    final int word = (int) (position >>> 6);
+    final int shift = (int) position & 63;
+    long value = words[word] >>> shift;
+    if (shift + bits > Long.SIZE) {
+      value |= words[word + 1] << (Long.SIZE - shift);
+    }
+    return value & mask(bits);
+  }
+
+  /** Returns the number of words needed to store the given number of bits. */
+  static int words(long bits) {
+    return Math.toIntExact((bits + Long.SIZE - 1) >>> 6);
+  }
+
+  private static long mask(int bits) {
+    return bits == Long.SIZE ? -1L : (1L << bits) - 1;
+  }
+}
@@ -0,0 +1,735 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import static com.carrotsearch.hppc.Containers.*;
+import static com.carrotsearch.hppc.HashContainers.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A hash map of byte slices to <code>int</code> values, implemented using open addressing with
+ * linear probing for collision resolution.
+ *
+ * <p>Keys are passed as a (<code>byte[]</code> or {@link ByteBuffer}, offset, length) triple and
+ * are never materialized as objects: the bytes of each inserted key are copied to an internal,
+ * append-only byte arena ({@link #keyBytes}) and the slot arrays only hold the key's offset, length
+ * and cached hash. Lookups do not allocate. Removed keys are not reclaimed from the arena until the
+ * map is cleared.
+ *
+ * <p>Keys of a {@link ByteBuffer} are read using absolute positions, the buffer's position, limit
+ * and byte order are not modified. Identical bytes hash and compare identically, regardless of
+ * where they come from.
+ */
+public class ByteSliceIntHashMap implements Preallocable, Cloneable, Accountable {
+  /** A procedure receiving key slices (within the arena) and values. */
+  @FunctionalInterface
+  public interface ByteSliceIntProcedure {
+    void apply(byte[] keyBytes, int keyOffset, int keyLength, int value);
+  }
+
+  /** Reads little-endian ints from byte arrays. */
+  private static final VarHandle INT_LE =
+      MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+  /** Reads little-endian longs from byte arrays. */
+  private static final VarHandle LONG_LE =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  /** Reads little-endian longs from (direct) byte buffers, at absolute indexes. */
+  private static final VarHandle BUFFER_LONG_LE =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  /** Reuse the same strategy instance. */
+  private static final BoundedProportionalArraySizingStrategy DEFAULT_SIZING_STRATEGY =
+      BoundedProportionalArraySizingStrategy.DEFAULT_INSTANCE;
+
+  /** The arena holding key bytes. The arena may be larger than {@link #keyBytesCount}. */
+  public byte[] keyBytes;
+
+  /** The number of bytes used in {@link #keyBytes}. */
+  public int keyBytesCount;
+
+  /** The offset of each slot's key in {@link #keyBytes}. */
+  public int[] keyOffsets;
+
+  /** The length of each slot's key plus one. A zero marks an empty slot. */
+  public int[] keyLengths;
+
+  /** The cached hash of each slot's key (as returned from {@link #hashKey}). */
+  public int[] hashes;
+
+  /** The array holding values. */
+  public int[] values;
+
+  /** The number of stored keys (assigned key slots). */
+  protected int assigned;
+
+  /** Mask for slot scans in {@link #keyLengths}. */
+  protected int mask;
+
+  /** Expand (rehash) slot arrays when {@link #assigned} hits this value. */
+  protected int resizeAt;
+
+  /** The load factor for slot arrays. */
+  protected double loadFactor;
+
+  /** Seed used to ensure the hash iteration order is different from an iteration to another. */
+  protected int iterationSeed;
+
+  /** Key arena resizing strategy. */
+  protected final ArraySizingStrategy resizer;
+
+  /** New instance with sane defaults. */
+  public ByteSliceIntHashMap() {
+    this(DEFAULT_EXPECTED_ELEMENTS);
+  }
+
+  /**
+   * New instance with sane defaults.
+   *
+   * @param expectedElements The expected number of elements guaranteed not to cause a rehash
+   *     (inclusive).
+   */
+  public ByteSliceIntHashMap(int expectedElements) {
+    this(expectedElements, DEFAULT_LOAD_FACTOR, DEFAULT_SIZING_STRATEGY);
+  }
+
+  /**
+   * New instance with the provided defaults.
+   *
+   * @param expectedElements The expected number of elements guaranteed not to cause a rehash
+   *     (inclusive).
+   * @param loadFactor The load factor for internal buffers. Insane load factors (zero, full
+   *     capacity) are rejected by {@link #verifyLoadFactor(double)}.
+   * @param resizer Key arena sizing strategy.
+   */
+  public ByteSliceIntHashMap(int expectedElements, double loadFactor, ArraySizingStrategy resizer) {
+    assert resizer != null;
+    this.resizer = resizer;
+    this.loadFactor = verifyLoadFactor(loadFactor);
+    this.keyBytes = new byte[0];
+    iterationSeed = HashContainers.nextIterationSeed();
+    ensureCapacity(expectedElements);
+  }
+
+  /** Equivalent of {@link #put(byte[], int, int, int)} for the entire array. */
+  public int put(byte[] key, int value) {
+    return put(key, 0, key.length, value);
+  }
+
+  /**
+   * Place a given key slice and value in the map. The bytes of the key are copied if the key is
+   * not already present.
+   *
+   * @return Returns the previous value associated with the key or zero if there was no previous
+   *     value.
+   */
+  public int put(byte[] key, int offset, int length, int value) {
+    int index = indexOf(key, offset, length);
+    if (indexExists(index)) {
+      return indexReplace(index, value);
+    } else {
+      indexInsert(index, key, offset, length, value);
+      return 0;
+    }
+  }
+
+  /** Equivalent of {@link #put(byte[], int, int, int)} for a {@link ByteBuffer} key. */
+  public int put(ByteBuffer key, int offset, int length, int value) {
+    int index = indexOf(key, offset, length);
+    if (indexExists(index)) {
+      return indexReplace(index, value);
+    } else {
+      indexInsert(index, key, offset, length, value);
+      return 0;
+    }
+  }
+
+  /**
+   * Adds <code>incrementValue</code> to any existing value for the given key slice or inserts
+   * <code>incrementValue</code> if the key did not previously exist.
+   *
+   * @return Returns the current value associated with the key (after changes).
+   */
+  public int addTo(byte[] key, int offset, int length, int incrementValue) {
+    int index = indexOf(key, offset, length);
+    if (indexExists(index)) {
+      values[index] += incrementValue;
+      return values[index];
+    } else {
+      indexInsert(index, key, offset, length, incrementValue);
+      return incrementValue;
+    }
+  }
+
+  /** Equivalent of {@link #addTo(byte[], int, int, int)} for a {@link ByteBuffer} key. */
+  public int addTo(ByteBuffer key, int offset, int length, int incrementValue) {
+    int index = indexOf(key, offset, length);
+    if (indexExists(index)) {
+      values[index] += incrementValue;
+      return values[index];
+    } else {
+      indexInsert(index, key, offset, length, incrementValue);
+      return incrementValue;
+    }
+  }
+
+  /** Equivalent of {@link #get(byte[], int, int)} for the entire array. */
+  public int get(byte[] key) {
+    return get(key, 0, key.length);
+  }
+
+  /** @return Returns the value associated with the key slice or zero if there is no such key. */
+  public int get(byte[] key, int offset, int length) {
+    return getOrDefault(key, offset, length, 0);
+  }
+
+  /** Equivalent of {@link #get(byte[], int, int)} for a {@link ByteBuffer} key. */
+  public int get(ByteBuffer key, int offset, int length) {
+    return getOrDefault(key, offset, length, 0);
+  }
+
+  /**
+   * @return Returns the value associated with the key slice or the provided default value if there
+   *     is no such key.
+   */
+  public int getOrDefault(byte[] key, int offset, int length, int defaultValue) {
+    int index = indexOf(key, offset, length);
+    return indexExists(index) ? values[index] : defaultValue;
+  }
+
+  /** Equivalent of {@link #getOrDefault(byte[], int, int, int)} for a {@link ByteBuffer} key. */
+  public int getOrDefault(ByteBuffer key, int offset, int length, int defaultValue) {
+    int index = indexOf(key, offset, length);
+    return indexExists(index) ? values[index] : defaultValue;
+  }
+
+  /** Returns <code>true</code> if this map contains the given key slice. */
+  public boolean containsKey(byte[] key, int offset, int length) {
+    return indexExists(indexOf(key, offset, length));
+  }
+
+  /** Equivalent of {@link #containsKey(byte[], int, int)} for a {@link ByteBuffer} key. */
+  public boolean containsKey(ByteBuffer key, int offset, int length) {
+    return indexExists(indexOf(key, offset, length));
+  }
+
+  /**
+   * Remove the key slice and its associated value from the map. The key's bytes remain in the
+   * arena until the map is cleared.
+   *
+   * @return Returns the value associated with the removed key or zero if there was no such key.
+   */
+  public int remove(byte[] key, int offset, int length) {
+    int index = indexOf(key, offset, length);
+    return indexExists(index) ? indexRemove(index) : 0;
+  }
+
+  /** Equivalent of {@link #remove(byte[], int, int)} for a {@link ByteBuffer} key. */
+  public int remove(ByteBuffer key, int offset, int length) {
+    int index = indexOf(key, offset, length);
+    return indexExists(index) ? indexRemove(index) : 0;
+  }
+
+  /**
+   * Returns a logical "index" of a given key slice that can be used to speed up follow-up value
+   * setters or getters in certain scenarios (conditional logic).
+   *
+   * @return A non-negative value of the logical "index" of the key in the map or a negative value
+   *     if the key did not exist. The negative "index" can be passed to {@link #indexInsert} to
+   *     insert the key without a second lookup.
+   */
+  public int indexOf(byte[] key, int offset, int length) {
+    assert offset >= 0 && length >= 0 && offset + length <= key.length;
+    final int hash = hashKey(key, offset, length);
+    final int[] keyLengths = this.keyLengths;
+    final int[] hashes = this.hashes;
+    final int mask = this.mask;
+    int slot = hash & mask;
+
+    int existingLength;
+    while ((existingLength = keyLengths[slot]) != 0) {
+      if (hashes[slot] == hash && existingLength - 1 == length) {
+        final int start = keyOffsets[slot];
+        if (Arrays.equals(keyBytes, start, start + length, key, offset, offset + length)) {
+          return slot;
+        }
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    return ~slot;
+  }
+
+  /** Equivalent of {@link #indexOf(byte[], int, int)} for a {@link ByteBuffer} key. */
+  public int indexOf(ByteBuffer key, int offset, int length) {
+    if (key.hasArray()) {
+      return indexOf(key.array(), key.arrayOffset() + offset, length);
+    }
+
+    assert offset >= 0 && length >= 0 && offset + length <= key.limit();
+    final int hash = hashKey(key, offset, length);
+    final int[] keyLengths = this.keyLengths;
+    final int[] hashes = this.hashes;
+    final int mask = this.mask;
+    int slot = hash & mask;
+
+    int existingLength;
+    while ((existingLength = keyLengths[slot]) != 0) {
+      if (hashes[slot] == hash
+          && existingLength - 1 == length
+          && equalsArena(keyOffsets[slot], key, offset, length)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    return ~slot;
+  }
+
+  /**
+   * @param index The index of a given key, as returned from {@link #indexOf}.
+   * @return Returns <code>true</code> if the index corresponds to an existing key or false
+   *     otherwise.
+   */
+  public boolean indexExists(int index) {
+    assert index < 0 || index <= mask;
+    return index >= 0;
+  }
+
+  /**
+   * Returns the value associated with an existing key.
+   *
+   * @param index The index of an existing key.
+   */
+  public int indexGet(int index) {
+    assert index >= 0 : "The index must point at an existing key.";
+    assert index <= mask;
+    return values[index];
+  }
+
+  /**
+   * Replaces the value associated with an existing key and returns any previous value stored for
+   * that key.
+   *
+   * @param index The index of an existing key.
+   */
+  public int indexReplace(int index, int newValue) {
+    assert index >= 0 : "The index must point at an existing key.";
+    assert index <= mask;
+
+    int previousValue = values[index];
+    values[index] = newValue;
+    return previousValue;
+  }
+
+  /**
+   * Inserts a key slice for an index that is not present in the map. This method may help in
+   * avoiding double recalculation of the key's hash.
+   *
+   * @param index The index of a previously non-existing key, as returned from {@link #indexOf}.
+   */
+  public void indexInsert(int index, byte[] key, int offset, int length, int value) {
+    assert index < 0 : "The index must not point at an existing key.";
+    final int hash = hashKey(key, offset, length);
+    final int keyOffset = appendKey(length);
+    System.arraycopy(key, offset, keyBytes, keyOffset, length);
+    insertAt(~index, keyOffset, length, hash, value);
+  }
+
+  /** Equivalent of {@link #indexInsert(int, byte[], int, int, int)} for a {@link ByteBuffer}. */
+  public void indexInsert(int index, ByteBuffer key, int offset, int length, int value) {
+    assert index < 0 : "The index must not point at an existing key.";
+    if (key.hasArray()) {
+      indexInsert(index, key.array(), key.arrayOffset() + offset, length, value);
+      return;
+    }
+
+    final int hash = hashKey(key, offset, length);
+    final int keyOffset = appendKey(length);
+    key.duplicate().position(offset).get(keyBytes, keyOffset, length);
+    insertAt(~index, keyOffset, length, hash, value);
+  }
+
+  /**
+   * Removes a key and its associated value, given its index.
+   *
+   * @param index The index of an existing key.
+   * @return Returns the previous value associated with the key.
+   */
+  public int indexRemove(int index) {
+    assert index >= 0 : "The index must point at an existing key.";
+    assert index <= mask;
+
+    int previousValue = values[index];
+    shiftConflictingKeys(index);
+    return previousValue;
+  }
+
+  /** Returns the offset in {@link #keyBytes} of the key at an existing index. */
+  public int indexKeyOffset(int index) {
+    assert index >= 0 && index <= mask && keyLengths[index] != 0;
+    return keyOffsets[index];
+  }
+
+  /** Returns the length of the key at an existing index. */
+  public int indexKeyLength(int index) {
+    assert index >= 0 && index <= mask && keyLengths[index] != 0;
+    return keyLengths[index] - 1;
+  }
+
+  /** Applies a given procedure to all keys and values in this map. */
+  public <T extends ByteSliceIntProcedure> T forEach(T procedure) {
+    final byte[] keyBytes = this.keyBytes;
+    final int[] keyOffsets = this.keyOffsets;
+    final int[] keyLengths = this.keyLengths;
+    final int[] values = this.values;
+
+    int seed = nextIterationSeed();
+    int inc = iterationIncrement(seed);
+    for (int i = 0, mask = this.mask, slot = seed & mask;
+        i <= mask;
+        i++, slot = (slot + inc) & mask) {
+      if (keyLengths[slot] != 0) {
+        procedure.apply(keyBytes, keyOffsets[slot], keyLengths[slot] - 1, values[slot]);
+      }
+    }
+
+    return procedure;
+  }
+
+  /** Returns the number of keys in this map. */
+  public int size() {
+    return assigned;
+  }
+
+  /** Returns <code>true</code> if this map is empty. */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /** Removes all keys and values and resets the key arena (without releasing it). */
+  public void clear() {
+    assigned = 0;
+    keyBytesCount = 0;
+    Arrays.fill(keyLengths, 0);
+  }
+
+  /** Removes all keys and values and releases internal buffers. */
+  public void release() {
+    assigned = 0;
+    keyBytesCount = 0;
+    keyBytes = new byte[0];
+    keyLengths = null;
+    ensureCapacity(DEFAULT_EXPECTED_ELEMENTS);
+  }
+
+  /**
+   * Ensure this container can hold at least the given number of keys (entries) without resizing
+   * its slot arrays.
+   *
+   * @param expectedElements The total number of keys, inclusive.
+   */
+  @Override
+  public void ensureCapacity(int expectedElements) {
+    if (expectedElements > resizeAt || keyLengths == null) {
+      final int[] prevOffsets = this.keyOffsets;
+      final int[] prevLengths = this.keyLengths;
+      final int[] prevHashes = this.hashes;
+      final int[] prevValues = this.values;
+      allocateBuffers(minBufferSize(expectedElements, loadFactor));
+      if (prevLengths != null && !isEmpty()) {
+        rehash(prevOffsets, prevLengths, prevHashes, prevValues);
+      }
+    }
+  }
+
+  /**
+   * Ensure the key arena can hold at least the given number of additional key bytes without
+   * resizing.
+   */
+  public void ensureKeyBytesCapacity(int expectedAdditionalBytes) {
+    final int bufferLen = keyBytes.length;
+    if (keyBytesCount + expectedAdditionalBytes > bufferLen) {
+      final int newSize = resizer.grow(bufferLen, keyBytesCount, expectedAdditionalBytes);
+      assert newSize >= keyBytesCount + expectedAdditionalBytes
+          : "Resizer failed to"
+              + " return sensible new size: "
+              + newSize
+              + " <= "
+              + (keyBytesCount + expectedAdditionalBytes);
+
+      this.keyBytes = Arrays.copyOf(keyBytes, newSize);
+    }
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: keyBytesCount, assigned, mask, resizeAt, iterationSeed
+    // double: loadFactor
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 5 * Integer.BYTES
+        + Double.BYTES
+        + resizer.ramBytesAllocated()
+        + RamUsageEstimator.shallowSizeOfArray(keyBytes)
+        + RamUsageEstimator.shallowSizeOfArray(keyOffsets)
+        + RamUsageEstimator.shallowSizeOfArray(keyLengths)
+        + RamUsageEstimator.shallowSizeOfArray(hashes)
+        + RamUsageEstimator.shallowSizeOfArray(values);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: keyBytesCount, assigned, mask, resizeAt, iterationSeed
+    // double: loadFactor
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 5 * Integer.BYTES
+        + Double.BYTES
+        + resizer.ramBytesUsed()
+        + RamUsageEstimator.shallowUsedSizeOfArray(keyBytes, keyBytesCount)
+        + RamUsageEstimator.shallowUsedSizeOfArray(keyOffsets, size())
+        + RamUsageEstimator.shallowUsedSizeOfArray(keyLengths, size())
+        + RamUsageEstimator.shallowUsedSizeOfArray(hashes, size())
+        + RamUsageEstimator.shallowUsedSizeOfArray(values, size());
+  }
+
+  @Override
+  public ByteSliceIntHashMap clone() {
+    try {
+      ByteSliceIntHashMap cloned = (ByteSliceIntHashMap) super.clone();
+      cloned.keyBytes = keyBytes.clone();
+      cloned.keyOffsets = keyOffsets.clone();
+      cloned.keyLengths = keyLengths.clone();
+      cloned.hashes = hashes.clone();
+      cloned.values = values.clone();
+      cloned.iterationSeed = HashContainers.nextIterationSeed();
+      return cloned;
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Provides the next iteration seed used to build the iteration starting slot and offset
+   * increment. This method does not need to be synchronized, what matters is that each thread gets
+   * a sequence of varying seeds.
+   */
+  protected int nextIterationSeed() {
+    return iterationSeed = BitMixer.mixPhi(iterationSeed);
+  }
+
+  /**
+   * Returns a hash code for the given key slice.
+   *
+   * <p>The output from this function should evenly distribute keys across the entire integer range.
+   * It must be consistent with {@link #hashKey(ByteBuffer, int, int)} for identical bytes.
+   */
+  protected int hashKey(byte[] key, int offset, int length) {
+    int h = length;
+    int i = offset;
+    for (final int end = offset + (length & ~3); i < end; i += 4) {
+      h = mixWord(h, (int) INT_LE.get(key, i));
+    }
+    int tail = 0;
+    for (int shift = 0, end = offset + length; i < end; i++, shift += 8) {
+      tail |= (key[i] & 0xff) << shift;
+    }
+    return BitMixer.mix32(h ^ tail * 0x9e3779b9);
+  }
+
+  /** Equivalent of {@link #hashKey(byte[], int, int)} for a {@link ByteBuffer} key. */
+  protected int hashKey(ByteBuffer key, int offset, int length) {
+    int h = length;
+    int i = offset;
+    for (final int end = offset + (length & ~3); i < end; i += 4) {
+      int word =
+          (key.get(i) & 0xff)
+              | (key.get(i + 1) & 0xff) << 8
+              | (key.get(i + 2) & 0xff) << 16
+              | (key.get(i + 3) & 0xff) << 24;
+      h = mixWord(h, word);
+    }
+    int tail = 0;
+    for (int shift = 0, end = offset + length; i < end; i++, shift += 8) {
+      tail |= (key.get(i) & 0xff) << shift;
+    }
+    return BitMixer.mix32(h ^ tail * 0x9e3779b9);
+  }
+
+  /**
+   * Validate load factor range and return it. Override and suppress if you need insane load
+   * factors.
+   */
+  protected double verifyLoadFactor(double loadFactor) {
+    checkLoadFactor(loadFactor, MIN_LOAD_FACTOR, MAX_LOAD_FACTOR);
+    return loadFactor;
+  }
+
+  /** Rehash from old slot arrays to new slot arrays, reusing cached hashes. */
+  protected void rehash(int[] fromOffsets, int[] fromLengths, int[] fromHashes, int[] fromValues) {
+    assert HashContainers.checkPowerOfTwo(fromLengths.length);
+
+    final int[] keyOffsets = this.keyOffsets;
+    final int[] keyLengths = this.keyLengths;
+    final int[] hashes = this.hashes;
+    final int[] values = this.values;
+    final int mask = this.mask;
+
+    for (int from = fromLengths.length; --from >= 0; ) {
+      if (fromLengths[from] != 0) {
+        int slot = fromHashes[from] & mask;
+        while (keyLengths[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        keyOffsets[slot] = fromOffsets[from];
+        keyLengths[slot] = fromLengths[from];
+        hashes[slot] = fromHashes[from];
+        values[slot] = fromValues[from];
+      }
+    }
+  }
+
+  /**
+   * Allocate new slot arrays. This method attempts to allocate and assign internal buffers
+   * atomically (either allocations succeed or not).
+   */
+  protected void allocateBuffers(int arraySize) {
+    assert Integer.bitCount(arraySize) == 1;
+
+    // Ensure no change is done if we hit an OOM.
+    int[] prevOffsets = this.keyOffsets;
+    int[] prevLengths = this.keyLengths;
+    int[] prevHashes = this.hashes;
+    int[] prevValues = this.values;
+    try {
+      this.keyOffsets = new int[arraySize];
+      this.keyLengths = new int[arraySize];
+      this.hashes = new int[arraySize];
+      this.values = new int[arraySize];
+    } catch (OutOfMemoryError e) {
+      this.keyOffsets = prevOffsets;
+      this.keyLengths = prevLengths;
+      this.hashes = prevHashes;
+      this.values = prevValues;
+      throw new BufferAllocationException(
+          "Not enough memory to allocate buffers for rehashing: %,d -> %,d",
+          e, this.mask + 1, arraySize);
+    }
+
+    this.resizeAt = expandAtCount(arraySize, loadFactor);
+    this.mask = arraySize - 1;
+  }
+
+  /**
+   * Shift all the slot-conflicting keys and values allocated to (and including) <code>slot</code>.
+   */
+  protected void shiftConflictingKeys(int gapSlot) {
+    final int[] keyOffsets = this.keyOffsets;
+    final int[] keyLengths = this.keyLengths;
+    final int[] hashes = this.hashes;
+    final int[] values = this.values;
+    final int mask = this.mask;
+
+    // Perform shifts of conflicting keys to fill in the gap.
+    int distance = 0;
+    while (true) {
+      final int slot = (gapSlot + (++distance)) & mask;
+      if (keyLengths[slot] == 0) {
+        break;
+      }
+
+      final int idealSlot = hashes[slot];
+      final int shift = (slot - idealSlot) & mask;
+      if (shift >= distance) {
+        // Entry at this position was originally at or before the gap slot.
+        // Move the conflict-shifted entry to the gap's position and repeat the procedure
+        // for any entries to the right of the current position, treating it
+        // as the new gap.
+        keyOffsets[gapSlot] = keyOffsets[slot];
+        keyLengths[gapSlot] = keyLengths[slot];
+        hashes[gapSlot] = hashes[slot];
+        values[gapSlot] = values[slot];
+        gapSlot = slot;
+        distance = 0;
+      }
+    }
+
+    // Mark the last found gap slot without a conflict as empty.
+    keyLengths[gapSlot] = 0;
+    values[gapSlot] = 0;
+    assigned--;
+  }
+
+  /** Reserves <code>length</code> bytes at the end of the key arena and returns their offset. */
+  private int appendKey(int length) {
+    ensureKeyBytesCapacity(length);
+    final int keyOffset = keyBytesCount;
+    keyBytesCount += length;
+    return keyOffset;
+  }
+
+  private void insertAt(int slot, int keyOffset, int length, int hash, int value) {
+    assert keyLengths[slot] == 0;
+
+    if (assigned == resizeAt) {
+      // Allocate new slot arrays first, then insert the pending key into the old arrays
+      // (possibly violating the invariant of having at least one empty slot) and rehash.
+      final int[] prevOffsets = this.keyOffsets;
+      final int[] prevLengths = this.keyLengths;
+      final int[] prevHashes = this.hashes;
+      final int[] prevValues = this.values;
+      allocateBuffers(nextBufferSize(mask + 1, size(), loadFactor));
+      assert this.keyLengths.length > prevLengths.length;
+
+      prevOffsets[slot] = keyOffset;
+      prevLengths[slot] = length + 1;
+      prevHashes[slot] = hash;
+      prevValues[slot] = value;
+      rehash(prevOffsets, prevLengths, prevHashes, prevValues);
+    } else {
+      keyOffsets[slot] = keyOffset;
+      keyLengths[slot] = length + 1;
+      hashes[slot] = hash;
+      values[slot] = value;
+    }
+
+    assigned++;
+  }
+
+  private boolean equalsArena(int start, ByteBuffer key, int offset, int length) {
+    final byte[] keyBytes = this.keyBytes;
+    int i = 0;
+    for (final int end = length & ~7; i < end; i += 8) {
+      if ((long) LONG_LE.get(keyBytes, start + i) != (long) BUFFER_LONG_LE.get(key, offset + i)) {
+        return false;
+      }
+    }
+    for (; i < length; i++) {
+      if (keyBytes[start + i] != key.get(offset + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int mixWord(int h, int word) {
+    word *= 0xcc9e2d51;
+    word = Integer.rotateLeft(word, 15);
+    word *= 0x1b873593;
+    h ^= word;
+    h = Integer.rotateLeft(h, 13);
+    return h * 5 + 0xe6546b64;
+  }
+}
@@ -0,0 +1,425 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import com.carrotsearch.hppc.procedures.IntProcedure;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable directed graph in the compressed sparse row (CSR) format: edge targets of all nodes
+ * are stored in a single <code>int[]</code>, grouped by source node, and each node's edges are
+ * delimited by an array of offsets. This takes 4 bytes per edge and 4 bytes per node.
+ *
+ * <p>Edges of a node are iterated without allocations, by edge index:
+ *
+ * <pre>
+ * for (int edge = graph.edgesStart(node), end = graph.edgesEnd(node); edge &lt; end; edge++) {
+ *   int target = graph.target(edge);
+ * }
+ * </pre>
+ *
+ * <p>Edges of each node are kept in the order in which they were given to {@link #fromEdges}.
+ * Undirected graphs should contain both directions of each edge.
+ */
+public final class CsrGraph implements Accountable {
+  /** Minimum number of edges for which {@link #fromEdgesParallel} builds the graph in parallel. */
+  public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /** The maximum number of node ranges placed by separate tasks of {@link #fromEdgesParallel}. */
+  private static final int MAX_NODE_RANGES = 1024;
+
+  /**
+   * Offsets of each node's edges in {@link #targets}. Edges of node <code>n</code> are at <code>
+   * [offsets[n], offsets[n + 1])</code>.
+   */
+  private final int[] offsets;
+
+  /** Edge targets, grouped by source node. */
+  private final int[] targets;
+
+  private CsrGraph(int[] offsets, int[] targets) {
+    this.offsets = offsets;
+    this.targets = targets;
+  }
+
+  /**
+   * Builds a graph from an edge list: edge <code>i</code> leads from node <code>sources.get(i)
+   * </code> to node <code>targets.get(i)</code>.
+   *
+   * @param nodeCount The number of nodes. All node identifiers must be in <code>[0, nodeCount)
+   *     </code>.
+   */
+  public static CsrGraph fromEdges(int nodeCount, IntArrayList sources, IntArrayList targets) {
+    return fromEdgesPartitioned(nodeCount, sources, targets, 1);
+  }
+
+  /**
+   * Builds a graph from an edge list (see {@link #fromEdges}), splitting the edges into chunks
+   * processed in parallel on the common fork-join pool.
+   */
+  public static CsrGraph fromEdgesParallel(
+      int nodeCount, IntArrayList sources, IntArrayList targets) {
+    int chunks =
+        Math.min(sources.size() / PARALLEL_THRESHOLD, Runtime.getRuntime().availableProcessors());
+    return fromEdgesPartitioned(nodeCount, sources, targets, Math.max(1, chunks));
+  }
+
+  /**
+   * Builds a graph with a counting sort of edges by source node.
+   *
+   * <p>With more than one chunk, edges are first grouped by ranges of source nodes: each chunk of
+   * edges counts its edges per node range, prefix sums are computed in (range, chunk) order and
+   * each chunk then writes indexes of its edges at its own positions. Each node range then places
+   * its own edges, in parallel with other ranges. Scratch memory is an index per edge and a count
+   * per chunk and node range; edges of a node keep their input order.
+   */
+  static CsrGraph fromEdgesPartitioned(
+      int nodeCount, IntArrayList sources, IntArrayList targets, int chunks) {
+    if (nodeCount < 0) {
+      throw new IllegalArgumentException("Node count must be >= 0: " + nodeCount);
+    }
+    final int edgeCount = sources.size();
+    if (targets.size() != edgeCount) {
+      throw new IllegalArgumentException(
+          "Sources and targets must have an identical size: "
+              + edgeCount
+              + " != "
+              + targets.size());
+    }
+
+    final int[] src = sources.buffer;
+    final int[] dst = targets.buffer;
+    final int chunkCount = Math.max(1, Math.min(chunks, edgeCount));
+    final int[] offsets;
+    final int[] edges;
+    final int[] order;
+    try {
+      offsets = new int[nodeCount + 1];
+      edges = new int[edgeCount];
+      order = chunkCount > 1 ? new int[edgeCount] : null;
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException(
+          "Not enough memory to allocate graph buffers: %,d nodes, %,d edges",
+          e,
+          nodeCount,
+          edgeCount);
+    }
+
+    if (order == null) {
+      for (int e = 0; e < edgeCount; e++) {
+        checkNode(src[e], nodeCount);
+        checkNode(dst[e], nodeCount);
+      }
+      placeEdges(src, dst, null, 0, edgeCount, 0, nodeCount, offsets, edges);
+    } else {
+      // Node ranges of 2^rangeShift nodes.
+      final int maxRanges = Math.min(MAX_NODE_RANGES, 4 * chunkCount);
+      int shift = 0;
+      while (((nodeCount - 1L) >>> shift) + 1 > maxRanges) {
+        shift++;
+      }
+      final int rangeShift = shift;
+      final int ranges = nodeCount == 0 ? 0 : ((nodeCount - 1) >>> rangeShift) + 1;
+
+      // Validate edges and count edges of each node range, per chunk.
+      final int[][] cursors = new int[chunkCount][];
+      forEachChunk(
+          chunkCount,
+          chunk -> {
+            final int[] counts = new int[ranges];
+            for (int e = chunkStart(edgeCount, chunkCount, chunk),
+                    end = chunkStart(edgeCount, chunkCount, chunk + 1);
+                e < end;
+                e++) {
+              final int s = src[e];
+              checkNode(s, nodeCount);
+              checkNode(dst[e], nodeCount);
+              counts[s >>> rangeShift]++;
+            }
+            cursors[chunk] = counts;
+          });
+
+      // Prefix sums, turning counts into each chunk's first position in a node range.
+      final int[] rangeStarts = new int[ranges + 1];
+      int offset = 0;
+      for (int range = 0; range < ranges; range++) {
+        rangeStarts[range] = offset;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+          final int count = cursors[chunk][range];
+          cursors[chunk][range] = offset;
+          offset += count;
+        }
+      }
+      rangeStarts[ranges] = offset;
+
+      // Group edges by node range (stable with respect to the input order).
+      forEachChunk(
+          chunkCount,
+          chunk -> {
+            final int[] chunkCursors = cursors[chunk];
+            for (int e = chunkStart(edgeCount, chunkCount, chunk),
+                    end = chunkStart(edgeCount, chunkCount, chunk + 1);
+                e < end;
+                e++) {
+              order[chunkCursors[src[e] >>> rangeShift]++] = e;
+            }
+          });
+
+      // Place edges of each node range.
+      IntStream.range(0, ranges)
+          .parallel()
+          .forEach(
+              range ->
+                  placeEdges(
+                      src,
+                      dst,
+                      order,
+                      rangeStarts[range],
+                      rangeStarts[range + 1],
+                      range << rangeShift,
+                      (int) Math.min(nodeCount, (range + 1L) << rangeShift),
+                      offsets,
+                      edges));
+    }
+    offsets[nodeCount] = edgeCount;
+
+    return new CsrGraph(offsets, edges);
+  }
+
+  /**
+   * Places edges <code>[from, to)</code> (indexes in <code>order</code>, or edge indexes if <code>
+   * order</code> is null), all with sources in <code>[nodeFrom, nodeTo)</code>, at positions <code>
+   * [from, to)</code> of <code>edges</code> and sets offsets of the source nodes.
+   */
+  private static void placeEdges(
+      int[] src,
+      int[] dst,
+      int[] order,
+      int from,
+      int to,
+      int nodeFrom,
+      int nodeTo,
+      int[] offsets,
+      int[] edges) {
+    // Out-degrees.
+    for (int i = from; i < to; i++) {
+      offsets[src[order == null ? i : order[i]]]++;
+    }
+
+    // Prefix sums, turning out-degrees into the end of each node's edges.
+    int end = from;
+    for (int n = nodeFrom; n < nodeTo; n++) {
+      end += offsets[n];
+      offsets[n] = end;
+    }
+
+    // Place edges back to front (stable), turning ends into starts.
+    for (int i = to; --i >= from; ) {
+      final int e = order == null ? i : order[i];
+      edges[--offsets[src[e]]] = dst[e];
+    }
+  }
+
+  /** @return Returns the number of nodes. */
+  public int nodeCount() {
+    return offsets.length - 1;
+  }
+
+  /** @return Returns the number of edges. */
+  public int edgeCount() {
+    return targets.length;
+  }
+
+  /** @return Returns the number of outgoing edges of a given node. */
+  public int degree(int node) {
+    return offsets[node + 1] - offsets[node];
+  }
+
+  /** @return Returns the index of the first outgoing edge of a given node. */
+  public int edgesStart(int node) {
+    return offsets[node];
+  }
+
+  /** @return Returns the index following the last outgoing edge of a given node. */
+  public int edgesEnd(int node) {
+    return offsets[node + 1];
+  }
+
+  /** @return Returns the target node of the edge with the given index. */
+  public int target(int edge) {
+    return targets[edge];
+  }
+
+  /**
+   * Applies a given procedure to all targets of a node's outgoing edges.
+   *
+   * @return Returns the argument (any subclass of {@link IntProcedure}.
+   */
+  public <T extends IntProcedure> T forEachNeighbor(int node, T procedure) {
+    final int[] targets = this.targets;
+    for (int edge = offsets[node], end = offsets[node + 1]; edge < end; edge++) {
+      procedure.apply(targets[edge]);
+    }
+    return procedure;
+  }
+
+  /**
+   * Visits nodes reachable from the source node in breadth-first order. Nodes already set in the
+   * <code>visited</code> set are not visited (nor traversed); visited nodes are added to the set.
+   *
+   * @param visited A set with a capacity for all nodes, e.g. <code>new BitSet(nodeCount())</code>.
+   * @return Returns the number of visited nodes.
+   */
+  public int bfs(int source, BitSet visited, IntProcedure visitor) {
+    checkNode(source, nodeCount());
+    checkCapacity(visited);
+    if (visited.getAndSet(source)) {
+      return 0;
+    }
+
+    final int[] offsets = this.offsets;
+    final int[] targets = this.targets;
+    final IntArrayDeque frontier = new IntArrayDeque();
+    frontier.addLast(source);
+    int count = 0;
+    while (!frontier.isEmpty()) {
+      final int node = frontier.removeFirst();
+      visitor.apply(node);
+      count++;
+      for (int edge = offsets[node], end = offsets[node + 1]; edge < end; edge++) {
+        final int target = targets[edge];
+        if (!visited.getAndSet(target)) {
+          frontier.addLast(target);
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Visits nodes reachable from the source node in depth-first order (pre-order; neighbors are
+   * traversed in the order of edges). Nodes already set in the <code>visited</code> set are not
+   * visited (nor traversed); visited nodes are added to the set.
+   *
+   * @param visited A set with a capacity for all nodes, e.g. <code>new BitSet(nodeCount())</code>.
+   * @return Returns the number of visited nodes.
+   */
+  public int dfs(int source, BitSet visited, IntProcedure visitor) {
+    checkNode(source, nodeCount());
+    checkCapacity(visited);
+    if (visited.getAndSet(source)) {
+      return 0;
+    }
+
+    final int[] offsets = this.offsets;
+    final int[] targets = this.targets;
+    // Pairs of (node, next edge to traverse), so that the stack is bounded by the depth.
+    final IntArrayDeque stack = new IntArrayDeque();
+    visitor.apply(source);
+    stack.addLast(source);
+    stack.addLast(offsets[source]);
+    int count = 1;
+    while (!stack.isEmpty()) {
+      final int edge = stack.removeLast();
+      final int node = stack.getLast();
+      if (edge == offsets[node + 1]) {
+        stack.removeLast();
+        continue;
+      }
+
+      stack.addLast(edge + 1);
+      final int target = targets[edge];
+      if (!visited.getAndSet(target)) {
+        visitor.apply(target);
+        count++;
+        stack.addLast(target);
+        stack.addLast(offsets[target]);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Computes the number of edges on the shortest paths from the source node to all nodes.
+   *
+   * @return Returns an array of distances, indexed by node, with <code>-1</code> for nodes not
+   *     reachable from the source node.
+   */
+  public int[] bfsDistances(int source) {
+    checkNode(source, nodeCount());
+    final int[] offsets = this.offsets;
+    final int[] targets = this.targets;
+    final int[] distances = new int[nodeCount()];
+    Arrays.fill(distances, -1);
+    distances[source] = 0;
+
+    final IntArrayDeque frontier = new IntArrayDeque();
+    frontier.addLast(source);
+    while (!frontier.isEmpty()) {
+      final int node = frontier.removeFirst();
+      final int distance = distances[node] + 1;
+      for (int edge = offsets[node], end = offsets[node + 1]; edge < end; edge++) {
+        final int target = targets[edge];
+        if (distances[target] < 0) {
+          distances[target] = distance;
+          frontier.addLast(target);
+        }
+      }
+    }
+    return distances;
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + RamUsageEstimator.shallowSizeOfArray(offsets)
+        + RamUsageEstimator.shallowSizeOfArray(targets);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return ramBytesAllocated();
+  }
+
+  @Override
+  public String toString() {
+    return "CsrGraph[nodes=" + nodeCount() + ", edges=" + edgeCount() + "]";
+  }
+
+  /** Runs a task for each chunk, in parallel if there is more than one chunk. */
+  private static void forEachChunk(int chunks, IntConsumer task) {
+    if (chunks <= 1) {
+      task.accept(0);
+    } else {
+      IntStream.range(0, chunks).parallel().forEach(task);
+    }
+  }
+
+  /** @return Returns the first index of a given chunk of equal chunks of a range. */
+  private static int chunkStart(int length, int chunks, int chunk) {
+    return (int) ((long) length * chunk / chunks);
+  }
+
+  private void checkCapacity(BitSet visited) {
+    if (visited.capacity() < nodeCount()) {
+      throw new IllegalArgumentException(
+          "Visited set capacity too small: " + visited.capacity() + " < " + nodeCount());
+    }
+  }
+
+  private static void checkNode(int node, int nodeCount) {
+    if (node < 0 || node >= nodeCount) {
+      throw new IllegalArgumentException("Node must be in [0, " + nodeCount + "): " + node);
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import java.util.Arrays;
+
+/**
+ * A disjoint set (union-find) structure over dense <code>int</code> elements <code>
+ * [0, size())</code>, backed by flat arrays of parents and ranks.
+ *
+ * <p>{@link #union} links by rank and {@link #find} compresses paths (with path halving: each
+ * visited element is re-linked to its grandparent in a single pass), so any sequence of operations
+ * runs in nearly constant amortized time per operation.
+ *
+ * @see IntDisjointSet
+ */
+public class DisjointSet implements Preallocable, Accountable {
+  /** The parent of each element; roots are their own parents. */
+  public int[] parent;
+
+  /** The rank (an upper bound of the tree height) of each root. Ranks never exceed 31. */
+  public byte[] rank;
+
+  /** The number of elements. */
+  protected int size;
+
+  /** The number of disjoint sets (components). */
+  protected int componentCount;
+
+  /** Buffer resizing strategy. */
+  protected final ArraySizingStrategy resizer;
+
+  /** New instance with no elements. */
+  public DisjointSet() {
+    this(0);
+  }
+
+  /**
+   * New instance with the given number of elements, each in its own set.
+   *
+   * @param size The initial number of elements.
+   */
+  public DisjointSet(int size) {
+    this(size, new BoundedProportionalArraySizingStrategy());
+  }
+
+  /**
+   * New instance with the given number of elements, each in its own set.
+   *
+   * @param size The initial number of elements.
+   * @param resizer Underlying buffer sizing strategy.
+   */
+  public DisjointSet(int size, ArraySizingStrategy resizer) {
+    assert resizer != null;
+    if (size < 0) {
+      throw new IllegalArgumentException("Size must be >= 0: " + size);
+    }
+    this.resizer = resizer;
+    this.parent = new int[size];
+    this.rank = new byte[size];
+    for (int i = 0; i < size; i++) {
+      parent[i] = i;
+    }
+    this.size = size;
+    this.componentCount = size;
+  }
+
+  /**
+   * Adds a new element, in its own set.
+   *
+   * @return Returns the new element.
+   */
+  public int add() {
+    ensureBufferSpace(1);
+    final int element = size++;
+    parent[element] = element;
+    rank[element] = 0;
+    componentCount++;
+    return element;
+  }
+
+  /** @return Returns the representative (root) element of the set the given element belongs to. */
+  public int find(int element) {
+    assert element >= 0 && element < size
+        : "Element " + element + " out of bounds [0, " + size + ").";
+    final int[] parent = this.parent;
+    int p;
+    while ((p = parent[element]) != element) {
+      final int grandparent = parent[p];
+      parent[element] = grandparent;
+      element = grandparent;
+    }
+    return element;
+  }
+
+  /**
+   * Merges the sets two elements belong to.
+   *
+   * @return Returns <code>true</code> if the sets were merged, <code>false</code> if both elements
+   *     already belonged to the same set.
+   */
+  public boolean union(int a, int b) {
+    int rootA = find(a);
+    int rootB = find(b);
+    if (rootA == rootB) {
+      return false;
+    }
+
+    final byte[] rank = this.rank;
+    if (rank[rootA] < rank[rootB]) {
+      int tmp = rootA;
+      rootA = rootB;
+      rootB = tmp;
+    } else if (rank[rootA] == rank[rootB]) {
+      rank[rootA]++;
+    }
+    parent[rootB] = rootA;
+    componentCount--;
+    return true;
+  }
+
+  /** @return Returns <code>true</code> if both elements belong to the same set. */
+  public boolean connected(int a, int b) {
+    return find(a) == find(b);
+  }
+
+  /**
+   * Merges the sets of all pairs of elements <code>(first.get(i), second.get(i))</code>.
+   *
+   * @return Returns the number of merged sets.
+   */
+  public int unionAll(IntArrayList first, IntArrayList second) {
+    final int pairs = first.size();
+    if (second.size() != pairs) {
+      throw new IllegalArgumentException(
+          "Both lists must have an identical size: " + pairs + " != " + second.size());
+    }
+
+    final int[] a = first.buffer;
+    final int[] b = second.buffer;
+    int merges = 0;
+    for (int i = 0; i < pairs; i++) {
+      if (union(a[i], b[i])) {
+        merges++;
+      }
+    }
+    return merges;
+  }
+
+  /**
+   * Appends the component label of each element (in element order) to the target list. Labels are
+   * dense, <code>[0, componentCount())</code>, assigned in the order of each component's first
+   * element.
+   *
+   * @return Returns the number of components (labels).
+   */
+  public int labels(IntArrayList target) {
+    final int size = this.size;
+    final int[] labelOfRoot = new int[size];
+    Arrays.fill(labelOfRoot, -1);
+
+    target.ensureCapacity(target.size() + size);
+    int labels = 0;
+    for (int element = 0; element < size; element++) {
+      final int root = find(element);
+      if (labelOfRoot[root] < 0) {
+        labelOfRoot[root] = labels++;
+      }
+      target.add(labelOfRoot[root]);
+    }
+    return labels;
+  }
+
+  /** @return Returns the number of elements. */
+  public int size() {
+    return size;
+  }
+
+  /** @return Returns the number of disjoint sets. */
+  public int componentCount() {
+    return componentCount;
+  }
+
+  /** Removes all elements. */
+  public void clear() {
+    size = 0;
+    componentCount = 0;
+  }
+
+  /** Ensure this container can hold at least the given number of elements without resizing. */
+  @Override
+  public void ensureCapacity(int expectedElements) {
+    if (expectedElements > parent.length) {
+      ensureBufferSpace(expectedElements - size);
+    }
+  }
+
+  /** Ensures the internal buffers have enough space for <code>expectedAdditions</code>. */
+  protected void ensureBufferSpace(int expectedAdditions) {
+    final int bufferLen = parent.length;
+    if (size + expectedAdditions > bufferLen) {
+      final int newSize = resizer.grow(bufferLen, size, expectedAdditions);
+      assert newSize >= size + expectedAdditions
+          : "Resizer failed to return sensible new size: "
+              + newSize
+              + " <= "
+              + (size + expectedAdditions);
+
+      try {
+        final int[] newParent = Arrays.copyOf(parent, newSize);
+        final byte[] newRank = Arrays.copyOf(rank, newSize);
+        this.parent = newParent;
+        this.rank = newRank;
+      } catch (OutOfMemoryError e) {
+        throw new BufferAllocationException(
+            "Not enough memory to allocate buffers to grow from %,d -> %,d elements",
+            e,
+            bufferLen,
+            newSize);
+      }
+    }
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: size, componentCount
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + 2 * Integer.BYTES
+        + resizer.ramBytesAllocated()
+        + RamUsageEstimator.shallowSizeOfArray(parent)
+        + RamUsageEstimator.shallowSizeOfArray(rank);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: size, componentCount
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + 2 * Integer.BYTES
+        + resizer.ramBytesUsed()
+        + RamUsageEstimator.shallowUsedSizeOfArray(parent, size)
+        + RamUsageEstimator.shallowUsedSizeOfArray(rank, size);
+  }
+
+  @Override
+  public String toString() {
+    return "DisjointSet[size=" + size + ", components=" + componentCount + "]";
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+/**
+ * Custom hash code and equality for keys of {@link ObjectCustomHashSet} and
+ * <code>ObjectXxxCustomHashMap</code> containers. Allows using arrays (for example <code>char[]
+ * </code> or <code>int[]</code>) or other objects with non-standard equality as keys without
+ * wrapping them.
+ *
+ * <p>The strategy is never called with <code>null</code> keys (these are handled separately by
+ * containers). Keep a single strategy implementation per call site so that the JIT can inline it.
+ *
+ * @param <T> The key type.
+ */
+public interface HashingStrategy<T> {
+  /**
+   * Returns the hash code of a given (non-null) object. Objects equal according to {@link
+   * #equals(Object, Object)} must have identical hash codes.
+   */
+  int computeHashCode(T object);
+
+  /** Compares two (non-null) objects for equality. */
+  boolean equals(T o1, T o2);
+}
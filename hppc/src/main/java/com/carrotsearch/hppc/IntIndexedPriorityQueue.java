@@ -0,0 +1,290 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import com.carrotsearch.hppc.comparators.IntComparator;
+import java.util.Arrays;
+
+/**
+ * An indexed (indirect) priority queue of <code>int</code> identifiers, backed by a d-ary min-heap.
+ *
+ * <p>The queue holds distinct, non-negative identifiers (for example graph nodes) and orders them
+ * with an {@link IntComparator} comparing identifiers, typically by looking up their priorities in
+ * an array kept by the caller. The position of each identifier in the heap is tracked, so after the
+ * caller changes the priority of a queued identifier the heap can be repaired in logarithmic time
+ * with {@link #update(int)} (or {@link #decreaseKey(int)} if the priority decreased), without
+ * boxing or stale duplicate entries.
+ *
+ * <pre>
+ * double[] distance = ...;
+ * IntIndexedPriorityQueue queue =
+ *     new IntIndexedPriorityQueue(nodes, (a, b) -&gt; Double.compare(distance[a], distance[b]));
+ * ...
+ * distance[node] = newDistance;
+ * if (queue.contains(node)) {
+ *   queue.decreaseKey(node);
+ * } else {
+ *   queue.add(node);
+ * }
+ * </pre>
+ *
+ * @see IntHeapPriorityQueue
+ */
+public class IntIndexedPriorityQueue implements Accountable {
+  /** The default arity of the heap. */
+  public static final int DEFAULT_ARITY = 4;
+
+  /** Position of identifiers not present in the queue. */
+  private static final int ABSENT = -1;
+
+  /**
+   * The heap of identifiers. Children of the node at index <code>i</code> are at indices <code>
+   * [i * arity + 1, i * arity + arity]</code>.
+   */
+  public int[] heap;
+
+  /** The index of each identifier in {@link #heap} or <code>-1</code> if it is not present. */
+  public int[] positions;
+
+  /** The number of identifiers in the queue. */
+  protected int size;
+
+  /** The comparator defining the order of identifiers. */
+  protected final IntComparator comparator;
+
+  /** The arity of the heap. */
+  protected final int arity;
+
+  /**
+   * New instance with the default arity.
+   *
+   * @param expectedIds The expected range of identifiers, <code>[0, expectedIds)</code>. Larger
+   *     identifiers grow the queue on demand.
+   * @param comparator The comparator defining the order of identifiers.
+   */
+  public IntIndexedPriorityQueue(int expectedIds, IntComparator comparator) {
+    this(expectedIds, comparator, DEFAULT_ARITY);
+  }
+
+  /**
+   * New instance.
+   *
+   * @param expectedIds The expected range of identifiers, <code>[0, expectedIds)</code>. Larger
+   *     identifiers grow the queue on demand.
+   * @param comparator The comparator defining the order of identifiers.
+   * @param arity The number of children of each node of the heap, at least <code>2</code>.
+   */
+  public IntIndexedPriorityQueue(int expectedIds, IntComparator comparator, int arity) {
+    assert comparator != null;
+    if (arity < 2) {
+      throw new IllegalArgumentException("Arity must be >= 2: " + arity);
+    }
+    if (expectedIds < 0) {
+      throw new IllegalArgumentException("Expected identifiers must be >= 0: " + expectedIds);
+    }
+    this.comparator = comparator;
+    this.arity = arity;
+    this.heap = new int[expectedIds];
+    this.positions = new int[expectedIds];
+    Arrays.fill(positions, ABSENT);
+  }
+
+  /**
+   * Adds an identifier to the queue.
+   *
+   * @throws IllegalArgumentException If the identifier is negative or already present.
+   */
+  public void add(int id) {
+    if (id < 0) {
+      throw new IllegalArgumentException("Identifiers must be >= 0: " + id);
+    }
+    if (id >= positions.length) {
+      grow(id + 1);
+    } else if (positions[id] != ABSENT) {
+      throw new IllegalArgumentException("Identifier already present: " + id);
+    }
+    siftUp(size++, id);
+  }
+
+  /** @return Returns <code>true</code> if the identifier is present in the queue. */
+  public boolean contains(int id) {
+    return id >= 0 && id < positions.length && positions[id] != ABSENT;
+  }
+
+  /** @return Returns the top (smallest) identifier. The queue must not be empty. */
+  public int top() {
+    assert size > 0 : "The queue is empty.";
+    return heap[0];
+  }
+
+  /** Removes and returns the top (smallest) identifier. The queue must not be empty. */
+  public int removeTop() {
+    assert size > 0 : "The queue is empty.";
+    final int top = heap[0];
+    removeAt(0);
+    return top;
+  }
+
+  /**
+   * Removes an identifier from the queue.
+   *
+   * @return Returns <code>true</code> if the identifier was present.
+   */
+  public boolean remove(int id) {
+    if (!contains(id)) {
+      return false;
+    }
+    removeAt(positions[id]);
+    return true;
+  }
+
+  /**
+   * Restores the order of the queue after the priority of a queued identifier decreased (moved
+   * toward the top). Cheaper than {@link #update(int)}.
+   */
+  public void decreaseKey(int id) {
+    assert contains(id) : "Identifier not present: " + id;
+    siftUp(positions[id], id);
+  }
+
+  /** Restores the order of the queue after the priority of a queued identifier changed. */
+  public void update(int id) {
+    assert contains(id) : "Identifier not present: " + id;
+    final int index = positions[id];
+    siftUp(index, id);
+    if (positions[id] == index) {
+      siftDown(index, id);
+    }
+  }
+
+  /** @return Returns the number of identifiers in the queue. */
+  public int size() {
+    return size;
+  }
+
+  /** @return Returns <code>true</code> if the queue is empty. */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Removes all identifiers from the queue. */
+  public void clear() {
+    final int[] heap = this.heap;
+    final int[] positions = this.positions;
+    for (int i = 0; i < size; i++) {
+      positions[heap[i]] = ABSENT;
+    }
+    size = 0;
+  }
+
+  private void removeAt(int index) {
+    final int removed = heap[index];
+    positions[removed] = ABSENT;
+    final int last = heap[--size];
+    if (index < size) {
+      siftUp(index, last);
+      if (positions[last] == index) {
+        siftDown(index, last);
+      }
+    }
+  }
+
+  /** Moves an identifier up from the given index while it is smaller than its parent. */
+  private void siftUp(int index, int id) {
+    final int[] heap = this.heap;
+    final int[] positions = this.positions;
+    final int arity = this.arity;
+    while (index > 0) {
+      final int parent = (index - 1) / arity;
+      final int p = heap[parent];
+      if (comparator.compare(id, p) >= 0) {
+        break;
+      }
+      heap[index] = p;
+      positions[p] = index;
+      index = parent;
+    }
+    heap[index] = id;
+    positions[id] = index;
+  }
+
+  /**
+   * Moves an identifier down from the given index until none of its children is smaller, then
+   * stores it.
+   */
+  private void siftDown(int index, int id) {
+    final int[] heap = this.heap;
+    final int[] positions = this.positions;
+    final int arity = this.arity;
+    final int size = this.size;
+    int child;
+    while ((child = index * arity + 1) < size) {
+      // Find the smallest child.
+      int smallest = child;
+      int s = heap[child];
+      for (int last = Math.min(child + arity, size); ++child < last; ) {
+        final int c = heap[child];
+        if (comparator.compare(c, s) < 0) {
+          smallest = child;
+          s = c;
+        }
+      }
+      if (comparator.compare(s, id) >= 0) {
+        break;
+      }
+      heap[index] = s;
+      positions[s] = index;
+      index = smallest;
+    }
+    heap[index] = id;
+    positions[id] = index;
+  }
+
+  private void grow(int minIds) {
+    final int oldLength = positions.length;
+    final int newLength = Math.max(minIds, oldLength + (oldLength >>> 1));
+    try {
+      this.heap = Arrays.copyOf(heap, newLength);
+      this.positions = Arrays.copyOf(positions, newLength);
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException(
+          "Not enough memory to allocate buffers to grow from %,d -> %,d elements",
+          e,
+          oldLength,
+          newLength);
+    }
+    Arrays.fill(positions, oldLength, newLength, ABSENT);
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: size, arity
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + 2 * Integer.BYTES
+        + RamUsageEstimator.shallowSizeOfArray(heap)
+        + RamUsageEstimator.shallowSizeOfArray(positions);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: size, arity
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + 2 * Integer.BYTES
+        + RamUsageEstimator.shallowUsedSizeOfArray(heap, size)
+        + RamUsageEstimator.shallowSizeOfArray(positions);
+  }
+
+  @Override
+  public String toString() {
+    return "IndexedPriorityQueue[size=" + size + ", arity=" + arity + "]";
+  }
+}
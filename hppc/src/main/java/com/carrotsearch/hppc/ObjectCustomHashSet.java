@@ -0,0 +1,97 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import static com.carrotsearch.hppc.Containers.*;
+import static com.carrotsearch.hppc.HashContainers.*;
+
+/** A hash set with element hash codes and equality provided by a {@link HashingStrategy}. */
+public class ObjectCustomHashSet<KType> extends ObjectHashSet<KType> {
+  /** Hashing strategy for keys. */
+  protected final HashingStrategy<? super KType> strategy;
+
+  /** New instance with sane defaults. */
+  public ObjectCustomHashSet(HashingStrategy<? super KType> strategy) {
+    this(DEFAULT_EXPECTED_ELEMENTS, DEFAULT_LOAD_FACTOR, strategy);
+  }
+
+  /** New instance with sane defaults. */
+  public ObjectCustomHashSet(int expectedElements, HashingStrategy<? super KType> strategy) {
+    this(expectedElements, DEFAULT_LOAD_FACTOR, strategy);
+  }
+
+  /**
+   * New instance with the provided defaults.
+   *
+   * @param expectedElements The expected number of elements guaranteed not to cause a rehash
+   *     (inclusive).
+   * @param loadFactor The load factor for internal buffers. Insane load factors (zero, full
+   *     capacity) are rejected by {@link #verifyLoadFactor(double)}.
+   * @param strategy The hashing strategy for keys.
+   */
+  public ObjectCustomHashSet(
+      int expectedElements, double loadFactor, HashingStrategy<? super KType> strategy) {
+    super(expectedElements, loadFactor);
+    if (strategy == null) {
+      throw new IllegalArgumentException("Hashing strategy must not be null.");
+    }
+    this.strategy = strategy;
+  }
+
+  /** New instance copying elements from another {@link ObjectContainer}. */
+  public ObjectCustomHashSet(
+      ObjectContainer<? extends KType> container, HashingStrategy<? super KType> strategy) {
+    this(container.size(), strategy);
+    addAll(container);
+  }
+
+  /** Returns the hashing strategy used by this set. */
+  public HashingStrategy<? super KType> strategy() {
+    return strategy;
+  }
+
+  @Override
+  protected int hashKey(KType key) {
+    assert key != null; // Handled as a special case (empty slot marker).
+    return BitMixer.mixPhi(strategy.computeHashCode(key));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected boolean equals(Object v1, Object v2) {
+    return strategy.equals((KType) v1, (KType) v2);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = hasEmptyKey ? 0xDEADBEEF : 0;
+    final Object[] keys = this.keys;
+    for (int slot = mask; slot >= 0; slot--) {
+      @SuppressWarnings("unchecked")
+      KType existing = (KType) keys[slot];
+      if (existing != null) {
+        h += BitMixer.mix(strategy.computeHashCode(existing));
+      }
+    }
+    return h;
+  }
+
+  /**
+   * Create a set from a variable number of arguments or an array of <code>KType</code>. The
+   * elements are copied from the argument to the internal buffer.
+   */
+  @SafeVarargs
+  public static <KType> ObjectCustomHashSet<KType> from(
+      HashingStrategy<? super KType> strategy, KType... elements) {
+    final ObjectCustomHashSet<KType> set = new ObjectCustomHashSet<>(elements.length, strategy);
+    set.addAll(elements);
+    return set;
+  }
+}
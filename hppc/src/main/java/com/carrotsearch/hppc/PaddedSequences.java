@@ -0,0 +1,77 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The producer and consumer sequences of concurrent, array-backed queues. Each sequence (with a
+ * cached copy of the other side's sequence, private to its own side) is padded to occupy its own
+ * pair of cache lines, so producers and consumers do not falsely share cache lines with each other
+ * or with the queue's other fields.
+ *
+ * <p>Padding relies on superclass fields being laid out before subclass fields, hence the chain of
+ * classes in this file. The sequences are accessed with the {@link VarHandle}s declared here.
+ * Multi-producer (or multi-consumer) queues advance them with compare-and-set and do not use the
+ * cached copies. The work-stealing deque stores its owner's (bottom) index in the producer sequence
+ * and the thieves' (top) index in the consumer sequence.
+ *
+ * @see KTypeSpscRingBuffer
+ * @see KTypeMpmcQueue
+ * @see KTypeWorkStealingDeque
+ */
+abstract class PaddedSequences extends PaddedSequencesPad2 {
+  /** Handle of {@link #producerSequence}. */
+  static final VarHandle PRODUCER;
+
+  /** Handle of {@link #consumerSequence}. */
+  static final VarHandle CONSUMER;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      PRODUCER =
+          lookup.findVarHandle(PaddedSequencesProducer.class, "producerSequence", long.class);
+      CONSUMER =
+          lookup.findVarHandle(PaddedSequencesConsumer.class, "consumerSequence", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+}
+
+abstract class PaddedSequencesPad0 {
+  long p00, p01, p02, p03, p04, p05, p06, p07, p08, p09, p10, p11, p12, p13, p14, p15;
+}
+
+abstract class PaddedSequencesProducer extends PaddedSequencesPad0 {
+  /** The sequence of the next element to be added. */
+  long producerSequence;
+
+  /** The producer's (possibly stale) copy of {@link #consumerSequence}. */
+  long consumerSequenceCache;
+}
+
+abstract class PaddedSequencesPad1 extends PaddedSequencesProducer {
+  long p00, p01, p02, p03, p04, p05, p06, p07, p08, p09, p10, p11, p12, p13, p14, p15;
+}
+
+abstract class PaddedSequencesConsumer extends PaddedSequencesPad1 {
+  /** The sequence of the next element to be removed. */
+  long consumerSequence;
+
+  /** The consumer's (possibly stale) copy of {@link #producerSequence}. */
+  long producerSequenceCache;
+}
+
+abstract class PaddedSequencesPad2 extends PaddedSequencesConsumer {
+  long p00, p01, p02, p03, p04, p05, p06, p07, p08, p09, p10, p11, p12, p13, p14, p15;
+}
@@ -0,0 +1,84 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Defines how a thread waits for a concurrent queue to become non-full (producers) or non-empty
+ * (consumers) in blocking operations.
+ *
+ * @see IntMpmcQueue
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+  /**
+   * Called each time an operation could not proceed.
+   *
+   * @param attempt The number of consecutive failed attempts so far, starting at <code>0</code>.
+   */
+  void idle(int attempt);
+
+  /**
+   * @return Returns a strategy which busy-spins ({@link Thread#onSpinWait()}). The lowest latency,
+   *     but each waiting thread occupies a CPU.
+   */
+  static WaitStrategy busySpin() {
+    return attempt -> Thread.onSpinWait();
+  }
+
+  /**
+   * @return Returns a strategy which spins for a short while, then yields the CPU ({@link
+   *     Thread#yield()}) on each attempt.
+   */
+  static WaitStrategy yielding() {
+    return attempt -> {
+      if (attempt < 100) {
+        Thread.onSpinWait();
+      } else {
+        Thread.yield();
+      }
+    };
+  }
+
+  /**
+   * @return Returns a strategy which spins, then yields and then parks the thread ({@link
+   *     LockSupport#parkNanos(long)}) for exponentially increasing periods, up to one millisecond.
+   */
+  static WaitStrategy parking() {
+    return parking(TimeUnit.MILLISECONDS.toNanos(1));
+  }
+
+  /**
+   * Returns a strategy which spins, then yields and then parks the thread ({@link
+   * LockSupport#parkNanos(long)}) for exponentially increasing periods, up to the given maximum.
+   *
+   * <p>Parking neither holds monitors nor blocks in native code, so this is the strategy to use
+   * with (possibly many) lightweight or virtual threads: a parked thread releases its carrier.
+   *
+   * @param maxParkNanos The maximum period to park for, in nanoseconds.
+   */
+  static WaitStrategy parking(long maxParkNanos) {
+    if (maxParkNanos <= 0) {
+      throw new IllegalArgumentException("Maximum park time must be > 0: " + maxParkNanos);
+    }
+    return attempt -> {
+      if (attempt < 100) {
+        Thread.onSpinWait();
+      } else if (attempt < 110) {
+        Thread.yield();
+      } else {
+        final int exponent = Math.min(attempt - 110, 20);
+        LockSupport.parkNanos(Math.min(maxParkNanos, 1000L << exponent));
+      }
+    };
+  }
+}
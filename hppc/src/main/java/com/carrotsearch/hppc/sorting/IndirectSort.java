@@ -9,6 +9,7 @@
  */
 package com.carrotsearch.hppc.sorting;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.function.IntBinaryOperator;
 
@@ -20,6 +21,11 @@ import java.util.function.IntBinaryOperator;
  * to acquire the order of values in that array. None of the methods in Java Collections would
  * provide such functionality directly and creating a collection of boxed {@link Integer} objects
  * for indices seems to be too costly.
+ *
+ * <p>The <code>order</code> methods take <code>int</code>, <code>long</code> or <code>double</code>
+ * keys directly, instead of a comparator, and compute the order with a {@link RadixSort}. This
+ * avoids a comparator call per comparison and is typically several times faster than {@link
+ * #mergesort(int, int, IntBinaryOperator)} with a comparator over the same keys.
  */
 public final class IndirectSort {
   /** Minimum window length to apply insertion sort in merge sort. */
@@ -69,6 +75,95 @@ public final class IndirectSort {
     return mergesort(start, length, (a, b) -> comparator.compare(input[a], input[b]));
   }
 
+  /**
+   * Returns the order of keys, from the index of the smallest key to the index of the largest one.
+   * The order is stable: indices of equal keys are in ascending order.
+   */
+  public static int[] order(int[] keys) {
+    return order(keys, 0, keys.length);
+  }
+
+  /**
+   * Returns the order of keys between indices <code>start</code> and <code>start + length</code>.
+   * The order is stable: indices of equal keys are in ascending order.
+   */
+  public static int[] order(int[] keys, int start, int length) {
+    final int[] order = createOrderArray(start, length);
+    RadixSort.sort(Arrays.copyOfRange(keys, start, start + length), order, 0, length);
+    return order;
+  }
+
+  /**
+   * Same as {@link #order(int[])}, sorting long arrays in parallel.
+   *
+   * @see RadixSort#PARALLEL_THRESHOLD
+   */
+  public static int[] parallelOrder(int[] keys) {
+    final int[] order = createOrderArray(0, keys.length);
+    RadixSort.parallelSort(keys.clone(), order, 0, keys.length);
+    return order;
+  }
+
+  /**
+   * Returns the order of keys, from the index of the smallest key to the index of the largest one.
+   * The order is stable: indices of equal keys are in ascending order.
+   */
+  public static int[] order(long[] keys) {
+    return order(keys, 0, keys.length);
+  }
+
+  /**
+   * Returns the order of keys between indices <code>start</code> and <code>start + length</code>.
+   * The order is stable: indices of equal keys are in ascending order.
+   */
+  public static int[] order(long[] keys, int start, int length) {
+    final int[] order = createOrderArray(start, length);
+    RadixSort.sort(Arrays.copyOfRange(keys, start, start + length), order, 0, length);
+    return order;
+  }
+
+  /**
+   * Same as {@link #order(long[])}, sorting long arrays in parallel.
+   *
+   * @see RadixSort#PARALLEL_THRESHOLD
+   */
+  public static int[] parallelOrder(long[] keys) {
+    final int[] order = createOrderArray(0, keys.length);
+    RadixSort.parallelSort(keys.clone(), order, 0, keys.length);
+    return order;
+  }
+
+  /**
+   * Returns the order of keys (as defined by {@link Double#compare}), from the index of the
+   * smallest key to the index of the largest one. The order is stable: indices of equal keys are in
+   * ascending order.
+   */
+  public static int[] order(double[] keys) {
+    return order(keys, 0, keys.length);
+  }
+
+  /**
+   * Returns the order of keys (as defined by {@link Double#compare}) between indices <code>start
+   * </code> and <code>start + length</code>. The order is stable: indices of equal keys are in
+   * ascending order.
+   */
+  public static int[] order(double[] keys, int start, int length) {
+    final int[] order = createOrderArray(start, length);
+    RadixSort.sort(RadixSort.sortableKeys(keys, start, length), order, 0, length);
+    return order;
+  }
+
+  /**
+   * Same as {@link #order(double[])}, sorting long arrays in parallel.
+   *
+   * @see RadixSort#PARALLEL_THRESHOLD
+   */
+  public static int[] parallelOrder(double[] keys) {
+    final int[] order = createOrderArray(0, keys.length);
+    RadixSort.parallelSort(RadixSort.sortableKeys(keys, 0, keys.length), order, 0, keys.length);
+    return order;
+  }
+
   /**
    * Perform a recursive, descending merge sort.
    *
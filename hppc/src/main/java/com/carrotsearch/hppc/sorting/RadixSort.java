@@ -0,0 +1,538 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.sorting;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * LSD (least significant digit first) radix sort of <code>int</code>, <code>long</code> and
+ * <code>double</code> keys, optionally moving an array of values along with the keys.
+ *
+ * <p>Keys are distributed by one byte at a time, so sorting takes up to 4 (<code>int</code>) or 8
+ * (<code>long</code>, <code>double</code>) linear passes over the data, regardless of its order;
+ * passes over bytes equal in all keys (for example, the high bytes of small keys) are skipped. The
+ * sorting is stable. Memory is O(n): a temporary buffer for keys (and values).
+ *
+ * <p>The <code>parallelSort</code> methods split ranges longer than {@link #PARALLEL_THRESHOLD}
+ * into chunks counted and distributed by tasks on the common fork-join pool. The result is the
+ * same as that of the sequential sort.
+ *
+ * <p>Short ranges are sorted with {@link Arrays#sort(int[], int, int)} (keys only) or insertion
+ * sort (keys and values).
+ */
+public final class RadixSort {
+
+  /** Below this size threshold, the range is sorted without distributing keys. */
+  static final int RADIX_SORT_THRESHOLD = 64;
+
+  /**
+   * The minimum number of elements in a chunk distributed by a single task of the <code>
+   * parallelSort</code> methods.
+   */
+  public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /** The number of bits of a digit. */
+  private static final int DIGIT_BITS = 8;
+
+  /** The number of distinct digits. */
+  private static final int RADIX = 1 << DIGIT_BITS;
+
+  /** No instantiation. */
+  private RadixSort() {
+    // No instantiation.
+  }
+
+  /**
+   * Sorts the given range of keys in ascending (signed) order.
+   *
+   * @param fromIndex Index where to start sorting in the array, inclusive.
+   * @param toIndex Index where to stop sorting in the array, exclusive.
+   */
+  public static void sort(int[] keys, int fromIndex, int toIndex) {
+    checkRange(keys.length, fromIndex, toIndex);
+    if (toIndex - fromIndex < RADIX_SORT_THRESHOLD) {
+      Arrays.sort(keys, fromIndex, toIndex);
+    } else {
+      radixSort(keys, null, fromIndex, toIndex, false);
+    }
+  }
+
+  /**
+   * Sorts the given range of keys in ascending (signed) order, applying the same permutation to
+   * the corresponding range of <code>values</code>. Values of equal keys keep their relative order.
+   *
+   * @param fromIndex Index where to start sorting in the arrays, inclusive.
+   * @param toIndex Index where to stop sorting in the arrays, exclusive.
+   */
+  public static void sort(int[] keys, int[] values, int fromIndex, int toIndex) {
+    sort(keys, values, fromIndex, toIndex, false);
+  }
+
+  /**
+   * Same as {@link #sort(int[], int[], int, int)}, distributing long ranges in parallel.
+   *
+   * @see #PARALLEL_THRESHOLD
+   */
+  public static void parallelSort(int[] keys, int[] values, int fromIndex, int toIndex) {
+    sort(keys, values, fromIndex, toIndex, true);
+  }
+
+  private static void sort(int[] keys, int[] values, int fromIndex, int toIndex, boolean parallel) {
+    checkRange(keys.length, fromIndex, toIndex);
+    checkRange(values.length, fromIndex, toIndex);
+    if (toIndex - fromIndex < RADIX_SORT_THRESHOLD) {
+      insertionSort(keys, values, fromIndex, toIndex);
+    } else {
+      radixSort(keys, values, fromIndex, toIndex, parallel);
+    }
+  }
+
+  /**
+   * Sorts the given range of keys in ascending (signed) order.
+   *
+   * @param fromIndex Index where to start sorting in the array, inclusive.
+   * @param toIndex Index where to stop sorting in the array, exclusive.
+   */
+  public static void sort(long[] keys, int fromIndex, int toIndex) {
+    checkRange(keys.length, fromIndex, toIndex);
+    if (toIndex - fromIndex < RADIX_SORT_THRESHOLD) {
+      Arrays.sort(keys, fromIndex, toIndex);
+    } else {
+      radixSort(keys, null, null, fromIndex, toIndex, false);
+    }
+  }
+
+  /**
+   * Sorts the given range of keys in ascending (signed) order, applying the same permutation to
+   * the corresponding range of <code>values</code>. Values of equal keys keep their relative order.
+   *
+   * @param fromIndex Index where to start sorting in the arrays, inclusive.
+   * @param toIndex Index where to stop sorting in the arrays, exclusive.
+   */
+  public static void sort(long[] keys, long[] values, int fromIndex, int toIndex) {
+    sort(keys, values, null, fromIndex, toIndex, false);
+  }
+
+  /**
+   * Same as {@link #sort(long[], long[], int, int)}, distributing long ranges in parallel.
+   *
+   * @see #PARALLEL_THRESHOLD
+   */
+  public static void parallelSort(long[] keys, long[] values, int fromIndex, int toIndex) {
+    sort(keys, values, null, fromIndex, toIndex, true);
+  }
+
+  /**
+   * Sorts the given range of keys in ascending (signed) order, applying the same permutation to
+   * the corresponding range of <code>values</code>. Values of equal keys keep their relative order.
+   *
+   * @param fromIndex Index where to start sorting in the arrays, inclusive.
+   * @param toIndex Index where to stop sorting in the arrays, exclusive.
+   */
+  public static void sort(long[] keys, int[] values, int fromIndex, int toIndex) {
+    sort(keys, null, values, fromIndex, toIndex, false);
+  }
+
+  /**
+   * Same as {@link #sort(long[], int[], int, int)}, distributing long ranges in parallel.
+   *
+   * @see #PARALLEL_THRESHOLD
+   */
+  public static void parallelSort(long[] keys, int[] values, int fromIndex, int toIndex) {
+    sort(keys, null, values, fromIndex, toIndex, true);
+  }
+
+  private static void sort(
+      long[] keys,
+      long[] longValues,
+      int[] intValues,
+      int fromIndex,
+      int toIndex,
+      boolean parallel) {
+    checkRange(keys.length, fromIndex, toIndex);
+    checkRange(longValues != null ? longValues.length : intValues.length, fromIndex, toIndex);
+    if (toIndex - fromIndex < RADIX_SORT_THRESHOLD) {
+      insertionSort(keys, longValues, intValues, fromIndex, toIndex);
+    } else {
+      radixSort(keys, longValues, intValues, fromIndex, toIndex, parallel);
+    }
+  }
+
+  /**
+   * Sorts the given range of keys in ascending order (as defined by {@link Double#compare}),
+   * applying the same permutation to the corresponding range of <code>values</code>. Values of
+   * equal keys keep their relative order. NaN keys are replaced with the canonical {@link
+   * Double#NaN}.
+   *
+   * @param fromIndex Index where to start sorting in the arrays, inclusive.
+   * @param toIndex Index where to stop sorting in the arrays, exclusive.
+   */
+  public static void sort(double[] keys, int[] values, int fromIndex, int toIndex) {
+    sort(keys, values, fromIndex, toIndex, false);
+  }
+
+  /**
+   * Same as {@link #sort(double[], int[], int, int)}, distributing long ranges in parallel.
+   *
+   * @see #PARALLEL_THRESHOLD
+   */
+  public static void parallelSort(double[] keys, int[] values, int fromIndex, int toIndex) {
+    sort(keys, values, fromIndex, toIndex, true);
+  }
+
+  private static void sort(
+      double[] keys, int[] values, int fromIndex, int toIndex, boolean parallel) {
+    checkRange(keys.length, fromIndex, toIndex);
+    checkRange(values.length, fromIndex, toIndex);
+    final int length = toIndex - fromIndex;
+    final long[] sortable = sortableKeys(keys, fromIndex, length);
+    final int[] sortedValues = Arrays.copyOfRange(values, fromIndex, toIndex);
+    sort(sortable, null, sortedValues, 0, length, parallel);
+    for (int i = 0; i < length; i++) {
+      keys[fromIndex + i] = fromSortableKey(sortable[i]);
+    }
+    System.arraycopy(sortedValues, 0, values, fromIndex, length);
+  }
+
+  /**
+   * Converts <code>double</code> keys to <code>long</code>s in the same (signed) order.
+   *
+   * @see #fromSortableKey(long)
+   */
+  static long[] sortableKeys(double[] keys, int start, int length) {
+    final long[] sortable = new long[length];
+    for (int i = 0; i < length; i++) {
+      final long bits = Double.doubleToLongBits(keys[start + i]);
+      // Reverse the order of negative values.
+      sortable[i] = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+    return sortable;
+  }
+
+  private static double fromSortableKey(long sortable) {
+    return Double.longBitsToDouble(sortable ^ ((sortable >> 63) & Long.MAX_VALUE));
+  }
+
+  /** LSD radix sort of <code>int</code> keys, <code>values</code> may be <code>null</code>. */
+  private static void radixSort(
+      int[] keys, int[] values, int fromIndex, int toIndex, boolean parallel) {
+    final int length = toIndex - fromIndex;
+    final int chunks = parallel ? chunks(length) : 1;
+    final int digits = Integer.SIZE / DIGIT_BITS;
+
+    // Histograms of all digits, in a single pass.
+    final int[][] partialCounts = new int[chunks][];
+    forEachChunk(
+        chunks,
+        chunk -> {
+          final int[] counts = new int[digits * RADIX];
+          for (int i = chunkStart(fromIndex, toIndex, chunks, chunk),
+                  max = chunkStart(fromIndex, toIndex, chunks, chunk + 1);
+              i < max;
+              i++) {
+            final int key = keys[i];
+            for (int d = 0; d < digits; d++) {
+              counts[d * RADIX + digit(key, d * DIGIT_BITS)]++;
+            }
+          }
+          partialCounts[chunk] = counts;
+        });
+    final int[] counts = sum(partialCounts);
+
+    int[] srcKeys = keys, dstKeys = new int[length];
+    int[] srcValues = values, dstValues = values == null ? null : new int[length];
+    int srcOffset = fromIndex, dstOffset = 0;
+    for (int d = 0; d < digits; d++) {
+      if (singleDigit(counts, d * RADIX, length)) {
+        continue;
+      }
+
+      final int shift = d * DIGIT_BITS;
+      final int[] sk = srcKeys, dk = dstKeys, sv = srcValues, dv = dstValues;
+      final int from = srcOffset, to = srcOffset + length;
+
+      // Per-chunk histograms of this digit (the chunks' keys change from pass to pass).
+      final int[][] offsets = new int[chunks][];
+      if (chunks == 1) {
+        offsets[0] = Arrays.copyOfRange(counts, d * RADIX, (d + 1) * RADIX);
+      } else {
+        forEachChunk(
+            chunks,
+            chunk -> {
+              final int[] chunkCounts = new int[RADIX];
+              for (int i = chunkStart(from, to, chunks, chunk),
+                      max = chunkStart(from, to, chunks, chunk + 1);
+                  i < max;
+                  i++) {
+                chunkCounts[digit(sk[i], shift)]++;
+              }
+              offsets[chunk] = chunkCounts;
+            });
+      }
+      toOffsets(offsets, dstOffset);
+
+      forEachChunk(
+          chunks,
+          chunk -> {
+            final int[] chunkOffsets = offsets[chunk];
+            for (int i = chunkStart(from, to, chunks, chunk),
+                    max = chunkStart(from, to, chunks, chunk + 1);
+                i < max;
+                i++) {
+              final int key = sk[i];
+              final int target = chunkOffsets[digit(key, shift)]++;
+              dk[target] = key;
+              if (sv != null) {
+                dv[target] = sv[i];
+              }
+            }
+          });
+
+      srcKeys = dk;
+      dstKeys = sk;
+      srcValues = dv;
+      dstValues = sv;
+      final int nextSrcOffset = dstOffset;
+      dstOffset = srcOffset;
+      srcOffset = nextSrcOffset;
+    }
+
+    if (srcKeys != keys) {
+      System.arraycopy(srcKeys, srcOffset, keys, fromIndex, length);
+      if (values != null) {
+        System.arraycopy(srcValues, srcOffset, values, fromIndex, length);
+      }
+    }
+  }
+
+  /**
+   * LSD radix sort of <code>long</code> keys, at most one of the value arrays is not <code>null
+   * </code>.
+   */
+  private static void radixSort(
+      long[] keys,
+      long[] longValues,
+      int[] intValues,
+      int fromIndex,
+      int toIndex,
+      boolean parallel) {
+    final int length = toIndex - fromIndex;
+    final int chunks = parallel ? chunks(length) : 1;
+    final int digits = Long.SIZE / DIGIT_BITS;
+
+    // Histograms of all digits, in a single pass.
+    final int[][] partialCounts = new int[chunks][];
+    forEachChunk(
+        chunks,
+        chunk -> {
+          final int[] counts = new int[digits * RADIX];
+          for (int i = chunkStart(fromIndex, toIndex, chunks, chunk),
+                  max = chunkStart(fromIndex, toIndex, chunks, chunk + 1);
+              i < max;
+              i++) {
+            final long key = keys[i];
+            for (int d = 0; d < digits; d++) {
+              counts[d * RADIX + digit(key, d * DIGIT_BITS)]++;
+            }
+          }
+          partialCounts[chunk] = counts;
+        });
+    final int[] counts = sum(partialCounts);
+
+    long[] srcKeys = keys, dstKeys = new long[length];
+    long[] srcLongValues = longValues;
+    long[] dstLongValues = longValues == null ? null : new long[length];
+    int[] srcIntValues = intValues;
+    int[] dstIntValues = intValues == null ? null : new int[length];
+    int srcOffset = fromIndex, dstOffset = 0;
+    for (int d = 0; d < digits; d++) {
+      if (singleDigit(counts, d * RADIX, length)) {
+        continue;
+      }
+
+      final int shift = d * DIGIT_BITS;
+      final long[] sk = srcKeys, dk = dstKeys, slv = srcLongValues, dlv = dstLongValues;
+      final int[] siv = srcIntValues, div = dstIntValues;
+      final int from = srcOffset, to = srcOffset + length;
+
+      // Per-chunk histograms of this digit (the chunks' keys change from pass to pass).
+      final int[][] offsets = new int[chunks][];
+      if (chunks == 1) {
+        offsets[0] = Arrays.copyOfRange(counts, d * RADIX, (d + 1) * RADIX);
+      } else {
+        forEachChunk(
+            chunks,
+            chunk -> {
+              final int[] chunkCounts = new int[RADIX];
+              for (int i = chunkStart(from, to, chunks, chunk),
+                      max = chunkStart(from, to, chunks, chunk + 1);
+                  i < max;
+                  i++) {
+                chunkCounts[digit(sk[i], shift)]++;
+              }
+              offsets[chunk] = chunkCounts;
+            });
+      }
+      toOffsets(offsets, dstOffset);
+
+      forEachChunk(
+          chunks,
+          chunk -> {
+            final int[] chunkOffsets = offsets[chunk];
+            for (int i = chunkStart(from, to, chunks, chunk),
+                    max = chunkStart(from, to, chunks, chunk + 1);
+                i < max;
+                i++) {
+              final long key = sk[i];
+              final int target = chunkOffsets[digit(key, shift)]++;
+              dk[target] = key;
+              if (slv != null) {
+                dlv[target] = slv[i];
+              } else if (siv != null) {
+                div[target] = siv[i];
+              }
+            }
+          });
+
+      srcKeys = dk;
+      dstKeys = sk;
+      srcLongValues = dlv;
+      dstLongValues = slv;
+      srcIntValues = div;
+      dstIntValues = siv;
+      final int nextSrcOffset = dstOffset;
+      dstOffset = srcOffset;
+      srcOffset = nextSrcOffset;
+    }
+
+    if (srcKeys != keys) {
+      System.arraycopy(srcKeys, srcOffset, keys, fromIndex, length);
+      if (longValues != null) {
+        System.arraycopy(srcLongValues, srcOffset, longValues, fromIndex, length);
+      } else if (intValues != null) {
+        System.arraycopy(srcIntValues, srcOffset, intValues, fromIndex, length);
+      }
+    }
+  }
+
+  /** Returns the digit of a key at the given shift, with the sign bit flipped. */
+  private static int digit(int key, int shift) {
+    return ((key ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1);
+  }
+
+  /** Returns the digit of a key at the given shift, with the sign bit flipped. */
+  private static int digit(long key, int shift) {
+    return (int) ((key ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1);
+  }
+
+  /** Returns <code>true</code> if all keys have the same digit (the pass can be skipped). */
+  private static boolean singleDigit(int[] counts, int countsOffset, int length) {
+    for (int i = 0; i < RADIX; i++) {
+      if (counts[countsOffset + i] == length) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Replaces per-chunk digit counts with the first target index of each (chunk, digit). Keys with
+   * a smaller digit go first, keys of earlier chunks go before keys of later chunks with the same
+   * digit (so the sort is stable).
+   */
+  private static void toOffsets(int[][] chunkCounts, int targetOffset) {
+    int sum = targetOffset;
+    for (int i = 0; i < RADIX; i++) {
+      for (int[] counts : chunkCounts) {
+        final int count = counts[i];
+        counts[i] = sum;
+        sum += count;
+      }
+    }
+  }
+
+  private static int[] sum(int[][] partialCounts) {
+    final int[] counts = partialCounts[0];
+    for (int chunk = 1; chunk < partialCounts.length; chunk++) {
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] += partialCounts[chunk][i];
+      }
+    }
+    return counts;
+  }
+
+  private static int chunks(int length) {
+    final int maxChunks = 4 * ForkJoinPool.getCommonPoolParallelism();
+    return Math.max(1, Math.min(maxChunks, length / PARALLEL_THRESHOLD));
+  }
+
+  /** The first index of a chunk of a range split into <code>chunks</code> equal parts. */
+  private static int chunkStart(int fromIndex, int toIndex, int chunks, int chunk) {
+    return fromIndex + (int) ((long) (toIndex - fromIndex) * chunk / chunks);
+  }
+
+  /** Runs the task for all chunks, in parallel if there is more than one. */
+  private static void forEachChunk(int chunks, IntConsumer task) {
+    if (chunks == 1) {
+      task.accept(0);
+    } else {
+      IntStream.range(0, chunks).parallel().forEach(task);
+    }
+  }
+
+  /** Stable insertion sort of keys and values. */
+  private static void insertionSort(int[] keys, int[] values, int fromIndex, int toIndex) {
+    for (int i = fromIndex + 1; i < toIndex; i++) {
+      final int key = keys[i];
+      final int value = values[i];
+      int j = i;
+      for (; j > fromIndex && keys[j - 1] > key; j--) {
+        keys[j] = keys[j - 1];
+        values[j] = values[j - 1];
+      }
+      keys[j] = key;
+      values[j] = value;
+    }
+  }
+
+  /** Stable insertion sort of keys and values, one of the value arrays is not null. */
+  private static void insertionSort(
+      long[] keys, long[] longValues, int[] intValues, int fromIndex, int toIndex) {
+    for (int i = fromIndex + 1; i < toIndex; i++) {
+      final long key = keys[i];
+      final long value = longValues != null ? longValues[i] : intValues[i];
+      int j = i;
+      for (; j > fromIndex && keys[j - 1] > key; j--) {
+        keys[j] = keys[j - 1];
+        if (longValues != null) {
+          longValues[j] = longValues[j - 1];
+        } else {
+          intValues[j] = intValues[j - 1];
+        }
+      }
+      keys[j] = key;
+      if (longValues != null) {
+        longValues[j] = value;
+      } else {
+        intValues[j] = (int) value;
+      }
+    }
+  }
+
+  private static void checkRange(int arrayLength, int fromIndex, int toIndex) {
+    if (fromIndex < 0 || fromIndex > toIndex || toIndex > arrayLength) {
+      throw new IllegalArgumentException(
+          "Invalid range [" + fromIndex + ", " + toIndex + ") for length " + arrayLength);
+    }
+  }
+}
@@ -13,6 +13,9 @@ import java.util.stream.LongStream;
 /*! #if ($TemplateOptions.isKTypeAnyOf("DOUBLE"))
 import java.util.stream.DoubleStream;
 #end !*/
+/*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG"))
+import com.carrotsearch.hppc.sorting.RadixSort;
+#end !*/
 
 import com.carrotsearch.hppc.cursors.*;
 import com.carrotsearch.hppc.predicates.KTypePredicate;
@@ -310,6 +313,23 @@ public class KTypeArrayList<KType>
    */
   @Override
   public int removeAll(KType e1) {
+    /*! #if ($TemplateOptions.KTypePrimitive)
+    // Skip the prefix without matches, then compact without branching: every
+    // element is copied and the target index only advances for the kept ones.
+    int to = indexOf(e1);
+    if (to < 0) {
+      return 0;
+    }
+    final KType [] buffer = this.buffer;
+    final int max = elementsCount;
+    for (int from = to + 1; from < max; from++) {
+      final KType v = buffer[from];
+      buffer[to] = v;
+      to += Intrinsics.equals(this, e1, v) ? 0 : 1;
+    }
+    final int deleted = max - to;
+    this.elementsCount = to;
+    #else !*/
     int to = 0;
     for (int from = 0; from < elementsCount; from++) {
       if (Intrinsics.equals(this, e1, buffer[from])) {
@@ -322,6 +342,7 @@ public class KTypeArrayList<KType>
     }
     final int deleted = elementsCount - to;
     this.elementsCount = to;
+    /*! #end !*/
     /* #if ($TemplateOptions.KTypeGeneric) */
     Arrays.fill(buffer, elementsCount, elementsCount + deleted, Intrinsics.empty());
     /* #end */
@@ -341,11 +362,32 @@ public class KTypeArrayList<KType>
    */
   @Override
   public int indexOf(KType e1) {
+    /*! #if ($TemplateOptions.KTypePrimitive)
+    // Compare four elements per iteration with non-short-circuit ors: the
+    // comparisons are branch-free and only a block with a match leaves the loop.
+    final KType [] buffer = this.buffer;
+    final int max = elementsCount;
+    int i = 0;
+    for (final int blocksEnd = max & ~3; i < blocksEnd; i += 4) {
+      if (Intrinsics.equals(this, e1, buffer[i]) |
+          Intrinsics.equals(this, e1, buffer[i + 1]) |
+          Intrinsics.equals(this, e1, buffer[i + 2]) |
+          Intrinsics.equals(this, e1, buffer[i + 3])) {
+        break;
+      }
+    }
+    for (; i < max; i++) {
+      if (Intrinsics.equals(this, e1, buffer[i])) {
+        return i;
+      }
+    }
+    #else !*/
     for (int i = 0; i < elementsCount; i++) {
       if (Intrinsics.equals(this, e1, buffer[i])) {
         return i;
       }
     }
+    /*! #end !*/
 
     return -1;
   }
@@ -355,11 +397,30 @@ public class KTypeArrayList<KType>
    */
   @Override
   public int lastIndexOf(KType e1) {
+    /*! #if ($TemplateOptions.KTypePrimitive)
+    // Same as indexOf, scanning blocks of four from the end of the list.
+    final KType [] buffer = this.buffer;
+    int i = elementsCount - 1;
+    for (; i >= 3; i -= 4) {
+      if (Intrinsics.equals(this, e1, buffer[i]) |
+          Intrinsics.equals(this, e1, buffer[i - 1]) |
+          Intrinsics.equals(this, e1, buffer[i - 2]) |
+          Intrinsics.equals(this, e1, buffer[i - 3])) {
+        break;
+      }
+    }
+    for (; i >= 0; i--) {
+      if (Intrinsics.equals(this, e1, buffer[i])) {
+        return i;
+      }
+    }
+    #else !*/
     for (int i = elementsCount - 1; i >= 0; i--) {
       if (Intrinsics.equals(this, e1, buffer[i])) {
         return i;
       }
     }
+    /*! #end !*/
 
     return -1;
   }
@@ -512,6 +573,54 @@ public class KTypeArrayList<KType>
     return this;
   }
 
+  /*! #if ($TemplateOptions.KTypePrimitive) !*/
+  /**
+   * Sorts the elements in parallel, using {@link Arrays#parallelSort} (a fork/join sort). For
+   * small lists this falls back to a sequential sort.
+   *
+   * @return Returns this list.
+   */
+  /*!
+  public KTypeArrayList<KType> parallelSort() {
+    Arrays.parallelSort(buffer, 0, elementsCount);
+    return this;
+  }
+  #end !*/
+
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) !*/
+  /**
+   * Sorts the elements with a radix sort. For larger lists this is typically several times
+   * faster than {@link #sort()}, at the cost of a temporary buffer of the list's size.
+   *
+   * @return Returns this list.
+   */
+  /*!
+  public KTypeArrayList<KType> sortRadix() {
+    RadixSort.sort(buffer, 0, elementsCount);
+    return this;
+  }
+  #end !*/
+
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) !*/
+  /**
+   * Sorts the elements with a stable radix sort, moving the elements of <code>payloads</code> to
+   * the same positions as elements of this list. Payloads of equal elements keep their relative
+   * order.
+   *
+   * @param payloads A list of the same size as this list.
+   * @return Returns this list.
+   */
+  /*!
+  public KTypeArrayList<KType> sortRadix(KTypeArrayList<KType> payloads) {
+    if (payloads.size() != size()) {
+      throw new IllegalArgumentException(
+          "Payloads must have the same size as the list: " + payloads.size() + " != " + size());
+    }
+    RadixSort.sort(buffer, payloads.buffer, 0, elementsCount);
+    return this;
+  }
+  #end !*/
+
   /**
    * {@inheritDoc}
    */
@@ -586,6 +695,10 @@ public class KTypeArrayList<KType>
       return false;
     }
 
+    /*! #if ($TemplateOptions.KTypePrimitive)
+    // Arrays.equals on primitive ranges is a JIT intrinsic comparing many elements at once.
+    return Arrays.equals(buffer, 0, max, other.buffer, 0, max);
+    #else !*/
     for (int i = 0; i < max; i++) {
       if (!Intrinsics.equals(this, get(i), other.get(i))) {
         return false;
@@ -593,6 +706,7 @@ public class KTypeArrayList<KType>
     }
 
     return true;
+    /*! #end !*/
   }
 
   @Override
@@ -0,0 +1,499 @@
+package com.carrotsearch.hppc;
+
+import java.util.Arrays;
+
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * A list of <code>KType</code>s indexed by <code>long</code>, stored in fixed-size pages whose
+ * length is a power of two.
+ *
+ * <p>Unlike {@link KTypeArrayList}, this list is not limited to
+ * {@link BoundedProportionalArraySizingStrategy#MAX_ARRAY_LENGTH} elements, and appending elements
+ * never reallocates or copies the existing pages; only the (small) array of page references
+ * grows. The element at index <code>i</code> is stored at offset <code>i &amp; (pageSize - 1)</code>
+ * of page <code>i &gt;&gt;&gt; pageShift</code>. Bulk operations and {@link #forEach} iterate over
+ * the array range of each page.</p>
+ */
+/*! #if ($TemplateOptions.KTypeGeneric) @SuppressWarnings("unchecked") #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeBigArrayList<KType> implements Accountable {
+  /**
+   * The default page size (as a power of two).
+   */
+  public final static int DEFAULT_PAGE_SHIFT = 17;
+
+  /**
+   * The smallest allowed page size (as a power of two).
+   */
+  public final static int MIN_PAGE_SHIFT = 4;
+
+  /**
+   * The largest allowed page size (as a power of two).
+   */
+  public final static int MAX_PAGE_SHIFT = 30;
+
+  /**
+   * Pages of elements. Pages beyond the last allocated one are <code>null</code>.
+   */
+  private
+    /*! #if ($TemplateOptions.KTypePrimitive)
+        KType [][]
+        #else !*/
+        Object [][]
+    /*! #end !*/
+        pages;
+
+  /**
+   * The number of allocated pages.
+   */
+  private int pageCount;
+
+  /**
+   * log2 of the page size.
+   */
+  private final int pageShift;
+
+  /**
+   * Page size minus one.
+   */
+  private final int pageMask;
+
+  /**
+   * The number of elements in the list.
+   */
+  private long size;
+
+  /**
+   * New instance with the default page size.
+   */
+  public KTypeBigArrayList() {
+    this(DEFAULT_PAGE_SHIFT);
+  }
+
+  /**
+   * New instance with the given page size.
+   *
+   * @param pageShift The page size as a power of two, between {@link #MIN_PAGE_SHIFT} and
+   *        {@link #MAX_PAGE_SHIFT}.
+   */
+  public KTypeBigArrayList(int pageShift) {
+    if (pageShift < MIN_PAGE_SHIFT || pageShift > MAX_PAGE_SHIFT) {
+      throw new IllegalArgumentException(
+          "Page shift must be between " + MIN_PAGE_SHIFT + " and " + MAX_PAGE_SHIFT
+              + ": " + pageShift);
+    }
+    this.pageShift = pageShift;
+    this.pageMask = (1 << pageShift) - 1;
+    this.pages = newDirectory(0);
+  }
+
+  /**
+   * Appends an element to the end of the list.
+   */
+  public void add(KType e1) {
+    final long index = size;
+    ensureCapacity(index + 1);
+    pages[page(index)][offset(index)] = e1;
+    size = index + 1;
+  }
+
+  /**
+   * Appends elements from the given array range to the end of the list.
+   */
+  public void add(KType [] elements, int offset, int length) {
+    assert offset >= 0 && length >= 0 && offset + length <= elements.length
+        : "Range out of bounds: " + offset + ", " + length;
+    final long index = size;
+    ensureCapacity(index + length);
+    size = index + length;
+    set(index, elements, offset, length);
+  }
+
+  /**
+   * @return Returns the element at the given index.
+   */
+  public KType get(long index) {
+    assert index >= 0 && index < size : "Index " + index + " out of bounds [0, " + size + ").";
+    return Intrinsics.<KType> cast(pages[page(index)][offset(index)]);
+  }
+
+  /**
+   * Replaces the element at the given index.
+   *
+   * @return Returns the previous element at the index.
+   */
+  public KType set(long index, KType e1) {
+    assert index >= 0 && index < size : "Index " + index + " out of bounds [0, " + size + ").";
+    final /*! #if ($TemplateOptions.KTypePrimitive) KType #else !*/ Object /*! #end !*/ [] page =
+        pages[page(index)];
+    final int offset = offset(index);
+    final KType previous = Intrinsics.<KType> cast(page[offset]);
+    page[offset] = e1;
+    return previous;
+  }
+
+  /**
+   * Copies elements starting at the given index of this list to an array range.
+   */
+  public void get(long index, KType [] target, int offset, int length) {
+    assert offset >= 0 && length >= 0 && offset + length <= target.length
+        : "Range out of bounds: " + offset + ", " + length;
+    assert index >= 0 && index + length <= size
+        : "Range [" + index + ", " + (index + length) + ") out of bounds [0, " + size + ").";
+    while (length > 0) {
+      final int from = offset(index);
+      final int chunk = Math.min(length, pageMask + 1 - from);
+      System.arraycopy(pages[page(index)], from, target, offset, chunk);
+      index += chunk;
+      offset += chunk;
+      length -= chunk;
+    }
+  }
+
+  /**
+   * Overwrites elements starting at the given index of this list with elements from an array
+   * range.
+   */
+  public void set(long index, KType [] elements, int offset, int length) {
+    assert offset >= 0 && length >= 0 && offset + length <= elements.length
+        : "Range out of bounds: " + offset + ", " + length;
+    assert index >= 0 && index + length <= size
+        : "Range [" + index + ", " + (index + length) + ") out of bounds [0, " + size + ").";
+    while (length > 0) {
+      final int to = offset(index);
+      final int chunk = Math.min(length, pageMask + 1 - to);
+      System.arraycopy(elements, offset, pages[page(index)], to, chunk);
+      index += chunk;
+      offset += chunk;
+      length -= chunk;
+    }
+  }
+
+  /**
+   * Removes and returns the last element of the list.
+   */
+  public KType removeLast() {
+    assert size > 0 : "The list is empty.";
+    final long index = --size;
+    final /*! #if ($TemplateOptions.KTypePrimitive) KType #else !*/ Object /*! #end !*/ [] page =
+        pages[page(index)];
+    final int offset = offset(index);
+    final KType e = Intrinsics.<KType> cast(page[offset]);
+    /*! #if ($TemplateOptions.KTypeGeneric) !*/
+    page[offset] = null;
+    /*! #end !*/
+    return e;
+  }
+
+  /**
+   * Ensures pages are allocated for the given number of elements.
+   */
+  public void ensureCapacity(long expectedElements) {
+    if (expectedElements < 0) {
+      throw new IllegalArgumentException("Expected elements must be >= 0: " + expectedElements);
+    }
+    final long required = (expectedElements + pageMask) >>> pageShift;
+    if (required > pageCount) {
+      if (required > Integer.MAX_VALUE - 8) {
+        throw new BufferAllocationException(
+            "Maximum number of pages exceeded (%,d elements requested)", expectedElements);
+      }
+      if (required > pages.length) {
+        // Only page references are copied.
+        final long grown = Math.max(required, pages.length + (pages.length >>> 1) + 1);
+        pages = Arrays.copyOf(pages, (int) Math.min(grown, Integer.MAX_VALUE - 8));
+      }
+      try {
+        while (pageCount < required) {
+          pages[pageCount] = Intrinsics.<KType> newArray(pageMask + 1);
+          pageCount++;
+        }
+      } catch (OutOfMemoryError e) {
+        throw new BufferAllocationException(
+            "Not enough memory to allocate a page of %,d elements (%,d pages allocated)",
+            e, pageMask + 1, pageCount);
+      }
+    }
+  }
+
+  /**
+   * Sorts the elements in ascending (natural) order.
+   *
+   * <p>Each page is sorted with {@link Arrays#sort}, then runs are merged bottom-up, alternating
+   * between the pages and a second set of pages of the same size (which requires as much memory
+   * as the list itself while sorting).</p>
+   */
+  public void sort() {
+    final long size = this.size;
+    final int pageSize = pageMask + 1;
+    for (long start = 0; start < size; start += pageSize) {
+      Arrays.sort(pages[page(start)], 0, (int) Math.min(pageSize, size - start));
+    }
+    if (size <= pageSize) {
+      return;
+    }
+
+    /*! #if ($TemplateOptions.KTypePrimitive)
+        KType [][]
+        #else !*/
+        Object [][]
+    /*! #end !*/
+        src = pages, dst = newDirectory(pages.length);
+    try {
+      for (int i = 0; i < pageCount; i++) {
+        dst[i] = Intrinsics.<KType> newArray(pageSize);
+      }
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException(
+          "Not enough memory to allocate sorting buffers of %,d elements", e, size);
+    }
+
+    for (long run = pageSize; run < size; run <<= 1) {
+      for (long lo = 0; lo < size; lo += run << 1) {
+        merge(src, dst, lo, Math.min(lo + run, size), Math.min(lo + (run << 1), size));
+      }
+      final
+      /*! #if ($TemplateOptions.KTypePrimitive)
+          KType [][]
+          #else !*/
+          Object [][]
+      /*! #end !*/
+          tmp = src;
+      src = dst;
+      dst = tmp;
+    }
+    this.pages = src;
+  }
+
+  /**
+   * Merges sorted ranges <code>[lo, mid)</code> and <code>[mid, hi)</code> of <code>src</code> into
+   * the same range of <code>dst</code>.
+   */
+  private void merge(
+      /*! #if ($TemplateOptions.KTypePrimitive)
+          KType [][]
+          #else !*/
+          Object [][]
+      /*! #end !*/
+          src,
+      /*! #if ($TemplateOptions.KTypePrimitive)
+          KType [][]
+          #else !*/
+          Object [][]
+      /*! #end !*/
+          dst,
+      long lo, long mid, long hi) {
+    long i = lo, j = mid, k = lo;
+    if (mid < hi) {
+      KType a = Intrinsics.<KType> cast(src[page(i)][offset(i)]);
+      KType b = Intrinsics.<KType> cast(src[page(j)][offset(j)]);
+      while (true) {
+        if (less(b, a)) {
+          dst[page(k)][offset(k++)] = b;
+          if (++j == hi) {
+            break;
+          }
+          b = Intrinsics.<KType> cast(src[page(j)][offset(j)]);
+        } else {
+          dst[page(k)][offset(k++)] = a;
+          if (++i == mid) {
+            break;
+          }
+          a = Intrinsics.<KType> cast(src[page(i)][offset(i)]);
+        }
+      }
+    }
+    copy(src, i, dst, k, mid - i);
+    k += mid - i;
+    copy(src, j, dst, k, hi - j);
+  }
+
+  /**
+   * Copies a range of elements between two sets of pages.
+   */
+  private void copy(
+      /*! #if ($TemplateOptions.KTypePrimitive)
+          KType [][]
+          #else !*/
+          Object [][]
+      /*! #end !*/
+          src,
+      long from,
+      /*! #if ($TemplateOptions.KTypePrimitive)
+          KType [][]
+          #else !*/
+          Object [][]
+      /*! #end !*/
+          dst,
+      long to,
+      long length) {
+    final int pageSize = pageMask + 1;
+    while (length > 0) {
+      final int srcOffset = offset(from);
+      final int dstOffset = offset(to);
+      final int chunk = (int) Math.min(length, pageSize - Math.max(srcOffset, dstOffset));
+      System.arraycopy(src[page(from)], srcOffset, dst[page(to)], dstOffset, chunk);
+      from += chunk;
+      to += chunk;
+      length -= chunk;
+    }
+  }
+
+  /**
+   * @return Returns <code>true</code> if <code>a</code> is strictly smaller than <code>b</code>
+   *         in the order of {@link Arrays#sort}.
+   */
+  private boolean less(KType a, KType b) {
+    /*! #if ($TemplateOptions.KTypeGeneric) !*/
+    return ((Comparable<? super KType>) a).compareTo(b) < 0;
+    /*! #elseif ($TemplateOptions.isKTypeAnyOf("FLOAT"))
+    return Float.compare(a, b) < 0;
+    #elseif ($TemplateOptions.isKTypeAnyOf("DOUBLE"))
+    return Double.compare(a, b) < 0;
+    #else
+    return a < b;
+    #end !*/
+  }
+
+  /**
+   * Applies <code>procedure</code> to all elements of this list, in order.
+   */
+  public <T extends KTypeProcedure<? super KType>> T forEach(T procedure) {
+    return forEach(procedure, 0, size);
+  }
+
+  /**
+   * Applies <code>procedure</code> to elements in the range <code>[fromIndex, toIndex)</code>, in
+   * order.
+   */
+  public <T extends KTypeProcedure<? super KType>> T forEach(
+      T procedure, long fromIndex, long toIndex) {
+    assert fromIndex >= 0 && fromIndex <= toIndex && toIndex <= size
+        : "Range [" + fromIndex + ", " + toIndex + ") out of bounds [0, " + size + ").";
+    for (long start = fromIndex; start < toIndex; ) {
+      final KType [] page = Intrinsics.<KType[]> cast(pages[page(start)]);
+      final int from = offset(start);
+      final int to = (int) Math.min(pageMask + 1, from + (toIndex - start));
+      for (int i = from; i < to; i++) {
+        procedure.apply(page[i]);
+      }
+      start += to - from;
+    }
+    return procedure;
+  }
+
+  /**
+   * Applies <code>predicate</code> to elements of this list, in order, until it returns
+   * <code>false</code>.
+   */
+  public <T extends KTypePredicate<? super KType>> T forEach(T predicate) {
+    for (long start = 0; start < size; ) {
+      final KType [] page = Intrinsics.<KType[]> cast(pages[page(start)]);
+      final int to = (int) Math.min(pageMask + 1, size - start);
+      for (int i = 0; i < to; i++) {
+        if (!predicate.apply(page[i])) {
+          return predicate;
+        }
+      }
+      start += to;
+    }
+    return predicate;
+  }
+
+  /**
+   * @return Returns the number of elements in the list.
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * @return Returns <code>true</code> if the list is empty.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return Returns the number of elements in each page.
+   */
+  public int pageSize() {
+    return pageMask + 1;
+  }
+
+  /**
+   * Removes all elements. Pages remain allocated; use {@link #release()} to free them.
+   */
+  public void clear() {
+    /*! #if ($TemplateOptions.KTypeGeneric) !*/
+    for (int i = 0; i < pageCount; i++) {
+      Arrays.fill(pages[i], null);
+    }
+    /*! #end !*/
+    size = 0;
+  }
+
+  /**
+   * Removes all elements and releases all pages.
+   */
+  public void release() {
+    pages = newDirectory(0);
+    pageCount = 0;
+    size = 0;
+  }
+
+  private int page(long index) {
+    return (int) (index >>> pageShift);
+  }
+
+  private int offset(long index) {
+    return (int) index & pageMask;
+  }
+
+  private static
+    /*! #if ($TemplateOptions.KTypePrimitive)
+        KType [][]
+        #else !*/
+        Object [][]
+    /*! #end !*/
+        newDirectory(int pages) {
+    return new /*! #if ($TemplateOptions.KTypePrimitive) KType #else !*/ Object /*! #end !*/ [pages][];
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: pageCount, pageShift, pageMask; long: size
+    long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + 3 * Integer.BYTES + Long.BYTES
+        + RamUsageEstimator.shallowSizeOfArray(pages);
+    if (pageCount > 0) {
+      bytes += pageCount * RamUsageEstimator.shallowSizeOfArray(pages[0]);
+    }
+    return bytes;
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: pageCount, pageShift, pageMask; long: size
+    long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + 3 * Integer.BYTES + Long.BYTES
+        + RamUsageEstimator.shallowUsedSizeOfArray(pages, (int) ((size + pageMask) >>> pageShift));
+    if (size > 0) {
+      final int fullPages = page(size);
+      bytes += fullPages * RamUsageEstimator.shallowSizeOfArray(pages[0]);
+      if (offset(size) > 0) {
+        bytes += RamUsageEstimator.shallowUsedSizeOfArray(pages[fullPages], offset(size));
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  public String toString() {
+    return "BigArrayList[size=" + size + ", pageSize=" + pageSize() + "]";
+  }
+}
@@ -0,0 +1,773 @@
+package com.carrotsearch.hppc;
+
+import java.util.*;
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * A {@link KTypeDeque} backed by a doubly linked list of fixed-size array chunks.
+ *
+ * <p>Unlike {@link KTypeArrayDeque}, this deque never reallocates or copies its elements when it
+ * grows: a new chunk is linked at the head or tail of the list when the first or last chunk is
+ * full, so {@link #addFirst}, {@link #addLast}, {@link #removeFirst()} and {@link #removeLast()}
+ * take constant time in the worst case. Chunks emptied by removals are kept on a (bounded) free
+ * list and reused by subsequent additions, so a deque oscillating around a chunk boundary does not
+ * allocate. Iteration and {@link #forEach} run over each chunk's array range.</p>
+ *
+ * <p>Removals from the middle of the deque ({@link #removeFirst(KType)},
+ * {@link #removeLast(KType)}, {@link #removeAll}) shift the elements after the removed ones
+ * toward the head, just like {@link KTypeArrayDeque} does.</p>
+ */
+/*! #if ($TemplateOptions.KTypeGeneric) @SuppressWarnings("unchecked") #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeChunkedDeque<KType>
+  extends AbstractKTypeCollection<KType>
+  implements KTypeDeque<KType>,
+             Cloneable,
+             Accountable {
+  /**
+   * The default number of elements in a chunk.
+   */
+  public final static int DEFAULT_CHUNK_SIZE = 1 << 10;
+
+  /**
+   * The default maximum number of chunks kept for reuse.
+   */
+  public final static int DEFAULT_MAX_FREE_CHUNKS = 4;
+
+  /**
+   * A chunk of elements, linked with its neighbors.
+   */
+  private final class Chunk {
+    final KType [] elements = Intrinsics.<KType> newArray(chunkSize);
+    Chunk previous;
+    Chunk next;
+  }
+
+  /**
+   * The number of elements in each chunk.
+   */
+  protected final int chunkSize;
+
+  /**
+   * The maximum number of chunks kept on the free list.
+   */
+  protected final int maxFreeChunks;
+
+  /**
+   * The first chunk.
+   */
+  private Chunk headChunk;
+
+  /**
+   * The index of the first element in {@link #headChunk} (if the deque is not empty).
+   */
+  private int head;
+
+  /**
+   * The last chunk.
+   */
+  private Chunk tailChunk;
+
+  /**
+   * The index after the last element in {@link #tailChunk} (if the deque is not empty).
+   */
+  private int tail;
+
+  /**
+   * The number of elements in the deque.
+   */
+  private int size;
+
+  /**
+   * The number of chunks in use.
+   */
+  private int chunkCount;
+
+  /**
+   * Free chunks (linked through {@link Chunk#next}).
+   */
+  private Chunk free;
+
+  /**
+   * The number of free chunks.
+   */
+  private int freeCount;
+
+  /**
+   * New instance with sane defaults.
+   */
+  public KTypeChunkedDeque() {
+    this(DEFAULT_CHUNK_SIZE, DEFAULT_MAX_FREE_CHUNKS);
+  }
+
+  /**
+   * New instance with the given chunk size and free list bound.
+   *
+   * @param chunkSize The number of elements in each chunk, at least <code>2</code>.
+   * @param maxFreeChunks The maximum number of empty chunks kept for reuse.
+   */
+  public KTypeChunkedDeque(int chunkSize, int maxFreeChunks) {
+    if (chunkSize < 2) {
+      throw new IllegalArgumentException("Chunk size must be >= 2: " + chunkSize);
+    }
+    if (maxFreeChunks < 0) {
+      throw new IllegalArgumentException("Maximum free chunks must be >= 0: " + maxFreeChunks);
+    }
+    this.chunkSize = chunkSize;
+    this.maxFreeChunks = maxFreeChunks;
+    release();
+  }
+
+  /**
+   * Creates a new deque from elements of another container, appending elements at
+   * the end of the deque in the iteration order.
+   */
+  public KTypeChunkedDeque(KTypeContainer<? extends KType> container) {
+    this();
+    addLast(container);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addFirst(KType e1) {
+    if (head == 0) {
+      final Chunk chunk = newChunk();
+      chunk.next = headChunk;
+      headChunk.previous = chunk;
+      headChunk = chunk;
+      head = chunkSize;
+    }
+    headChunk.elements[--head] = e1;
+    size++;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addLast(KType e1) {
+    if (tail == chunkSize) {
+      final Chunk chunk = newChunk();
+      chunk.previous = tailChunk;
+      tailChunk.next = chunk;
+      tailChunk = chunk;
+      tail = 0;
+    }
+    tailChunk.elements[tail++] = e1;
+    size++;
+  }
+
+  /**
+   * Inserts all elements from the given container to the front of this deque.
+   *
+   * @return Returns the number of elements actually added as a result of this call.
+   */
+  public int addFirst(KTypeContainer<? extends KType> container) {
+    for (KTypeCursor<? extends KType> cursor : container) {
+      addFirst(cursor.value);
+    }
+    return container.size();
+  }
+
+  /**
+   * Inserts all elements from the given container to the end of this deque.
+   *
+   * @return Returns the number of elements actually added as a result of this call.
+   */
+  public int addLast(KTypeContainer<? extends KType> container) {
+    for (KTypeCursor<? extends KType> cursor : container) {
+      addLast(cursor.value);
+    }
+    return container.size();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType removeFirst() {
+    assert size > 0 : "The deque is empty.";
+
+    final KType [] elements = headChunk.elements;
+    final KType result = elements[head];
+    elements[head++] = Intrinsics.empty();
+    if (--size == 0) {
+      reset();
+    } else if (head == chunkSize) {
+      final Chunk chunk = headChunk;
+      headChunk = chunk.next;
+      headChunk.previous = null;
+      head = 0;
+      recycle(chunk);
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType removeLast() {
+    assert size > 0 : "The deque is empty.";
+
+    final KType [] elements = tailChunk.elements;
+    final KType result = elements[--tail];
+    elements[tail] = Intrinsics.empty();
+    if (--size == 0) {
+      reset();
+    } else if (tail == 0) {
+      final Chunk chunk = tailChunk;
+      tailChunk = chunk.previous;
+      tailChunk.next = null;
+      tail = chunkSize;
+      recycle(chunk);
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType getFirst() {
+    assert size > 0 : "The deque is empty.";
+    return headChunk.elements[head];
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType getLast() {
+    assert size > 0 : "The deque is empty.";
+    return tailChunk.elements[tail - 1];
+  }
+
+  /**
+   * Removes the first element equal to <code>e1</code>.
+   *
+   * @return Returns the position of the removed element (counting from the head) or
+   *         <code>-1</code> if not found.
+   */
+  @Override
+  public int removeFirst(KType e1) {
+    int position = 0;
+    for (Chunk chunk = headChunk; chunk != null; chunk = chunk.next) {
+      final KType [] elements = chunk.elements;
+      final int from = start(chunk);
+      final int to = end(chunk);
+      for (int i = from; i < to; i++) {
+        if (Intrinsics.equals(this, e1, elements[i])) {
+          removeAt(chunk, i);
+          return position + i - from;
+        }
+      }
+      position += to - from;
+    }
+    return -1;
+  }
+
+  /**
+   * Removes the last element equal to <code>e1</code>.
+   *
+   * @return Returns the position of the removed element (counting from the head) or
+   *         <code>-1</code> if not found.
+   */
+  @Override
+  public int removeLast(KType e1) {
+    int position = size;
+    for (Chunk chunk = tailChunk; chunk != null; chunk = chunk.previous) {
+      final KType [] elements = chunk.elements;
+      final int from = start(chunk);
+      final int to = end(chunk);
+      position -= to - from;
+      for (int i = to - 1; i >= from; i--) {
+        if (Intrinsics.equals(this, e1, elements[i])) {
+          removeAt(chunk, i);
+          return position + i - from;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Removes the element at the given index of a chunk, shifting subsequent elements toward the
+   * head.
+   */
+  private void removeAt(Chunk chunk, int index) {
+    while (true) {
+      final KType [] elements = chunk.elements;
+      final int end = end(chunk);
+      System.arraycopy(elements, index + 1, elements, index, end - index - 1);
+      if (chunk == tailChunk) {
+        break;
+      }
+      chunk = chunk.next;
+      elements[chunkSize - 1] = chunk.elements[0];
+      index = 0;
+    }
+    // The last element is now duplicated, drop it.
+    removeLast();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int removeAll(KType e1) {
+    return removeAll(value -> Intrinsics.equals(this, e1, value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int removeAll(KTypePredicate<? super KType> predicate) {
+    // Compact retained elements toward the head, then drop the tail.
+    final int originalSize = size;
+    Chunk target = headChunk;
+    int to = head;
+    int retained = 0;
+    Chunk chunk = headChunk;
+    int from = head;
+    try {
+      for (; chunk != null; chunk = chunk.next) {
+        final KType [] elements = chunk.elements;
+        for (from = start(chunk); from < end(chunk); from++) {
+          final KType value = elements[from];
+          if (!predicate.apply(value)) {
+            if (to == chunkSize) {
+              target = target.next;
+              to = 0;
+            }
+            target.elements[to++] = value;
+            retained++;
+          }
+        }
+      }
+    } finally {
+      // Keep the deque in consistent state even if the predicate throws an exception.
+      if (chunk != null) {
+        for (boolean first = true; chunk != null; chunk = chunk.next, first = false) {
+          final KType [] elements = chunk.elements;
+          for (int i = first ? from : start(chunk); i < end(chunk); i++) {
+            if (to == chunkSize) {
+              target = target.next;
+              to = 0;
+            }
+            target.elements[to++] = elements[i];
+            retained++;
+          }
+        }
+      }
+      truncate(target, to, retained);
+    }
+    return originalSize - size;
+  }
+
+  /**
+   * Clears elements after the given chunk and index and recycles subsequent chunks.
+   */
+  private void truncate(Chunk chunk, int index, int newSize) {
+    final int removed = size - newSize;
+    if (removed == 0) {
+      return;
+    }
+    if (newSize == 0) {
+      clear();
+      return;
+    }
+
+    Arrays.fill(chunk.elements, index, end(chunk), Intrinsics.empty());
+    Chunk next = chunk.next;
+    chunk.next = null;
+    while (next != null) {
+      final Chunk c = next;
+      next = next.next;
+      Arrays.fill(c.elements, 0, end(c), Intrinsics.empty());
+      recycle(c);
+    }
+    tailChunk = chunk;
+    tail = index;
+    size = newSize;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>All chunks but one are released (or kept on the free list).</p>
+   */
+  @Override
+  public void clear() {
+    for (Chunk chunk = headChunk; chunk != null;) {
+      Arrays.fill(chunk.elements, start(chunk), end(chunk), Intrinsics.empty());
+      final Chunk next = chunk.next;
+      if (chunk != headChunk) {
+        recycle(chunk);
+      }
+      chunk = next;
+    }
+    headChunk.next = null;
+    tailChunk = headChunk;
+    size = 0;
+    reset();
+  }
+
+  /**
+   * Releases all chunks, including the free list.
+   */
+  @Override
+  public void release() {
+    free = null;
+    freeCount = 0;
+    headChunk = tailChunk = new Chunk();
+    chunkCount = 1;
+    size = 0;
+    reset();
+  }
+
+  /**
+   * Resets head and tail indices of an empty deque to the middle of its only chunk.
+   */
+  private void reset() {
+    assert size == 0 && headChunk == tailChunk;
+    head = tail = chunkSize / 2;
+  }
+
+  /**
+   * @return Returns a chunk from the free list or a new chunk.
+   */
+  private Chunk newChunk() {
+    chunkCount++;
+    Chunk chunk = free;
+    if (chunk == null) {
+      try {
+        return new Chunk();
+      } catch (OutOfMemoryError e) {
+        chunkCount--;
+        throw new BufferAllocationException(
+            "Not enough memory to allocate a chunk of %,d elements", e, chunkSize);
+      }
+    }
+    free = chunk.next;
+    freeCount--;
+    chunk.next = null;
+    return chunk;
+  }
+
+  /**
+   * Puts an unlinked (and cleared) chunk on the free list if it is not full.
+   */
+  private void recycle(Chunk chunk) {
+    chunkCount--;
+    chunk.previous = null;
+    if (freeCount < maxFreeChunks) {
+      chunk.next = free;
+      free = chunk;
+      freeCount++;
+    } else {
+      chunk.next = null;
+    }
+  }
+
+  /**
+   * @return Returns the index of the first element of a chunk in use.
+   */
+  private int start(Chunk chunk) {
+    return chunk == headChunk ? head : 0;
+  }
+
+  /**
+   * @return Returns the index after the last element of a chunk in use.
+   */
+  private int end(Chunk chunk) {
+    return chunk == tailChunk ? tail : chunkSize;
+  }
+
+  /**
+   * @return Returns the number of chunks in use.
+   */
+  public int chunkCount() {
+    return chunkCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  /*! #if ($TemplateOptions.KTypePrimitive)
+  public KType [] toArray()
+      #else !*/
+  public Object [] toArray()
+  /*! #end !*/
+  {
+    final KType [] target = Intrinsics.<KType> newArray(size);
+    int position = 0;
+    for (Chunk chunk = headChunk; chunk != null; chunk = chunk.next) {
+      final int from = start(chunk);
+      final int length = end(chunk) - from;
+      System.arraycopy(chunk.elements, from, target, position, length);
+      position += length;
+    }
+    return target;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean contains(KType e) {
+    for (Chunk chunk = headChunk; chunk != null; chunk = chunk.next) {
+      final KType [] elements = chunk.elements;
+      for (int i = start(chunk), end = end(chunk); i < end; i++) {
+        if (Intrinsics.equals(this, e, elements[i])) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypeProcedure<? super KType>> T forEach(T procedure) {
+    for (Chunk chunk = headChunk; chunk != null; chunk = chunk.next) {
+      final KType [] elements = chunk.elements;
+      for (int i = start(chunk), end = end(chunk); i < end; i++) {
+        procedure.apply(elements[i]);
+      }
+    }
+    return procedure;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypePredicate<? super KType>> T forEach(T predicate) {
+    for (Chunk chunk = headChunk; chunk != null; chunk = chunk.next) {
+      final KType [] elements = chunk.elements;
+      for (int i = start(chunk), end = end(chunk); i < end; i++) {
+        if (!predicate.apply(elements[i])) {
+          return predicate;
+        }
+      }
+    }
+    return predicate;
+  }
+
+  /**
+   * Applies <code>procedure</code> to all elements of this deque, tail to head.
+   */
+  @Override
+  public <T extends KTypeProcedure<? super KType>> T descendingForEach(T procedure) {
+    for (Chunk chunk = tailChunk; chunk != null; chunk = chunk.previous) {
+      final KType [] elements = chunk.elements;
+      for (int i = end(chunk) - 1, start = start(chunk); i >= start; i--) {
+        procedure.apply(elements[i]);
+      }
+    }
+    return procedure;
+  }
+
+  /**
+   * Applies <code>predicate</code> to all elements of this deque, tail to head, until it
+   * returns <code>false</code>.
+   */
+  @Override
+  public <T extends KTypePredicate<? super KType>> T descendingForEach(T predicate) {
+    for (Chunk chunk = tailChunk; chunk != null; chunk = chunk.previous) {
+      final KType [] elements = chunk.elements;
+      for (int i = end(chunk) - 1, start = start(chunk); i >= start; i--) {
+        if (!predicate.apply(elements[i])) {
+          return predicate;
+        }
+      }
+    }
+    return predicate;
+  }
+
+  /**
+   * An iterator over the elements of the deque, head to tail. The cursor's index is the position
+   * of the element, counting from the head.
+   */
+  private final class ValueIterator extends AbstractIterator<KTypeCursor<KType>> {
+    private final KTypeCursor<KType> cursor = new KTypeCursor<KType>();
+    private Chunk chunk = headChunk;
+    private int index = head;
+    private int remaining = size;
+
+    public ValueIterator() {
+      cursor.index = -1;
+    }
+
+    @Override
+    protected KTypeCursor<KType> fetch() {
+      if (remaining == 0) {
+        return done();
+      }
+      if (index == chunkSize) {
+        chunk = chunk.next;
+        index = 0;
+      }
+      remaining--;
+      cursor.index++;
+      cursor.value = chunk.elements[index++];
+      return cursor;
+    }
+  }
+
+  /**
+   * An iterator over the elements of the deque, tail to head. The cursor's index is the position
+   * of the element, counting from the head.
+   */
+  private final class DescendingValueIterator extends AbstractIterator<KTypeCursor<KType>> {
+    private final KTypeCursor<KType> cursor = new KTypeCursor<KType>();
+    private Chunk chunk = tailChunk;
+    private int index = tail;
+
+    public DescendingValueIterator() {
+      cursor.index = size;
+    }
+
+    @Override
+    protected KTypeCursor<KType> fetch() {
+      if (cursor.index == 0) {
+        return done();
+      }
+      if (index == 0) {
+        chunk = chunk.previous;
+        index = chunkSize;
+      }
+      cursor.index--;
+      cursor.value = chunk.elements[--index];
+      return cursor;
+    }
+  }
+
+  /**
+   * Returns a cursor over the values of this deque (in head to tail order). The iterator returns
+   * <b>the same cursor instance</b> on every call to {@link Iterator#next()} (to avoid boxing of
+   * primitive types).
+   */
+  @Override
+  public Iterator<KTypeCursor<KType>> iterator() {
+    return new ValueIterator();
+  }
+
+  /**
+   * Returns a cursor over the values of this deque (in tail to head order). The iterator returns
+   * <b>the same cursor instance</b> on every call to {@link Iterator#next()} (to avoid boxing of
+   * primitive types).
+   */
+  @Override
+  public Iterator<KTypeCursor<KType>> descendingIterator() {
+    return new DescendingValueIterator();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    int h = 1;
+    for (Chunk chunk = headChunk; chunk != null; chunk = chunk.next) {
+      final KType [] elements = chunk.elements;
+      for (int i = start(chunk), end = end(chunk); i < end; i++) {
+        h = 31 * h + BitMixer.mix(elements[i]);
+      }
+    }
+    return h;
+  }
+
+  /**
+   * Returns <code>true</code> only if the other object is an instance of
+   * the same class and with the same elements.
+#if ($TemplateOptions.KTypeGeneric)
+   * Equality comparison is performed with this object's {@link #equals(Object, Object)}
+   * method.
+#end
+   */
+  @Override
+  public boolean equals(Object obj) {
+    return (this == obj) || (
+      obj != null &&
+      getClass() == obj.getClass() &&
+      equalElements(getClass().cast(obj))
+    );
+  }
+
+  /**
+   * Compare order-aligned elements against another deque.
+   */
+  protected boolean equalElements(KTypeChunkedDeque<?> other) {
+    if (other.size() != size()) {
+      return false;
+    }
+
+    Iterator<KTypeCursor<KType>> i1 = this.iterator();
+    Iterator<? extends KTypeCursor<?>> i2 = other.iterator();
+    while (i1.hasNext() && i2.hasNext()) {
+      if (!Intrinsics.equals(this, i1.next().value, i2.next().value)) {
+        return false;
+      }
+    }
+    return !i1.hasNext() && !i2.hasNext();
+  }
+
+  /**
+   * Clone this object. The returned clone has the same chunk size and an empty free list.
+   */
+  @Override
+  public KTypeChunkedDeque<KType> clone() {
+    final KTypeChunkedDeque<KType> cloned = new KTypeChunkedDeque<>(chunkSize, maxFreeChunks);
+    forEach((KTypeProcedure<KType>) cloned::addLast);
+    return cloned;
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: chunkSize, maxFreeChunks, head, tail, size, chunkCount, freeCount
+    final long chunkBytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + RamUsageEstimator.shallowSizeOfArray(headChunk.elements);
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 7 * Integer.BYTES
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + (chunkCount + freeCount) * chunkBytes;
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: chunkSize, maxFreeChunks, head, tail, size, chunkCount, freeCount
+    final long chunkBytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 7 * Integer.BYTES
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + chunkCount * chunkBytes
+        + RamUsageEstimator.shallowUsedSizeOfArray(headChunk.elements, size);
+  }
+}
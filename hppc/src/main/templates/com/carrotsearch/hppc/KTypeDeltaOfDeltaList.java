@@ -0,0 +1,518 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG"))) !*/
+package com.carrotsearch.hppc;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * An append-only, compressed list of <code>KType</code>s, intended for timestamps of time series
+ * and other sequences with (nearly) regular steps.
+ *
+ * <p>Each value is stored as its <i>delta of deltas</i>: the difference between its own delta
+ * (to the previous value) and the previous delta, as in Facebook's Gorilla time series database.
+ * Regular steps encode to a single bit per value, jittery ones to a short prefix code and a few
+ * bits of zigzag-encoded difference.</p>
+ *
+ * <p>Values are grouped in blocks of {@link #BLOCK_SIZE}, each starting with an uncompressed
+ * value, so decoding can start at any block ({@link #iterator(int)},
+ * {@link #decodeBlock}). Sequential access ({@link #forEach(KTypeProcedure)},
+ * {@link #iterator()}) decodes values one after another; {@link #get(int)} decodes a prefix of
+ * the value's block.</p>
+ */
+/*! #if ($templateonly) !*/ @SuppressWarnings("unchecked") /*! #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeDeltaOfDeltaList<KType> implements KTypeContainer<KType>, Accountable {
+  /**
+   * The number of values in a block.
+   */
+  public static final int BLOCK_SIZE = 128;
+
+  /**
+   * log2 of {@link #BLOCK_SIZE}.
+   */
+  private static final int BLOCK_SHIFT = 7;
+
+  /**
+   * The number of bits of a value.
+   */
+  private static final int WIDTH =
+      /*! #if ($TemplateOptions.isKTypeAnyOf("INT")) Integer.SIZE #else !*/ Long.SIZE /*! #end !*/;
+
+  /**
+   * Reuse the same strategy instance.
+   */
+  private static final BoundedProportionalArraySizingStrategy DEFAULT_SIZING_STRATEGY =
+      BoundedProportionalArraySizingStrategy.DEFAULT_INSTANCE;
+
+  private static final long[] EMPTY_WORDS = new long[0];
+
+  /**
+   * Buffer resizing strategy.
+   */
+  protected final ArraySizingStrategy resizer;
+
+  /**
+   * The encoded values.
+   */
+  private long[] words = EMPTY_WORDS;
+
+  /**
+   * The number of used bits in {@link #words}.
+   */
+  private long bitCount;
+
+  /**
+   * The first bit of each block in {@link #words}.
+   */
+  private final LongArrayList blockOffsets = new LongArrayList();
+
+  /**
+   * The number of values.
+   */
+  private int size;
+
+  /**
+   * The last value.
+   */
+  private long previous;
+
+  /**
+   * The difference between the last two values.
+   */
+  private long delta;
+
+  /**
+   * New instance with sane defaults.
+   */
+  public KTypeDeltaOfDeltaList() {
+    this(DEFAULT_SIZING_STRATEGY);
+  }
+
+  /**
+   * New instance with the given resizing strategy of the encoded values' buffer.
+   */
+  public KTypeDeltaOfDeltaList(ArraySizingStrategy resizer) {
+    assert resizer != null;
+    this.resizer = resizer;
+  }
+
+  /**
+   * Appends a value to the end of the list.
+   */
+  public void add(KType e) {
+    // The longest encoding: a four bit prefix and all bits of the value.
+    ensureBitSpace(4 + WIDTH);
+
+    final long value = widen(e);
+    if ((size & (BLOCK_SIZE - 1)) == 0) {
+      blockOffsets.add(bitCount);
+      append(value, WIDTH);
+      delta = 0;
+    } else {
+      // Differences wrap around, as the values would.
+      final long d = widen(narrow(value - previous));
+      final long deltaOfDeltas = widen(narrow(d - delta));
+      delta = d;
+
+      final long zigzag = (deltaOfDeltas << 1) ^ (deltaOfDeltas >> 63);
+      if (zigzag == 0) {
+        // '0': the same delta.
+        append(0, 1);
+      } else if ((zigzag >>> 7) == 0) {
+        // '1', '0' and 7 bits.
+        append(0b01 | zigzag << 2, 2 + 7);
+      } else if ((zigzag >>> 9) == 0) {
+        // '1', '1', '0' and 9 bits.
+        append(0b011 | zigzag << 3, 3 + 9);
+      } else if ((zigzag >>> 12) == 0) {
+        // '1', '1', '1', '0' and 12 bits.
+        append(0b0111 | zigzag << 4, 4 + 12);
+      } else {
+        // '1', '1', '1', '1' and the difference as is.
+        append(0b1111, 4);
+        append(deltaOfDeltas, WIDTH);
+      }
+    }
+    previous = value;
+    size++;
+  }
+
+  /**
+   * Appends <code>length</code> values from an array, starting at <code>start</code>.
+   */
+  public void add(KType[] elements, int start, int length) {
+    assert length >= 0 && start >= 0 && start + length <= elements.length;
+    for (int i = start; i < start + length; i++) {
+      add(elements[i]);
+    }
+  }
+
+  /**
+   * Appends all values from another container.
+   */
+  public int addAll(KTypeContainer<? extends KType> container) {
+    for (KTypeCursor<? extends KType> cursor : container) {
+      add(cursor.value);
+    }
+    return container.size();
+  }
+
+  private void append(long value, int bits) {
+    BitStreamUtil.write(words, bitCount, value, bits);
+    bitCount += bits;
+  }
+
+  /**
+   * Ensures {@link #words} has room for <code>additionalBits</code> more bits.
+   */
+  private void ensureBitSpace(int additionalBits) {
+    final int required = BitStreamUtil.words(bitCount + additionalBits);
+    if (required > words.length) {
+      final int used = BitStreamUtil.words(bitCount);
+      final int newSize = resizer.grow(words.length, used, required - used);
+      try {
+        words = Arrays.copyOf(words, newSize);
+      } catch (OutOfMemoryError e) {
+        throw new BufferAllocationException(
+            "Not enough memory to allocate new buffers: %,d -> %,d",
+            e, words.length, newSize);
+      }
+    }
+  }
+
+  private static <KType> long widen(KType value) {
+    return (long) Intrinsics.<KType> numeric(value);
+  }
+
+  private static <KType> KType narrow(long value) {
+    /*! #if ($TemplateOptions.isKTypeAnyOf("INT")) return (int) value; #else !*/
+    return Intrinsics.<KType> cast(value);
+    /*! #end !*/
+  }
+
+  /**
+   * Sequentially decodes values, starting at a block. Decoded values are correct in their lowest
+   * {@link #WIDTH} bits.
+   */
+  private final class Decoder {
+    private int index;
+    private long position;
+    private long value;
+    private long delta;
+
+    Decoder(int block) {
+      this.index = block << BLOCK_SHIFT;
+      this.position = block < blockOffsets.size() ? blockOffsets.get(block) : bitCount;
+    }
+
+    long next() {
+      assert index < size;
+      final long[] words = KTypeDeltaOfDeltaList.this.words;
+      if ((index++ & (BLOCK_SIZE - 1)) == 0) {
+        value = BitStreamUtil.read(words, position, WIDTH);
+        position += WIDTH;
+        delta = 0;
+      } else {
+        if (BitStreamUtil.read(words, position++, 1) != 0) {
+          final long deltaOfDeltas;
+          if (BitStreamUtil.read(words, position++, 1) == 0) {
+            deltaOfDeltas = unzigzag(BitStreamUtil.read(words, position, 7));
+            position += 7;
+          } else if (BitStreamUtil.read(words, position++, 1) == 0) {
+            deltaOfDeltas = unzigzag(BitStreamUtil.read(words, position, 9));
+            position += 9;
+          } else if (BitStreamUtil.read(words, position++, 1) == 0) {
+            deltaOfDeltas = unzigzag(BitStreamUtil.read(words, position, 12));
+            position += 12;
+          } else {
+            deltaOfDeltas = BitStreamUtil.read(words, position, WIDTH);
+            position += WIDTH;
+          }
+          delta += deltaOfDeltas;
+        }
+        value += delta;
+      }
+      return value;
+    }
+  }
+
+  private static long unzigzag(long zigzag) {
+    return (zigzag >>> 1) ^ -(zigzag & 1);
+  }
+
+  /**
+   * @return Returns the value at the given index. This decodes all preceding values of its block.
+   */
+  public KType get(int index) {
+    assert (index >= 0 && index < size())
+        : "Index " + index + " out of bounds [" + 0 + ", " + size() + ").";
+    final Decoder decoder = new Decoder(index >>> BLOCK_SHIFT);
+    long value;
+    do {
+      value = decoder.next();
+    } while (decoder.index <= index);
+    return narrow(value);
+  }
+
+  /**
+   * Decodes all values of a block to <code>target</code>, starting at <code>offset</code>.
+   *
+   * @param block The block index, between zero and {@link #blockCount()} (exclusive).
+   * @return Returns the number of decoded values: {@link #BLOCK_SIZE}, except for the last
+   * block.
+   */
+  public int decodeBlock(int block, KType[] target, int offset) {
+    assert block >= 0 && block < blockCount() : "Block " + block + " out of bounds.";
+    final int length = Math.min(BLOCK_SIZE, size - (block << BLOCK_SHIFT));
+    final Decoder decoder = new Decoder(block);
+    for (int i = 0; i < length; i++) {
+      target[offset + i] = narrow(decoder.next());
+    }
+    return length;
+  }
+
+  /**
+   * @return Returns the number of blocks.
+   */
+  public int blockCount() {
+    return blockOffsets.size();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean contains(KType e) {
+    final Decoder decoder = new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      if (Intrinsics.<KType> equals(e, narrow(decoder.next()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes all values. The encoded values' buffer is kept for reuse.
+   */
+  public void clear() {
+    Arrays.fill(words, 0, BitStreamUtil.words(bitCount), 0L);
+    blockOffsets.clear();
+    bitCount = 0;
+    size = 0;
+  }
+
+  /**
+   * Removes all values and releases internal buffers.
+   */
+  public void release() {
+    words = EMPTY_WORDS;
+    blockOffsets.release();
+    bitCount = 0;
+    size = 0;
+  }
+
+  /**
+   * Trims internal buffers to the space actually used by the encoded values.
+   */
+  public void trimToSize() {
+    words = Arrays.copyOf(words, BitStreamUtil.words(bitCount));
+    blockOffsets.trimToSize();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  /*! #if ($TemplateOptions.KTypePrimitive)
+  public KType [] toArray()
+      #else !*/
+  public Object [] toArray()
+  /*! #end !*/
+  {
+    final KType[] array = Intrinsics.<KType> newArray(size);
+    final Decoder decoder = new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      array[i] = narrow(decoder.next());
+    }
+    return array;
+  }
+
+  /* #if ($TemplateOptions.KTypeGeneric) */
+  @Override
+  public <T> T[] toArray(Class<T> componentClass) {
+    final T[] array = (T[]) java.lang.reflect.Array.newInstance(componentClass, size);
+    System.arraycopy(toArray(), 0, array, 0, size);
+    return array;
+  }
+  /* #end */
+
+  /**
+   * @return Returns a new {@link KTypeArrayList} with all values of this list.
+   */
+  public KTypeArrayList<KType> toList() {
+    final KTypeArrayList<KType> list = new KTypeArrayList<>(size);
+    list.add(Intrinsics.<KType[]> cast(toArray()));
+    return list;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypeProcedure<? super KType>> T forEach(T procedure) {
+    final Decoder decoder = new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      procedure.apply(narrow(decoder.next()));
+    }
+    return procedure;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypePredicate<? super KType>> T forEach(T predicate) {
+    final Decoder decoder = new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      if (!predicate.apply(narrow(decoder.next()))) {
+        break;
+      }
+    }
+    return predicate;
+  }
+
+  /**
+   * An iterator decoding values sequentially.
+   */
+  private final class ValueIterator extends AbstractIterator<KTypeCursor<KType>> {
+    private final KTypeCursor<KType> cursor = new KTypeCursor<KType>();
+    private final Decoder decoder;
+
+    public ValueIterator(int block) {
+      decoder = new Decoder(block);
+      cursor.index = (block << BLOCK_SHIFT) - 1;
+    }
+
+    @Override
+    protected KTypeCursor<KType> fetch() {
+      final int index = cursor.index + 1;
+      if (index >= size) {
+        return done();
+      }
+      cursor.index = index;
+      cursor.value = narrow(decoder.next());
+      return cursor;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<KTypeCursor<KType>> iterator() {
+    return new ValueIterator(0);
+  }
+
+  /**
+   * Returns an iterator over the values starting at the first value of the given block. Cursor
+   * indexes are positions in the whole list.
+   *
+   * @param block The block index, between zero and {@link #blockCount()} (inclusive).
+   */
+  public Iterator<KTypeCursor<KType>> iterator(int block) {
+    assert block >= 0 && block <= blockCount() : "Block " + block + " out of bounds.";
+    return new ValueIterator(block);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    int h = 1;
+    final Decoder decoder = new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      h = 31 * h + BitMixer.mix(narrow(decoder.next()));
+    }
+    return h;
+  }
+
+  /**
+   * Returns <code>true</code> only if the other object is a list of the same class with the same
+   * values.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final KTypeDeltaOfDeltaList<KType> other = (KTypeDeltaOfDeltaList<KType>) obj;
+    if (other.size != size) {
+      return false;
+    }
+    final Decoder decoder = new Decoder(0);
+    final Decoder otherDecoder = other.new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      if (narrow(decoder.next()) != narrow(otherDecoder.next())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Convert the contents of this container to a human-friendly string.
+   */
+  @Override
+  public String toString() {
+    return Arrays.toString(this.toArray());
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: size; long: bitCount, previous, delta
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + Integer.BYTES
+        + 3 * Long.BYTES
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + resizer.ramBytesAllocated()
+        + RamUsageEstimator.shallowSizeOfArray(words)
+        + blockOffsets.ramBytesAllocated();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: size; long: bitCount, previous, delta
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + Integer.BYTES
+        + 3 * Long.BYTES
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + resizer.ramBytesUsed()
+        + RamUsageEstimator.shallowUsedSizeOfArray(words, BitStreamUtil.words(bitCount))
+        + blockOffsets.ramBytesUsed();
+  }
+}
@@ -0,0 +1,161 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.isKTypeAnyOf("DOUBLE", "FLOAT", "BYTE"))) !*/
+package com.carrotsearch.hppc;
+
+/**
+ * A disjoint set (union-find) structure over arbitrary <code>KType</code> keys. Keys are mapped
+ * to dense element identifiers of a {@link DisjointSet} with a {@link KTypeIntDictionary}, in the
+ * order of their first appearance in {@link #union}.
+#if ($TemplateOptions.KTypeGeneric)
+ *
+ * <p>Supports <code>null</code> keys.</p>
+#end
+ */
+/*! #if ($TemplateOptions.KTypeGeneric) @SuppressWarnings("unchecked") #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeDisjointSet<KType> implements Accountable
+{
+  /**
+   * Maps keys to elements of {@link #sets}.
+   */
+  public final KTypeIntDictionary<KType> keys;
+
+  /**
+   * Sets of elements (key identifiers).
+   */
+  public final DisjointSet sets;
+
+  /**
+   * New instance with sane defaults.
+   */
+  public KTypeDisjointSet() {
+    this(Containers.DEFAULT_EXPECTED_ELEMENTS);
+  }
+
+  /**
+   * New instance with sane defaults.
+   *
+   * @param expectedElements The expected number of keys.
+   */
+  public KTypeDisjointSet(int expectedElements) {
+    this.keys = new KTypeIntDictionary<>(expectedElements);
+    this.sets = new DisjointSet();
+    this.sets.ensureCapacity(expectedElements);
+  }
+
+  /**
+   * Returns the element identifier of a key, adding the key (in its own set) if it is not
+   * present.
+   */
+  public int add(KType key) {
+    final int id = keys.getOrAdd(key);
+    if (id == sets.size()) {
+      sets.add();
+    }
+    return id;
+  }
+
+  /**
+   * Merges the sets two keys belong to, adding keys not present yet.
+   *
+   * @return Returns <code>true</code> if the sets were merged, <code>false</code> if both keys
+   *         already belonged to the same set.
+   */
+  public boolean union(KType a, KType b) {
+    return sets.union(add(a), add(b));
+  }
+
+  /**
+   * Merges the sets of all pairs of keys <code>(first.get(i), second.get(i))</code>.
+   *
+   * @return Returns the number of merged sets.
+   */
+  public int unionAll(KTypeArrayList<KType> first, KTypeArrayList<KType> second) {
+    final int pairs = first.size();
+    if (second.size() != pairs) {
+      throw new IllegalArgumentException(
+          "Both lists must have an identical size: " + pairs + " != " + second.size());
+    }
+
+    final KType[] a = Intrinsics.<KType[]> cast(first.buffer);
+    final KType[] b = Intrinsics.<KType[]> cast(second.buffer);
+    int merges = 0;
+    for (int i = 0; i < pairs; i++) {
+      if (union(a[i], b[i])) {
+        merges++;
+      }
+    }
+    return merges;
+  }
+
+  /**
+   * @return Returns the representative key of the set a key belongs to. Keys not present
+   *         are their own representatives.
+   */
+  public KType find(KType key) {
+    final int id = keys.get(key);
+    return id == KTypeIntDictionary.NOT_FOUND ? key : keys.getKey(sets.find(id));
+  }
+
+  /**
+   * @return Returns <code>true</code> if both keys belong to the same set (keys not present
+   *         are only connected to themselves).
+   */
+  public boolean connected(KType a, KType b) {
+    final int idA = keys.get(a);
+    final int idB = keys.get(b);
+    if (idA == KTypeIntDictionary.NOT_FOUND || idB == KTypeIntDictionary.NOT_FOUND) {
+      return Intrinsics.<KType> equals(a, b);
+    }
+    return sets.connected(idA, idB);
+  }
+
+  /**
+   * Appends the component label of each key, in the order of key identifiers (see
+   * {@link KTypeIntDictionary#getKey(int)}), to the target list.
+   *
+   * @see DisjointSet#labels(IntArrayList)
+   * @return Returns the number of components (labels).
+   */
+  public int labels(IntArrayList target) {
+    return sets.labels(target);
+  }
+
+  /**
+   * @return Returns the number of keys.
+   */
+  public int size() {
+    return keys.size();
+  }
+
+  /**
+   * @return Returns the number of disjoint sets.
+   */
+  public int componentCount() {
+    return sets.componentCount();
+  }
+
+  /**
+   * Removes all keys.
+   */
+  public void clear() {
+    keys.clear();
+    sets.clear();
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + keys.ramBytesAllocated() + sets.ramBytesAllocated();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + keys.ramBytesUsed() + sets.ramBytesUsed();
+  }
+
+  @Override
+  public String toString() {
+    return "DisjointSet[size=" + size() + ", components=" + componentCount() + "]";
+  }
+}
@@ -0,0 +1,848 @@
+package com.carrotsearch.hppc;
+
+import java.util.*;
+/* #if ($TemplateOptions.KTypeGeneric) */
+import java.util.stream.Stream;
+/* #end */
+/*! #if ($TemplateOptions.isKTypeAnyOf("INT"))
+import java.util.stream.IntStream;
+#end !*/
+/*! #if ($TemplateOptions.isKTypeAnyOf("LONG"))
+import java.util.stream.LongStream;
+#end !*/
+/*! #if ($TemplateOptions.isKTypeAnyOf("DOUBLE"))
+import java.util.stream.DoubleStream;
+#end !*/
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+import static com.carrotsearch.hppc.Containers.*;
+
+/**
+ * A list of KTypes stored in a gap buffer: a single array with a movable run
+ * of free slots (the gap) somewhere inside it.
+ *
+ * <p>Elements before the gap are stored at the beginning of {@link #buffer},
+ * elements after the gap at its end. Inserts and removals happen at the gap, so
+ * a sequence of edits near a moving position only shifts the elements between
+ * the previous and the current position, instead of the whole tail of the list
+ * as {@link KTypeArrayList#insert} or {@link KTypeArrayList#removeAt} do. Random
+ * access with {@link #get(int)} remains constant-time.</p>
+ */
+/*! #if ($TemplateOptions.KTypeGeneric) @SuppressWarnings("unchecked") #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeGapList<KType>
+  extends AbstractKTypeCollection<KType>
+  implements KTypeIndexedContainer<KType>,
+             Preallocable,
+             Cloneable,
+             Accountable
+{
+  /**
+   * Reuse the same strategy instance.
+   */
+  private static final BoundedProportionalArraySizingStrategy DEFAULT_SIZING_STRATEGY =
+      BoundedProportionalArraySizingStrategy.DEFAULT_INSTANCE;
+
+  /**
+   * Internal array for storing the list. Elements occupy the slots
+   * <code>[0, gapStart)</code> and <code>[gapEnd, buffer.length)</code>.
+   */
+  public
+      /*! #if ($TemplateOptions.KTypePrimitive)
+          KType []
+          #else !*/
+          Object []
+      /*! #end !*/
+          buffer = KTypeArrayList.EMPTY_ARRAY;
+
+  /**
+   * The first slot of the gap in {@link #buffer}; also the number of elements
+   * stored before the gap.
+   */
+  public int gapStart;
+
+  /**
+   * The first slot after the gap in {@link #buffer}.
+   */
+  public int gapEnd;
+
+  /**
+   * Buffer resizing strategy.
+   */
+  protected final ArraySizingStrategy resizer;
+
+  /**
+   * New instance with sane defaults.
+   */
+  public KTypeGapList() {
+    this(DEFAULT_EXPECTED_ELEMENTS);
+  }
+
+  /**
+   * New instance with sane defaults.
+   *
+   * @param expectedElements
+   *          The expected number of elements guaranteed not to cause buffer
+   *          expansion (inclusive).
+   */
+  public KTypeGapList(int expectedElements) {
+    this(expectedElements, DEFAULT_SIZING_STRATEGY);
+  }
+
+  /**
+   * New instance with sane defaults.
+   *
+   * @param expectedElements
+   *          The expected number of elements guaranteed not to cause buffer
+   *          expansion (inclusive).
+   *
+   * @param resizer
+   *          Underlying buffer sizing strategy.
+   */
+  public KTypeGapList(int expectedElements, ArraySizingStrategy resizer) {
+    assert resizer != null;
+    this.resizer = resizer;
+    ensureCapacity(expectedElements);
+  }
+
+  /**
+   * Creates a new list from the elements of another container in its
+   * iteration order.
+   */
+  public KTypeGapList(KTypeContainer<? extends KType> container) {
+    this(container.size());
+    addAll(container);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(KType e1) {
+    insert(size(), e1);
+  }
+
+  /**
+   * Add all elements from a range of given array to the end of the list.
+   */
+  public void add(KType[] elements, int start, int length) {
+    insert(size(), elements, start, length);
+  }
+
+  /**
+   * Vararg-signature method for adding elements at the end of the list.
+   * <p>
+   * <b>This method is handy, but costly if used in tight loops (anonymous array
+   * passing)</b>
+   * </p>
+   */
+  /* #if ($TemplateOptions.KTypeGeneric) */
+  @SafeVarargs
+  /* #end */
+  public final void add(KType... elements) {
+    add(elements, 0, elements.length);
+  }
+
+  /**
+   * Adds all elements from another container.
+   */
+  public int addAll(KTypeContainer<? extends KType> container) {
+    final int size = container.size();
+    ensureGapSpace(size);
+    moveGap(size());
+
+    for (KTypeCursor<? extends KType> cursor : container) {
+      buffer[gapStart++] = cursor.value;
+    }
+
+    return size;
+  }
+
+  /**
+   * Adds all elements from another iterable.
+   */
+  public int addAll(Iterable<? extends KTypeCursor<? extends KType>> iterable) {
+    int size = 0;
+    for (KTypeCursor<? extends KType> cursor : iterable) {
+      add(cursor.value);
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void insert(int index, KType e1) {
+    assert (index >= 0 && index <= size()) : "Index " + index + " out of bounds [" + 0 + ", " + size() + "].";
+
+    ensureGapSpace(1);
+    moveGap(index);
+    buffer[gapStart++] = e1;
+  }
+
+  /**
+   * Inserts a range of the given array at <code>index</code>, shifting the
+   * elements at and after that position to the right.
+   */
+  public void insert(int index, KType[] elements, int start, int length) {
+    assert (index >= 0 && index <= size()) : "Index " + index + " out of bounds [" + 0 + ", " + size() + "].";
+    assert length >= 0 : "Length must be >= 0";
+
+    ensureGapSpace(length);
+    moveGap(index);
+    System.arraycopy(elements, start, buffer, gapStart, length);
+    gapStart += length;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType get(int index) {
+    assert (index >= 0 && index < size()) : "Index " + index + " out of bounds [" + 0 + ", " + size() + ").";
+
+    return Intrinsics.<KType> cast(buffer[slot(index)]);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType set(int index, KType e1) {
+    assert (index >= 0 && index < size()) : "Index " + index + " out of bounds [" + 0 + ", " + size() + ").";
+
+    final int slot = slot(index);
+    final KType v = Intrinsics.<KType> cast(buffer[slot]);
+    buffer[slot] = e1;
+    return v;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType removeAt(int index) {
+    assert (index >= 0 && index < size()) : "Index " + index + " out of bounds [" + 0 + ", " + size() + ").";
+
+    final int slot;
+    if (index < gapStart) {
+      // Remove the element just before the gap (the backspace case).
+      moveGap(index + 1);
+      slot = --gapStart;
+    } else {
+      // Remove the element just after the gap (the delete case).
+      moveGap(index);
+      slot = gapEnd++;
+    }
+
+    final KType v = Intrinsics.<KType> cast(buffer[slot]);
+    /* #if ($TemplateOptions.KTypeGeneric) */
+    buffer[slot] = Intrinsics.empty();
+    /* #end */
+    return v;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType removeLast() {
+    assert size() > 0;
+
+    return removeAt(size() - 1);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void removeRange(int fromIndex, int toIndex) {
+    assert (fromIndex >= 0 && fromIndex <= size())
+      : "Index " + fromIndex + " out of bounds [" + 0 + ", " + size() + ").";
+    assert (toIndex >= 0 && toIndex <= size())
+      : "Index " + toIndex + " out of bounds [" + 0 + ", " + size() + "].";
+    assert fromIndex <= toIndex
+      : "fromIndex must be <= toIndex: " + fromIndex + ", " + toIndex;
+
+    moveGap(fromIndex);
+    final int count = toIndex - fromIndex;
+    /* #if ($TemplateOptions.KTypeGeneric) */
+    Arrays.fill(buffer, gapEnd, gapEnd + count, Intrinsics.empty());
+    /* #end */
+    gapEnd += count;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean removeElement(KType e1) {
+    return removeFirst(e1) != -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int removeFirst(KType e1) {
+    final int index = indexOf(e1);
+    if (index >= 0)
+      removeAt(index);
+    return index;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int removeLast(KType e1) {
+    final int index = lastIndexOf(e1);
+    if (index >= 0)
+      removeAt(index);
+    return index;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int removeAll(KType e1) {
+    moveGap(size());
+
+    int to = 0;
+    for (int from = 0; from < gapStart; from++) {
+      if (Intrinsics.equals(this, e1, buffer[from])) {
+        continue;
+      }
+      if (to != from) {
+        buffer[to] = buffer[from];
+      }
+      to++;
+    }
+    final int deleted = gapStart - to;
+    /* #if ($TemplateOptions.KTypeGeneric) */
+    Arrays.fill(buffer, to, gapStart, Intrinsics.empty());
+    /* #end */
+    this.gapStart = to;
+    return deleted;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int removeAll(KTypePredicate<? super KType> predicate) {
+    moveGap(size());
+
+    final KType[] buffer = Intrinsics.<KType[]> cast(this.buffer);
+    final int elementsCount = this.gapStart;
+    int to = 0;
+    int from = 0;
+    try {
+      for (; from < elementsCount; from++) {
+        if (predicate.apply(buffer[from])) {
+          buffer[from] = Intrinsics.empty();
+          continue;
+        }
+
+        if (to != from) {
+          buffer[to] = buffer[from];
+          buffer[from] = Intrinsics.empty();
+        }
+        to++;
+      }
+    } finally {
+      // Keep the list in a consistent state, even if the predicate throws an exception.
+      for (; from < elementsCount; from++) {
+        if (to != from) {
+          buffer[to] = buffer[from];
+          buffer[from] = Intrinsics.empty();
+        }
+        to++;
+      }
+
+      this.gapStart = to;
+    }
+
+    return elementsCount - to;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean contains(KType e1) {
+    return indexOf(e1) >= 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int indexOf(KType e1) {
+    for (int i = 0; i < gapStart; i++) {
+      if (Intrinsics.equals(this, e1, buffer[i])) {
+        return i;
+      }
+    }
+
+    for (int i = gapEnd; i < buffer.length; i++) {
+      if (Intrinsics.equals(this, e1, buffer[i])) {
+        return i - gapLength();
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int lastIndexOf(KType e1) {
+    for (int i = buffer.length - 1; i >= gapEnd; i--) {
+      if (Intrinsics.equals(this, e1, buffer[i])) {
+        return i - gapLength();
+      }
+    }
+
+    for (int i = gapStart - 1; i >= 0; i--) {
+      if (Intrinsics.equals(this, e1, buffer[i])) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return buffer.length - gapLength();
+  }
+
+  /**
+   * @return Returns the current position of the gap, that is the index at which
+   * an insert or a removal does not move any elements.
+   */
+  public int gapPosition() {
+    return gapStart;
+  }
+
+  /**
+   * Ensure this container can hold at least the given number of elements
+   * without resizing its buffers.
+   *
+   * @param expectedElements
+   *          The total number of elements, inclusive.
+   */
+  @Override
+  public void ensureCapacity(int expectedElements) {
+    if (expectedElements > buffer.length) {
+      ensureGapSpace(expectedElements - size());
+    }
+  }
+
+  /**
+   * Ensures the gap has at least <code>expectedAdditions</code> free slots.
+   * Increases internal buffer size if needed, keeping the gap where it is.
+   */
+  protected void ensureGapSpace(int expectedAdditions) {
+    final int bufferLen = buffer.length;
+    final int elementsCount = size();
+    if (expectedAdditions > gapLength()) {
+      final int newSize = resizer.grow(bufferLen, elementsCount, expectedAdditions);
+      assert newSize >= elementsCount + expectedAdditions : "Resizer failed to" + " return sensible new size: "
+          + newSize + " <= " + (elementsCount + expectedAdditions);
+
+      try {
+        final KType[] newBuffer = Intrinsics.<KType> newArray(newSize);
+        final int tailLength = bufferLen - gapEnd;
+        System.arraycopy(buffer, 0, newBuffer, 0, gapStart);
+        System.arraycopy(buffer, gapEnd, newBuffer, newSize - tailLength, tailLength);
+        this.gapEnd = newSize - tailLength;
+        this.buffer = newBuffer;
+      } catch (OutOfMemoryError e) {
+        throw new BufferAllocationException(
+            "Not enough memory to allocate new buffers: %,d -> %,d",
+            e, bufferLen, newSize);
+      }
+    }
+  }
+
+  /**
+   * Moves the gap so that it starts at the given element index. Only the
+   * elements between the current and the new gap position are copied.
+   */
+  protected void moveGap(int index) {
+    assert (index >= 0 && index <= size()) : "Index " + index + " out of bounds [" + 0 + ", " + size() + "].";
+
+    if (index < gapStart) {
+      final int count = gapStart - index;
+      final int newGapEnd = gapEnd - count;
+      System.arraycopy(buffer, index, buffer, newGapEnd, count);
+      /* #if ($TemplateOptions.KTypeGeneric) */
+      Arrays.fill(buffer, index, Math.min(gapStart, newGapEnd), Intrinsics.empty());
+      /* #end */
+      gapStart = index;
+      gapEnd = newGapEnd;
+    } else if (index > gapStart) {
+      final int count = index - gapStart;
+      final int newGapEnd = gapEnd + count;
+      System.arraycopy(buffer, gapEnd, buffer, gapStart, count);
+      /* #if ($TemplateOptions.KTypeGeneric) */
+      Arrays.fill(buffer, Math.max(gapEnd, index), newGapEnd, Intrinsics.empty());
+      /* #end */
+      gapStart = index;
+      gapEnd = newGapEnd;
+    }
+  }
+
+  /**
+   * Returns the number of free slots in the gap.
+   */
+  private int gapLength() {
+    return gapEnd - gapStart;
+  }
+
+  /**
+   * Translates an element index into a slot of {@link #buffer}.
+   */
+  private int slot(int index) {
+    return index < gapStart ? index : index + gapLength();
+  }
+
+  /**
+   * Sets the number of stored elements to zero. Releases and initializes the
+   * internal storage array to default values.
+   */
+  @Override
+  public void clear() {
+    /* #if ($TemplateOptions.KTypeGeneric) */
+    Arrays.fill(buffer, 0, gapStart, Intrinsics.empty());
+    Arrays.fill(buffer, gapEnd, buffer.length, Intrinsics.empty());
+    /* #end */
+    this.gapStart = 0;
+    this.gapEnd = buffer.length;
+  }
+
+  /**
+   * Sets the number of stored elements to zero and releases the internal
+   * storage array.
+   */
+  @Override
+  public void release() {
+    this.buffer = KTypeArrayList.EMPTY_ARRAY;
+    this.gapStart = 0;
+    this.gapEnd = 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The returned array is sized to match exactly
+   * the number of elements of the list.</p>
+   */
+  @Override
+  /*! #if ($TemplateOptions.KTypePrimitive)
+  public KType [] toArray()
+      #else !*/
+  public Object [] toArray()
+  /*! #end !*/
+  {
+    return toArray(Intrinsics.<KType> newArray(size()));
+  }
+
+  /**
+   * Copies elements of this list to an array, skipping the gap.
+   *
+   * @param target
+   *          The target array must be large enough to hold all elements.
+   * @return Returns the target argument for chaining.
+   */
+  public KType[] toArray(KType[] target) {
+    assert target.length >= size() : "Target array must be >= " + size();
+
+    System.arraycopy(buffer, 0, target, 0, gapStart);
+    System.arraycopy(buffer, gapEnd, target, gapStart, buffer.length - gapEnd);
+    return target;
+  }
+
+  /* #if ($TemplateOptions.KTypeGeneric) */
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public Stream<KType> stream() {
+    return (Stream<KType>) Arrays.stream(toArray());
+  }
+  /* #end */
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT"))
+  @Override
+  public IntStream stream() {
+  #end !*/
+  /*! #if ($TemplateOptions.isKTypeAnyOf("LONG"))
+  @Override
+  public LongStream stream() {
+  #end !*/
+  /*! #if ($TemplateOptions.isKTypeAnyOf("DOUBLE"))
+  @Override
+  public DoubleStream stream() {
+  #end !*/
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG", "DOUBLE"))
+    return Arrays.stream(toArray());
+  }
+  #end !*/
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The gap is moved to the end of the list first.</p>
+   */
+  @Override
+  public KTypeIndexedContainer<KType> sort() {
+    moveGap(size());
+    Arrays.sort(buffer, 0, gapStart);
+    return this;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The gap is moved to the end of the list first.</p>
+   */
+  @Override
+  public KTypeIndexedContainer<KType> reverse() {
+    moveGap(size());
+    for (int i = 0, mid = gapStart >> 1, j = gapStart - 1; i < mid; i++, j--) {
+      KType tmp = Intrinsics.<KType> cast(buffer[i]);
+      buffer[i] = buffer[j];
+      buffer[j] = tmp;
+    }
+    return this;
+  }
+
+  /**
+   * Clone this object. The returned clone will reuse the same array resizing
+   * strategy.
+   */
+  @Override
+  public KTypeGapList<KType> clone() {
+    try {
+      /* #if ($templateOnly) */
+      @SuppressWarnings("unchecked")
+      /* #end */
+      final KTypeGapList<KType> cloned = (KTypeGapList<KType>) super.clone();
+      cloned.buffer = buffer.clone();
+      return cloned;
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    int h = 1;
+    for (int i = 0; i < gapStart; i++) {
+      h = 31 * h + BitMixer.mix(this.buffer[i]);
+    }
+    for (int i = gapEnd; i < buffer.length; i++) {
+      h = 31 * h + BitMixer.mix(this.buffer[i]);
+    }
+    return h;
+  }
+
+  /**
+   * Returns <code>true</code> only if the other object is an instance of
+   * the same class and with the same elements.
+#if ($TemplateOptions.KTypeGeneric)
+   * Equality comparison is performed with this object's {@link #equals(Object, Object)}
+   * method.
+#end
+   */
+  @Override
+  public boolean equals(Object obj) {
+    return (this == obj) || (
+      obj != null &&
+      getClass() == obj.getClass() &&
+      equalElements(getClass().cast(obj))
+    );
+  }
+
+  /**
+   * Compare index-aligned elements against another gap list, regardless of
+   * where the gaps are.
+#if ($TemplateOptions.KTypeGeneric)
+   * Equality comparison is performed with this object's {@link #equals(Object, Object)}
+   * method.
+#end
+   */
+  protected boolean equalElements(KTypeGapList<?> other) {
+    int max = size();
+    if (other.size() != max) {
+      return false;
+    }
+
+    for (int i = 0; i < max; i++) {
+      if (!Intrinsics.equals(this, get(i), other.get(i))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: gapStart, gapEnd
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * Integer.BYTES + resizer.ramBytesAllocated() +
+            RamUsageEstimator.shallowSizeOfArray(buffer);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: gapStart, gapEnd
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * Integer.BYTES + resizer.ramBytesUsed() +
+            RamUsageEstimator.shallowUsedSizeOfArray(buffer, size());
+  }
+
+  /**
+   * An iterator implementation for {@link KTypeGapList#iterator}.
+   */
+  private final class ValueIterator extends AbstractIterator<KTypeCursor<KType>> {
+    private final KTypeCursor<KType> cursor;
+    private int slot;
+
+    public ValueIterator() {
+      this.cursor = new KTypeCursor<KType>();
+      this.cursor.index = -1;
+      this.slot = -1;
+    }
+
+    @Override
+    protected KTypeCursor<KType> fetch() {
+      if (++slot == gapStart) {
+        slot = gapEnd;
+      }
+      if (slot >= buffer.length)
+        return done();
+
+      cursor.index++;
+      cursor.value = Intrinsics.<KType> cast(buffer[slot]);
+      return cursor;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<KTypeCursor<KType>> iterator() {
+    return new ValueIterator();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypeProcedure<? super KType>> T forEach(T procedure) {
+    return forEach(procedure, 0, size());
+  }
+
+  /**
+   * Applies <code>procedure</code> to a slice of the list,
+   * <code>fromIndex</code>, inclusive, to <code>toIndex</code>, exclusive.
+   * The gap is skipped without moving it.
+   */
+  public <T extends KTypeProcedure<? super KType>> T forEach(T procedure, int fromIndex, final int toIndex) {
+    assert (fromIndex >= 0 && fromIndex <= size()) :
+        "Index " + fromIndex + " out of bounds [" + 0 + ", " + size() + ").";
+    assert (toIndex >= 0 && toIndex <= size()) :
+        "Index " + toIndex + " out of bounds [" + 0 + ", " + size() + "].";
+    assert fromIndex <= toIndex : "fromIndex must be <= toIndex: "
+        + fromIndex + ", " + toIndex;
+
+    final KType [] buffer = Intrinsics.<KType[]> cast(this.buffer);
+    final int gapStart = this.gapStart;
+    final int gapLength = gapLength();
+    for (int i = fromIndex, max = Math.min(toIndex, gapStart); i < max; i++) {
+      procedure.apply(buffer[i]);
+    }
+    final int tailEnd = toIndex + gapLength;
+    for (int i = Math.max(fromIndex, gapStart) + gapLength; i < tailEnd; i++) {
+      procedure.apply(buffer[i]);
+    }
+
+    return procedure;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypePredicate<? super KType>> T forEach(T predicate) {
+    return forEach(predicate, 0, size());
+  }
+
+  /**
+   * Applies <code>predicate</code> to a slice of the list,
+   * <code>fromIndex</code>, inclusive, to <code>toIndex</code>, exclusive, or
+   * until predicate returns <code>false</code>. The gap is skipped without
+   * moving it.
+   */
+  public <T extends KTypePredicate<? super KType>> T forEach(T predicate, int fromIndex, final int toIndex) {
+    assert (fromIndex >= 0 && fromIndex <= size())
+      : "Index " + fromIndex + " out of bounds [" + 0 + ", " + size() + ").";
+    assert (toIndex >= 0 && toIndex <= size())
+      : "Index " + toIndex + " out of bounds [" + 0 + ", " + size() + "].";
+    assert fromIndex <= toIndex
+      : "fromIndex must be <= toIndex: " + fromIndex + ", " + toIndex;
+
+    final KType[] buffer = Intrinsics.<KType[]> cast(this.buffer);
+    final int gapStart = this.gapStart;
+    final int gapLength = gapLength();
+    for (int i = fromIndex, max = Math.min(toIndex, gapStart); i < max; i++) {
+      if (!predicate.apply(buffer[i]))
+        return predicate;
+    }
+    final int tailEnd = toIndex + gapLength;
+    for (int i = Math.max(fromIndex, gapStart) + gapLength; i < tailEnd; i++) {
+      if (!predicate.apply(buffer[i]))
+        break;
+    }
+
+    return predicate;
+  }
+
+  /**
+   * Create a list from a variable number of arguments or an array of <code>KType</code>.
+   * The elements are copied from the argument to the internal buffer.
+   */
+  /* #if ($TemplateOptions.KTypeGeneric) */
+  @SafeVarargs
+  /* #end */
+  public static <KType> KTypeGapList<KType> from(KType... elements) {
+    final KTypeGapList<KType> list = new KTypeGapList<KType>(elements.length);
+    list.add(elements);
+    return list;
+  }
+}
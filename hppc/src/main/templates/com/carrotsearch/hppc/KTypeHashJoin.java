@@ -0,0 +1,435 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.isKTypeAnyOf("GENERIC", "BYTE", "FLOAT", "DOUBLE"))) !*/
+package com.carrotsearch.hppc;
+
+import java.util.stream.IntStream;
+
+import static com.carrotsearch.hppc.HashContainers.*;
+
+/**
+ * An equi-join of two columns of <code>KType</code> keys stored in {@link KTypeArrayList}s.
+ *
+ * <p>An instance of this class is the hash table built over one side of the join (the
+ * <i>build</i> side). The table only holds row indexes: each slot holds the first row of a
+ * given key, duplicate keys are chained in a parallel array of next rows ({@link #first(KType)},
+ * {@link #next(int)}), in ascending row order. The build side can then be probed with any number
+ * of other columns ({@link #inner}, {@link #semi}, {@link #anti}); probing is performed in
+ * batches of rows (hashes of a batch are computed first, then the table is probed).</p>
+ *
+ * <p>The static methods {@link #innerJoin}, {@link #semiJoin} and {@link #antiJoin} build the
+ * table on the smaller of the two sides and probe it with the other side.</p>
+ *
+ * <p>The build side is not copied: it must not be modified while the join is in use. Probing is
+ * safe to perform from multiple threads concurrently.</p>
+ */
+/*! #if ($templateonly) !*/ @SuppressWarnings("unchecked") /*! #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public final class KTypeHashJoin<KType> implements Accountable {
+  /**
+   * The row returned by {@link #first} and {@link #next} if there are no (more) matching rows.
+   */
+  public static final int NOT_FOUND = -1;
+
+  /**
+   * Minimum number of rows in a partition of {@link #buildParallel}.
+   */
+  public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /**
+   * The number of probe rows for which hashes are computed before probing.
+   */
+  static final int BATCH_SIZE = 64;
+
+  /**
+   * The build side of the join.
+   */
+  private final KTypeArrayList<KType> rows;
+
+  /**
+   * The number of rows of the build side, at construction time.
+   */
+  private final int size;
+
+  /**
+   * Hash tables (one per partition) of the <code>first row + 1</code> of each distinct key,
+   * zero marks an empty slot.
+   */
+  private final int[][] slots;
+
+  /**
+   * The <code>next row + 1</code> with the same key as a given row, zero marks the end of a chain.
+   */
+  private final int[] next;
+
+  /**
+   * The number of upper hash bits selecting a partition.
+   */
+  private final int partitionBits;
+
+  private KTypeHashJoin(KTypeArrayList<KType> rows, int partitionBits) {
+    this.rows = rows;
+    this.size = rows.size();
+    this.partitionBits = partitionBits;
+    this.slots = new int[1 << partitionBits][];
+    try {
+      this.next = new int[size];
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException("Not enough memory to allocate join buffers: %,d", e, size);
+    }
+  }
+
+  /**
+   * Builds the hash table over the given rows.
+   */
+  public static <KType> KTypeHashJoin<KType> build(KTypeArrayList<KType> rows) {
+    final KTypeHashJoin<KType> join = new KTypeHashJoin<>(rows, 0);
+    final KType[] buffer = Intrinsics.<KType[]> cast(rows.buffer);
+    final int[] slots = join.slots[0] = allocateSlots(join.size);
+    for (int row = join.size; --row >= 0;) {
+      join.insert(slots, row, hashKey(buffer[row]));
+    }
+    return join;
+  }
+
+  /**
+   * Builds the hash table over the given rows, with rows split into partitions (by key hash)
+   * built in parallel on the common fork-join pool.
+   */
+  public static <KType> KTypeHashJoin<KType> buildParallel(KTypeArrayList<KType> rows) {
+    final int size = rows.size();
+    final int partitions = Math.min(size / PARALLEL_THRESHOLD, Runtime.getRuntime().availableProcessors());
+    if (partitions < 2) {
+      return build(rows);
+    }
+    return buildPartitioned(rows, Integer.numberOfTrailingZeros(Integer.highestOneBit(partitions)));
+  }
+
+  /**
+   * Builds the hash table over <code>2^partitionBits</code> partitions, in parallel.
+   *
+   * <p>Rows are first distributed by partition (a parallel counting sort over chunks of rows),
+   * then each partition's table is built from its contiguous range of rows.</p>
+   */
+  static <KType> KTypeHashJoin<KType> buildPartitioned(KTypeArrayList<KType> rows, int partitionBits) {
+    final int size = rows.size();
+    final KTypeHashJoin<KType> join = new KTypeHashJoin<>(rows, partitionBits);
+    final KType[] buffer = Intrinsics.<KType[]> cast(rows.buffer);
+    final int partitions = join.slots.length;
+    final int chunks = (size + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD;
+
+    // Hash rows and count rows of each partition, per chunk of rows.
+    final int[] hashes;
+    final int[] partitionRows;
+    try {
+      hashes = new int[size];
+      partitionRows = new int[size];
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException("Not enough memory to allocate join buffers: %,d", e, size);
+    }
+    final int[][] offsets = new int[chunks][];
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      final int[] counts = new int[partitions];
+      for (int row = chunk * PARALLEL_THRESHOLD, end = Math.min(size, row + PARALLEL_THRESHOLD); row < end; row++) {
+        final int hash = hashes[row] = hashKey(buffer[row]);
+        counts[join.partition(hash)]++;
+      }
+      offsets[chunk] = counts;
+    });
+
+    // Turn counts into offsets, in (partition, chunk) order so that rows stay ordered.
+    final int[] partitionStarts = new int[partitions + 1];
+    int offset = 0;
+    for (int partition = 0; partition < partitions; partition++) {
+      partitionStarts[partition] = offset;
+      for (int chunk = 0; chunk < chunks; chunk++) {
+        final int count = offsets[chunk][partition];
+        offsets[chunk][partition] = offset;
+        offset += count;
+      }
+    }
+    partitionStarts[partitions] = offset;
+
+    // Distribute rows to their partitions.
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      final int[] chunkOffsets = offsets[chunk];
+      for (int row = chunk * PARALLEL_THRESHOLD, end = Math.min(size, row + PARALLEL_THRESHOLD); row < end; row++) {
+        partitionRows[chunkOffsets[join.partition(hashes[row])]++] = row;
+      }
+    });
+
+    // Build each partition from its rows, last to first (so that chains are in ascending order).
+    IntStream.range(0, partitions).parallel().forEach(partition -> {
+      final int from = partitionStarts[partition];
+      final int to = partitionStarts[partition + 1];
+      final int[] slots = join.slots[partition] = allocateSlots(to - from);
+      for (int i = to; --i >= from;) {
+        final int row = partitionRows[i];
+        join.insert(slots, row, hashes[row]);
+      }
+    });
+    return join;
+  }
+
+  /**
+   * Computes the inner join of two columns: all pairs of rows with equal keys. The hash table
+   * is built on the smaller of the two columns.
+   *
+   * @param leftRows Receives left row indexes of matching pairs.
+   * @param rightRows Receives right row indexes of matching pairs.
+   * @return Returns the number of matching pairs added. The order of pairs is not specified.
+   */
+  public static <KType> int innerJoin(KTypeArrayList<KType> left, KTypeArrayList<KType> right,
+                                      IntArrayList leftRows, IntArrayList rightRows) {
+    if (left.size() < right.size()) {
+      return build(left).inner(right, rightRows, leftRows);
+    } else {
+      return build(right).inner(left, leftRows, rightRows);
+    }
+  }
+
+  /**
+   * Computes the semi join of two columns: rows of the left column with a matching key in
+   * the right column. The hash table is built on the smaller of the two columns.
+   *
+   * @param leftRows Receives left row indexes, in ascending order.
+   * @return Returns the number of rows added.
+   */
+  public static <KType> int semiJoin(KTypeArrayList<KType> left, KTypeArrayList<KType> right,
+                                     IntArrayList leftRows) {
+    if (left.size() < right.size()) {
+      return addRows(build(left).matched(right), true, left.size(), leftRows);
+    } else {
+      return build(right).semi(left, leftRows);
+    }
+  }
+
+  /**
+   * Computes the anti join of two columns: rows of the left column without a matching key
+   * in the right column. The hash table is built on the smaller of the two columns.
+   *
+   * @param leftRows Receives left row indexes, in ascending order.
+   * @return Returns the number of rows added.
+   */
+  public static <KType> int antiJoin(KTypeArrayList<KType> left, KTypeArrayList<KType> right,
+                                     IntArrayList leftRows) {
+    if (left.size() < right.size()) {
+      return addRows(build(left).matched(right), false, left.size(), leftRows);
+    } else {
+      return build(right).anti(left, leftRows);
+    }
+  }
+
+  /**
+   * @return Returns the first (lowest) build row with the given key or {@link #NOT_FOUND}.
+   */
+  public int first(KType key) {
+    return lookup(hashKey(key), key) - 1;
+  }
+
+  /**
+   * @return Returns the next build row with the same key as the given build row
+   *         or {@link #NOT_FOUND}.
+   */
+  public int next(int row) {
+    return next[row] - 1;
+  }
+
+  /**
+   * Probes the table with all rows of a column and collects all pairs of rows with equal keys.
+   *
+   * @param probeRows Receives probe row indexes of matching pairs, in ascending order.
+   * @param buildRows Receives build row indexes of matching pairs.
+   * @return Returns the number of matching pairs added.
+   */
+  public int inner(KTypeArrayList<KType> probe, IntArrayList probeRows, IntArrayList buildRows) {
+    final KType[] buffer = Intrinsics.<KType[]> cast(probe.buffer);
+    final int[] heads = new int[BATCH_SIZE];
+    final int[] next = this.next;
+    int pairs = 0;
+    for (int batchStart = 0, probeSize = probe.size(); batchStart < probeSize; batchStart += BATCH_SIZE) {
+      final int batchEnd = Math.min(probeSize, batchStart + BATCH_SIZE);
+      lookup(buffer, batchStart, batchEnd, heads);
+      for (int i = batchStart; i < batchEnd; i++) {
+        for (int row = heads[i - batchStart]; row != 0; row = next[row - 1]) {
+          probeRows.add(i);
+          buildRows.add(row - 1);
+          pairs++;
+        }
+      }
+    }
+    return pairs;
+  }
+
+  /**
+   * Probes the table with all rows of a column and collects rows with a matching key.
+   *
+   * @param probeRows Receives probe row indexes, in ascending order.
+   * @return Returns the number of rows added.
+   */
+  public int semi(KTypeArrayList<KType> probe, IntArrayList probeRows) {
+    return filter(probe, true, probeRows);
+  }
+
+  /**
+   * Probes the table with all rows of a column and collects rows without a matching key.
+   *
+   * @param probeRows Receives probe row indexes, in ascending order.
+   * @return Returns the number of rows added.
+   */
+  public int anti(KTypeArrayList<KType> probe, IntArrayList probeRows) {
+    return filter(probe, false, probeRows);
+  }
+
+  /**
+   * @return Returns the number of rows of the build side.
+   */
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: size, partitionBits
+    long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + 2 * Integer.BYTES
+        + RamUsageEstimator.shallowSizeOfArray(slots)
+        + RamUsageEstimator.shallowSizeOfArray(next);
+    for (int[] partition : slots) {
+      bytes += RamUsageEstimator.shallowSizeOfArray(partition);
+    }
+    return bytes;
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return ramBytesAllocated();
+  }
+
+  private int filter(KTypeArrayList<KType> probe, boolean matching, IntArrayList probeRows) {
+    final KType[] buffer = Intrinsics.<KType[]> cast(probe.buffer);
+    final int[] heads = new int[BATCH_SIZE];
+    int added = 0;
+    for (int batchStart = 0, probeSize = probe.size(); batchStart < probeSize; batchStart += BATCH_SIZE) {
+      final int batchEnd = Math.min(probeSize, batchStart + BATCH_SIZE);
+      lookup(buffer, batchStart, batchEnd, heads);
+      for (int i = batchStart; i < batchEnd; i++) {
+        if ((heads[i - batchStart] != 0) == matching) {
+          probeRows.add(i);
+          added++;
+        }
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Marks all build rows with a matching key in the probe column.
+   */
+  private BitSet matched(KTypeArrayList<KType> probe) {
+    final KType[] buffer = Intrinsics.<KType[]> cast(probe.buffer);
+    final int[] heads = new int[BATCH_SIZE];
+    final int[] next = this.next;
+    final BitSet matched = new BitSet(size);
+    for (int batchStart = 0, probeSize = probe.size(); batchStart < probeSize; batchStart += BATCH_SIZE) {
+      final int batchEnd = Math.min(probeSize, batchStart + BATCH_SIZE);
+      lookup(buffer, batchStart, batchEnd, heads);
+      for (int i = batchStart; i < batchEnd; i++) {
+        final int head = heads[i - batchStart];
+        // All rows of a chain are marked on the first match.
+        if (head != 0 && !matched.get(head - 1)) {
+          for (int row = head; row != 0; row = next[row - 1]) {
+            matched.set(row - 1);
+          }
+        }
+      }
+    }
+    return matched;
+  }
+
+  private static int addRows(BitSet matched, boolean matching, int size, IntArrayList rows) {
+    int added = 0;
+    for (int row = 0; row < size; row++) {
+      if (matched.get(row) == matching) {
+        rows.add(row);
+        added++;
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Looks up the chain heads (<code>first row + 1</code>, or zero) of a batch of probe keys.
+   */
+  private void lookup(KType[] keys, int from, int to, int[] heads) {
+    for (int i = from; i < to; i++) {
+      heads[i - from] = hashKey(keys[i]);
+    }
+    for (int i = from; i < to; i++) {
+      heads[i - from] = lookup(heads[i - from], keys[i]);
+    }
+  }
+
+  /**
+   * @return Returns the <code>first row + 1</code> with the given key or zero.
+   */
+  private int lookup(int hash, KType key) {
+    final KType[] buffer = Intrinsics.<KType[]> cast(rows.buffer);
+    final int[] slots = this.slots[partition(hash)];
+    final int mask = slots.length - 1;
+    int slot = hash & mask;
+
+    int existing;
+    while ((existing = slots[slot]) != 0) {
+      if (Intrinsics.<KType> equals(key, buffer[existing - 1])) {
+        return existing;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return 0;
+  }
+
+  /**
+   * Inserts a build row as the new head of its key's chain. Rows must be inserted in descending
+   * order so that chains are in ascending order.
+   */
+  private void insert(int[] slots, int row, int hash) {
+    final KType[] buffer = Intrinsics.<KType[]> cast(rows.buffer);
+    final KType key = buffer[row];
+    final int mask = slots.length - 1;
+    int slot = hash & mask;
+
+    int existing;
+    while ((existing = slots[slot]) != 0) {
+      if (Intrinsics.<KType> equals(key, buffer[existing - 1])) {
+        next[row] = existing;
+        break;
+      }
+      slot = (slot + 1) & mask;
+    }
+    slots[slot] = row + 1;
+  }
+
+  /**
+   * @return Returns the partition of a given hash (from its upper bits, so that partitions
+   *         are independent of lower bits selecting slots).
+   */
+  private int partition(int hash) {
+    return partitionBits == 0 ? 0 : hash >>> (Integer.SIZE - partitionBits);
+  }
+
+  /**
+   * Allocates a hash table with room for the given number of distinct keys.
+   */
+  private static int[] allocateSlots(int keys) {
+    final int arraySize = minBufferSize(keys, DEFAULT_LOAD_FACTOR);
+    try {
+      return new int[arraySize];
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException("Not enough memory to allocate join buffers: %,d", e, arraySize);
+    }
+  }
+
+  private static <KType> int hashKey(KType key) {
+    return BitMixer.mixPhi(key);
+  }
+}
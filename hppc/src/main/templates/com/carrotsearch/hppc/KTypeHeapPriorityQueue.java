@@ -0,0 +1,427 @@
+package com.carrotsearch.hppc;
+
+import java.util.*;
+
+import com.carrotsearch.hppc.comparators.*;
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+
+import static com.carrotsearch.hppc.Containers.*;
+
+/**
+ * An array-backed priority queue (a d-ary min-heap) of <code>KType</code>s. The element at the
+ * top of the queue is the smallest element according to the comparator given at construction
+ * time or, if none is given, the natural order of <code>KType</code>s.
+ *
+ * <p>The arity of the heap (the number of children of each node) is configurable. The default of
+ * {@value #DEFAULT_ARITY} halves the height of the heap compared to a binary heap and keeps the
+ * children of a node on a single cache line for primitive types, which is usually faster for
+ * larger queues; removals do a few more comparisons per level though.</p>
+ *
+ * <p>Iteration order of this container is the (arbitrary) order of the heap array.</p>
+ *
+ * @see IntIndexedPriorityQueue
+ */
+/*! #if ($TemplateOptions.KTypeGeneric) @SuppressWarnings("unchecked") #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeHeapPriorityQueue<KType>
+  implements Iterable<KTypeCursor<KType>>,
+             Preallocable,
+             Cloneable,
+             Accountable {
+  /**
+   * The default arity of the heap.
+   */
+  public final static int DEFAULT_ARITY = 4;
+
+  /**
+   * Internal array for storing the heap. The element at index <code>0</code> is the top of the
+   * queue, children of the node at index <code>i</code> are at indices
+   * <code>[i * arity + 1, i * arity + arity]</code>.
+   */
+  public
+    /*! #if ($TemplateOptions.KTypePrimitive)
+        KType []
+        #else !*/
+        Object []
+    /*! #end !*/
+        buffer = KTypeArrayList.EMPTY_ARRAY;
+
+  /**
+   * The number of elements in the queue.
+   */
+  public int elementsCount;
+
+  /**
+   * The comparator defining the order of elements or <code>null</code> for the natural order.
+   */
+  protected final
+    /*! #if ($TemplateOptions.KTypeGeneric) !*/
+    Comparator<? super KType>
+    /*! #else KTypeComparator<KType> #end !*/
+      comparator;
+
+  /**
+   * The arity of the heap.
+   */
+  protected final int arity;
+
+  /**
+   * Buffer resizing strategy.
+   */
+  protected final ArraySizingStrategy resizer;
+
+  /**
+   * New instance with sane defaults, ordered by the natural order of elements.
+   */
+  public KTypeHeapPriorityQueue() {
+    this(null);
+  }
+
+  /**
+   * New instance with sane defaults.
+   *
+   * @param comparator The comparator defining the order of elements or <code>null</code> for the
+   *        natural order.
+   */
+  public KTypeHeapPriorityQueue(
+      /*! #if ($TemplateOptions.KTypeGeneric) !*/
+      Comparator<? super KType>
+      /*! #else KTypeComparator<KType> #end !*/
+        comparator) {
+    this(DEFAULT_EXPECTED_ELEMENTS, comparator, DEFAULT_ARITY);
+  }
+
+  /**
+   * New instance with the given expected number of elements, comparator and arity.
+   *
+   * @param expectedElements The expected number of elements guaranteed not to cause a resize.
+   * @param comparator The comparator defining the order of elements or <code>null</code> for the
+   *        natural order.
+   * @param arity The number of children of each node of the heap, at least <code>2</code>.
+   */
+  public KTypeHeapPriorityQueue(
+      int expectedElements,
+      /*! #if ($TemplateOptions.KTypeGeneric) !*/
+      Comparator<? super KType>
+      /*! #else KTypeComparator<KType> #end !*/
+        comparator,
+      int arity) {
+    this(expectedElements, comparator, arity, new BoundedProportionalArraySizingStrategy());
+  }
+
+  /**
+   * New instance with the given expected number of elements, comparator, arity and resizing
+   * strategy.
+   *
+   * @param expectedElements The expected number of elements guaranteed not to cause a resize.
+   * @param comparator The comparator defining the order of elements or <code>null</code> for the
+   *        natural order.
+   * @param arity The number of children of each node of the heap, at least <code>2</code>.
+   * @param resizer Underlying buffer sizing strategy.
+   */
+  public KTypeHeapPriorityQueue(
+      int expectedElements,
+      /*! #if ($TemplateOptions.KTypeGeneric) !*/
+      Comparator<? super KType>
+      /*! #else KTypeComparator<KType> #end !*/
+        comparator,
+      int arity,
+      ArraySizingStrategy resizer) {
+    assert resizer != null;
+    if (arity < 2) {
+      throw new IllegalArgumentException("Arity must be >= 2: " + arity);
+    }
+    this.comparator = comparator;
+    this.arity = arity;
+    this.resizer = resizer;
+    ensureCapacity(expectedElements);
+  }
+
+  /**
+   * Adds an element to the queue.
+   */
+  public void add(KType element) {
+    ensureBufferSpace(1);
+    siftUp(elementsCount++, element);
+  }
+
+  /**
+   * Adds all elements of the given container to the queue. Large additions rebuild the heap
+   * bottom-up, in linear time.
+   *
+   * @return Returns the number of elements added.
+   */
+  public int addAll(KTypeContainer<? extends KType> container) {
+    final int additions = container.size();
+    ensureBufferSpace(additions);
+    if (additions <= elementsCount) {
+      for (KTypeCursor<? extends KType> cursor : container) {
+        add(cursor.value);
+      }
+    } else {
+      final KType [] buffer = Intrinsics.<KType[]> cast(this.buffer);
+      int size = elementsCount;
+      for (KTypeCursor<? extends KType> cursor : container) {
+        buffer[size++] = cursor.value;
+      }
+      elementsCount = size;
+      heapify();
+    }
+    return additions;
+  }
+
+  /**
+   * @return Returns the top (smallest) element of the queue. The queue must not be empty.
+   */
+  public KType top() {
+    assert elementsCount > 0 : "The queue is empty.";
+    return Intrinsics.<KType> cast(buffer[0]);
+  }
+
+  /**
+   * Removes and returns the top (smallest) element of the queue. The queue must not be empty.
+   */
+  public KType removeTop() {
+    assert elementsCount > 0 : "The queue is empty.";
+    final KType [] buffer = Intrinsics.<KType[]> cast(this.buffer);
+    final KType top = buffer[0];
+    final int last = --elementsCount;
+    final KType element = buffer[last];
+    buffer[last] = Intrinsics.empty();
+    if (last > 0) {
+      siftDown(0, element);
+    }
+    return top;
+  }
+
+  /**
+   * Replaces the top element of the queue with the given element (a faster equivalent of a
+   * {@link #removeTop()} followed by an {@link #add}). The queue must not be empty.
+   *
+   * @return Returns the replaced top element.
+   */
+  public KType replaceTop(KType element) {
+    assert elementsCount > 0 : "The queue is empty.";
+    final KType top = Intrinsics.<KType> cast(buffer[0]);
+    siftDown(0, element);
+    return top;
+  }
+
+  /**
+   * Moves an element up from the given index until its parent is not greater, then stores it.
+   */
+  private void siftUp(int index, KType element) {
+    final KType [] buffer = Intrinsics.<KType[]> cast(this.buffer);
+    final int arity = this.arity;
+    while (index > 0) {
+      final int parent = (index - 1) / arity;
+      final KType p = buffer[parent];
+      if (!less(element, p)) {
+        break;
+      }
+      buffer[index] = p;
+      index = parent;
+    }
+    buffer[index] = element;
+  }
+
+  /**
+   * Moves an element down from the given index until none of its children is smaller, then
+   * stores it.
+   */
+  private void siftDown(int index, KType element) {
+    final KType [] buffer = Intrinsics.<KType[]> cast(this.buffer);
+    final int arity = this.arity;
+    final int size = elementsCount;
+    int child;
+    while ((child = index * arity + 1) < size) {
+      // Find the smallest child.
+      int smallest = child;
+      KType s = buffer[child];
+      for (int last = Math.min(child + arity, size); ++child < last;) {
+        final KType c = buffer[child];
+        if (less(c, s)) {
+          smallest = child;
+          s = c;
+        }
+      }
+      if (!less(s, element)) {
+        break;
+      }
+      buffer[index] = s;
+      index = smallest;
+    }
+    buffer[index] = element;
+  }
+
+  /**
+   * Restores the heap property of the whole buffer, bottom-up.
+   */
+  private void heapify() {
+    final KType [] buffer = Intrinsics.<KType[]> cast(this.buffer);
+    for (int i = (elementsCount - 2) / arity; i >= 0; i--) {
+      siftDown(i, buffer[i]);
+    }
+  }
+
+  /**
+   * @return Returns <code>true</code> if <code>a</code> is strictly smaller than <code>b</code>.
+   */
+  private boolean less(KType a, KType b) {
+    if (comparator != null) {
+      return comparator.compare(a, b) < 0;
+    }
+    /*! #if ($TemplateOptions.KTypeGeneric) !*/
+    return ((Comparable<? super KType>) a).compareTo(b) < 0;
+    /*! #elseif ($TemplateOptions.isKTypeAnyOf("FLOAT"))
+    return Float.compare(a, b) < 0;
+    #elseif ($TemplateOptions.isKTypeAnyOf("DOUBLE"))
+    return Double.compare(a, b) < 0;
+    #else
+    return a < b;
+    #end !*/
+  }
+
+  /**
+   * @return Returns the number of elements in the queue.
+   */
+  public int size() {
+    return elementsCount;
+  }
+
+  /**
+   * @return Returns <code>true</code> if the queue is empty.
+   */
+  public boolean isEmpty() {
+    return elementsCount == 0;
+  }
+
+  /**
+   * Removes all elements from the queue. The buffer is not released (see {@link #release()}).
+   */
+  public void clear() {
+    Arrays.fill(buffer, 0, elementsCount, Intrinsics.empty());
+    elementsCount = 0;
+  }
+
+  /**
+   * Removes all elements and releases the internal buffer.
+   */
+  public void release() {
+    buffer = KTypeArrayList.EMPTY_ARRAY;
+    elementsCount = 0;
+  }
+
+  /**
+   * Ensure this container can hold at least the given number of elements without resizing its
+   * buffers.
+   *
+   * @param expectedElements The total number of elements, inclusive.
+   */
+  @Override
+  public void ensureCapacity(int expectedElements) {
+    final int bufferLen = (buffer == null ? 0 : buffer.length);
+    if (expectedElements > bufferLen) {
+      ensureBufferSpace(expectedElements - size());
+    }
+  }
+
+  /**
+   * Ensures the internal buffer has enough free slots to store
+   * <code>expectedAdditions</code>. Increases internal buffer size if needed.
+   */
+  protected void ensureBufferSpace(int expectedAdditions) {
+    final int bufferLen = (buffer == null ? 0 : buffer.length);
+    if (elementsCount + expectedAdditions > bufferLen) {
+      final int newSize = resizer.grow(bufferLen, elementsCount, expectedAdditions);
+      assert newSize >= elementsCount + expectedAdditions : "Resizer failed to" + " return sensible new size: "
+          + newSize + " <= " + (elementsCount + expectedAdditions);
+
+      try {
+        this.buffer = Arrays.copyOf(buffer, newSize);
+      } catch (OutOfMemoryError e) {
+        throw new BufferAllocationException(
+            "Not enough memory to allocate buffers to grow from %,d -> %,d elements",
+            e,
+            bufferLen,
+            newSize);
+      }
+    }
+  }
+
+  /**
+   * @return Returns the elements of the queue in the order of the heap array.
+   */
+  /*! #if ($TemplateOptions.KTypePrimitive)
+  public KType [] toArray()
+      #else !*/
+  public Object [] toArray()
+  /*! #end !*/
+  {
+    return Arrays.copyOf(buffer, elementsCount);
+  }
+
+  /**
+   * Iterates over the elements of the queue in the order of the heap array.
+   */
+  @Override
+  public Iterator<KTypeCursor<KType>> iterator() {
+    return new AbstractIterator<KTypeCursor<KType>>() {
+      private final KTypeCursor<KType> cursor = new KTypeCursor<KType>();
+      private final int size = elementsCount;
+
+      {
+        cursor.index = -1;
+      }
+
+      @Override
+      protected KTypeCursor<KType> fetch() {
+        if (cursor.index + 1 == size) {
+          return done();
+        }
+        cursor.value = Intrinsics.<KType> cast(buffer[++cursor.index]);
+        return cursor;
+      }
+    };
+  }
+
+  /**
+   * Clone this object. The returned clone will use the same resizing strategy and comparator.
+   */
+  @Override
+  public KTypeHeapPriorityQueue<KType> clone() {
+    try {
+      /* #if ($templateOnly) */
+      @SuppressWarnings("unchecked")
+      /* #end */
+      final KTypeHeapPriorityQueue<KType> cloned = (KTypeHeapPriorityQueue<KType>) super.clone();
+      cloned.buffer = buffer.clone();
+      return cloned;
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: elementsCount, arity
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * Integer.BYTES
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + resizer.ramBytesAllocated()
+        + RamUsageEstimator.shallowSizeOfArray(buffer);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: elementsCount, arity
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * Integer.BYTES
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + resizer.ramBytesUsed()
+        + RamUsageEstimator.shallowUsedSizeOfArray(buffer, elementsCount);
+  }
+
+  @Override
+  public String toString() {
+    return "HeapPriorityQueue[size=" + elementsCount + ", arity=" + arity + "]";
+  }
+}
@@ -0,0 +1,453 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.isKTypeAnyOf("DOUBLE", "FLOAT", "BYTE"))) !*/
+package com.carrotsearch.hppc;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static com.carrotsearch.hppc.Containers.*;
+import static com.carrotsearch.hppc.HashContainers.*;
+
+/**
+ * A dictionary (interner) assigning dense, stable <code>int</code> identifiers
+ * (<code>0..size()-1</code>) to distinct <code>KType</code> keys, in the order of their
+ * first insertion.
+ *
+ * <p>Keys are stored in a {@link KTypeArrayList} indexed by their identifier
+ * ({@link #keys}), so the reverse lookup ({@link #getKey(int)}) is a single array access.
+ * The hash table ({@link #slots}) only holds identifiers and is probed once
+ * per {@link #getOrAdd}.</p>
+ *
+ * <p>A dictionary can be {@link #freeze() frozen}: no new keys can be added to it then.
+ * Lookups (but not additions) are safe to perform concurrently from multiple threads, as
+ * long as there are no concurrent modifications.</p>
+#if ($TemplateOptions.KTypeGeneric)
+ *
+ * <p>Supports <code>null</code> keys.</p>
+#end
+ */
+/*! #if ($TemplateOptions.KTypeGeneric) @SuppressWarnings("unchecked") #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeIntDictionary<KType>
+  implements /*! #if ($templateonly) !*/ Intrinsics.KeyHasher<KType>, /*! #end !*/
+             Preallocable,
+             Accountable
+{
+  /**
+   * The identifier returned for keys not present in the dictionary.
+   */
+  public static final int NOT_FOUND = -1;
+
+  /**
+   * Minimum number of keys for which bulk operations are split across threads.
+   */
+  public static final int PARALLEL_THRESHOLD = 1 << 14;
+
+  /**
+   * Keys, indexed by their identifier.
+   */
+  public final KTypeArrayList<KType> keys;
+
+  /**
+   * The hash table of <code>identifier + 1</code>, zero marks an empty slot.
+   */
+  public int[] slots;
+
+  /**
+   * Mask for slot scans in {@link #slots}.
+   */
+  protected int mask;
+
+  /**
+   * Expand (rehash) {@link #slots} when the number of keys hits this value.
+   */
+  protected int resizeAt;
+
+  /**
+   * The load factor for {@link #slots}.
+   */
+  protected double loadFactor;
+
+  /**
+   * If <code>true</code>, no new keys can be added.
+   */
+  protected boolean frozen;
+
+  /**
+   * New instance with sane defaults.
+   */
+  public KTypeIntDictionary() {
+    this(DEFAULT_EXPECTED_ELEMENTS);
+  }
+
+  /**
+   * New instance with sane defaults.
+   *
+   * @param expectedElements
+   *          The expected number of keys guaranteed not to cause a rehash (inclusive).
+   */
+  public KTypeIntDictionary(int expectedElements) {
+    this(expectedElements, DEFAULT_LOAD_FACTOR);
+  }
+
+  /**
+   * New instance with the provided defaults.
+   *
+   * @param expectedElements
+   *          The expected number of keys guaranteed not to cause a rehash (inclusive).
+   * @param loadFactor
+   *          The load factor for the hash table. Insane load factors (zero, full capacity)
+   *          are rejected by {@link #verifyLoadFactor(double)}.
+   */
+  public KTypeIntDictionary(int expectedElements, double loadFactor) {
+    this.loadFactor = verifyLoadFactor(loadFactor);
+    this.keys = new KTypeArrayList<>(expectedElements);
+    ensureCapacity(expectedElements);
+  }
+
+  /**
+   * Returns the identifier of a given key, adding the key to the dictionary if it is
+   * not already present.
+   *
+   * @return The (non-negative) identifier of the key.
+   * @throws IllegalStateException If the key is not present and the dictionary is frozen.
+   */
+  public int getOrAdd(KType key) {
+    final int[] slots = this.slots;
+    final int mask = this.mask;
+    int slot = hashKey(key) & mask;
+
+    int existing;
+    while ((existing = slots[slot]) != 0) {
+      if (Intrinsics.<KType> equals(key, keys.buffer[existing - 1])) {
+        return existing - 1;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    if (frozen) {
+      throw new IllegalStateException("Can't add keys to a frozen dictionary.");
+    }
+
+    final int id = keys.size();
+    keys.add(key);
+    if (id == resizeAt) {
+      try {
+        allocateThenRehash();
+      } catch (BufferAllocationException e) {
+        // Leave in a consistent state.
+        keys.removeLast();
+        throw e;
+      }
+    } else {
+      slots[slot] = id + 1;
+    }
+    return id;
+  }
+
+  /**
+   * @return Returns the identifier of a given key or {@link #NOT_FOUND} if the key
+   *         is not present in the dictionary.
+   */
+  public int get(KType key) {
+    final int[] slots = this.slots;
+    final int mask = this.mask;
+    int slot = hashKey(key) & mask;
+
+    int existing;
+    while ((existing = slots[slot]) != 0) {
+      if (Intrinsics.<KType> equals(key, keys.buffer[existing - 1])) {
+        return existing - 1;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return NOT_FOUND;
+  }
+
+  /**
+   * @return Returns <code>true</code> if the key is present in the dictionary.
+   */
+  public boolean contains(KType key) {
+    return get(key) != NOT_FOUND;
+  }
+
+  /**
+   * @return Returns the key with the given identifier.
+   */
+  public KType getKey(int id) {
+    assert id >= 0 && id < size() : "Identifier out of range: " + id;
+    return Intrinsics.<KType> cast(keys.buffer[id]);
+  }
+
+  /**
+   * Assigns identifiers to keys in the <code>[from, to)</code> range of an array,
+   * adding keys that are not present yet, as if by calling {@link #getOrAdd} for
+   * each key in order.
+   *
+   * @param ids The output array of identifiers, <code>ids[i - from]</code> receives the
+   *            identifier of <code>src[i]</code>.
+   * @return Returns <code>ids</code>.
+   */
+  public int[] encode(KType[] src, int from, int to, int[] ids) {
+    checkRange(src.length, from, to, ids.length);
+    for (int i = from; i < to; i++) {
+      ids[i - from] = getOrAdd(src[i]);
+    }
+    return ids;
+  }
+
+  /**
+   * Same as {@link #encode} but splits lookups of existing keys across threads of the
+   * common fork-join pool. Keys not present in the dictionary are then added from the
+   * calling thread in their order of occurrence in <code>src</code>, so identifiers
+   * are identical to those assigned by {@link #encode}.
+   *
+   * <p>The dictionary must not be modified concurrently.</p>
+   *
+   * @return Returns <code>ids</code>.
+   */
+  public int[] encodeParallel(KType[] src, int from, int to, int[] ids) {
+    lookupParallel(src, from, to, ids);
+    for (int i = from; i < to; i++) {
+      if (ids[i - from] == NOT_FOUND) {
+        ids[i - from] = getOrAdd(src[i]);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Looks up identifiers of keys in the <code>[from, to)</code> range of an array,
+   * splitting the work across threads of the common fork-join pool. Keys not present
+   * in the dictionary are assigned {@link #NOT_FOUND}.
+   *
+   * <p>The dictionary must not be modified concurrently.</p>
+   *
+   * @return Returns <code>ids</code>.
+   */
+  public int[] lookupParallel(KType[] src, int from, int to, int[] ids) {
+    checkRange(src.length, from, to, ids.length);
+    final int length = to - from;
+    if (length < PARALLEL_THRESHOLD) {
+      for (int i = from; i < to; i++) {
+        ids[i - from] = get(src[i]);
+      }
+    } else {
+      final int chunks = (length + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD;
+      IntStream.range(0, chunks).parallel().forEach(chunk -> {
+        final int start = from + chunk * PARALLEL_THRESHOLD;
+        final int end = Math.min(to, start + PARALLEL_THRESHOLD);
+        for (int i = start; i < end; i++) {
+          ids[i - from] = get(src[i]);
+        }
+      });
+    }
+    return ids;
+  }
+
+  /**
+   * Replaces identifiers with their keys.
+   *
+   * @param ids The identifiers to decode, each must be a valid identifier.
+   * @param dst The output array, <code>dst[i]</code> receives the key of <code>ids[i]</code>.
+   * @return Returns <code>dst</code>.
+   */
+  public KType[] decode(int[] ids, KType[] dst) {
+    if (dst.length < ids.length) {
+      throw new IllegalArgumentException("Output array too small: " + dst.length + " < " + ids.length);
+    }
+    final KType[] buffer = Intrinsics.<KType[]> cast(keys.buffer);
+    final int size = size();
+    for (int i = 0; i < ids.length; i++) {
+      final int id = ids[i];
+      if (id < 0 || id >= size) {
+        throw new IndexOutOfBoundsException("Identifier out of range: " + id);
+      }
+      dst[i] = buffer[id];
+    }
+    return dst;
+  }
+
+  /**
+   * Prevents any further additions of keys to this dictionary. Lookups and reverse lookups
+   * remain possible. This operation can't be undone (but {@link #clear()} and
+   * {@link #release()} reset the dictionary to an unfrozen state).
+   *
+   * @return Returns this dictionary.
+   */
+  public KTypeIntDictionary<KType> freeze() {
+    frozen = true;
+    return this;
+  }
+
+  /**
+   * @return Returns <code>true</code> if this dictionary has been frozen.
+   */
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * @return Returns the number of keys in this dictionary (and the next identifier to be assigned).
+   */
+  public int size() {
+    return keys.size();
+  }
+
+  /**
+   * @return Returns <code>true</code> if this dictionary is empty.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Removes all keys from this dictionary and unfreezes it.
+   */
+  public void clear() {
+    keys.clear();
+    Arrays.fill(slots, 0);
+    frozen = false;
+  }
+
+  /**
+   * Removes all keys from this dictionary, unfreezes it and releases internal buffers.
+   */
+  public void release() {
+    keys.release();
+    slots = null;
+    frozen = false;
+    ensureCapacity(DEFAULT_EXPECTED_ELEMENTS);
+  }
+
+  /**
+   * Ensure this container can hold at least the
+   * given number of keys without resizing its buffers.
+   *
+   * @param expectedElements The total number of keys, inclusive.
+   */
+  @Override
+  public void ensureCapacity(int expectedElements) {
+    if (expectedElements > resizeAt || slots == null) {
+      keys.ensureCapacity(expectedElements);
+      allocateBuffers(minBufferSize(expectedElements, loadFactor));
+      rehash();
+    }
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: mask, resizeAt
+    // double: loadFactor
+    // boolean: frozen
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * Integer.BYTES + Double.BYTES + 1 +
+        RamUsageEstimator.NUM_BYTES_OBJECT_REF + keys.ramBytesAllocated() +
+        RamUsageEstimator.shallowSizeOfArray(slots);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: mask, resizeAt
+    // double: loadFactor
+    // boolean: frozen
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * Integer.BYTES + Double.BYTES + 1 +
+        RamUsageEstimator.NUM_BYTES_OBJECT_REF + keys.ramBytesUsed() +
+        RamUsageEstimator.shallowUsedSizeOfArray(slots, size());
+  }
+
+  /**
+   * Convert the contents of this dictionary to a human-friendly string.
+   */
+  @Override
+  public String toString() {
+    final StringBuilder buffer = new StringBuilder();
+    buffer.append("[");
+    for (int id = 0, size = size(); id < size; id++) {
+      if (id > 0) {
+        buffer.append(", ");
+      }
+      buffer.append(keys.buffer[id]);
+      buffer.append("=>");
+      buffer.append(id);
+    }
+    buffer.append("]");
+    return buffer.toString();
+  }
+
+  /**
+   * Returns a hash code for the given key.
+   *
+   * <p>The output from this function should evenly distribute keys across the
+   * entire integer range.</p>
+   */
+  /*! #if ($templateonly) !*/
+  @Override
+  public
+  /*! #else protected #end !*/
+  int hashKey(KType key) {
+    return BitMixer.mixPhi(key);
+  }
+
+  /**
+   * Validate load factor range and return it. Override and suppress if you need
+   * insane load factors.
+   */
+  protected double verifyLoadFactor(double loadFactor) {
+    checkLoadFactor(loadFactor, MIN_LOAD_FACTOR, MAX_LOAD_FACTOR);
+    return loadFactor;
+  }
+
+  /**
+   * Allocate a new hash table. This method attempts to allocate
+   * and assign internal buffers atomically (either allocations succeed or not).
+   */
+  protected void allocateBuffers(int arraySize) {
+    assert Integer.bitCount(arraySize) == 1;
+
+    try {
+      this.slots = new int[arraySize];
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException(
+          "Not enough memory to allocate buffers for rehashing: %,d -> %,d",
+          e,
+          this.mask + 1,
+          arraySize);
+    }
+
+    this.resizeAt = expandAtCount(arraySize, loadFactor);
+    this.mask = arraySize - 1;
+  }
+
+  /**
+   * Insert all keys into the (empty) hash table.
+   */
+  protected void rehash() {
+    final int[] slots = this.slots;
+    final int mask = this.mask;
+    final KType[] buffer = Intrinsics.<KType[]> cast(keys.buffer);
+    for (int id = 0, size = size(); id < size; id++) {
+      int slot = hashKey(buffer[id]) & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = id + 1;
+    }
+  }
+
+  /**
+   * Grows the hash table when a new key has been appended to {@link #keys}
+   * but there is no room for it in {@link #slots}.
+   */
+  protected void allocateThenRehash() {
+    allocateBuffers(nextBufferSize(mask + 1, size(), loadFactor));
+    rehash();
+  }
+
+  private static void checkRange(int srcLength, int from, int to, int idsLength) {
+    if (from < 0 || to > srcLength || from > to) {
+      throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ") for length " + srcLength);
+    }
+    if (idsLength < to - from) {
+      throw new IllegalArgumentException("Output array too small: " + idsLength + " < " + (to - from));
+    }
+  }
+}
@@ -0,0 +1,379 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypeGeneric)) !*/
+package com.carrotsearch.hppc;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, lock-free, multi-producer multi-consumer queue of <code>KType</code>s (a Vyukov-style
+ * array queue).
+ *
+ * <p>Each slot of the (power-of-two) buffer has a sequence number telling producers and consumers
+ * whether it is free for the position they are about to claim. Producers and consumers claim
+ * positions by incrementing the padded producer and consumer sequences (see
+ * {@link PaddedSequences}) with a compare-and-set, then write or read the slot and publish its
+ * next sequence number with release semantics. Producers only contend with producers and consumers
+ * with consumers. {@link #drainTo} claims a whole run of ready slots with a single compare-and-set.
+ * No objects are allocated per element.</p>
+ *
+ * <p>The non-blocking methods ({@link #offer}, {@link #pollOrDefault}, {@link #drainTo}) return
+ * immediately; the blocking ones ({@link #put}, {@link #take}) wait according to the
+ * {@link WaitStrategy} given at construction time.</p>
+ *
+ * <p>Contention and fill level metrics ({@link #contentionCount()}, {@link #fullCount()},
+ * {@link #emptyCount()}, {@link #waitCount()}, {@link #size()}) are only updated on slow paths.</p>
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeMpmcQueue<KType> extends PaddedSequences implements Accountable {
+  /**
+   * The largest supported capacity.
+   */
+  public final static int MAX_CAPACITY = 1 << 30;
+
+  /**
+   * Handle for volatile access to the elements of {@link #sequences}.
+   */
+  private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+  /**
+   * The ring buffer, its length is a power of two.
+   */
+  public final
+    /*! #if ($TemplateOptions.KTypePrimitive)
+        KType []
+        #else !*/
+        Object []
+    /*! #end !*/
+        buffer;
+
+  /**
+   * The sequence number of each slot: equal to the position a producer may claim it for, or
+   * equal to the position plus one when a consumer may claim it.
+   */
+  private final long [] sequences;
+
+  /**
+   * Mask of slot indices (<code>buffer.length - 1</code>).
+   */
+  private final int mask;
+
+  /**
+   * The strategy of waiting in blocking operations.
+   */
+  private final WaitStrategy waitStrategy;
+
+  /**
+   * Failed compare-and-set attempts (of producers and consumers).
+   */
+  private final LongAdder contention = new LongAdder();
+
+  /**
+   * Offers rejected because the queue was full.
+   */
+  private final LongAdder full = new LongAdder();
+
+  /**
+   * Polls which found the queue empty.
+   */
+  private final LongAdder empty = new LongAdder();
+
+  /**
+   * Calls to the wait strategy in blocking operations.
+   */
+  private final LongAdder waits = new LongAdder();
+
+  /**
+   * New instance with the given capacity (rounded up to a power of two) and a
+   * {@link WaitStrategy#parking()} wait strategy.
+   *
+   * @param capacity The minimum capacity, between <code>2</code> and {@link #MAX_CAPACITY}.
+   */
+  public KTypeMpmcQueue(int capacity) {
+    this(capacity, WaitStrategy.parking());
+  }
+
+  /**
+   * New instance with the given capacity (rounded up to a power of two) and wait strategy.
+   *
+   * @param capacity The minimum capacity, between <code>2</code> and {@link #MAX_CAPACITY}.
+   * @param waitStrategy The strategy of waiting in {@link #put} and {@link #take}.
+   */
+  public KTypeMpmcQueue(int capacity, WaitStrategy waitStrategy) {
+    assert waitStrategy != null;
+    if (capacity < 2 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException(
+          "Capacity must be between 2 and " + MAX_CAPACITY + ": " + capacity);
+    }
+    final int length = BitUtil.nextHighestPowerOfTwo(capacity);
+    try {
+      this.buffer = Intrinsics.<KType> newArray(length);
+      this.sequences = new long [length];
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException(
+          "Not enough memory to allocate a queue of %,d elements", e, length);
+    }
+    for (int i = 0; i < length; i++) {
+      sequences[i] = i;
+    }
+    this.mask = length - 1;
+    this.waitStrategy = waitStrategy;
+  }
+
+  /**
+   * @return Returns the capacity (the length of the buffer).
+   */
+  public int capacity() {
+    return buffer.length;
+  }
+
+  /**
+   * Adds an element if there is space for it.
+   *
+   * @return Returns <code>true</code> if the element was added, <code>false</code> if the queue
+   *         is full.
+   */
+  public boolean offer(KType element) {
+    final long position = claimProducer();
+    if (position < 0) {
+      full.increment();
+      return false;
+    }
+    produce(position, element);
+    return true;
+  }
+
+  /**
+   * Adds an element, waiting for space according to the wait strategy.
+   *
+   * @throws InterruptedException If the thread is interrupted while waiting.
+   */
+  public void put(KType element) throws InterruptedException {
+    long position;
+    for (int attempt = 0; (position = claimProducer()) < 0; attempt++) {
+      await(attempt);
+    }
+    produce(position, element);
+  }
+
+  /**
+   * Removes and returns the oldest element or returns the default value if the queue is empty.
+   */
+  public KType pollOrDefault(KType defaultValue) {
+    final long position = claimConsumer();
+    if (position < 0) {
+      empty.increment();
+      return defaultValue;
+    }
+    return consume(position);
+  }
+
+  /**
+   * Removes and returns the oldest element, waiting for one according to the wait strategy.
+   *
+   * @throws InterruptedException If the thread is interrupted while waiting.
+   */
+  public KType take() throws InterruptedException {
+    long position;
+    for (int attempt = 0; (position = claimConsumer()) < 0; attempt++) {
+      await(attempt);
+    }
+    return consume(position);
+  }
+
+  /**
+   * @return Returns the claimed producer position or <code>-1</code> if the queue is full.
+   */
+  private long claimProducer() {
+    final long [] sequences = this.sequences;
+    long position = (long) PRODUCER.getVolatile(this);
+    while (true) {
+      final long difference =
+          (long) SEQUENCES.getAcquire(sequences, (int) position & mask) - position;
+      if (difference == 0) {
+        if (PRODUCER.compareAndSet(this, position, position + 1)) {
+          return position;
+        }
+        contention.increment();
+      } else if (difference < 0) {
+        return -1;
+      }
+      position = (long) PRODUCER.getVolatile(this);
+    }
+  }
+
+  /**
+   * Stores an element at a claimed producer position and publishes it to consumers.
+   */
+  private void produce(long position, KType element) {
+    final int slot = (int) position & mask;
+    Intrinsics.<KType[]> cast(buffer)[slot] = element;
+    SEQUENCES.setRelease(sequences, slot, position + 1);
+  }
+
+  /**
+   * @return Returns the claimed consumer position or <code>-1</code> if the queue is empty.
+   */
+  private long claimConsumer() {
+    final long [] sequences = this.sequences;
+    long position = (long) CONSUMER.getVolatile(this);
+    while (true) {
+      final long difference =
+          (long) SEQUENCES.getAcquire(sequences, (int) position & mask) - (position + 1);
+      if (difference == 0) {
+        if (CONSUMER.compareAndSet(this, position, position + 1)) {
+          return position;
+        }
+        contention.increment();
+      } else if (difference < 0) {
+        return -1;
+      }
+      position = (long) CONSUMER.getVolatile(this);
+    }
+  }
+
+  /**
+   * Reads the element at a claimed consumer position and frees its slot for producers.
+   */
+  private KType consume(long position) {
+    final int slot = (int) position & mask;
+    final KType element = Intrinsics.<KType[]> cast(buffer)[slot];
+    SEQUENCES.setRelease(sequences, slot, position + mask + 1);
+    return element;
+  }
+
+  /**
+   * Removes up to <code>limit</code> elements which are ready to be consumed and appends them to
+   * the target list, in order. A run of consecutive ready elements is claimed at once.
+   *
+   * @return Returns the number of elements removed.
+   */
+  public int drainTo(KTypeArrayList<KType> target, int limit) {
+    final long [] sequences = this.sequences;
+    final int mask = this.mask;
+    int drained = 0;
+    while (drained < limit) {
+      final long position = (long) CONSUMER.getVolatile(this);
+      int run = 0;
+      final int maxRun = Math.min(limit - drained, mask + 1);
+      while (run < maxRun
+          && (long) SEQUENCES.getAcquire(sequences, (int) (position + run) & mask)
+              == position + run + 1) {
+        run++;
+      }
+      if (run == 0) {
+        if (drained == 0) {
+          empty.increment();
+        }
+        break;
+      }
+      if (!CONSUMER.compareAndSet(this, position, position + run)) {
+        contention.increment();
+        continue;
+      }
+
+      target.ensureCapacity(target.size() + run);
+      final KType [] buffer = Intrinsics.<KType[]> cast(this.buffer);
+      for (int i = 0; i < run; i++) {
+        final long p = position + i;
+        final int slot = (int) p & mask;
+        target.add(buffer[slot]);
+        SEQUENCES.setRelease(sequences, slot, p + mask + 1);
+      }
+      drained += run;
+    }
+    return drained;
+  }
+
+  /**
+   * Removes all elements which are ready to be consumed and appends them to the target list.
+   *
+   * @return Returns the number of elements removed.
+   */
+  public int drainTo(KTypeArrayList<KType> target) {
+    return drainTo(target, Integer.MAX_VALUE);
+  }
+
+  private void await(int attempt) throws InterruptedException {
+    waits.increment();
+    waitStrategy.idle(attempt);
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+  }
+
+  /**
+   * @return Returns the number of elements in the queue. The value is only a snapshot if the
+   *         queue is concurrently modified.
+   */
+  public int size() {
+    final long consumer = (long) CONSUMER.getVolatile(this);
+    final long producer = (long) PRODUCER.getVolatile(this);
+    return (int) Math.max(0, Math.min(buffer.length, producer - consumer));
+  }
+
+  /**
+   * @return Returns <code>true</code> if the queue is empty. The value is only a snapshot if the
+   *         queue is concurrently modified.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * @return Returns the fill level of the queue, the ratio of {@link #size()} to
+   *         {@link #capacity()}.
+   */
+  public double fillRatio() {
+    return size() / (double) capacity();
+  }
+
+  /**
+   * @return Returns the number of failed compare-and-set attempts of producers and consumers
+   *         racing for the same position.
+   */
+  public long contentionCount() {
+    return contention.sum();
+  }
+
+  /**
+   * @return Returns the number of times an offer found the queue full.
+   */
+  public long fullCount() {
+    return full.sum();
+  }
+
+  /**
+   * @return Returns the number of times a non-blocking removal found the queue empty.
+   */
+  public long emptyCount() {
+    return empty.sum();
+  }
+
+  /**
+   * @return Returns the number of times a blocking operation waited.
+   */
+  public long waitCount() {
+    return waits.sum();
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // long: 4 sequences, 3 * 16 padding; int: mask; metrics counters (estimated, uncontended)
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 7 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + (4 + 3 * 16) * Long.BYTES + Integer.BYTES
+        + 4 * (RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + Long.BYTES)
+        + RamUsageEstimator.shallowSizeOfArray(buffer)
+        + RamUsageEstimator.shallowSizeOfArray(sequences);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return ramBytesAllocated();
+  }
+
+  @Override
+  public String toString() {
+    return "MpmcQueue[size=" + size() + ", capacity=" + capacity() + "]";
+  }
+}
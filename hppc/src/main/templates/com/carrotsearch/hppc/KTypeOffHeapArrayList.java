@@ -0,0 +1,1022 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypeGeneric)) !*/
+package com.carrotsearch.hppc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.*;
+import java.util.function.IntFunction;
+/* #if ($TemplateOptions.KTypeGeneric) */
+import java.util.stream.Stream;
+/* #end */
+/* #if ($TemplateOptions.isKTypeAnyOf("GENERIC", "INT", "LONG", "DOUBLE")) */
+import java.util.stream.IntStream;
+/* #end */
+/*! #if ($TemplateOptions.isKTypeAnyOf("LONG"))
+import java.util.stream.LongStream;
+#end !*/
+/*! #if ($TemplateOptions.isKTypeAnyOf("DOUBLE"))
+import java.util.stream.DoubleStream;
+#end !*/
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * An array list of <code>KType</code>s stored outside of the Java heap, in pages of native
+ * memory ({@link ByteBuffer}s obtained from an allocator, direct buffers by default).
+ *
+ * <p>Large lists stored this way do not contribute to the heap size or to garbage collection
+ * work. Pages have a fixed, power-of-two size and are allocated as the list grows, so growing
+ * never copies existing elements. Elements are stored in little-endian byte order.</p>
+ *
+ * <p>The list's memory is released by {@link #close()} (or {@link #release()}); the list is empty
+ * afterwards. Java does not provide a supported way to free a direct buffer eagerly: its memory
+ * is reclaimed once the buffer becomes unreachable. Callers that need deterministic release may
+ * supply their own allocator (a pool or an arena of buffers, for example) and recycle the buffers
+ * themselves after closing the list.</p>
+ *
+ * <p>A read-only list can be created over existing data with {@link #wrap(ByteBuffer)} or
+ * {@link #map(FileChannel)} (the latter memory-maps a file without copying it to the heap), for
+ * data previously written with {@link #writeTo(WritableByteChannel)}. Modifying a read-only list
+ * throws {@link ReadOnlyBufferException}.</p>
+ *
+ * <p>{@link #ramBytesAllocated()} and {@link #ramBytesUsed()} report the native memory of the
+ * pages (plus the small on-heap footprint of the list).</p>
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeOffHeapArrayList<KType>
+  extends AbstractKTypeCollection<KType>
+  implements KTypeIndexedContainer<KType>,
+             Accountable,
+             AutoCloseable {
+  /**
+   * log2 of the number of bytes of an element.
+   */
+  private final static int ELEMENT_SHIFT =
+      /*! #if ($TemplateOptions.isKTypeAnyOf("BYTE")) 0
+          #elseif ($TemplateOptions.isKTypeAnyOf("CHAR", "SHORT")) 1
+          #elseif ($TemplateOptions.isKTypeAnyOf("INT", "FLOAT")) 2
+          #else !*/ 3 /*! #end !*/;
+
+  /**
+   * The default page size in bytes (as a power of two).
+   */
+  public final static int DEFAULT_PAGE_BYTES_SHIFT = 24;
+
+  /**
+   * The smallest allowed page size in bytes (as a power of two).
+   */
+  public final static int MIN_PAGE_BYTES_SHIFT = 12;
+
+  /**
+   * The largest allowed page size in bytes (as a power of two).
+   */
+  public final static int MAX_PAGE_BYTES_SHIFT = 30;
+
+  /**
+   * The largest number of elements {@link #sort()} sorts at once in a heap array; longer lists
+   * are sorted in runs of this length, which are then merged.
+   */
+  private final static int SORT_RUN_LENGTH = 1 << 20;
+
+  /**
+   * The number of elements of the heap buffers used to reverse and merge elements in bulk.
+   */
+  private final static int BUFFER_LENGTH = 1 << 12;
+
+  /**
+   * Pages of elements; pages beyond the allocated ones are <code>null</code>.
+   */
+  private ByteBuffer [] pages;
+
+  /**
+   * The number of allocated (or wrapped) pages.
+   */
+  private int pageCount;
+
+  /**
+   * log2 of the number of elements in a page.
+   */
+  private final int pageShift;
+
+  /**
+   * The number of elements in a page, minus one.
+   */
+  private final int pageMask;
+
+  /**
+   * Allocates page buffers of the requested capacity (in bytes).
+   */
+  private final IntFunction<ByteBuffer> allocator;
+
+  /**
+   * <code>true</code> if the list wraps read-only data.
+   */
+  private final boolean readOnly;
+
+  /**
+   * The number of elements in the list.
+   */
+  private int size;
+
+  /**
+   * New instance with the default page size, allocating direct buffers.
+   */
+  public KTypeOffHeapArrayList() {
+    this(DEFAULT_PAGE_BYTES_SHIFT, ByteBuffer::allocateDirect);
+  }
+
+  /**
+   * New instance with the given page size and page allocator.
+   *
+   * @param pageBytesShift The page size in bytes, as a power of two between
+   *        {@link #MIN_PAGE_BYTES_SHIFT} and {@link #MAX_PAGE_BYTES_SHIFT}.
+   * @param allocator Returns a (zero-based) buffer of at least the requested number of bytes.
+   */
+  public KTypeOffHeapArrayList(int pageBytesShift, IntFunction<ByteBuffer> allocator) {
+    this(pageBytesShift, allocator, false);
+  }
+
+  private KTypeOffHeapArrayList(
+      int pageBytesShift, IntFunction<ByteBuffer> allocator, boolean readOnly) {
+    if (pageBytesShift < MIN_PAGE_BYTES_SHIFT || pageBytesShift > MAX_PAGE_BYTES_SHIFT) {
+      throw new IllegalArgumentException(
+          "Page bytes shift must be between " + MIN_PAGE_BYTES_SHIFT + " and "
+              + MAX_PAGE_BYTES_SHIFT + ": " + pageBytesShift);
+    }
+    this.pageShift = pageBytesShift - ELEMENT_SHIFT;
+    this.pageMask = (1 << pageShift) - 1;
+    this.allocator = Objects.requireNonNull(allocator);
+    this.readOnly = readOnly;
+    this.pages = new ByteBuffer [0];
+  }
+
+  /**
+   * Creates a read-only list over the remaining bytes of the given buffer (without copying),
+   * which must hold little-endian elements.
+   */
+  public static /*! #if ($TemplateOptions.KTypeGeneric) !*/ <KType> /*! #end !*/
+      KTypeOffHeapArrayList<KType> wrap(ByteBuffer buffer) {
+    final long bytes = buffer.remaining();
+    checkWholeElements(bytes);
+    final KTypeOffHeapArrayList<KType> list =
+        new KTypeOffHeapArrayList<>(DEFAULT_PAGE_BYTES_SHIFT, ByteBuffer::allocateDirect, true);
+    final int pageBytes = 1 << DEFAULT_PAGE_BYTES_SHIFT;
+    final ByteBuffer source = buffer.slice();
+    list.addPages((int) ((bytes + pageBytes - 1) / pageBytes));
+    for (long start = 0; start < bytes; start += pageBytes) {
+      source.limit((int) Math.min(bytes, start + pageBytes)).position((int) start);
+      list.pages[list.pageCount++] =
+          source.slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+    list.size = (int) (bytes >> ELEMENT_SHIFT);
+    return list;
+  }
+
+  /**
+   * Creates a read-only list over the contents of a file (for example, one written with
+   * {@link #writeTo(WritableByteChannel)}), memory-mapping it page by page. The mapping remains
+   * valid after the channel is closed.
+   */
+  public static /*! #if ($TemplateOptions.KTypeGeneric) !*/ <KType> /*! #end !*/
+      KTypeOffHeapArrayList<KType> map(FileChannel channel) throws IOException {
+    final long bytes = channel.size();
+    checkWholeElements(bytes);
+    final KTypeOffHeapArrayList<KType> list =
+        new KTypeOffHeapArrayList<>(DEFAULT_PAGE_BYTES_SHIFT, ByteBuffer::allocateDirect, true);
+    final long pageBytes = 1L << DEFAULT_PAGE_BYTES_SHIFT;
+    list.addPages((int) ((bytes + pageBytes - 1) / pageBytes));
+    for (long start = 0; start < bytes; start += pageBytes) {
+      list.pages[list.pageCount++] =
+          channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(pageBytes, bytes - start))
+              .order(ByteOrder.LITTLE_ENDIAN);
+    }
+    list.size = (int) (bytes >> ELEMENT_SHIFT);
+    return list;
+  }
+
+  private static void checkWholeElements(long bytes) {
+    if ((bytes & ((1 << ELEMENT_SHIFT) - 1)) != 0) {
+      throw new IllegalArgumentException(
+          "Not a whole number of elements: " + bytes + " bytes.");
+    }
+    if ((bytes >> ELEMENT_SHIFT) > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          "Too many elements: " + (bytes >> ELEMENT_SHIFT));
+    }
+  }
+
+  /**
+   * Writes all elements of this list to the given channel (in little-endian byte order).
+   */
+  public void writeTo(WritableByteChannel channel) throws IOException {
+    for (int start = 0; start < size; start += pageMask + 1) {
+      final ByteBuffer page = pages[start >>> pageShift].duplicate();
+      page.limit(Math.min(pageMask + 1, size - start) << ELEMENT_SHIFT).position(0);
+      while (page.hasRemaining()) {
+        channel.write(page);
+      }
+    }
+  }
+
+  /**
+   * @return Returns <code>true</code> if this list wraps read-only data.
+   */
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(KType e1) {
+    checkWritable();
+    ensureCapacity(size + 1);
+    write(size++, e1);
+  }
+
+  /**
+   * Appends elements from the given array range to the end of the list.
+   */
+  public void add(KType [] elements, int start, int length) {
+    assert length >= 0 : "Length must be >= 0";
+    checkWritable();
+    ensureCapacity(size + length);
+    put(pages, size, elements, start, length);
+    size += length;
+  }
+
+  /**
+   * Appends all elements from the given container to the end of the list.
+   *
+   * @return Returns the number of elements added.
+   */
+  public int addAll(KTypeContainer<? extends KType> container) {
+    checkWritable();
+    ensureCapacity(size + container.size());
+    for (KTypeCursor<? extends KType> cursor : container) {
+      write(size++, cursor.value);
+    }
+    return container.size();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void insert(int index, KType e1) {
+    assert (index >= 0 && index <= size())
+        : "Index " + index + " out of bounds [" + 0 + ", " + size() + "].";
+    checkWritable();
+    ensureCapacity(size + 1);
+    move(index, index + 1, size - index);
+    write(index, e1);
+    size++;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType get(int index) {
+    assert (index >= 0 && index < size())
+        : "Index " + index + " out of bounds [" + 0 + ", " + size() + ").";
+    return read(index);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType set(int index, KType e1) {
+    assert (index >= 0 && index < size())
+        : "Index " + index + " out of bounds [" + 0 + ", " + size() + ").";
+    checkWritable();
+    final KType v = read(index);
+    write(index, e1);
+    return v;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType removeAt(int index) {
+    assert (index >= 0 && index < size())
+        : "Index " + index + " out of bounds [" + 0 + ", " + size() + ").";
+    checkWritable();
+    final KType v = read(index);
+    move(index + 1, index, size - index - 1);
+    size--;
+    return v;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType removeLast() {
+    assert !isEmpty() : "List is empty";
+    checkWritable();
+    return read(--size);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void removeRange(int fromIndex, int toIndex) {
+    assert (fromIndex >= 0 && fromIndex <= size())
+        : "Index " + fromIndex + " out of bounds [" + 0 + ", " + size() + ").";
+    assert (toIndex >= 0 && toIndex <= size())
+        : "Index " + toIndex + " out of bounds [" + 0 + ", " + size() + "].";
+    assert fromIndex <= toIndex : "fromIndex must be <= toIndex: " + fromIndex + ", " + toIndex;
+    checkWritable();
+    move(toIndex, fromIndex, size - toIndex);
+    size -= toIndex - fromIndex;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean removeElement(KType e1) {
+    return removeFirst(e1) != -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int removeFirst(KType e1) {
+    final int index = indexOf(e1);
+    if (index >= 0) {
+      removeAt(index);
+    }
+    return index;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int removeLast(KType e1) {
+    final int index = lastIndexOf(e1);
+    if (index >= 0) {
+      removeAt(index);
+    }
+    return index;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int removeAll(KType e1) {
+    return removeAll(value -> Intrinsics.equals(this, e1, value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int removeAll(KTypePredicate<? super KType> predicate) {
+    checkWritable();
+    final int size = this.size;
+    int to = 0;
+    int from = 0;
+    try {
+      for (; from < size; from++) {
+        final KType value = read(from);
+        if (predicate.apply(value)) {
+          continue;
+        }
+        if (to != from) {
+          write(to, value);
+        }
+        to++;
+      }
+    } finally {
+      // Keep the list in a consistent state, even if the predicate throws an exception.
+      for (; from < size; from++) {
+        if (to != from) {
+          write(to, read(from));
+        }
+        to++;
+      }
+      this.size = to;
+    }
+    return size - to;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean contains(KType e1) {
+    return indexOf(e1) >= 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int indexOf(KType e1) {
+    for (int start = 0; start < size; start += pageMask + 1) {
+      final ByteBuffer page = pages[start >>> pageShift];
+      final int length = Math.min(pageMask + 1, size - start);
+      for (int i = 0; i < length; i++) {
+        if (Intrinsics.equals(this, e1, read(page, i << ELEMENT_SHIFT))) {
+          return start + i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int lastIndexOf(KType e1) {
+    for (int i = size - 1; i >= 0; i--) {
+      if (Intrinsics.equals(this, e1, read(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Ensures pages are allocated for the given number of elements.
+   */
+  public void ensureCapacity(int expectedElements) {
+    checkWritable();
+    final int required = (int) (((long) expectedElements + pageMask) >>> pageShift);
+    if (required > pageCount) {
+      addPages(required - pageCount);
+      final int pageBytes = (pageMask + 1) << ELEMENT_SHIFT;
+      try {
+        while (pageCount < required) {
+          pages[pageCount++] = allocatePage(pageBytes);
+        }
+      } catch (OutOfMemoryError e) {
+        throw new BufferAllocationException(
+            "Not enough memory to allocate a page of %,d bytes (%,d pages allocated)",
+            e, pageBytes, pageCount);
+      }
+    }
+  }
+
+  private ByteBuffer allocatePage(int pageBytes) {
+    final ByteBuffer page = allocator.apply(pageBytes);
+    if (page.capacity() < pageBytes) {
+      throw new IllegalStateException(
+          "Allocator returned a buffer with capacity " + page.capacity()
+              + " < " + pageBytes + " bytes.");
+    }
+    return page.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Grows the page directory so that it can hold the given number of additional pages.
+   */
+  private void addPages(int additional) {
+    if (pageCount + additional > pages.length) {
+      pages = Arrays.copyOf(pages, Math.max(pageCount + additional, pages.length * 2));
+    }
+  }
+
+  /**
+   * Removes all elements. Pages remain allocated.
+   */
+  @Override
+  public void clear() {
+    checkWritable();
+    size = 0;
+  }
+
+  /**
+   * Removes all elements and releases all pages (also of read-only lists).
+   */
+  @Override
+  public void release() {
+    pages = new ByteBuffer [0];
+    pageCount = 0;
+    size = 0;
+  }
+
+  /**
+   * Releases all pages, same as {@link #release()}.
+   */
+  @Override
+  public void close() {
+    release();
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new ReadOnlyBufferException();
+    }
+  }
+
+  private KType read(int index) {
+    return read(pages[index >>> pageShift], (index & pageMask) << ELEMENT_SHIFT);
+  }
+
+  private void write(int index, KType e1) {
+    write(pages[index >>> pageShift], (index & pageMask) << ELEMENT_SHIFT, e1);
+  }
+
+  private static <KType> KType read(ByteBuffer page, int offset) {
+    /*! #if ($TemplateOptions.isKTypeAnyOf("BYTE"))
+    return page.get(offset);
+    #elseif ($TemplateOptions.isKTypeAnyOf("CHAR"))
+    return page.getChar(offset);
+    #elseif ($TemplateOptions.isKTypeAnyOf("SHORT"))
+    return page.getShort(offset);
+    #elseif ($TemplateOptions.isKTypeAnyOf("INT"))
+    return page.getInt(offset);
+    #elseif ($TemplateOptions.isKTypeAnyOf("FLOAT"))
+    return page.getFloat(offset);
+    #elseif ($TemplateOptions.isKTypeAnyOf("LONG"))
+    return page.getLong(offset);
+    #else !*/
+    return Intrinsics.<KType> cast(page.getDouble(offset));
+    /*! #end !*/
+  }
+
+  private static <KType> void write(ByteBuffer page, int offset, KType e1) {
+    /*! #if ($TemplateOptions.isKTypeAnyOf("BYTE"))
+    page.put(offset, e1);
+    #elseif ($TemplateOptions.isKTypeAnyOf("CHAR"))
+    page.putChar(offset, e1);
+    #elseif ($TemplateOptions.isKTypeAnyOf("SHORT"))
+    page.putShort(offset, e1);
+    #elseif ($TemplateOptions.isKTypeAnyOf("INT"))
+    page.putInt(offset, e1);
+    #elseif ($TemplateOptions.isKTypeAnyOf("FLOAT"))
+    page.putFloat(offset, e1);
+    #elseif ($TemplateOptions.isKTypeAnyOf("LONG"))
+    page.putLong(offset, e1);
+    #else !*/
+    page.putDouble(offset, Intrinsics.<KType> numeric(e1));
+    /*! #end !*/
+  }
+
+  /**
+   * Moves <code>length</code> elements from index <code>from</code> to index <code>to</code>
+   * (the ranges may overlap), copying page segments in bulk.
+   */
+  private void move(int from, int to, int length) {
+    if (to < from) {
+      while (length > 0) {
+        final int n = Math.min(length,
+            Math.min(pageMask + 1 - (from & pageMask), pageMask + 1 - (to & pageMask)));
+        copy(pages, from, pages, to, n);
+        from += n;
+        to += n;
+        length -= n;
+      }
+    } else if (to > from) {
+      // Copy from the end so that overlapping elements are read before they are overwritten.
+      int fromEnd = from + length;
+      int toEnd = to + length;
+      while (length > 0) {
+        final int n = Math.min(length,
+            Math.min(((fromEnd - 1) & pageMask) + 1, ((toEnd - 1) & pageMask) + 1));
+        fromEnd -= n;
+        toEnd -= n;
+        copy(pages, fromEnd, pages, toEnd, n);
+        length -= n;
+      }
+    }
+  }
+
+  /**
+   * Copies <code>length</code> elements within a single source page and a single target page.
+   */
+  private void copy(ByteBuffer [] sourcePages, int from, ByteBuffer [] targetPages, int to,
+      int length) {
+    final ByteBuffer source = sourcePages[from >>> pageShift].duplicate();
+    final int offset = (from & pageMask) << ELEMENT_SHIFT;
+    source.limit(offset + (length << ELEMENT_SHIFT)).position(offset);
+    final ByteBuffer target = targetPages[to >>> pageShift].duplicate();
+    target.position((to & pageMask) << ELEMENT_SHIFT);
+    target.put(source);
+  }
+
+  /**
+   * Copies elements <code>[index, index + length)</code> of the given pages to an array.
+   */
+  private void get(ByteBuffer [] pages, int index, KType [] target, int start, int length) {
+    while (length > 0) {
+      final int n = Math.min(length, pageMask + 1 - (index & pageMask));
+      get(pages[index >>> pageShift], (index & pageMask) << ELEMENT_SHIFT, target, start, n);
+      index += n;
+      start += n;
+      length -= n;
+    }
+  }
+
+  /**
+   * Copies array elements to <code>[index, index + length)</code> of the given pages.
+   */
+  private void put(ByteBuffer [] pages, int index, KType [] source, int start, int length) {
+    while (length > 0) {
+      final int n = Math.min(length, pageMask + 1 - (index & pageMask));
+      put(pages[index >>> pageShift], (index & pageMask) << ELEMENT_SHIFT, source, start, n);
+      index += n;
+      start += n;
+      length -= n;
+    }
+  }
+
+  private static <KType> void get(ByteBuffer page, int offset, KType [] target, int start,
+      int length) {
+    /*! #if ($TemplateOptions.isKTypeAnyOf("BYTE"))
+    view(page, offset).get(target, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("CHAR"))
+    view(page, offset).asCharBuffer().get(target, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("SHORT"))
+    view(page, offset).asShortBuffer().get(target, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("INT"))
+    view(page, offset).asIntBuffer().get(target, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("FLOAT"))
+    view(page, offset).asFloatBuffer().get(target, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("LONG"))
+    view(page, offset).asLongBuffer().get(target, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("DOUBLE"))
+    view(page, offset).asDoubleBuffer().get(target, start, length);
+    #else !*/
+    for (int i = 0; i < length; i++) {
+      target[start + i] = read(page, offset + (i << ELEMENT_SHIFT));
+    }
+    /*! #end !*/
+  }
+
+  private static <KType> void put(ByteBuffer page, int offset, KType [] source, int start,
+      int length) {
+    /*! #if ($TemplateOptions.isKTypeAnyOf("BYTE"))
+    view(page, offset).put(source, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("CHAR"))
+    view(page, offset).asCharBuffer().put(source, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("SHORT"))
+    view(page, offset).asShortBuffer().put(source, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("INT"))
+    view(page, offset).asIntBuffer().put(source, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("FLOAT"))
+    view(page, offset).asFloatBuffer().put(source, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("LONG"))
+    view(page, offset).asLongBuffer().put(source, start, length);
+    #elseif ($TemplateOptions.isKTypeAnyOf("DOUBLE"))
+    view(page, offset).asDoubleBuffer().put(source, start, length);
+    #else !*/
+    for (int i = 0; i < length; i++) {
+      write(page, offset + (i << ELEMENT_SHIFT), source[start + i]);
+    }
+    /*! #end !*/
+  }
+
+  /**
+   * A little-endian view of the page, positioned at the given byte offset.
+   */
+  private static ByteBuffer view(ByteBuffer page, int offset) {
+    final ByteBuffer view = page.duplicate();
+    view.position(offset);
+    return view.order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KType [] toArray() {
+    final KType [] array = Intrinsics.<KType> newArray(size);
+    get(pages, 0, array, 0, size);
+    return array;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypeProcedure<? super KType>> T forEach(T procedure) {
+    for (int start = 0; start < size; start += pageMask + 1) {
+      final ByteBuffer page = pages[start >>> pageShift];
+      final int length = Math.min(pageMask + 1, size - start);
+      for (int i = 0; i < length; i++) {
+        procedure.apply(read(page, i << ELEMENT_SHIFT));
+      }
+    }
+    return procedure;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypePredicate<? super KType>> T forEach(T predicate) {
+    for (int start = 0; start < size; start += pageMask + 1) {
+      final ByteBuffer page = pages[start >>> pageShift];
+      final int length = Math.min(pageMask + 1, size - start);
+      for (int i = 0; i < length; i++) {
+        if (!predicate.apply(read(page, i << ELEMENT_SHIFT))) {
+          return predicate;
+        }
+      }
+    }
+    return predicate;
+  }
+
+  /**
+   * An iterator over the list's elements.
+   */
+  private final class ValueIterator extends AbstractIterator<KTypeCursor<KType>> {
+    private final KTypeCursor<KType> cursor = new KTypeCursor<KType>();
+
+    public ValueIterator() {
+      cursor.index = -1;
+    }
+
+    @Override
+    protected KTypeCursor<KType> fetch() {
+      if (cursor.index + 1 == size) {
+        return done();
+      }
+      cursor.value = read(++cursor.index);
+      return cursor;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<KTypeCursor<KType>> iterator() {
+    return new ValueIterator();
+  }
+
+  /* #if ($TemplateOptions.KTypeGeneric) */
+  @Override
+  public Stream<KType> stream() {
+    return IntStream.range(0, size).mapToObj(this::read);
+  }
+  /* #end */
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT"))
+  @Override
+  public IntStream stream() {
+    return IntStream.range(0, size).map(this::read);
+  }
+  #end !*/
+  /*! #if ($TemplateOptions.isKTypeAnyOf("LONG"))
+  @Override
+  public LongStream stream() {
+    return IntStream.range(0, size).mapToLong(this::read);
+  }
+  #end !*/
+  /*! #if ($TemplateOptions.isKTypeAnyOf("DOUBLE"))
+  @Override
+  public DoubleStream stream() {
+    return IntStream.range(0, size).mapToDouble(this::read);
+  }
+  #end !*/
+
+  /**
+   * Sorts the elements in the order of {@link Arrays#sort}.
+   *
+   * <p>Runs of up to 2<sup>20</sup> elements are copied to a heap array, sorted there and copied
+   * back in bulk. Longer lists are then merged run by run, which temporarily allocates as many
+   * pages as the list currently uses, with the list's allocator.</p>
+   */
+  @Override
+  public KTypeIndexedContainer<KType> sort() {
+    checkWritable();
+    final int runLength = Math.min(size, SORT_RUN_LENGTH);
+    final KType [] run = Intrinsics.<KType> newArray(runLength);
+    for (int start = 0; start < size; start += runLength) {
+      final int length = Math.min(runLength, size - start);
+      get(pages, start, run, 0, length);
+      Arrays.sort(run, 0, length);
+      put(pages, start, run, 0, length);
+    }
+    if (runLength < size) {
+      mergeRuns(runLength);
+    }
+    return this;
+  }
+
+  /**
+   * Merges sorted runs of the given length, bottom-up, until the whole list is sorted.
+   */
+  private void mergeRuns(int runLength) {
+    final int pageBytes = (pageMask + 1) << ELEMENT_SHIFT;
+    final int required = (int) (((long) size + pageMask) >>> pageShift);
+    ByteBuffer [] source = pages;
+    ByteBuffer [] target = new ByteBuffer [required];
+    try {
+      for (int i = 0; i < required; i++) {
+        target[i] = allocatePage(pageBytes);
+      }
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException(
+          "Not enough memory to allocate %,d pages of %,d bytes for sorting",
+          e, required, pageBytes);
+    }
+
+    final KType [] left = Intrinsics.<KType> newArray(BUFFER_LENGTH);
+    final KType [] right = Intrinsics.<KType> newArray(BUFFER_LENGTH);
+    final KType [] merged = Intrinsics.<KType> newArray(BUFFER_LENGTH);
+    for (long run = runLength; run < size; run <<= 1) {
+      for (long start = 0; start < size; start += 2 * run) {
+        merge(source, target, (int) start, (int) Math.min(size, start + run),
+            (int) Math.min(size, start + 2 * run), left, right, merged);
+      }
+      final ByteBuffer [] tmp = source;
+      source = target;
+      target = tmp;
+    }
+
+    if (source != pages) {
+      for (int start = 0; start < size; start += pageMask + 1) {
+        copy(source, start, pages, start, Math.min(pageMask + 1, size - start));
+      }
+    }
+  }
+
+  /**
+   * Merges the sorted ranges <code>[from, mid)</code> and <code>[mid, to)</code> of the source
+   * pages into <code>[from, to)</code> of the target pages, through heap buffers.
+   */
+  private void merge(ByteBuffer [] source, ByteBuffer [] target, int from, int mid, int to,
+      KType [] left, KType [] right, KType [] merged) {
+    int i = from, leftLength = 0, l = 0;
+    int j = mid, rightLength = 0, r = 0;
+    int out = from, m = 0;
+    while (true) {
+      if (l == leftLength && i < mid) {
+        leftLength = Math.min(left.length, mid - i);
+        get(source, i, left, 0, leftLength);
+        i += leftLength;
+        l = 0;
+      }
+      if (r == rightLength && j < to) {
+        rightLength = Math.min(right.length, to - j);
+        get(source, j, right, 0, rightLength);
+        j += rightLength;
+        r = 0;
+      }
+      final boolean hasLeft = l < leftLength;
+      final boolean hasRight = r < rightLength;
+      if (!hasLeft && !hasRight) {
+        break;
+      }
+      if (hasLeft && (!hasRight || compare(left[l], right[r]) <= 0)) {
+        merged[m++] = left[l++];
+      } else {
+        merged[m++] = right[r++];
+      }
+      if (m == merged.length) {
+        put(target, out, merged, 0, m);
+        out += m;
+        m = 0;
+      }
+    }
+    put(target, out, merged, 0, m);
+  }
+
+  private static <KType> int compare(KType a, KType b) {
+    /*! #if ($TemplateOptions.isKTypeAnyOf("BYTE"))
+    return Byte.compare(a, b);
+    #elseif ($TemplateOptions.isKTypeAnyOf("CHAR"))
+    return Character.compare(a, b);
+    #elseif ($TemplateOptions.isKTypeAnyOf("SHORT"))
+    return Short.compare(a, b);
+    #elseif ($TemplateOptions.isKTypeAnyOf("INT"))
+    return Integer.compare(a, b);
+    #elseif ($TemplateOptions.isKTypeAnyOf("FLOAT"))
+    return Float.compare(a, b);
+    #elseif ($TemplateOptions.isKTypeAnyOf("LONG"))
+    return Long.compare(a, b);
+    #else !*/
+    return Double.compare(Intrinsics.<KType> numeric(a), Intrinsics.<KType> numeric(b));
+    /*! #end !*/
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KTypeIndexedContainer<KType> reverse() {
+    checkWritable();
+    final int bufferLength = Math.min(BUFFER_LENGTH, size >>> 1);
+    final KType [] head = Intrinsics.<KType> newArray(bufferLength);
+    final KType [] tail = Intrinsics.<KType> newArray(bufferLength);
+    for (int i = 0, j = size; j - i > 1; ) {
+      final int n = Math.min(bufferLength, (j - i) >>> 1);
+      get(pages, i, head, 0, n);
+      get(pages, j - n, tail, 0, n);
+      reverse(head, n);
+      reverse(tail, n);
+      put(pages, i, tail, 0, n);
+      put(pages, j - n, head, 0, n);
+      i += n;
+      j -= n;
+    }
+    return this;
+  }
+
+  private static <KType> void reverse(KType [] array, int length) {
+    for (int i = 0, j = length - 1; i < j; i++, j--) {
+      final KType tmp = array[i];
+      array[i] = array[j];
+      array[j] = tmp;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    int h = 1;
+    for (int i = 0; i < size; i++) {
+      h = 31 * h + BitMixer.mix(read(i));
+    }
+    return h;
+  }
+
+  /**
+   * Returns <code>true</code> only if the other object is an instance of
+   * the same class and with the same elements.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    return (this == obj) || (
+      obj != null &&
+      getClass() == obj.getClass() &&
+      equalElements(getClass().cast(obj))
+    );
+  }
+
+  /**
+   * Compare index-aligned elements against another list.
+   */
+  protected boolean equalElements(KTypeOffHeapArrayList<?> other) {
+    final int max = size();
+    if (other.size() != max) {
+      return false;
+    }
+    for (int i = 0; i < max; i++) {
+      if (!Intrinsics.equals(this, read(i), other.read(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: pageCount, pageShift, pageMask, size; boolean: readOnly
+    long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + 4 * Integer.BYTES + 1
+        + RamUsageEstimator.shallowSizeOfArray(pages);
+    for (int i = 0; i < pageCount; i++) {
+      bytes += pages[i].capacity();
+    }
+    return bytes;
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: pageCount, pageShift, pageMask, size; boolean: readOnly
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + 4 * Integer.BYTES + 1
+        + RamUsageEstimator.shallowUsedSizeOfArray(pages, pageCount)
+        + ((long) size << ELEMENT_SHIFT);
+  }
+}
@@ -0,0 +1,582 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG"))) !*/
+package com.carrotsearch.hppc;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * An immutable, compressed list of <code>KType</code>s, built from a {@link KTypeArrayList} (or
+ * an array range).
+ *
+ * <p>Elements are split into blocks of {@link #BLOCK_SIZE}. Each block is stored with
+ * <i>frame of reference</i> bit packing: a per-block reference value (the minimum) and, for every
+ * element, its unsigned offset from the reference packed in as few bits as the block needs. The
+ * bit width of a block is chosen as in <i>patched</i> frame of reference (PFOR): a few large
+ * offsets do not widen the whole block, their high bits are stored separately as exceptions
+ * instead.</p>
+ *
+ * <p>In delta mode, intended for sorted or slowly changing data, the block stores its first
+ * element and the packed values are differences between consecutive elements (again relative to
+ * the smallest difference in the block, so the differences may be negative).</p>
+ *
+ * <p>{@link #get(int)} unpacks a single value (in delta mode: a prefix of the block), sequential
+ * access ({@link #forEach(KTypeProcedure)}, {@link #iterator()}, {@link #decodeBlock}) unpacks
+ * whole blocks at a time.</p>
+ */
+/*! #if ($templateonly) !*/ @SuppressWarnings("unchecked") /*! #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypePackedList<KType> implements KTypeContainer<KType>, Accountable {
+  /**
+   * The number of elements in a block.
+   */
+  public static final int BLOCK_SIZE = 128;
+
+  /**
+   * log2 of {@link #BLOCK_SIZE}.
+   */
+  private static final int BLOCK_SHIFT = 7;
+
+  /**
+   * The cost (in bits) of a single exception: its position in the block and its high bits.
+   */
+  private static final int EXCEPTION_BITS = Byte.SIZE + Long.SIZE;
+
+  /**
+   * The number of elements.
+   */
+  private final int size;
+
+  /**
+   * <code>true</code> if blocks store differences between consecutive elements.
+   */
+  private final boolean deltaEncoded;
+
+  /**
+   * Bit width of the packed values of each block.
+   */
+  private final byte[] bits;
+
+  /**
+   * The first word of each block in {@link #words} (and the end of the last block).
+   */
+  private final int[] wordOffsets;
+
+  /**
+   * Packed values of all blocks, least significant bits first.
+   */
+  private final long[] words;
+
+  /**
+   * The reference value of each block: its minimum, or its minimum difference in delta mode.
+   */
+  private final long[] references;
+
+  /**
+   * The first element of each block in delta mode, <code>null</code> otherwise.
+   */
+  private final long[] firsts;
+
+  /**
+   * The first exception of each block (and the end of exceptions of the last block).
+   */
+  private final int[] exceptionOffsets;
+
+  /**
+   * Positions of exceptions within their block.
+   */
+  private final byte[] exceptionPositions;
+
+  /**
+   * The bits of exceptions above their block's bit width.
+   */
+  private final long[] exceptionHighBits;
+
+  /**
+   * Packs all elements of the given list with frame of reference encoding.
+   */
+  public KTypePackedList(KTypeArrayList<KType> list) {
+    this(list, false);
+  }
+
+  /**
+   * Packs all elements of the given list.
+   *
+   * @param deltaEncoded Pack differences between consecutive elements instead of elements.
+   */
+  public KTypePackedList(KTypeArrayList<KType> list, boolean deltaEncoded) {
+    this(Intrinsics.<KType[]> cast(list.buffer), 0, list.size(), deltaEncoded);
+  }
+
+  /**
+   * Packs elements from <code>values[fromIndex]</code> (inclusive) to
+   * <code>values[toIndex]</code> (exclusive).
+   *
+   * @param deltaEncoded Pack differences between consecutive elements instead of elements.
+   */
+  public KTypePackedList(KType[] values, int fromIndex, int toIndex, boolean deltaEncoded) {
+    assert fromIndex >= 0 && fromIndex <= toIndex && toIndex <= values.length
+      : "Range [" + fromIndex + ", " + toIndex + ") out of bounds [0, " + values.length + "].";
+
+    this.size = toIndex - fromIndex;
+    this.deltaEncoded = deltaEncoded;
+
+    final int blocks = (size + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+    this.bits = new byte[blocks];
+    this.wordOffsets = new int[blocks + 1];
+    this.references = new long[blocks];
+    this.firsts = deltaEncoded ? new long[blocks] : null;
+    this.exceptionOffsets = new int[blocks + 1];
+
+    // The first pass chooses the bit width of each block and sizes the buffers.
+    final long[] offsets = new long[BLOCK_SIZE];
+    final int[] widths = new int[Long.SIZE + 1];
+    for (int block = 0; block < blocks; block++) {
+      final int length = offsets(values, fromIndex, block, offsets);
+      Arrays.fill(widths, 0);
+      for (int i = 0; i < length; i++) {
+        widths[Long.SIZE - Long.numberOfLeadingZeros(offsets[i])]++;
+      }
+
+      int best = Long.SIZE;
+      long bestCost = (long) length * Long.SIZE;
+      int exceptions = 0;
+      int bestExceptions = 0;
+      for (int b = Long.SIZE - 1; b >= 0; b--) {
+        exceptions += widths[b + 1];
+        final long cost = (long) length * b + (long) exceptions * EXCEPTION_BITS;
+        if (cost < bestCost) {
+          best = b;
+          bestCost = cost;
+          bestExceptions = exceptions;
+        }
+      }
+
+      bits[block] = (byte) best;
+      wordOffsets[block + 1] = Math.addExact(wordOffsets[block], (length * best + 63) >>> 6);
+      exceptionOffsets[block + 1] = exceptionOffsets[block] + bestExceptions;
+    }
+
+    // The second pass packs the values.
+    try {
+      this.words = new long[wordOffsets[blocks]];
+      this.exceptionPositions = new byte[exceptionOffsets[blocks]];
+      this.exceptionHighBits = new long[exceptionOffsets[blocks]];
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException(
+          "Not enough memory to allocate packed buffers: %,d words", e, wordOffsets[blocks]);
+    }
+
+    for (int block = 0; block < blocks; block++) {
+      final int length = offsets(values, fromIndex, block, offsets);
+      final int b = bits[block];
+      final long mask = mask(b);
+      int exception = exceptionOffsets[block];
+      long bitIndex = (long) wordOffsets[block] << 6;
+      for (int i = 0; i < length; i++, bitIndex += b) {
+        final long offset = offsets[i];
+        if ((offset & ~mask) != 0) {
+          exceptionPositions[exception] = (byte) i;
+          exceptionHighBits[exception] = offset >>> b;
+          exception++;
+        }
+        if (b > 0) {
+          final int word = (int) (bitIndex >>> 6);
+          final int shift = (int) (bitIndex & 63);
+          words[word] |= (offset & mask) << shift;
+          if (shift + b > Long.SIZE) {
+            words[word + 1] |= (offset & mask) >>> (Long.SIZE - shift);
+          }
+        }
+      }
+      assert exception == exceptionOffsets[block + 1];
+    }
+  }
+
+  /**
+   * Computes the unsigned offsets of a block's elements from the block's reference value (and
+   * sets the reference and the first element of the block).
+   *
+   * @return Returns the number of elements in the block.
+   */
+  private int offsets(KType[] values, int fromIndex, int block, long[] offsets) {
+    final int start = fromIndex + (block << BLOCK_SHIFT);
+    final int length = Math.min(BLOCK_SIZE, size - (block << BLOCK_SHIFT));
+
+    if (deltaEncoded) {
+      offsets[0] = 0;
+      long previous = widen(values[start]);
+      long reference = length > 1 ? Long.MAX_VALUE : 0;
+      for (int i = 1; i < length; i++) {
+        final long value = widen(values[start + i]);
+        offsets[i] = value - previous;
+        reference = Math.min(reference, offsets[i]);
+        previous = value;
+      }
+      for (int i = 1; i < length; i++) {
+        offsets[i] -= reference;
+      }
+      firsts[block] = widen(values[start]);
+      references[block] = reference;
+    } else {
+      long reference = Long.MAX_VALUE;
+      for (int i = 0; i < length; i++) {
+        offsets[i] = widen(values[start + i]);
+        reference = Math.min(reference, offsets[i]);
+      }
+      for (int i = 0; i < length; i++) {
+        offsets[i] -= reference;
+      }
+      references[block] = reference;
+    }
+    return length;
+  }
+
+  /**
+   * @return Returns the element at the given index.
+   */
+  public KType get(int index) {
+    assert (index >= 0 && index < size())
+      : "Index " + index + " out of bounds [" + 0 + ", " + size() + ").";
+
+    final int block = index >>> BLOCK_SHIFT;
+    final int position = index & (BLOCK_SIZE - 1);
+    if (!deltaEncoded) {
+      return narrow(references[block] + unpack(block, position));
+    }
+
+    // Sum up the differences preceding the element.
+    long sum = 0;
+    for (int i = 1; i <= position; i++) {
+      sum += unpack(block, i);
+    }
+    return narrow(firsts[block] + position * references[block] + sum);
+  }
+
+  /**
+   * Unpacks the offset of a single element from its block's reference value.
+   */
+  private long unpack(int block, int position) {
+    final int b = bits[block];
+    long offset = 0;
+    if (b > 0) {
+      final long bitIndex = ((long) wordOffsets[block] << 6) + (long) position * b;
+      final int word = (int) (bitIndex >>> 6);
+      final int shift = (int) (bitIndex & 63);
+      offset = words[word] >>> shift;
+      if (shift + b > Long.SIZE) {
+        offset |= words[word + 1] << (Long.SIZE - shift);
+      }
+      offset &= mask(b);
+    }
+
+    for (int i = exceptionOffsets[block], max = exceptionOffsets[block + 1]; i < max; i++) {
+      if (exceptionPositions[i] == position) {
+        offset |= exceptionHighBits[i] << b;
+        break;
+      }
+    }
+    return offset;
+  }
+
+  /**
+   * Decodes all elements of a block to <code>target</code>, starting at <code>offset</code>.
+   *
+   * @param block The block index, between zero and {@link #blockCount()} (exclusive).
+   * @return Returns the number of decoded elements: {@link #BLOCK_SIZE}, except for the last
+   * block.
+   */
+  public int decodeBlock(int block, KType[] target, int offset) {
+    final long[] decoded = new long[BLOCK_SIZE];
+    final int length = decode(block, decoded);
+    for (int i = 0; i < length; i++) {
+      target[offset + i] = narrow(decoded[i]);
+    }
+    return length;
+  }
+
+  /**
+   * Decodes all elements of a block to <code>target</code>.
+   *
+   * @return Returns the number of elements in the block.
+   */
+  private int decode(int block, long[] target) {
+    final int length = Math.min(BLOCK_SIZE, size - (block << BLOCK_SHIFT));
+    final int b = bits[block];
+
+    // Unpack the low bits of all offsets.
+    if (b == 0) {
+      Arrays.fill(target, 0, length, 0);
+    } else {
+      final long mask = mask(b);
+      final int firstWord = wordOffsets[block];
+      for (int i = 0, bitIndex = 0; i < length; i++, bitIndex += b) {
+        final int word = firstWord + (bitIndex >>> 6);
+        final int shift = bitIndex & 63;
+        long offset = words[word] >>> shift;
+        if (shift + b > Long.SIZE) {
+          offset |= words[word + 1] << (Long.SIZE - shift);
+        }
+        target[i] = offset & mask;
+      }
+    }
+
+    // Patch exceptions.
+    for (int i = exceptionOffsets[block], max = exceptionOffsets[block + 1]; i < max; i++) {
+      target[exceptionPositions[i]] |= exceptionHighBits[i] << b;
+    }
+
+    // Add the reference value.
+    final long reference = references[block];
+    if (deltaEncoded) {
+      long value = firsts[block];
+      target[0] = value;
+      for (int i = 1; i < length; i++) {
+        value += reference + target[i];
+        target[i] = value;
+      }
+    } else {
+      for (int i = 0; i < length; i++) {
+        target[i] += reference;
+      }
+    }
+    return length;
+  }
+
+  private static long mask(int bits) {
+    return bits == Long.SIZE ? -1L : (1L << bits) - 1;
+  }
+
+  private static <KType> long widen(KType value) {
+    return (long) Intrinsics.<KType> numeric(value);
+  }
+
+  private static <KType> KType narrow(long value) {
+    /*! #if ($TemplateOptions.isKTypeAnyOf("INT")) return (int) value; #else !*/
+    return Intrinsics.<KType> cast(value);
+    /*! #end !*/
+  }
+
+  /**
+   * @return Returns the number of blocks.
+   */
+  public int blockCount() {
+    return bits.length;
+  }
+
+  /**
+   * @return Returns <code>true</code> if blocks store differences between consecutive elements.
+   */
+  public boolean isDeltaEncoded() {
+    return deltaEncoded;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean contains(KType e) {
+    final long value = widen(e);
+    final long[] decoded = new long[BLOCK_SIZE];
+    for (int block = 0; block < bits.length; block++) {
+      final int length = decode(block, decoded);
+      for (int i = 0; i < length; i++) {
+        if (decoded[i] == value) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  /*! #if ($TemplateOptions.KTypePrimitive)
+  public KType [] toArray()
+      #else !*/
+  public Object [] toArray()
+  /*! #end !*/
+  {
+    final KType[] array = Intrinsics.<KType> newArray(size);
+    for (int block = 0; block < bits.length; block++) {
+      decodeBlock(block, array, block << BLOCK_SHIFT);
+    }
+    return array;
+  }
+
+  /* #if ($TemplateOptions.KTypeGeneric) */
+  @Override
+  public <T> T[] toArray(Class<T> componentClass) {
+    final T[] array = (T[]) java.lang.reflect.Array.newInstance(componentClass, size);
+    System.arraycopy(toArray(), 0, array, 0, size);
+    return array;
+  }
+  /* #end */
+
+  /**
+   * @return Returns a new {@link KTypeArrayList} with all elements of this list.
+   */
+  public KTypeArrayList<KType> toList() {
+    final KTypeArrayList<KType> list = new KTypeArrayList<>(size);
+    list.add(Intrinsics.<KType[]> cast(toArray()));
+    return list;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypeProcedure<? super KType>> T forEach(T procedure) {
+    final long[] decoded = new long[BLOCK_SIZE];
+    for (int block = 0; block < bits.length; block++) {
+      final int length = decode(block, decoded);
+      for (int i = 0; i < length; i++) {
+        procedure.apply(narrow(decoded[i]));
+      }
+    }
+    return procedure;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypePredicate<? super KType>> T forEach(T predicate) {
+    final long[] decoded = new long[BLOCK_SIZE];
+    for (int block = 0; block < bits.length; block++) {
+      final int length = decode(block, decoded);
+      for (int i = 0; i < length; i++) {
+        if (!predicate.apply(narrow(decoded[i]))) {
+          return predicate;
+        }
+      }
+    }
+    return predicate;
+  }
+
+  /**
+   * An iterator decoding a block at a time.
+   */
+  private final class ValueIterator extends AbstractIterator<KTypeCursor<KType>> {
+    private final KTypeCursor<KType> cursor = new KTypeCursor<KType>();
+    private final long[] decoded = new long[BLOCK_SIZE];
+
+    public ValueIterator() {
+      cursor.index = -1;
+    }
+
+    @Override
+    protected KTypeCursor<KType> fetch() {
+      final int index = cursor.index + 1;
+      if (index == size) {
+        return done();
+      }
+
+      final int position = index & (BLOCK_SIZE - 1);
+      if (position == 0) {
+        decode(index >>> BLOCK_SHIFT, decoded);
+      }
+      cursor.index = index;
+      cursor.value = narrow(decoded[position]);
+      return cursor;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<KTypeCursor<KType>> iterator() {
+    return new ValueIterator();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    final int[] h = {1};
+    forEach((KTypeProcedure<KType>) v -> h[0] = 31 * h[0] + BitMixer.mix(v));
+    return h[0];
+  }
+
+  /**
+   * Returns <code>true</code> only if the other object is a packed list with the same elements
+   * (regardless of the encoding).
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final KTypePackedList<?> other = (KTypePackedList<?>) obj;
+    if (other.size != size) {
+      return false;
+    }
+    final long[] decoded = new long[BLOCK_SIZE];
+    final long[] otherDecoded = new long[BLOCK_SIZE];
+    for (int block = 0; block < bits.length; block++) {
+      final int length = decode(block, decoded);
+      other.decode(block, otherDecoded);
+      if (!Arrays.equals(decoded, 0, length, otherDecoded, 0, length)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Convert the contents of this container to a human-friendly string.
+   */
+  @Override
+  public String toString() {
+    return Arrays.toString(this.toArray());
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: size, boolean: deltaEncoded
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + Integer.BYTES
+        + 1
+        + 8 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + RamUsageEstimator.shallowSizeOfArray(bits)
+        + RamUsageEstimator.shallowSizeOfArray(wordOffsets)
+        + RamUsageEstimator.shallowSizeOfArray(words)
+        + RamUsageEstimator.shallowSizeOfArray(references)
+        + (firsts == null ? 0 : RamUsageEstimator.shallowSizeOfArray(firsts))
+        + RamUsageEstimator.shallowSizeOfArray(exceptionOffsets)
+        + RamUsageEstimator.shallowSizeOfArray(exceptionPositions)
+        + RamUsageEstimator.shallowSizeOfArray(exceptionHighBits);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // All buffers are sized exactly.
+    return ramBytesAllocated();
+  }
+}
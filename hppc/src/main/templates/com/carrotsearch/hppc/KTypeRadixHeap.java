@@ -0,0 +1,250 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG"))) !*/
+package com.carrotsearch.hppc;
+
+/**
+ * A radix heap: a monotone priority queue of <code>KType</code> keys with <code>int</code>
+ * payloads.
+ *
+ * <p>A radix heap only supports monotone workloads: a key added to the heap must not be smaller
+ * than {@link #lastKey()}, the key of the most recently removed (or inspected) top element. This is
+ * the case for Dijkstra's shortest paths with non-negative weights or discrete event simulations,
+ * for example. In exchange, all operations take amortized constant time (each element moves between
+ * buckets at most once per key bit) and elements are stored in flat, append-only buckets instead of
+ * a comparison heap.</p>
+ *
+ * <p>Bucket <code>0</code> holds elements with keys equal to {@link #lastKey()}, bucket
+ * <code>b &gt; 0</code> holds elements whose keys first differ from {@link #lastKey()} at bit
+ * <code>b - 1</code> (counting from the least significant bit). When bucket <code>0</code> is
+ * exhausted, the lowest non-empty bucket is redistributed to lower buckets around its minimum key.
+ * Buckets are {@link KTypeArrayList}s of keys and {@link IntArrayList}s of payloads.</p>
+ *
+ * @see KTypeHeapPriorityQueue
+ */
+/*! #if ($templateonly) !*/ @SuppressWarnings("unchecked") /*! #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeRadixHeap<KType> implements Accountable {
+  /**
+   * The number of buckets (one for each bit of a key plus the bucket of keys equal to the last
+   * key).
+   */
+  private final static int BUCKETS =
+      /*! #if ($TemplateOptions.isKTypeAnyOf("INT")) Integer.SIZE + 1 #else !*/ Long.SIZE + 1 /*! #end !*/;
+
+  /**
+   * The bits of a key (widened to a <code>long</code>) that select its bucket.
+   */
+  private final static long KEY_BITS =
+      /*! #if ($TemplateOptions.isKTypeAnyOf("INT")) 0xffffffffL #else !*/ -1L /*! #end !*/;
+
+  /**
+   * Keys of each bucket.
+   */
+  private final KTypeArrayList<KType> [] keys;
+
+  /**
+   * Payloads of each bucket, parallel to {@link #keys}.
+   */
+  private final IntArrayList [] values;
+
+  /**
+   * Bit <code>b - 1</code> is set if bucket <code>b &gt; 0</code> is not empty.
+   */
+  private long nonEmpty;
+
+  /**
+   * The number of elements in the heap.
+   */
+  private int size;
+
+  /**
+   * The key of the last removed (or inspected) top element.
+   */
+  private KType last;
+
+  /**
+   * New, empty instance.
+   */
+  public KTypeRadixHeap() {
+    keys = new KTypeArrayList [BUCKETS];
+    values = new IntArrayList [BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      keys[i] = new KTypeArrayList<>(0);
+      values[i] = new IntArrayList(0);
+    }
+    clear();
+  }
+
+  /**
+   * Adds a key with a payload to the heap.
+   *
+   * @throws IllegalArgumentException If the key is smaller than {@link #lastKey()}.
+   */
+  public void add(KType key, int value) {
+    if (Intrinsics.<KType> numeric(key) < Intrinsics.<KType> numeric(last)) {
+      throw new IllegalArgumentException(
+          "Keys must not be smaller than the last key: " + key + " < " + last);
+    }
+    final int bucket = bucketOf(key, last);
+    keys[bucket].add(key);
+    values[bucket].add(value);
+    if (bucket > 0) {
+      nonEmpty |= 1L << (bucket - 1);
+    }
+    size++;
+  }
+
+  /**
+   * @return Returns the smallest key in the heap. The heap must not be empty. This key becomes
+   *         the {@link #lastKey()}.
+   */
+  public KType topKey() {
+    refill();
+    return last;
+  }
+
+  /**
+   * @return Returns the payload of (one of the) elements with the smallest key. The heap must not
+   *         be empty.
+   */
+  public int topValue() {
+    refill();
+    return values[0].get(values[0].size() - 1);
+  }
+
+  /**
+   * Removes (one of the) elements with the smallest key. The removed element's key is available
+   * from {@link #lastKey()} afterwards. The heap must not be empty.
+   *
+   * @return Returns the payload of the removed element.
+   */
+  public int removeTop() {
+    refill();
+    final IntArrayList bucket = values[0];
+    final int index = bucket.size() - 1;
+    final int value = bucket.get(index);
+    bucket.elementsCount = index;
+    keys[0].elementsCount = index;
+    size--;
+    return value;
+  }
+
+  /**
+   * Ensures bucket <code>0</code> is not empty by redistributing the lowest non-empty bucket.
+   */
+  private void refill() {
+    assert size > 0 : "The heap is empty.";
+    if (!keys[0].isEmpty()) {
+      return;
+    }
+
+    final int bucket = Long.numberOfTrailingZeros(nonEmpty) + 1;
+    final KTypeArrayList<KType> bucketKeys = keys[bucket];
+    final IntArrayList bucketValues = values[bucket];
+    final KType [] k = Intrinsics.<KType[]> cast(bucketKeys.buffer);
+    final int [] v = bucketValues.buffer;
+    final int count = bucketKeys.size();
+
+    KType min = k[0];
+    for (int i = 1; i < count; i++) {
+      if (Intrinsics.<KType> numeric(k[i]) < Intrinsics.<KType> numeric(min)) {
+        min = k[i];
+      }
+    }
+    last = min;
+
+    // All elements move to lower buckets.
+    for (int i = 0; i < count; i++) {
+      final int target = bucketOf(k[i], min);
+      assert target < bucket;
+      keys[target].add(k[i]);
+      values[target].add(v[i]);
+      if (target > 0) {
+        nonEmpty |= 1L << (target - 1);
+      }
+    }
+    bucketKeys.elementsCount = 0;
+    bucketValues.elementsCount = 0;
+    nonEmpty &= ~(1L << (bucket - 1));
+  }
+
+  /**
+   * @return Returns the bucket of a key: <code>0</code> if the key is equal to <code>last</code>,
+   *         otherwise the position of the highest differing bit, plus one.
+   */
+  private static <KType> int bucketOf(KType key, KType last) {
+    final long diff = ((long) Intrinsics.<KType> numeric(key) ^ (long) Intrinsics.<KType> numeric(last)) & KEY_BITS;
+    return Long.SIZE - Long.numberOfLeadingZeros(diff);
+  }
+
+  /**
+   * @return Returns the key of the last removed (or inspected) top element: keys smaller than
+   *         this one cannot be added. This is the smallest possible key for a new or cleared heap.
+   */
+  public KType lastKey() {
+    return last;
+  }
+
+  /**
+   * @return Returns the number of elements in the heap.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return Returns <code>true</code> if the heap is empty.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Removes all elements and resets {@link #lastKey()}. Bucket buffers are not released.
+   */
+  public void clear() {
+    for (int i = 0; i < BUCKETS; i++) {
+      keys[i].elementsCount = 0;
+      values[i].elementsCount = 0;
+    }
+    nonEmpty = 0;
+    size = 0;
+    /*! #if ($templateonly) !*/
+    last = null;
+    /*! #elseif ($TemplateOptions.isKTypeAnyOf("INT"))
+    last = Integer.MIN_VALUE;
+    #else
+    last = Long.MIN_VALUE;
+    #end !*/
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: size; long: nonEmpty, last (at most)
+    long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + Integer.BYTES + 2 * Long.BYTES
+        + RamUsageEstimator.shallowSizeOfArray(keys)
+        + RamUsageEstimator.shallowSizeOfArray(values);
+    for (int i = 0; i < BUCKETS; i++) {
+      bytes += keys[i].ramBytesAllocated() + values[i].ramBytesAllocated();
+    }
+    return bytes;
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: size; long: nonEmpty, last (at most)
+    long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + Integer.BYTES + 2 * Long.BYTES
+        + RamUsageEstimator.shallowSizeOfArray(keys)
+        + RamUsageEstimator.shallowSizeOfArray(values);
+    for (int i = 0; i < BUCKETS; i++) {
+      bytes += keys[i].ramBytesUsed() + values[i].ramBytesUsed();
+    }
+    return bytes;
+  }
+
+  @Override
+  public String toString() {
+    return "RadixHeap[size=" + size + ", lastKey=" + last + "]";
+  }
+}
@@ -0,0 +1,462 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG", "FLOAT", "DOUBLE"))) !*/
+package com.carrotsearch.hppc;
+
+import java.util.stream.IntStream;
+
+/**
+ * Numeric reductions (sum, mean, minimum, maximum, dot product, histogram) over the elements of
+ * a {@link KTypeArrayList} or a range of a <code>KType</code> array.
+ *
+ * <p>Sequential reductions keep several independent accumulators, so consecutive additions (or
+ * comparisons) do not wait for each other and the loops run at memory bandwidth rather than at the
+ * latency of a single dependency chain. The <code>parallel*</code> variants split ranges longer
+ * than {@link #PARALLEL_THRESHOLD} into chunks reduced on the common fork-join pool and combine
+ * the partial results; shorter ranges are reduced sequentially.</p>
+#if ($TemplateOptions.isKTypeAnyOf("FLOAT", "DOUBLE"))
+ *
+ * <p>Sums are accumulated in <code>double</code> precision, in an order that differs from a
+ * plain left-to-right loop, so the results may differ from one in the last bits. Minimum and
+ * maximum follow {@link Math#min(KType, KType)} and {@link Math#max(KType, KType)}: a
+ * <code>NaN</code> element makes the result <code>NaN</code>.</p>
+#else
+ *
+ * <p>Sums and dot products are accumulated in <code>long</code>s and silently overflow.</p>
+#end
+ */
+/*! #if ($templateonly) !*/ @SuppressWarnings("unchecked") /*! #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public final class KTypeReductions {
+  /**
+   * The minimum number of elements in a chunk reduced by a single task of the
+   * <code>parallel*</code> methods.
+   */
+  public static final int PARALLEL_THRESHOLD = 1 << 18;
+
+  private KTypeReductions() {
+    // No instances.
+  }
+
+  /**
+   * @return Returns the sum of all elements of the list.
+   */
+  public static <KType>
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+  sum(KTypeArrayList<KType> list) {
+    return sum(Intrinsics.<KType[]> cast(list.buffer), 0, list.size());
+  }
+
+  /**
+   * @return Returns the sum of <code>buffer[fromIndex]</code> (inclusive) to
+   * <code>buffer[toIndex]</code> (exclusive).
+   */
+  public static <KType>
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+  sum(KType[] buffer, int fromIndex, int toIndex) {
+    assert checkRange(buffer.length, fromIndex, toIndex);
+
+    /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+        s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+    int i = fromIndex;
+    for (final int blocksEnd = toIndex - 3; i < blocksEnd; i += 4) {
+      s0 += Intrinsics.<KType> numeric(buffer[i]);
+      s1 += Intrinsics.<KType> numeric(buffer[i + 1]);
+      s2 += Intrinsics.<KType> numeric(buffer[i + 2]);
+      s3 += Intrinsics.<KType> numeric(buffer[i + 3]);
+    }
+    for (; i < toIndex; i++) {
+      s0 += Intrinsics.<KType> numeric(buffer[i]);
+    }
+    return (s0 + s1) + (s2 + s3);
+  }
+
+  /**
+   * @return Returns the sum of all elements of the list, computed in parallel for long lists.
+   */
+  public static <KType>
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+  parallelSum(KTypeArrayList<KType> list) {
+    return parallelSum(Intrinsics.<KType[]> cast(list.buffer), 0, list.size());
+  }
+
+  /**
+   * @return Returns the sum of <code>buffer[fromIndex]</code> (inclusive) to
+   * <code>buffer[toIndex]</code> (exclusive), computed in parallel for long ranges.
+   */
+  public static <KType>
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+  parallelSum(KType[] buffer, int fromIndex, int toIndex) {
+    assert checkRange(buffer.length, fromIndex, toIndex);
+
+    final int chunks = chunks(fromIndex, toIndex);
+    if (chunks <= 1) {
+      return sum(buffer, fromIndex, toIndex);
+    }
+
+    final /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+        [] partial = new
+        /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+        [chunks];
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      partial[chunk] = sum(buffer,
+          chunkStart(fromIndex, toIndex, chunks, chunk),
+          chunkStart(fromIndex, toIndex, chunks, chunk + 1));
+    });
+
+    /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+        sum = 0;
+    for (int i = 0; i < chunks; i++) {
+      sum += partial[i];
+    }
+    return sum;
+  }
+
+  /**
+   * @return Returns the arithmetic mean of all elements of the list or <code>NaN</code> if the
+   * list is empty.
+   */
+  public static <KType>
+  double mean(KTypeArrayList<KType> list) {
+    return list.isEmpty() ? Double.NaN : (double) sum(list) / list.size();
+  }
+
+  /**
+   * @return Returns the smallest element of a non-empty list.
+   */
+  public static <KType> KType min(KTypeArrayList<KType> list) {
+    return min(Intrinsics.<KType[]> cast(list.buffer), 0, list.size());
+  }
+
+  /**
+   * @return Returns the smallest of <code>buffer[fromIndex]</code> (inclusive) to
+   * <code>buffer[toIndex]</code> (exclusive). The range must not be empty.
+   */
+  public static <KType> KType min(KType[] buffer, int fromIndex, int toIndex) {
+    assert checkRange(buffer.length, fromIndex, toIndex);
+    assert fromIndex < toIndex : "The range is empty.";
+
+    KType m0 = buffer[fromIndex], m1 = m0, m2 = m0, m3 = m0;
+    int i = fromIndex + 1;
+    for (final int blocksEnd = toIndex - 3; i < blocksEnd; i += 4) {
+      m0 = smaller(m0, buffer[i]);
+      m1 = smaller(m1, buffer[i + 1]);
+      m2 = smaller(m2, buffer[i + 2]);
+      m3 = smaller(m3, buffer[i + 3]);
+    }
+    for (; i < toIndex; i++) {
+      m0 = smaller(m0, buffer[i]);
+    }
+    m0 = smaller(m0, m1);
+    m2 = smaller(m2, m3);
+    return smaller(m0, m2);
+  }
+
+  /**
+   * @return Returns the smallest element of a non-empty list, computed in parallel for long
+   * lists.
+   */
+  public static <KType> KType parallelMin(KTypeArrayList<KType> list) {
+    return parallelMin(Intrinsics.<KType[]> cast(list.buffer), 0, list.size());
+  }
+
+  /**
+   * @return Returns the smallest of <code>buffer[fromIndex]</code> (inclusive) to
+   * <code>buffer[toIndex]</code> (exclusive), computed in parallel for long ranges. The range
+   * must not be empty.
+   */
+  public static <KType> KType parallelMin(KType[] buffer, int fromIndex, int toIndex) {
+    assert checkRange(buffer.length, fromIndex, toIndex);
+
+    final int chunks = chunks(fromIndex, toIndex);
+    if (chunks <= 1) {
+      return min(buffer, fromIndex, toIndex);
+    }
+
+    final KType[] partial = Intrinsics.<KType> newArray(chunks);
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      partial[chunk] = min(buffer,
+          chunkStart(fromIndex, toIndex, chunks, chunk),
+          chunkStart(fromIndex, toIndex, chunks, chunk + 1));
+    });
+    return min(partial, 0, chunks);
+  }
+
+  /**
+   * @return Returns the largest element of a non-empty list.
+   */
+  public static <KType> KType max(KTypeArrayList<KType> list) {
+    return max(Intrinsics.<KType[]> cast(list.buffer), 0, list.size());
+  }
+
+  /**
+   * @return Returns the largest of <code>buffer[fromIndex]</code> (inclusive) to
+   * <code>buffer[toIndex]</code> (exclusive). The range must not be empty.
+   */
+  public static <KType> KType max(KType[] buffer, int fromIndex, int toIndex) {
+    assert checkRange(buffer.length, fromIndex, toIndex);
+    assert fromIndex < toIndex : "The range is empty.";
+
+    KType m0 = buffer[fromIndex], m1 = m0, m2 = m0, m3 = m0;
+    int i = fromIndex + 1;
+    for (final int blocksEnd = toIndex - 3; i < blocksEnd; i += 4) {
+      m0 = larger(m0, buffer[i]);
+      m1 = larger(m1, buffer[i + 1]);
+      m2 = larger(m2, buffer[i + 2]);
+      m3 = larger(m3, buffer[i + 3]);
+    }
+    for (; i < toIndex; i++) {
+      m0 = larger(m0, buffer[i]);
+    }
+    m0 = larger(m0, m1);
+    m2 = larger(m2, m3);
+    return larger(m0, m2);
+  }
+
+  /**
+   * @return Returns the largest element of a non-empty list, computed in parallel for long
+   * lists.
+   */
+  public static <KType> KType parallelMax(KTypeArrayList<KType> list) {
+    return parallelMax(Intrinsics.<KType[]> cast(list.buffer), 0, list.size());
+  }
+
+  /**
+   * @return Returns the largest of <code>buffer[fromIndex]</code> (inclusive) to
+   * <code>buffer[toIndex]</code> (exclusive), computed in parallel for long ranges. The range
+   * must not be empty.
+   */
+  public static <KType> KType parallelMax(KType[] buffer, int fromIndex, int toIndex) {
+    assert checkRange(buffer.length, fromIndex, toIndex);
+
+    final int chunks = chunks(fromIndex, toIndex);
+    if (chunks <= 1) {
+      return max(buffer, fromIndex, toIndex);
+    }
+
+    final KType[] partial = Intrinsics.<KType> newArray(chunks);
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      partial[chunk] = max(buffer,
+          chunkStart(fromIndex, toIndex, chunks, chunk),
+          chunkStart(fromIndex, toIndex, chunks, chunk + 1));
+    });
+    return max(partial, 0, chunks);
+  }
+
+  /**
+   * @return Returns the dot product of two lists of the same size.
+   */
+  public static <KType>
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+  dot(KTypeArrayList<KType> a, KTypeArrayList<KType> b) {
+    checkSameSize(a, b);
+    return dot(
+        Intrinsics.<KType[]> cast(a.buffer), Intrinsics.<KType[]> cast(b.buffer), 0, a.size());
+  }
+
+  /**
+   * @return Returns the sum of <code>a[i] * b[i]</code> for <code>i</code> from
+   * <code>fromIndex</code> (inclusive) to <code>toIndex</code> (exclusive).
+   */
+  public static <KType>
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+  dot(KType[] a, KType[] b, int fromIndex, int toIndex) {
+    assert checkRange(Math.min(a.length, b.length), fromIndex, toIndex);
+
+    /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+        s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+    int i = fromIndex;
+    for (final int blocksEnd = toIndex - 3; i < blocksEnd; i += 4) {
+      s0 += product(a[i], b[i]);
+      s1 += product(a[i + 1], b[i + 1]);
+      s2 += product(a[i + 2], b[i + 2]);
+      s3 += product(a[i + 3], b[i + 3]);
+    }
+    for (; i < toIndex; i++) {
+      s0 += product(a[i], b[i]);
+    }
+    return (s0 + s1) + (s2 + s3);
+  }
+
+  /**
+   * @return Returns the dot product of two lists of the same size, computed in parallel for long
+   * lists.
+   */
+  public static <KType>
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+  parallelDot(KTypeArrayList<KType> a, KTypeArrayList<KType> b) {
+    checkSameSize(a, b);
+    return parallelDot(
+        Intrinsics.<KType[]> cast(a.buffer), Intrinsics.<KType[]> cast(b.buffer), 0, a.size());
+  }
+
+  /**
+   * @return Returns the sum of <code>a[i] * b[i]</code> for <code>i</code> from
+   * <code>fromIndex</code> (inclusive) to <code>toIndex</code> (exclusive), computed in
+   * parallel for long ranges.
+   */
+  public static <KType>
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+  parallelDot(KType[] a, KType[] b, int fromIndex, int toIndex) {
+    assert checkRange(Math.min(a.length, b.length), fromIndex, toIndex);
+
+    final int chunks = chunks(fromIndex, toIndex);
+    if (chunks <= 1) {
+      return dot(a, b, fromIndex, toIndex);
+    }
+
+    final /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+        [] partial = new
+        /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+        [chunks];
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      partial[chunk] = dot(a, b,
+          chunkStart(fromIndex, toIndex, chunks, chunk),
+          chunkStart(fromIndex, toIndex, chunks, chunk + 1));
+    });
+
+    /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+        sum = 0;
+    for (int i = 0; i < chunks; i++) {
+      sum += partial[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Counts the elements of the list in <code>bins</code> equal-width bins spanning
+   * <code>[lower, upper]</code>. Elements outside this range are not counted.
+   *
+   * @return Returns the counts of elements in each bin.
+   */
+  public static <KType> long[] histogram(
+      KTypeArrayList<KType> list, KType lower, KType upper, int bins) {
+    return histogram(
+        Intrinsics.<KType[]> cast(list.buffer), 0, list.size(), lower, upper, new long[bins]);
+  }
+
+  /**
+   * Adds the counts of <code>buffer[fromIndex]</code> (inclusive) to
+   * <code>buffer[toIndex]</code> (exclusive) in <code>counts.length</code> equal-width bins
+   * spanning <code>[lower, upper]</code> to <code>counts</code>. Elements outside this range
+   * are not counted; elements equal to <code>upper</code> are counted in the last bin.
+   *
+   * @return Returns <code>counts</code>.
+   */
+  public static <KType> long[] histogram(KType[] buffer, int fromIndex, int toIndex,
+                                         KType lower, KType upper, long[] counts) {
+    assert checkRange(buffer.length, fromIndex, toIndex);
+    final double low = Intrinsics.<KType> numeric(lower);
+    final double high = Intrinsics.<KType> numeric(upper);
+    if (!(low < high) || counts.length == 0) {
+      throw new IllegalArgumentException(
+          "Expected lower < upper and at least one bin: "
+              + lower + ", " + upper + ", " + counts.length);
+    }
+
+    final int lastBin = counts.length - 1;
+    final double scale = counts.length / (high - low);
+    for (int i = fromIndex; i < toIndex; i++) {
+      final double v = Intrinsics.<KType> numeric(buffer[i]);
+      if (v >= low && v <= high) {
+        counts[Math.min(lastBin, (int) ((v - low) * scale))]++;
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Same as {@link #histogram(KTypeArrayList, KType, KType, int)}, computed in parallel for long
+   * lists.
+   *
+   * @return Returns the counts of elements in each bin.
+   */
+  public static <KType> long[] parallelHistogram(
+      KTypeArrayList<KType> list, KType lower, KType upper, int bins) {
+    return parallelHistogram(
+        Intrinsics.<KType[]> cast(list.buffer), 0, list.size(), lower, upper, new long[bins]);
+  }
+
+  /**
+   * Same as {@link #histogram(KType[], int, int, KType, KType, long[])}, computed in parallel for
+   * long ranges.
+   *
+   * @return Returns <code>counts</code>.
+   */
+  public static <KType> long[] parallelHistogram(KType[] buffer, int fromIndex, int toIndex,
+                                                 KType lower, KType upper, long[] counts) {
+    assert checkRange(buffer.length, fromIndex, toIndex);
+
+    final int chunks = chunks(fromIndex, toIndex);
+    if (chunks <= 1) {
+      return histogram(buffer, fromIndex, toIndex, lower, upper, counts);
+    }
+
+    final long[][] partial = new long[chunks][];
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      partial[chunk] = histogram(buffer,
+          chunkStart(fromIndex, toIndex, chunks, chunk),
+          chunkStart(fromIndex, toIndex, chunks, chunk + 1),
+          lower, upper, new long[counts.length]);
+    });
+
+    for (long[] p : partial) {
+      for (int bin = 0; bin < counts.length; bin++) {
+        counts[bin] += p[bin];
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Returns the smaller of two elements, as {@link Math#min(KType, KType)}.
+   */
+  private static <KType> KType smaller(KType a, KType b) {
+    return Intrinsics.<KType> cast(
+        Math.min(Intrinsics.<KType> numeric(a), Intrinsics.<KType> numeric(b)));
+  }
+
+  /**
+   * Returns the larger of two elements, as {@link Math#max(KType, KType)}.
+   */
+  private static <KType> KType larger(KType a, KType b) {
+    return Intrinsics.<KType> cast(
+        Math.max(Intrinsics.<KType> numeric(a), Intrinsics.<KType> numeric(b)));
+  }
+
+  /**
+   * Multiplies two elements in the precision of the accumulator.
+   */
+  private static <KType>
+  /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/
+  product(KType a, KType b) {
+    return
+        (/*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/)
+        Intrinsics.<KType> numeric(a) * Intrinsics.<KType> numeric(b);
+  }
+
+  /**
+   * The number of chunks a range is split into by the <code>parallel*</code> methods.
+   */
+  private static int chunks(int fromIndex, int toIndex) {
+    return Math.max(1, (toIndex - fromIndex) / PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * The first index of a chunk of a range split into <code>chunks</code> equal parts.
+   */
+  private static int chunkStart(int fromIndex, int toIndex, int chunks, int chunk) {
+    return fromIndex + (int) ((long) (toIndex - fromIndex) * chunk / chunks);
+  }
+
+  private static boolean checkRange(int length, int fromIndex, int toIndex) {
+    assert fromIndex >= 0 && fromIndex <= toIndex && toIndex <= length
+      : "Range [" + fromIndex + ", " + toIndex + ") out of bounds [0, " + length + "].";
+    return true;
+  }
+
+  private static void checkSameSize(KTypeArrayList<?> a, KTypeArrayList<?> b) {
+    if (a.size() != b.size()) {
+      throw new IllegalArgumentException(
+          "Lists must have the same size: " + a.size() + ", " + b.size());
+    }
+  }
+}
@@ -0,0 +1,272 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG", "FLOAT", "DOUBLE"))) !*/
+package com.carrotsearch.hppc;
+
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * A sliding window over the last {@link #capacity()} <code>KType</code> samples, with constant
+ * time queries of their sum, mean, minimum and maximum.
+ *
+ * <p>Samples are kept in a ring buffer; once the window is full, each {@link #add(KType)} evicts
+ * the oldest sample. The sum is updated incrementally. The minimum and maximum are the heads of two
+ * monotonic deques of buffer slots: a new sample removes all the (older) candidates that can no
+ * longer be the window's minimum (or maximum) from the tail of the respective deque, so each sample
+ * enters and leaves each deque at most once and {@link #add(KType)} takes amortized constant
+ * time.</p>
+#if ($TemplateOptions.isKTypeAnyOf("FLOAT", "DOUBLE"))
+ *
+ * <p>The running sum is recomputed from the buffer after every {@link #capacity()} evictions, so
+ * rounding errors of the incremental updates do not accumulate.</p>
+#end
+ *
+ * @see KTypeTimeBucketedWindow
+ */
+/*! #if ($templateonly) !*/ @SuppressWarnings("unchecked") /*! #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeSlidingWindow<KType> implements Accountable {
+  /**
+   * Samples in the window, starting at {@link #start} (wrapping around).
+   */
+  private final KType [] buffer;
+
+  /**
+   * The slot of the oldest sample.
+   */
+  private int start;
+
+  /**
+   * The number of samples in the window.
+   */
+  private int size;
+
+  /**
+   * The sum of samples in the window.
+   */
+  private /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/ sum;
+
+  /*! #if ($TemplateOptions.isKTypeAnyOf("FLOAT", "DOUBLE")) !*/
+  /**
+   * Evictions since the sum was last recomputed.
+   */
+  private int evictions;
+  /*! #end !*/
+
+  /**
+   * Slots of minimum candidates, in increasing order of values (a ring starting at
+   * {@link #minHead}).
+   */
+  private final int [] minSlots;
+  private int minHead;
+  private int minSize;
+
+  /**
+   * Slots of maximum candidates, in decreasing order of values (a ring starting at
+   * {@link #maxHead}).
+   */
+  private final int [] maxSlots;
+  private int maxHead;
+  private int maxSize;
+
+  /**
+   * New instance holding up to <code>capacity</code> most recent samples.
+   */
+  public KTypeSlidingWindow(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be >= 1: " + capacity);
+    }
+    try {
+      this.buffer = Intrinsics.<KType> newArray(capacity);
+      this.minSlots = new int [capacity];
+      this.maxSlots = new int [capacity];
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException(
+          "Not enough memory to allocate a window of %,d elements", e, capacity);
+    }
+  }
+
+  /**
+   * Adds a sample, evicting the oldest one if the window is full.
+   */
+  public void add(KType value) {
+    final int capacity = buffer.length;
+    if (size == capacity) {
+      removeOldest();
+    }
+
+    int slot = start + size;
+    if (slot >= capacity) {
+      slot -= capacity;
+    }
+    buffer[slot] = value;
+    size++;
+    sum += Intrinsics.<KType> numeric(value);
+
+    // Drop candidates which are not smaller (greater) than the new sample.
+    while (minSize > 0
+        && Intrinsics.<KType> numeric(buffer[minSlots[wrap(minHead + minSize - 1)]])
+            >= Intrinsics.<KType> numeric(value)) {
+      minSize--;
+    }
+    minSlots[wrap(minHead + minSize++)] = slot;
+
+    while (maxSize > 0
+        && Intrinsics.<KType> numeric(buffer[maxSlots[wrap(maxHead + maxSize - 1)]])
+            <= Intrinsics.<KType> numeric(value)) {
+      maxSize--;
+    }
+    maxSlots[wrap(maxHead + maxSize++)] = slot;
+  }
+
+  /**
+   * Removes and returns the oldest sample.
+   */
+  public KType removeOldest() {
+    assert size > 0 : "The window is empty.";
+
+    final KType value = buffer[start];
+    sum -= Intrinsics.<KType> numeric(value);
+    if (minSlots[minHead] == start) {
+      minHead = wrap(minHead + 1);
+      minSize--;
+    }
+    if (maxSlots[maxHead] == start) {
+      maxHead = wrap(maxHead + 1);
+      maxSize--;
+    }
+    start = wrap(start + 1);
+    size--;
+
+    /*! #if ($TemplateOptions.isKTypeAnyOf("FLOAT", "DOUBLE")) !*/
+    if (++evictions == buffer.length) {
+      evictions = 0;
+      sum = 0;
+      for (int i = 0, slot = start; i < size; i++, slot = wrap(slot + 1)) {
+        sum += Intrinsics.<KType> numeric(buffer[slot]);
+      }
+    }
+    /*! #end !*/
+    return value;
+  }
+
+  private int wrap(int slot) {
+    return slot >= buffer.length ? slot - buffer.length : slot;
+  }
+
+  /**
+   * @return Returns the sum of samples in the window (<code>0</code> if empty).
+   */
+  public /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/ sum() {
+    return sum;
+  }
+
+  /**
+   * @return Returns the arithmetic mean of samples in the window (<code>NaN</code> if empty).
+   */
+  public double mean() {
+    return size == 0 ? Double.NaN : (double) sum / size;
+  }
+
+  /**
+   * @return Returns the smallest sample in the window.
+   */
+  public KType min() {
+    assert size > 0 : "The window is empty.";
+    return buffer[minSlots[minHead]];
+  }
+
+  /**
+   * @return Returns the largest sample in the window.
+   */
+  public KType max() {
+    assert size > 0 : "The window is empty.";
+    return buffer[maxSlots[maxHead]];
+  }
+
+  /**
+   * @return Returns the oldest sample in the window.
+   */
+  public KType oldest() {
+    assert size > 0 : "The window is empty.";
+    return buffer[start];
+  }
+
+  /**
+   * @return Returns the most recent sample in the window.
+   */
+  public KType newest() {
+    assert size > 0 : "The window is empty.";
+    return buffer[wrap(start + size - 1)];
+  }
+
+  /**
+   * @return Returns the number of samples in the window.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return Returns the maximum number of samples in the window.
+   */
+  public int capacity() {
+    return buffer.length;
+  }
+
+  /**
+   * @return Returns <code>true</code> if the window holds no samples.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return Returns <code>true</code> if the next sample evicts the oldest one.
+   */
+  public boolean isFull() {
+    return size == buffer.length;
+  }
+
+  /**
+   * Removes all samples.
+   */
+  public void clear() {
+    start = size = 0;
+    minHead = minSize = 0;
+    maxHead = maxSize = 0;
+    sum = 0;
+    /*! #if ($TemplateOptions.isKTypeAnyOf("FLOAT", "DOUBLE")) !*/
+    evictions = 0;
+    /*! #end !*/
+  }
+
+  /**
+   * Applies <code>procedure</code> to all samples in the window, oldest first.
+   */
+  public <T extends KTypeProcedure<? super KType>> T forEach(T procedure) {
+    for (int i = 0, slot = start; i < size; i++, slot = wrap(slot + 1)) {
+      procedure.apply(buffer[slot]);
+    }
+    return procedure;
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: start, size, minHead, minSize, maxHead, maxSize (+ evictions); sum: 8 bytes
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + 7 * Integer.BYTES + Long.BYTES
+        + RamUsageEstimator.shallowSizeOfArray(buffer)
+        + RamUsageEstimator.shallowSizeOfArray(minSlots)
+        + RamUsageEstimator.shallowSizeOfArray(maxSlots);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return ramBytesAllocated();
+  }
+
+  @Override
+  public String toString() {
+    return "SlidingWindow[size=" + size + ", capacity=" + capacity() + "]";
+  }
+}
@@ -0,0 +1,522 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.isKTypeAnyOf("GENERIC", "BYTE", "CHAR", "SHORT", "INT", "LONG"))) !*/
+package com.carrotsearch.hppc;
+
+import java.util.Arrays;
+
+import com.carrotsearch.hppc.sorting.QuickSort;
+
+import static com.carrotsearch.hppc.Containers.*;
+
+/**
+ * A sparse vector of <code>KType</code> values: strictly ascending, non-negative
+ * <code>int</code> {@link #indices} and their corresponding {@link #values}, stored in
+ * parallel array lists.
+ *
+ * <p>Vector operations scan both vectors sequentially. Two vectors of similar sizes are merged;
+ * if one vector is much smaller than the other ({@link #GALLOP_RATIO}), the larger one is
+ * searched with galloping (exponential) search instead, skipping over runs of indexes not
+ * present in the smaller vector. Vectors with identical indexes (and dot products with dense
+ * arrays) use unrolled loops with no branches on indexes.</p>
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeSparseVector<KType>
+  implements Preallocable, Cloneable, Accountable
+{
+  /**
+   * The minimum ratio of the sizes of two vectors for which galloping search is used
+   * instead of merging.
+   */
+  public static final int GALLOP_RATIO = 8;
+
+  /**
+   * Indexes of non-zero values, in strictly ascending order.
+   */
+  public IntArrayList indices;
+
+  /**
+   * Values corresponding to {@link #indices}.
+   */
+  public KTypeArrayList<KType> values;
+
+  /**
+   * New instance with sane defaults.
+   */
+  public KTypeSparseVector() {
+    this(DEFAULT_EXPECTED_ELEMENTS);
+  }
+
+  /**
+   * New instance with sane defaults.
+   *
+   * @param expectedElements The expected number of non-zero values.
+   */
+  public KTypeSparseVector(int expectedElements) {
+    indices = new IntArrayList(expectedElements);
+    values = new KTypeArrayList<>(expectedElements);
+  }
+
+  /**
+   * Appends a value at the given index, which must be larger than all indexes already
+   * in the vector.
+   *
+   * @return Returns this vector.
+   */
+  public KTypeSparseVector<KType> append(int index, KType value) {
+    if (index < 0) {
+      throw new IllegalArgumentException("Index must be non-negative: " + index);
+    }
+    final int size = size();
+    if (size > 0 && index <= indices.buffer[size - 1]) {
+      throw new IllegalArgumentException(
+          "Indexes must be strictly ascending: " + index + " <= " + indices.buffer[size - 1]);
+    }
+    indices.add(index);
+    values.add(value);
+    return this;
+  }
+
+  /**
+   * @return Returns the value at the given index or zero if the index is not present.
+   */
+  public KType get(int index) {
+    final int position = position(index);
+    return position >= 0 ? Intrinsics.<KType> cast(values.buffer[position]) : Intrinsics.<KType> empty();
+  }
+
+  /**
+   * @return Returns the position of the given index in {@link #indices} or
+   *         <code>-(insertion point) - 1</code> if the index is not present.
+   */
+  public int position(int index) {
+    return Arrays.binarySearch(indices.buffer, 0, size(), index);
+  }
+
+  /**
+   * @return Returns the number of stored (non-zero) values.
+   */
+  public int size() {
+    return indices.size();
+  }
+
+  /**
+   * @return Returns <code>true</code> if there are no stored values.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Removes all values from the vector.
+   */
+  public void clear() {
+    indices.clear();
+    values.clear();
+  }
+
+  /**
+   * Removes all values from the vector and releases internal buffers.
+   */
+  public void release() {
+    indices.release();
+    values.release();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void ensureCapacity(int expectedElements) {
+    indices.ensureCapacity(expectedElements);
+    values.ensureCapacity(expectedElements);
+  }
+
+  /**
+   * @return Returns the dot product of this vector and another vector.
+   */
+  public double dot(KTypeSparseVector<KType> other) {
+    final int size = this.size();
+    final int otherSize = other.size();
+    if (size == otherSize && sameIndices(other)) {
+      return dotDense(Intrinsics.<KType[]> cast(this.values.buffer), Intrinsics.<KType[]> cast(other.values.buffer), size);
+    }
+    if (size >= otherSize * GALLOP_RATIO) {
+      return other.dotGalloping(this);
+    }
+    if (otherSize >= size * GALLOP_RATIO) {
+      return this.dotGalloping(other);
+    }
+    return dotMerge(other);
+  }
+
+  /**
+   * @return Returns the dot product of this vector and a dense vector. All indexes of this
+   *         vector must be smaller than the dense vector's length.
+   */
+  public double dot(KType[] dense) {
+    final int size = size();
+    if (size > 0 && indices.buffer[size - 1] >= dense.length) {
+      throw new IndexOutOfBoundsException(
+          "Index " + indices.buffer[size - 1] + " out of bounds for dense vector of length " + dense.length);
+    }
+
+    final int[] indices = this.indices.buffer;
+    final KType[] values = Intrinsics.<KType[]> cast(this.values.buffer);
+    double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+    int i = 0;
+    for (final int end = size & ~3; i < end; i += 4) {
+      s0 += Intrinsics.<KType> numeric(values[i]) * Intrinsics.<KType> numeric(dense[indices[i]]);
+      s1 += Intrinsics.<KType> numeric(values[i + 1]) * Intrinsics.<KType> numeric(dense[indices[i + 1]]);
+      s2 += Intrinsics.<KType> numeric(values[i + 2]) * Intrinsics.<KType> numeric(dense[indices[i + 2]]);
+      s3 += Intrinsics.<KType> numeric(values[i + 3]) * Intrinsics.<KType> numeric(dense[indices[i + 3]]);
+    }
+    for (; i < size; i++) {
+      s0 += Intrinsics.<KType> numeric(values[i]) * Intrinsics.<KType> numeric(dense[indices[i]]);
+    }
+    return (s0 + s1) + (s2 + s3);
+  }
+
+  /**
+   * @return Returns the Euclidean (L2) norm of this vector.
+   */
+  public double norm() {
+    final KType[] values = Intrinsics.<KType[]> cast(this.values.buffer);
+    return Math.sqrt(dotDense(values, values, size()));
+  }
+
+  /**
+   * @return Returns the cosine similarity of this vector and another vector (zero if
+   *         either vector has a zero norm).
+   */
+  public double cosine(KTypeSparseVector<KType> other) {
+    final double norms = norm() * other.norm();
+    return norms == 0 ? 0 : dot(other) / norms;
+  }
+
+  /**
+   * @return Returns a new vector, the sum of this vector and another vector.
+   */
+  public KTypeSparseVector<KType> add(KTypeSparseVector<KType> other) {
+    return axpy(Intrinsics.<KType> cast(1), other);
+  }
+
+  /**
+   * @return Returns a new vector, <code>alpha * x + this</code>.
+   */
+  public KTypeSparseVector<KType> axpy(KType alpha, KTypeSparseVector<KType> x) {
+    final int size = this.size();
+    final int otherSize = x.size();
+    if (size >= otherSize * GALLOP_RATIO || otherSize >= size * GALLOP_RATIO) {
+      return axpyGalloping(alpha, x);
+    }
+    return axpyMerge(alpha, x);
+  }
+
+  /**
+   * Multiplies all values by a constant, in place.
+   *
+   * @return Returns this vector.
+   */
+  public KTypeSparseVector<KType> scale(KType alpha) {
+    final KType[] values = Intrinsics.<KType[]> cast(this.values.buffer);
+    for (int i = 0, size = size(); i < size; i++) {
+      values[i] = Intrinsics.<KType> cast(Intrinsics.<KType> numeric(alpha) * Intrinsics.<KType> numeric(values[i]));
+    }
+    return this;
+  }
+
+  /**
+   * Dot product merging both vectors.
+   */
+  double dotMerge(KTypeSparseVector<KType> other) {
+    final int[] a = this.indices.buffer;
+    final int[] b = other.indices.buffer;
+    final KType[] va = Intrinsics.<KType[]> cast(this.values.buffer);
+    final KType[] vb = Intrinsics.<KType[]> cast(other.values.buffer);
+    final int aSize = this.size();
+    final int bSize = other.size();
+
+    double sum = 0;
+    int i = 0, j = 0;
+    while (i < aSize && j < bSize) {
+      final int ai = a[i];
+      final int bj = b[j];
+      if (ai == bj) {
+        sum += Intrinsics.<KType> numeric(va[i++]) * Intrinsics.<KType> numeric(vb[j++]);
+      } else if (ai < bj) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Dot product looking up indexes of this (smaller) vector in the other vector
+   * with galloping search.
+   */
+  double dotGalloping(KTypeSparseVector<KType> other) {
+    final int[] a = this.indices.buffer;
+    final int[] b = other.indices.buffer;
+    final KType[] va = Intrinsics.<KType[]> cast(this.values.buffer);
+    final KType[] vb = Intrinsics.<KType[]> cast(other.values.buffer);
+    final int aSize = this.size();
+    final int bSize = other.size();
+
+    double sum = 0;
+    for (int i = 0, j = 0; i < aSize && j < bSize; i++) {
+      j = gallop(b, j, bSize, a[i]);
+      if (j < bSize && b[j] == a[i]) {
+        sum += Intrinsics.<KType> numeric(va[i]) * Intrinsics.<KType> numeric(vb[j++]);
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * <code>alpha * x + this</code>, merging both vectors.
+   */
+  KTypeSparseVector<KType> axpyMerge(KType alpha, KTypeSparseVector<KType> x) {
+    final int[] a = this.indices.buffer;
+    final int[] b = x.indices.buffer;
+    final KType[] va = Intrinsics.<KType[]> cast(this.values.buffer);
+    final KType[] vb = Intrinsics.<KType[]> cast(x.values.buffer);
+    final int aSize = this.size();
+    final int bSize = x.size();
+
+    final KTypeSparseVector<KType> result = new KTypeSparseVector<>(aSize + bSize);
+    final int[] indices = result.indices.buffer;
+    final KType[] values = Intrinsics.<KType[]> cast(result.values.buffer);
+    int i = 0, j = 0, k = 0;
+    while (i < aSize && j < bSize) {
+      final int ai = a[i];
+      final int bj = b[j];
+      if (ai < bj) {
+        indices[k] = ai;
+        values[k++] = va[i++];
+      } else {
+        final KType scaled = Intrinsics.<KType> cast(Intrinsics.<KType> numeric(alpha) * Intrinsics.<KType> numeric(vb[j++]));
+        indices[k] = bj;
+        values[k++] = ai == bj ? Intrinsics.<KType> add(va[i++], scaled) : scaled;
+      }
+    }
+    for (; i < aSize; i++, k++) {
+      indices[k] = a[i];
+      values[k] = va[i];
+    }
+    for (; j < bSize; j++, k++) {
+      indices[k] = b[j];
+      values[k] = Intrinsics.<KType> cast(Intrinsics.<KType> numeric(alpha) * Intrinsics.<KType> numeric(vb[j]));
+    }
+    result.indices.elementsCount = k;
+    result.values.elementsCount = k;
+    return result;
+  }
+
+  /**
+   * <code>alpha * x + this</code>, looking up indexes of the smaller vector in the larger
+   * vector with galloping search and bulk-copying runs of the larger vector in between.
+   */
+  KTypeSparseVector<KType> axpyGalloping(KType alpha, KTypeSparseVector<KType> x) {
+    final boolean xSmaller = x.size() <= this.size();
+    final KTypeSparseVector<KType> small = xSmaller ? x : this;
+    final KTypeSparseVector<KType> large = xSmaller ? this : x;
+    final KType smallScale = xSmaller ? alpha : Intrinsics.<KType> cast(1);
+    final KType largeScale = xSmaller ? Intrinsics.<KType> cast(1) : alpha;
+
+    final int[] a = small.indices.buffer;
+    final int[] b = large.indices.buffer;
+    final KType[] va = Intrinsics.<KType[]> cast(small.values.buffer);
+    final KType[] vb = Intrinsics.<KType[]> cast(large.values.buffer);
+    final int aSize = small.size();
+    final int bSize = large.size();
+
+    final KTypeSparseVector<KType> result = new KTypeSparseVector<>(aSize + bSize);
+    final int[] indices = result.indices.buffer;
+    final KType[] values = Intrinsics.<KType[]> cast(result.values.buffer);
+    int j = 0, k = 0;
+    for (int i = 0; i < aSize; i++) {
+      final int ai = a[i];
+      final int next = gallop(b, j, bSize, ai);
+      k = copyRun(b, vb, j, next, largeScale, indices, values, k);
+      j = next;
+
+      final KType scaled = Intrinsics.<KType> cast(Intrinsics.<KType> numeric(smallScale) * Intrinsics.<KType> numeric(va[i]));
+      indices[k] = ai;
+      if (j < bSize && b[j] == ai) {
+        final KType other = Intrinsics.<KType> cast(Intrinsics.<KType> numeric(largeScale) * Intrinsics.<KType> numeric(vb[j++]));
+        values[k++] = xSmaller ? Intrinsics.<KType> add(other, scaled) : Intrinsics.<KType> add(scaled, other);
+      } else {
+        values[k++] = scaled;
+      }
+    }
+    k = copyRun(b, vb, j, bSize, largeScale, indices, values, k);
+    result.indices.elementsCount = k;
+    result.values.elementsCount = k;
+    return result;
+  }
+
+  /**
+   * Copies <code>[from, to)</code> entries to the target arrays at position <code>k</code>,
+   * scaling values.
+   *
+   * @return Returns the next target position.
+   */
+  private static <KType> int copyRun(int[] indices, KType[] values, int from, int to, KType scale,
+                                     int[] targetIndices, KType[] targetValues, int k) {
+    final int length = to - from;
+    System.arraycopy(indices, from, targetIndices, k, length);
+    if (Intrinsics.<KType> numeric(scale) == 1) {
+      System.arraycopy(values, from, targetValues, k, length);
+    } else {
+      for (int i = from; i < to; i++) {
+        targetValues[k + i - from] = Intrinsics.<KType> cast(Intrinsics.<KType> numeric(scale) * Intrinsics.<KType> numeric(values[i]));
+      }
+    }
+    return k + length;
+  }
+
+  /**
+   * @return Returns the first position in <code>[from, to)</code> of a sorted array with a value
+   *         greater than or equal to <code>key</code>, or <code>to</code> if there is none.
+   *         Positions are probed at exponentially increasing distances from <code>from</code>, then
+   *         binary-searched.
+   */
+  static int gallop(int[] array, int from, int to, int key) {
+    int low = from;
+    int step = 1;
+    int high = from;
+    while (high < to && array[high] < key) {
+      low = high + 1;
+      high = from + step;
+      step <<= 1;
+    }
+    high = Math.min(high, to);
+
+    final int position = Arrays.binarySearch(array, low, high, key);
+    return position >= 0 ? position : -position - 1;
+  }
+
+  private boolean sameIndices(KTypeSparseVector<KType> other) {
+    return Arrays.equals(indices.buffer, 0, size(), other.indices.buffer, 0, other.size());
+  }
+
+  /**
+   * Dot product of the first <code>length</code> values of two arrays.
+   */
+  private static <KType> double dotDense(KType[] va, KType[] vb, int length) {
+    double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+    int i = 0;
+    for (final int end = length & ~3; i < end; i += 4) {
+      s0 += Intrinsics.<KType> numeric(va[i]) * Intrinsics.<KType> numeric(vb[i]);
+      s1 += Intrinsics.<KType> numeric(va[i + 1]) * Intrinsics.<KType> numeric(vb[i + 1]);
+      s2 += Intrinsics.<KType> numeric(va[i + 2]) * Intrinsics.<KType> numeric(vb[i + 2]);
+      s3 += Intrinsics.<KType> numeric(va[i + 3]) * Intrinsics.<KType> numeric(vb[i + 3]);
+    }
+    for (; i < length; i++) {
+      s0 += Intrinsics.<KType> numeric(va[i]) * Intrinsics.<KType> numeric(vb[i]);
+    }
+    return (s0 + s1) + (s2 + s3);
+  }
+
+  /**
+   * Creates a sparse vector from a map of indexes to values.
+   */
+  public static <KType> KTypeSparseVector<KType> from(
+      /*! #if ($templateonly) !*/ IntObjectHashMap<KType> /*! #else Int${TemplateOptions.KType.BoxedType}HashMap #end !*/ map) {
+    final int[] keys = map.keys;
+    final int size = map.size();
+    final KTypeSparseVector<KType> vector = new KTypeSparseVector<>(size);
+    final int[] indices = vector.indices.buffer;
+    final KType[] values = Intrinsics.<KType[]> cast(vector.values.buffer);
+    int k = 0;
+    // The empty (zero) key is stored at the last slot, after all other keys.
+    for (int slot = 0, max = map.mask + (map.hasEmptyKey ? 1 : 0); slot <= max; slot++) {
+      final int index = keys[slot];
+      if (index != 0 || slot > map.mask) {
+        if (index < 0) {
+          throw new IllegalArgumentException("Index must be non-negative: " + index);
+        }
+        indices[k] = index;
+        values[k++] = Intrinsics.<KType> cast(map.values[slot]);
+      }
+    }
+    assert k == size;
+
+    QuickSort.sort(0, size, (i, j) -> Integer.compare(indices[i], indices[j]), (i, j) -> {
+      final int index = indices[i];
+      indices[i] = indices[j];
+      indices[j] = index;
+      final KType value = values[i];
+      values[i] = values[j];
+      values[j] = value;
+      return 0;
+    });
+    vector.indices.elementsCount = size;
+    vector.values.elementsCount = size;
+    return vector;
+  }
+
+  /**
+   * Clone this object.
+   */
+  @Override
+  public KTypeSparseVector<KType> clone() {
+    try {
+      /* #if ($templateOnly) */
+      @SuppressWarnings("unchecked")
+      /* #end */
+      final KTypeSparseVector<KType> cloned = (KTypeSparseVector<KType>) super.clone();
+      cloned.indices = indices.clone();
+      cloned.values = values.clone();
+      return cloned;
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + indices.ramBytesAllocated() + values.ramBytesAllocated();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + indices.ramBytesUsed() + values.ramBytesUsed();
+  }
+
+  @Override
+  public int hashCode() {
+    return indices.hashCode() * 31 + values.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return (this == obj) || (
+      obj != null &&
+      getClass() == obj.getClass() &&
+      equalElements(getClass().cast(obj))
+    );
+  }
+
+  /**
+   * Compare indexes and values against another vector.
+   */
+  protected boolean equalElements(KTypeSparseVector<?> other) {
+    return indices.equals(other.indices) && values.equals(other.values);
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder buffer = new StringBuilder("[");
+    for (int i = 0, size = size(); i < size; i++) {
+      if (i > 0) {
+        buffer.append(", ");
+      }
+      buffer.append(indices.buffer[i]).append('=').append(values.buffer[i]);
+    }
+    return buffer.append(']').toString();
+  }
+}
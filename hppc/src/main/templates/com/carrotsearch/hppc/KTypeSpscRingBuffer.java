@@ -0,0 +1,236 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypeGeneric)) !*/
+package com.carrotsearch.hppc;
+
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * A bounded, lock-free, single-producer single-consumer queue of <code>KType</code>s backed by a
+ * ring buffer.
+ *
+ * <p>Exactly one thread may call the producer methods ({@link #offer(KType)} and
+ * {@link #offer(KType[], int, int)}) and exactly one (possibly other) thread may call the consumer
+ * methods ({@link #poll}, {@link #pollOrDefault} and {@link #drain}) at any given time.
+ * {@link #size()} and {@link #isEmpty()} may be called from any thread.</p>
+ *
+ * <p>The producer and consumer sequences grow monotonically; the slot of a sequence is its value
+ * masked by the (power-of-two) capacity, so the ring never wraps indices explicitly like
+ * {@link KTypeArrayDeque} and a full ring is never confused with an empty one. Each side publishes
+ * its sequence with release semantics and reads the other side's sequence with acquire semantics,
+ * only when its cached copy of it is exhausted. Batch methods copy elements with (at most) two
+ * array copies and publish a single sequence update for the whole batch. No objects are allocated
+ * per element.</p>
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeSpscRingBuffer<KType> extends PaddedSequences implements Accountable {
+  /**
+   * The largest supported capacity.
+   */
+  public final static int MAX_CAPACITY = 1 << 30;
+
+  /**
+   * The ring buffer, its length is a power of two.
+   */
+  public final
+    /*! #if ($TemplateOptions.KTypePrimitive)
+        KType []
+        #else !*/
+        Object []
+    /*! #end !*/
+        buffer;
+
+  /**
+   * Mask of slot indices (<code>buffer.length - 1</code>).
+   */
+  private final int mask;
+
+  /**
+   * New instance with the given capacity, rounded up to a power of two.
+   *
+   * @param capacity The minimum capacity, between <code>1</code> and {@link #MAX_CAPACITY}.
+   */
+  public KTypeSpscRingBuffer(int capacity) {
+    if (capacity < 1 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException(
+          "Capacity must be between 1 and " + MAX_CAPACITY + ": " + capacity);
+    }
+    final int length = BitUtil.nextHighestPowerOfTwo(capacity);
+    try {
+      this.buffer = Intrinsics.<KType> newArray(length);
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException(
+          "Not enough memory to allocate a ring buffer of %,d elements", e, length);
+    }
+    this.mask = length - 1;
+  }
+
+  /**
+   * @return Returns the capacity (the length of the buffer).
+   */
+  public int capacity() {
+    return buffer.length;
+  }
+
+  /**
+   * Adds an element if there is space for it. Producer thread only.
+   *
+   * @return Returns <code>true</code> if the element was added, <code>false</code> if the buffer
+   *         is full.
+   */
+  public boolean offer(KType element) {
+    final long sequence = producerSequence;
+    if (sequence - consumerSequenceCache == buffer.length) {
+      consumerSequenceCache = (long) CONSUMER.getAcquire(this);
+      if (sequence - consumerSequenceCache == buffer.length) {
+        return false;
+      }
+    }
+    Intrinsics.<KType[]> cast(buffer)[(int) sequence & mask] = element;
+    PRODUCER.setRelease(this, sequence + 1);
+    return true;
+  }
+
+  /**
+   * Adds as many elements from the given array range as there is space for. Producer thread only.
+   *
+   * @return Returns the number of elements added, from the start of the range.
+   */
+  public int offer(KType [] elements, int offset, int length) {
+    assert offset >= 0 && length >= 0 && offset + length <= elements.length
+        : "Range out of bounds: " + offset + ", " + length;
+    final int capacity = buffer.length;
+    final long sequence = producerSequence;
+    if (capacity - (int) (sequence - consumerSequenceCache) < length) {
+      consumerSequenceCache = (long) CONSUMER.getAcquire(this);
+    }
+    final int count = Math.min(length, capacity - (int) (sequence - consumerSequenceCache));
+    if (count > 0) {
+      final int slot = (int) sequence & mask;
+      final int head = Math.min(count, capacity - slot);
+      System.arraycopy(elements, offset, buffer, slot, head);
+      System.arraycopy(elements, offset + head, buffer, 0, count - head);
+      PRODUCER.setRelease(this, sequence + count);
+    }
+    return count;
+  }
+
+  /**
+   * Removes elements into the given array range, as many as are available. Consumer thread only.
+   *
+   * @return Returns the number of elements removed, stored from the start of the range.
+   */
+  public int poll(KType [] target, int offset, int length) {
+    assert offset >= 0 && length >= 0 && offset + length <= target.length
+        : "Range out of bounds: " + offset + ", " + length;
+    final long sequence = consumerSequence;
+    final int count = (int) Math.min(length, available(sequence, length));
+    if (count > 0) {
+      final int slot = (int) sequence & mask;
+      final int head = Math.min(count, buffer.length - slot);
+      System.arraycopy(buffer, slot, target, offset, head);
+      System.arraycopy(buffer, 0, target, offset + head, count - head);
+      CONSUMER.setRelease(this, sequence + count);
+    }
+    return count;
+  }
+
+  /**
+   * Removes and returns the oldest element or returns the default value if the buffer is empty.
+   * Consumer thread only.
+   */
+  public KType pollOrDefault(KType defaultValue) {
+    final long sequence = consumerSequence;
+    if (available(sequence, 1) == 0) {
+      return defaultValue;
+    }
+    final KType element = Intrinsics.<KType[]> cast(buffer)[(int) sequence & mask];
+    CONSUMER.setRelease(this, sequence + 1);
+    return element;
+  }
+
+  /**
+   * Removes all available elements, passing each of them to the given procedure, in order.
+   * Consumer thread only.
+   *
+   * @return Returns the number of elements removed.
+   */
+  public int drain(KTypeProcedure<? super KType> procedure) {
+    return drain(procedure, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Removes up to <code>limit</code> available elements, passing each of them to the given
+   * procedure, in order. Consumer thread only. If the procedure throws an exception, the elements
+   * passed to it so far (including the one it failed on) are removed.
+   *
+   * @return Returns the number of elements removed.
+   */
+  public int drain(KTypeProcedure<? super KType> procedure, int limit) {
+    final long sequence = consumerSequence;
+    final int count = (int) Math.min(limit, available(sequence, limit));
+    final KType [] buffer = Intrinsics.<KType[]> cast(this.buffer);
+    final int mask = this.mask;
+    int i = 0;
+    try {
+      for (int slot = (int) sequence & mask; i < count; slot = (slot + 1) & mask) {
+        final KType element = buffer[slot];
+        i++;
+        procedure.apply(element);
+      }
+    } finally {
+      if (i > 0) {
+        CONSUMER.setRelease(this, sequence + i);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return Returns the number of elements available to the consumer at the given sequence,
+   *         re-reading the producer sequence only if fewer than <code>wanted</code> elements are
+   *         known to be available.
+   */
+  private long available(long sequence, int wanted) {
+    long available = producerSequenceCache - sequence;
+    if (available < wanted) {
+      producerSequenceCache = (long) PRODUCER.getAcquire(this);
+      available = producerSequenceCache - sequence;
+    }
+    return available;
+  }
+
+  /**
+   * @return Returns the number of elements in the buffer. The value is only a snapshot if the
+   *         buffer is concurrently modified.
+   */
+  public int size() {
+    final long consumer = (long) CONSUMER.getAcquire(this);
+    final long producer = (long) PRODUCER.getAcquire(this);
+    return (int) Math.min(buffer.length, producer - consumer);
+  }
+
+  /**
+   * @return Returns <code>true</code> if the buffer is empty. The value is only a snapshot if the
+   *         buffer is concurrently modified.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // long: 4 sequences, 3 * 16 padding; int: mask
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + (4 + 3 * 16) * Long.BYTES + Integer.BYTES
+        + RamUsageEstimator.shallowSizeOfArray(buffer);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return ramBytesAllocated();
+  }
+
+  @Override
+  public String toString() {
+    return "SpscRingBuffer[size=" + size() + ", capacity=" + capacity() + "]";
+  }
+}
@@ -0,0 +1,276 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG", "FLOAT", "DOUBLE"))) !*/
+package com.carrotsearch.hppc;
+
+import java.util.Arrays;
+
+/**
+ * A sliding time window of <code>KType</code> samples, aggregated in a fixed number of
+ * consecutive time buckets (a ring). Each bucket keeps the count, sum, minimum and maximum of the
+ * samples whose timestamps fall into it; the individual samples are not stored.
+ *
+ * <p>Timestamps are arbitrary <code>long</code>s supplied by the caller (milliseconds or
+ * nanoseconds, for example); bucket <code>b</code> covers timestamps in
+ * <code>[b * bucketWidth, (b + 1) * bucketWidth)</code>. The window covers the current bucket (the
+ * one of the largest timestamp seen so far, see {@link #advance(long)}) and the preceding
+ * <code>bucketCount - 1</code> buckets. Moving the window forward resets expired buckets in place,
+ * nothing is allocated after construction.</p>
+ *
+ * <p>{@link #add(long, KType)} takes constant time. Window totals are recomputed from the buckets
+ * whenever the window moves (which takes time proportional to the number of buckets, once per
+ * bucket period), so all queries take constant time.</p>
+ *
+ * @see KTypeSlidingWindow
+ */
+/*! #if ($templateonly) !*/ @SuppressWarnings("unchecked") /*! #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeTimeBucketedWindow<KType> implements Accountable {
+  /**
+   * The width of each bucket, in timestamp units.
+   */
+  private final long bucketWidth;
+
+  /**
+   * The number of samples in each bucket.
+   */
+  private final long [] counts;
+
+  /**
+   * The sum of samples in each bucket.
+   */
+  private final /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/ [] sums;
+
+  /**
+   * The minimum sample in each (non-empty) bucket.
+   */
+  private final KType [] mins;
+
+  /**
+   * The maximum sample in each (non-empty) bucket.
+   */
+  private final KType [] maxs;
+
+  /**
+   * The current (most recent) bucket number or {@link Long#MIN_VALUE} if no timestamp has been
+   * seen yet.
+   */
+  private long current = Long.MIN_VALUE;
+
+  /**
+   * Totals over all buckets in the window.
+   */
+  private long count;
+  private /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/ sum;
+  private KType min;
+  private KType max;
+
+  /**
+   * New instance.
+   *
+   * @param bucketCount The number of buckets in the window.
+   * @param bucketWidth The width of each bucket, in timestamp units (the window spans
+   *                    <code>bucketCount * bucketWidth</code> units).
+   */
+  public KTypeTimeBucketedWindow(int bucketCount, long bucketWidth) {
+    if (bucketCount < 1) {
+      throw new IllegalArgumentException("Bucket count must be >= 1: " + bucketCount);
+    }
+    if (bucketWidth < 1) {
+      throw new IllegalArgumentException("Bucket width must be >= 1: " + bucketWidth);
+    }
+    this.bucketWidth = bucketWidth;
+    this.counts = new long [bucketCount];
+    this.sums = new /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/ [bucketCount];
+    this.mins = Intrinsics.<KType> newArray(bucketCount);
+    this.maxs = Intrinsics.<KType> newArray(bucketCount);
+  }
+
+  /**
+   * Adds a sample with the given timestamp, moving the window forward if the timestamp is past
+   * the current bucket.
+   *
+   * @return Returns <code>false</code> if the sample was ignored because its timestamp is before
+   *         the window's first bucket.
+   */
+  public boolean add(long timestamp, KType value) {
+    final long bucket = Math.floorDiv(timestamp, bucketWidth);
+    if (bucket > current) {
+      advanceTo(bucket);
+    } else if (current - bucket >= counts.length) {
+      return false;
+    }
+
+    final int slot = (int) Math.floorMod(bucket, (long) counts.length);
+    if (counts[slot]++ == 0) {
+      mins[slot] = maxs[slot] = value;
+    } else {
+      if (Intrinsics.<KType> numeric(value) < Intrinsics.<KType> numeric(mins[slot])) {
+        mins[slot] = value;
+      }
+      if (Intrinsics.<KType> numeric(value) > Intrinsics.<KType> numeric(maxs[slot])) {
+        maxs[slot] = value;
+      }
+    }
+    sums[slot] += Intrinsics.<KType> numeric(value);
+
+    if (count++ == 0) {
+      min = max = value;
+    } else {
+      if (Intrinsics.<KType> numeric(value) < Intrinsics.<KType> numeric(min)) {
+        min = value;
+      }
+      if (Intrinsics.<KType> numeric(value) > Intrinsics.<KType> numeric(max)) {
+        max = value;
+      }
+    }
+    sum += Intrinsics.<KType> numeric(value);
+    return true;
+  }
+
+  /**
+   * Moves the window forward so that the given timestamp falls into its current bucket, expiring
+   * older buckets. Does nothing if the timestamp is not past the current bucket.
+   */
+  public void advance(long timestamp) {
+    final long bucket = Math.floorDiv(timestamp, bucketWidth);
+    if (bucket > current) {
+      advanceTo(bucket);
+    }
+  }
+
+  private void advanceTo(long bucket) {
+    assert bucket > current;
+    final int bucketCount = counts.length;
+    if (current == Long.MIN_VALUE || bucket - current >= bucketCount) {
+      clear();
+    } else {
+      for (long b = current + 1; b <= bucket; b++) {
+        counts[(int) Math.floorMod(b, (long) bucketCount)] = 0;
+      }
+      recomputeTotals();
+    }
+    current = bucket;
+  }
+
+  private void recomputeTotals() {
+    count = 0;
+    sum = 0;
+    for (int slot = 0; slot < counts.length; slot++) {
+      if (counts[slot] == 0) {
+        sums[slot] = 0;
+        continue;
+      }
+      if (count == 0) {
+        min = mins[slot];
+        max = maxs[slot];
+      } else {
+        if (Intrinsics.<KType> numeric(mins[slot]) < Intrinsics.<KType> numeric(min)) {
+          min = mins[slot];
+        }
+        if (Intrinsics.<KType> numeric(maxs[slot]) > Intrinsics.<KType> numeric(max)) {
+          max = maxs[slot];
+        }
+      }
+      count += counts[slot];
+      sum += sums[slot];
+    }
+  }
+
+  /**
+   * @return Returns the number of samples in the window.
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * @return Returns the sum of samples in the window (<code>0</code> if empty).
+   */
+  public /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG")) long #else !*/ double /*! #end !*/ sum() {
+    return sum;
+  }
+
+  /**
+   * @return Returns the arithmetic mean of samples in the window (<code>NaN</code> if empty).
+   */
+  public double mean() {
+    return count == 0 ? Double.NaN : (double) sum / count;
+  }
+
+  /**
+   * @return Returns the smallest sample in the window.
+   */
+  public KType min() {
+    assert count > 0 : "The window is empty.";
+    return min;
+  }
+
+  /**
+   * @return Returns the largest sample in the window.
+   */
+  public KType max() {
+    assert count > 0 : "The window is empty.";
+    return max;
+  }
+
+  /**
+   * @return Returns the number of samples per second, given the number of timestamp units in a
+   *         second, over the span of the whole window.
+   */
+  public double rate(long unitsPerSecond) {
+    return count * (double) unitsPerSecond / ((double) counts.length * bucketWidth);
+  }
+
+  /**
+   * @return Returns <code>true</code> if the window holds no samples.
+   */
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  /**
+   * @return Returns the number of buckets in the window.
+   */
+  public int bucketCount() {
+    return counts.length;
+  }
+
+  /**
+   * @return Returns the width of each bucket, in timestamp units.
+   */
+  public long bucketWidth() {
+    return bucketWidth;
+  }
+
+  /**
+   * Removes all samples (the current bucket is retained).
+   */
+  public void clear() {
+    Arrays.fill(counts, 0);
+    Arrays.fill(sums, 0);
+    count = 0;
+    sum = 0;
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // long: bucketWidth, current, count, sum (8 bytes); min, max (at most 8 bytes each)
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 4 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + 6 * Long.BYTES
+        + RamUsageEstimator.shallowSizeOfArray(counts)
+        + RamUsageEstimator.shallowSizeOfArray(sums)
+        + RamUsageEstimator.shallowSizeOfArray(mins)
+        + RamUsageEstimator.shallowSizeOfArray(maxs);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return ramBytesAllocated();
+  }
+
+  @Override
+  public String toString() {
+    return "TimeBucketedWindow[count=" + count + ", buckets=" + counts.length
+        + ", bucketWidth=" + bucketWidth + "]";
+  }
+}
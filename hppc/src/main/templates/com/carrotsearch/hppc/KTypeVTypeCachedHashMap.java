@@ -0,0 +1,389 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypePrimitive or $TemplateOptions.isKTypeAnyOf("DOUBLE", "FLOAT"))) !*/
+package com.carrotsearch.hppc;
+
+import static com.carrotsearch.hppc.Containers.*;
+import static com.carrotsearch.hppc.HashContainers.*;
+
+/**
+ * A hash map of <code>KType</code> to <code>VType</code> which stores the hash of each key
+ * in a parallel array ({@link #hashes}).
+ *
+ * <p>Probes compare the stored hash before calling <code>equals</code> on a key and
+ * rehashing or removals never call <code>hashCode</code> on stored keys. This trades
+ * an extra <code>int</code> per slot for less CPU on keys with expensive
+ * <code>hashCode</code> or <code>equals</code> (long strings, composite keys).</p>
+ */
+/*! #if ($TemplateOptions.anyGeneric) @SuppressWarnings("unchecked") #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeVTypeCachedHashMap<KType, VType>
+  extends KTypeVTypeHashMap<KType, VType>
+{
+  /**
+   * The array holding the hash of each key (as returned from {@link #hashKey}),
+   * valid only for slots with a non-empty key.
+   */
+  public int[] hashes;
+
+  /**
+   * New instance with sane defaults.
+   */
+  public KTypeVTypeCachedHashMap() {
+    this(DEFAULT_EXPECTED_ELEMENTS);
+  }
+
+  /**
+   * New instance with sane defaults.
+   * @param expectedElements
+   *          The expected number of elements guaranteed not to cause buffer
+   *          expansion (inclusive).
+   */
+  public KTypeVTypeCachedHashMap(int expectedElements) {
+    this(expectedElements, DEFAULT_LOAD_FACTOR);
+  }
+
+  /**
+   * New instance with the provided defaults.
+   *
+   * @param expectedElements
+   *          The expected number of elements guaranteed not to cause a rehash (inclusive).
+   * @param loadFactor
+   *          The load factor for internal buffers. Insane load factors (zero, full capacity)
+   *          are rejected by {@link #verifyLoadFactor(double)}.
+   */
+  public KTypeVTypeCachedHashMap(int expectedElements, double loadFactor) {
+    super(expectedElements, loadFactor);
+  }
+
+  /**
+   * Create a hash map from all key-value pairs of another container.
+   */
+  public KTypeVTypeCachedHashMap(KTypeVTypeAssociativeContainer<? extends KType, ? extends VType> container) {
+    this(container.size());
+    putAll(container);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public VType put(KType key, VType value) {
+    assert assigned < mask + 1;
+
+    if (Intrinsics.<KType> isEmpty(key)) {
+      return super.put(key, value);
+    } else {
+      final int mask = this.mask;
+      final KType[] keys = Intrinsics.<KType[]> cast(this.keys);
+      final int[] hashes = this.hashes;
+      final int hash = hashKey(key);
+      int slot = hash & mask;
+
+      KType existing;
+      while (!Intrinsics.<KType> isEmpty(existing = keys[slot])) {
+        if (hashes[slot] == hash && Intrinsics.<KType> equals(this, key, existing)) {
+          final VType previousValue = Intrinsics.<VType> cast(values[slot]);
+          values[slot] = value;
+          return previousValue;
+        }
+        slot = (slot + 1) & mask;
+      }
+
+      insertAt(slot, key, hash, value);
+      return Intrinsics.<VType> empty();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public VType remove(KType key) {
+    if (Intrinsics.<KType> isEmpty(key)) {
+      return super.remove(key);
+    } else {
+      final int slot = indexOf(key);
+      if (slot >= 0) {
+        final VType previousValue = Intrinsics.<VType> cast(values[slot]);
+        shiftConflictingKeys(slot);
+        return previousValue;
+      }
+      return Intrinsics.<VType> empty();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public VType get(KType key) {
+    final int index = indexOf(key);
+    return index >= 0 ? Intrinsics.<VType> cast(values[index]) : Intrinsics.<VType> empty();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public VType getOrDefault(KType key, VType defaultValue) {
+    final int index = indexOf(key);
+    return index >= 0 ? Intrinsics.<VType> cast(values[index]) : defaultValue;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean containsKey(KType key) {
+    return indexOf(key) >= 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int indexOf(KType key) {
+    final int mask = this.mask;
+    if (Intrinsics.<KType> isEmpty(key)) {
+      return hasEmptyKey ? mask + 1 : ~(mask + 1);
+    } else {
+      final KType[] keys = Intrinsics.<KType[]> cast(this.keys);
+      final int[] hashes = this.hashes;
+      final int hash = hashKey(key);
+      int slot = hash & mask;
+
+      KType existing;
+      while (!Intrinsics.<KType> isEmpty(existing = keys[slot])) {
+        if (hashes[slot] == hash && Intrinsics.<KType> equals(this, key, existing)) {
+          return slot;
+        }
+        slot = (slot + 1) & mask;
+      }
+
+      return ~slot;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void indexInsert(int index, KType key, VType value) {
+    assert index < 0 : "The index must not point at an existing key.";
+
+    if (Intrinsics.<KType> isEmpty(key)) {
+      super.indexInsert(index, key, value);
+    } else {
+      index = ~index;
+      assert Intrinsics.<KType> isEmpty(keys[index]);
+      insertAt(index, key, hashKey(key), value);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void ensureCapacity(int expectedElements) {
+    if (expectedElements > resizeAt || keys == null) {
+      final KType[] prevKeys = Intrinsics.<KType[]> cast(this.keys);
+      final VType[] prevValues = Intrinsics.<VType[]> cast(this.values);
+      final int[] prevHashes = this.hashes;
+      allocateBuffers(minBufferSize(expectedElements, loadFactor));
+      if (prevKeys != null && !isEmpty()) {
+        rehash(prevKeys, prevValues, prevHashes);
+      }
+    }
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    return super.ramBytesAllocated() + RamUsageEstimator.shallowSizeOfArray(hashes);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return super.ramBytesUsed() + RamUsageEstimator.shallowUsedSizeOfArray(hashes, size());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public KTypeVTypeCachedHashMap<KType, VType> clone() {
+    KTypeVTypeCachedHashMap<KType, VType> cloned = (KTypeVTypeCachedHashMap<KType, VType>) super.clone();
+    cloned.hashes = hashes.clone();
+    return cloned;
+  }
+
+  /**
+   * Rehash from old buffers to new buffers, recomputing key hashes. The three-argument
+   * variant of this method is used internally, it reuses stored hashes.
+   */
+  @Override
+  protected void rehash(KType[] fromKeys, VType[] fromValues) {
+    final int[] fromHashes = new int[fromKeys.length - 1];
+    for (int i = fromKeys.length - 1; --i >= 0;) {
+      if (!Intrinsics.<KType> isEmpty(fromKeys[i])) {
+        fromHashes[i] = hashKey(fromKeys[i]);
+      }
+    }
+    rehash(fromKeys, fromValues, fromHashes);
+  }
+
+  /**
+   * Rehash from old buffers to new buffers, reusing the stored key hashes.
+   */
+  protected void rehash(KType[] fromKeys, VType[] fromValues, int[] fromHashes) {
+    assert fromKeys.length == fromValues.length &&
+           fromKeys.length == fromHashes.length + 1 &&
+           HashContainers.checkPowerOfTwo(fromKeys.length - 1);
+
+    // Rehash all stored key/value pairs into the new buffers.
+    final KType[] keys = Intrinsics.<KType[]> cast(this.keys);
+    final VType[] values = Intrinsics.<VType[]> cast(this.values);
+    final int[] hashes = this.hashes;
+    final int mask = this.mask;
+    KType existing;
+
+    // Copy the zero element's slot, then rehash everything else.
+    int from = fromKeys.length - 1;
+    keys[keys.length - 1] = fromKeys[from];
+    values[values.length - 1] = fromValues[from];
+    while (--from >= 0) {
+      if (!Intrinsics.<KType> isEmpty(existing = fromKeys[from])) {
+        final int hash = fromHashes[from];
+        int slot = hash & mask;
+        while (!Intrinsics.<KType> isEmpty(keys[slot])) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = existing;
+        values[slot] = fromValues[from];
+        hashes[slot] = hash;
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void allocateBuffers(int arraySize) {
+    // Ensure no change is done if we hit an OOM.
+    final int[] newHashes;
+    try {
+      newHashes = new int[arraySize];
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException(
+          "Not enough memory to allocate buffers for rehashing: %,d -> %,d",
+          e,
+          this.mask + 1,
+          arraySize);
+    }
+    super.allocateBuffers(arraySize);
+    this.hashes = newHashes;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void allocateThenInsertThenRehash(int slot, KType pendingKey, VType pendingValue) {
+    allocateThenInsertThenRehash(slot, pendingKey, hashKey(pendingKey), pendingValue);
+  }
+
+  /**
+   * Allocates new buffers, inserts the pending key (with its precomputed hash) and
+   * rehashes all keys.
+   */
+  protected void allocateThenInsertThenRehash(int slot, KType pendingKey, int pendingHash, VType pendingValue) {
+    assert assigned == resizeAt
+           && Intrinsics.<KType> isEmpty(Intrinsics.<KType> cast(keys[slot]))
+           && !Intrinsics.<KType> isEmpty(pendingKey);
+
+    // Try to allocate new buffers first. If we OOM, we leave in a consistent state.
+    final KType[] prevKeys = Intrinsics.<KType[]> cast(this.keys);
+    final VType[] prevValues = Intrinsics.<VType[]> cast(this.values);
+    final int[] prevHashes = this.hashes;
+    allocateBuffers(nextBufferSize(mask + 1, size(), loadFactor));
+    assert this.keys.length > prevKeys.length;
+
+    // We have succeeded at allocating new data so insert the pending key/value at
+    // the free slot in the old arrays before rehashing.
+    prevKeys[slot] = pendingKey;
+    prevValues[slot] = pendingValue;
+    prevHashes[slot] = pendingHash;
+
+    // Rehash old keys, including the pending key.
+    rehash(prevKeys, prevValues, prevHashes);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void shiftConflictingKeys(int gapSlot) {
+    final KType[] keys = Intrinsics.<KType[]> cast(this.keys);
+    final VType[] values = Intrinsics.<VType[]> cast(this.values);
+    final int[] hashes = this.hashes;
+    final int mask = this.mask;
+
+    // Perform shifts of conflicting keys to fill in the gap.
+    int distance = 0;
+    while (true) {
+      final int slot = (gapSlot + (++distance)) & mask;
+      final KType existing = keys[slot];
+      if (Intrinsics.<KType> isEmpty(existing)) {
+        break;
+      }
+
+      final int idealSlot = hashes[slot];
+      final int shift = (slot - idealSlot) & mask;
+      if (shift >= distance) {
+        // Entry at this position was originally at or before the gap slot.
+        // Move the conflict-shifted entry to the gap's position and repeat the procedure
+        // for any entries to the right of the current position, treating it
+        // as the new gap.
+        keys[gapSlot] = existing;
+        values[gapSlot] = values[slot];
+        hashes[gapSlot] = hashes[slot];
+        gapSlot = slot;
+        distance = 0;
+      }
+    }
+
+    // Mark the last found gap slot without a conflict as empty.
+    keys[gapSlot] = Intrinsics.<KType> empty();
+    values[gapSlot] = Intrinsics.<VType> empty();
+    assigned--;
+  }
+
+  /**
+   * Inserts a (non-empty) key with its hash at an empty slot, expanding the buffers if needed.
+   */
+  private void insertAt(int slot, KType key, int hash, VType value) {
+    if (assigned == resizeAt) {
+      allocateThenInsertThenRehash(slot, key, hash, value);
+    } else {
+      keys[slot] = key;
+      values[slot] = value;
+      hashes[slot] = hash;
+    }
+    assigned++;
+  }
+
+  /**
+   * Creates a hash map from two index-aligned arrays of key-value pairs.
+   */
+  public static <KType, VType> KTypeVTypeCachedHashMap<KType, VType> from(KType[] keys, VType[] values) {
+    if (keys.length != values.length) {
+      throw new IllegalArgumentException("Arrays of keys and values must have an identical length.");
+    }
+
+    KTypeVTypeCachedHashMap<KType, VType> map = new KTypeVTypeCachedHashMap<>(keys.length);
+    for (int i = 0; i < keys.length; i++) {
+      map.put(keys[i], values[i]);
+    }
+
+    return map;
+  }
+}
@@ -0,0 +1,117 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypePrimitive or $TemplateOptions.isKTypeAnyOf("DOUBLE", "FLOAT"))) !*/
+package com.carrotsearch.hppc;
+
+import com.carrotsearch.hppc.cursors.*;
+
+import static com.carrotsearch.hppc.Containers.*;
+import static com.carrotsearch.hppc.HashContainers.*;
+
+/**
+ * A hash map of <code>KType</code> to <code>VType</code>, with key hash codes and
+ * equality provided by a {@link HashingStrategy}.
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeVTypeCustomHashMap<KType, VType>
+  extends KTypeVTypeHashMap<KType, VType>
+{
+  /**
+   * Hashing strategy for keys.
+   */
+  protected final HashingStrategy<? super KType> strategy;
+
+  /**
+   * New instance with sane defaults.
+   */
+  public KTypeVTypeCustomHashMap(HashingStrategy<? super KType> strategy) {
+    this(DEFAULT_EXPECTED_ELEMENTS, strategy);
+  }
+
+  /**
+   * New instance with sane defaults.
+   * @param expectedElements
+   *          The expected number of elements guaranteed not to cause buffer
+   *          expansion (inclusive).
+   */
+  public KTypeVTypeCustomHashMap(int expectedElements, HashingStrategy<? super KType> strategy) {
+    this(expectedElements, DEFAULT_LOAD_FACTOR, strategy);
+  }
+
+  /**
+   * New instance with the provided defaults.
+   *
+   * @param expectedElements
+   *          The expected number of elements guaranteed not to cause a rehash (inclusive).
+   * @param loadFactor
+   *          The load factor for internal buffers. Insane load factors (zero, full capacity)
+   *          are rejected by {@link #verifyLoadFactor(double)}.
+   * @param strategy
+   *          The hashing strategy for keys.
+   */
+  public KTypeVTypeCustomHashMap(int expectedElements, double loadFactor, HashingStrategy<? super KType> strategy) {
+    super(expectedElements, loadFactor);
+    if (strategy == null) {
+      throw new IllegalArgumentException("Hashing strategy must not be null.");
+    }
+    this.strategy = strategy;
+  }
+
+  /**
+   * Create a hash map from all key-value pairs of another container.
+   */
+  public KTypeVTypeCustomHashMap(KTypeVTypeAssociativeContainer<? extends KType, ? extends VType> container,
+                                 HashingStrategy<? super KType> strategy) {
+    this(container.size(), strategy);
+    putAll(container);
+  }
+
+  /**
+   * @return Returns the hashing strategy used by this map.
+   */
+  public HashingStrategy<? super KType> strategy() {
+    return strategy;
+  }
+
+  @Override
+  public int hashKey(KType key) {
+    assert !Intrinsics.<KType> isEmpty(key); // Handled as a special case (empty slot marker).
+    return BitMixer.mixPhi(strategy.computeHashCode(key));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public boolean equals(Object v1, Object v2) {
+    return strategy.equals(Intrinsics.<KType> cast(v1), Intrinsics.<KType> cast(v2));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    int h = hasEmptyKey ? 0xDEADBEEF : 0;
+    for (KTypeVTypeCursor<KType, VType> c : this) {
+      if (!Intrinsics.<KType> isEmpty(c.key)) {
+        h += BitMixer.mix(strategy.computeHashCode(c.key));
+      }
+      h += BitMixer.mix(c.value);
+    }
+    return h;
+  }
+
+  /**
+   * Creates a hash map from two index-aligned arrays of key-value pairs.
+   */
+  public static <KType, VType> KTypeVTypeCustomHashMap<KType, VType> from(KType[] keys, VType[] values,
+                                                                          HashingStrategy<? super KType> strategy) {
+    if (keys.length != values.length) {
+      throw new IllegalArgumentException("Arrays of keys and values must have an identical length.");
+    }
+
+    KTypeVTypeCustomHashMap<KType, VType> map = new KTypeVTypeCustomHashMap<>(keys.length, strategy);
+    for (int i = 0; i < keys.length; i++) {
+      map.put(keys[i], values[i]);
+    }
+
+    return map;
+  }
+}
@@ -0,0 +1,274 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.isKTypeAnyOf("GENERIC", "BYTE", "FLOAT", "DOUBLE") or $TemplateOptions.isVTypeAnyOf("GENERIC", "BYTE", "SHORT", "CHAR"))) !*/
+package com.carrotsearch.hppc;
+
+import java.util.stream.IntStream;
+
+import com.carrotsearch.hppc.cursors.*;
+
+/**
+ * Group-by aggregation kernels: aggregate a column of <code>VType</code> values
+ * by a parallel column of <code>KType</code> keys into a {@link KTypeVTypeHashMap}.
+ *
+ * <p>Rows are processed in batches: hashes of a batch of keys are computed first, then the
+ * batch is probed against the map's buffers, inserting and updating values with the map's
+ * <code>index*</code> methods. This is considerably faster than calling
+ * {@link KTypeVTypeHashMap#addTo} (or similar) for each row.</p>
+ *
+ * <p>The <code>*Parallel</code> variants split rows into partitions aggregated independently
+ * on the common fork-join pool and merge the per-partition maps. Note that floating-point sums
+ * may differ slightly from sequential aggregation as the order of additions differs.</p>
+ */
+/*! #if ($templateonly) !*/ @SuppressWarnings("unchecked") /*! #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public final class KTypeVTypeGroupBy {
+  /**
+   * The number of rows for which hashes are computed before probing.
+   */
+  static final int BATCH_SIZE = 64;
+
+  /**
+   * Minimum number of rows in a partition of <code>*Parallel</code> methods.
+   */
+  public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  private static final int SUM = 0;
+  private static final int MIN = 1;
+  private static final int MAX = 2;
+
+  /** Everything static. */
+  private KTypeVTypeGroupBy() {}
+
+  /*! #if ($TemplateOptions.isVTypeAnyOf("INT")) !*/
+  /**
+   * Counts occurrences of each key in the <code>[from, to)</code> range of <code>keys</code>,
+   * adding counts to any existing values in <code>target</code>.
+   *
+   * @return Returns <code>target</code>.
+   */
+  public static <KType, VType> KTypeVTypeHashMap<KType, VType> count(KType[] keys, int from, int to,
+                                                                       KTypeVTypeHashMap<KType, VType> target) {
+    checkRange(keys.length, from, to);
+    return aggregate(target, keys, null, from, to, SUM);
+  }
+
+  /**
+   * Counts occurrences of each key in the <code>[from, to)</code> range of <code>keys</code>,
+   * with partitions of rows aggregated in parallel.
+   *
+   * @return Returns a new map of keys and their counts.
+   */
+  public static <KType, VType> KTypeVTypeHashMap<KType, VType> countParallel(KType[] keys, int from, int to) {
+    checkRange(keys.length, from, to);
+    return aggregateParallel(keys, null, from, to, SUM);
+  }
+  /*! #end !*/
+
+  /**
+   * Sums values for each key in the <code>[from, to)</code> range of <code>keys</code>
+   * and <code>values</code>, adding sums to any existing values in <code>target</code>.
+   *
+   * @return Returns <code>target</code>.
+   */
+  public static <KType, VType> KTypeVTypeHashMap<KType, VType> sum(KType[] keys, VType[] values, int from, int to,
+                                                                     KTypeVTypeHashMap<KType, VType> target) {
+    checkRange(keys.length, values.length, from, to);
+    return aggregate(target, keys, values, from, to, SUM);
+  }
+
+  /**
+   * Sums values for each key in the <code>[from, to)</code> range of <code>keys</code>
+   * and <code>values</code>, with partitions of rows aggregated in parallel.
+   *
+   * @return Returns a new map of keys and their sums.
+   */
+  public static <KType, VType> KTypeVTypeHashMap<KType, VType> sumParallel(KType[] keys, VType[] values, int from, int to) {
+    checkRange(keys.length, values.length, from, to);
+    return aggregateParallel(keys, values, from, to, SUM);
+  }
+
+  /**
+   * Computes the minimum value for each key in the <code>[from, to)</code> range of
+   * <code>keys</code> and <code>values</code>, taking into account any existing values
+   * in <code>target</code>.
+   *
+   * @return Returns <code>target</code>.
+   */
+  public static <KType, VType> KTypeVTypeHashMap<KType, VType> min(KType[] keys, VType[] values, int from, int to,
+                                                                     KTypeVTypeHashMap<KType, VType> target) {
+    checkRange(keys.length, values.length, from, to);
+    return aggregate(target, keys, values, from, to, MIN);
+  }
+
+  /**
+   * Computes the minimum value for each key in the <code>[from, to)</code> range of
+   * <code>keys</code> and <code>values</code>, with partitions of rows aggregated in parallel.
+   *
+   * @return Returns a new map of keys and their minimum values.
+   */
+  public static <KType, VType> KTypeVTypeHashMap<KType, VType> minParallel(KType[] keys, VType[] values, int from, int to) {
+    checkRange(keys.length, values.length, from, to);
+    return aggregateParallel(keys, values, from, to, MIN);
+  }
+
+  /**
+   * Computes the maximum value for each key in the <code>[from, to)</code> range of
+   * <code>keys</code> and <code>values</code>, taking into account any existing values
+   * in <code>target</code>.
+   *
+   * @return Returns <code>target</code>.
+   */
+  public static <KType, VType> KTypeVTypeHashMap<KType, VType> max(KType[] keys, VType[] values, int from, int to,
+                                                                     KTypeVTypeHashMap<KType, VType> target) {
+    checkRange(keys.length, values.length, from, to);
+    return aggregate(target, keys, values, from, to, MAX);
+  }
+
+  /**
+   * Computes the maximum value for each key in the <code>[from, to)</code> range of
+   * <code>keys</code> and <code>values</code>, with partitions of rows aggregated in parallel.
+   *
+   * @return Returns a new map of keys and their maximum values.
+   */
+  public static <KType, VType> KTypeVTypeHashMap<KType, VType> maxParallel(KType[] keys, VType[] values, int from, int to) {
+    checkRange(keys.length, values.length, from, to);
+    return aggregateParallel(keys, values, from, to, MAX);
+  }
+
+  /**
+   * Aggregates rows into the target map. If <code>values</code> is <code>null</code>, each
+   * row's value is one (counting).
+   *
+   * <p>Keys are looked up with hashes computed for the batch, then inserted or updated through
+   * the map's <code>index*</code> methods. Subclasses of the map may override key hashing or
+   * equality, so their rows are aggregated one by one with {@link KTypeVTypeHashMap#indexOf}.</p>
+   */
+  private static <KType, VType> KTypeVTypeHashMap<KType, VType> aggregate(KTypeVTypeHashMap<KType, VType> map,
+                                                                          KType[] keys, VType[] values,
+                                                                          int from, int to, int op) {
+    final VType one = Intrinsics.<VType> cast(1);
+    if (map.getClass() != KTypeVTypeHashMap.class) {
+      for (int i = from; i < to; i++) {
+        aggregate(map, keys[i], values == null ? one : values[i], op);
+      }
+      return map;
+    }
+
+    final int[] hashes = new int[BATCH_SIZE];
+    for (int batchStart = from; batchStart < to; batchStart += BATCH_SIZE) {
+      final int batchEnd = Math.min(to, batchStart + BATCH_SIZE);
+
+      for (int i = batchStart; i < batchEnd; i++) {
+        final KType key = keys[i];
+        if (!Intrinsics.<KType> isEmpty(key)) {
+          hashes[i - batchStart] = map.hashKey(key);
+        }
+      }
+
+      nextRow:
+      for (int i = batchStart; i < batchEnd; i++) {
+        final KType key = keys[i];
+        final VType value = values == null ? one : values[i];
+
+        // The empty key is stored separately by the map.
+        if (Intrinsics.<KType> isEmpty(key)) {
+          aggregate(map, key, value, op);
+          continue;
+        }
+
+        // The same probing as in KTypeVTypeHashMap.indexOf, with a precomputed hash.
+        final KType[] mapKeys = Intrinsics.<KType[]> cast(map.keys);
+        final int mask = map.mask;
+        int slot = hashes[i - batchStart] & mask;
+
+        KType existing;
+        while (!Intrinsics.<KType> isEmpty(existing = mapKeys[slot])) {
+          if (Intrinsics.<KType> equals(map, key, existing)) {
+            map.indexReplace(slot, combine(map.indexGet(slot), value, op));
+            continue nextRow;
+          }
+          slot = (slot + 1) & mask;
+        }
+
+        map.indexInsert(~slot, key, value);
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Aggregates a single row into the target map.
+   */
+  private static <KType, VType> void aggregate(KTypeVTypeHashMap<KType, VType> map, KType key, VType value, int op) {
+    final int index = map.indexOf(key);
+    if (map.indexExists(index)) {
+      map.indexReplace(index, combine(map.indexGet(index), value, op));
+    } else {
+      map.indexInsert(index, key, value);
+    }
+  }
+
+  private static <KType, VType> KTypeVTypeHashMap<KType, VType> aggregateParallel(KType[] keys, VType[] values,
+                                                                                  int from, int to, int op) {
+    final int length = to - from;
+    if (length < 2 * PARALLEL_THRESHOLD) {
+      return aggregate(new KTypeVTypeHashMap<KType, VType>(), keys, values, from, to, op);
+    }
+
+    final int partitions = Math.min(length / PARALLEL_THRESHOLD,
+                                    4 * Runtime.getRuntime().availableProcessors());
+    final int partitionSize = (length + partitions - 1) / partitions;
+    return IntStream.range(0, partitions).parallel()
+        .mapToObj(partition -> {
+          final int start = from + partition * partitionSize;
+          final int end = Math.min(to, start + partitionSize);
+          return aggregate(new KTypeVTypeHashMap<KType, VType>(), keys, values, start, end, op);
+        })
+        .reduce((a, b) -> merge(a, b, op))
+        .get();
+  }
+
+  /**
+   * Merges the smaller of two maps into the larger one.
+   */
+  private static <KType, VType> KTypeVTypeHashMap<KType, VType> merge(KTypeVTypeHashMap<KType, VType> a,
+                                                                      KTypeVTypeHashMap<KType, VType> b,
+                                                                      int op) {
+    if (a.size() < b.size()) {
+      KTypeVTypeHashMap<KType, VType> tmp = a;
+      a = b;
+      b = tmp;
+    }
+
+    for (KTypeVTypeCursor<KType, VType> c : b) {
+      aggregate(a, c.key, c.value, op);
+    }
+    return a;
+  }
+
+  private static <VType> VType combine(VType current, VType value, int op) {
+    switch (op) {
+      case SUM:
+        return Intrinsics.<VType> add(current, value);
+      case MIN:
+        return Intrinsics.<VType> numeric(value) < Intrinsics.<VType> numeric(current) ? value : current;
+      case MAX:
+        return Intrinsics.<VType> numeric(value) > Intrinsics.<VType> numeric(current) ? value : current;
+      default:
+        throw new AssertionError("Unknown aggregation: " + op);
+    }
+  }
+
+  private static void checkRange(int keysLength, int valuesLength, int from, int to) {
+    if (valuesLength != keysLength) {
+      throw new IllegalArgumentException("Keys and values must have an identical length: "
+          + keysLength + " != " + valuesLength);
+    }
+    checkRange(keysLength, from, to);
+  }
+
+  private static void checkRange(int length, int from, int to) {
+    if (from < 0 || to > length || from > to) {
+      throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ") for length " + length);
+    }
+  }
+}
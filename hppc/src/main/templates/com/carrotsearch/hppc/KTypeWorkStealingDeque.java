@@ -0,0 +1,196 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypeGeneric)) !*/
+package com.carrotsearch.hppc;
+
+/**
+ * A lock-free, unbounded work-stealing deque of <code>KType</code>s (Chase-Lev).
+ *
+ * <p>The deque has a single owner thread which {@link #push}es and {@link #popOrDefault pops}
+ * elements at the bottom end (in LIFO order), while any number of other threads may
+ * {@link #stealOrDefault steal} elements from the top end (in FIFO order). The owner's operations
+ * do not use atomic read-modify-write instructions, except when popping the last element (which
+ * races with thieves); thieves claim an element with a single compare-and-set of the top index.</p>
+ *
+ * <p>The buffer is a circular array whose length is a power of two. When it is full, the owner
+ * copies the live range to a buffer twice as large and publishes it; thieves still reading the old
+ * buffer see the same elements, so no element is lost. No objects are allocated per element.</p>
+ *
+ * <p>The implementation follows N. M. Lê, A. Pop, A. Cohen and F. Zappa Nardelli, <i>Correct
+ * and Efficient Work-Stealing for Weak Memory Models</i> (PPoPP 2013). The top and bottom indices
+ * grow monotonically and are padded against false sharing.</p>
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeWorkStealingDeque<KType> extends PaddedSequences implements Accountable {
+  /**
+   * The largest supported capacity.
+   */
+  public final static int MAX_CAPACITY = 1 << 30;
+
+  /**
+   * The default initial capacity.
+   */
+  public final static int DEFAULT_CAPACITY = 1 << 8;
+
+  /**
+   * The circular buffer, its length is a power of two. Replaced (by the owner) when full.
+   */
+  private volatile
+    /*! #if ($TemplateOptions.KTypePrimitive)
+        KType []
+        #else !*/
+        Object []
+    /*! #end !*/
+        buffer;
+
+  /**
+   * New instance with the default initial capacity.
+   */
+  public KTypeWorkStealingDeque() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * New instance with the given initial capacity, rounded up to a power of two.
+   *
+   * @param capacity The initial capacity, between <code>1</code> and {@link #MAX_CAPACITY}.
+   */
+  public KTypeWorkStealingDeque(int capacity) {
+    if (capacity < 1 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException(
+          "Capacity must be between 1 and " + MAX_CAPACITY + ": " + capacity);
+    }
+    this.buffer = allocate(BitUtil.nextHighestPowerOfTwo(capacity));
+  }
+
+  /**
+   * Adds an element at the bottom of the deque. Owner thread only.
+   */
+  public void push(KType element) {
+    final long bottom = producerSequence;
+    final long top = (long) CONSUMER.getAcquire(this);
+    KType [] buffer = Intrinsics.<KType[]> cast(this.buffer);
+    if (bottom - top >= buffer.length) {
+      buffer = grow(buffer, top, bottom);
+    }
+    buffer[(int) bottom & (buffer.length - 1)] = element;
+    PRODUCER.setRelease(this, bottom + 1);
+  }
+
+  /**
+   * Removes and returns the most recently pushed element or returns the default value if the
+   * deque is empty. Owner thread only.
+   */
+  public KType popOrDefault(KType defaultValue) {
+    final long bottom = producerSequence - 1;
+    final KType [] buffer = Intrinsics.<KType[]> cast(this.buffer);
+    // Reserve the bottom element, then check for thieves (a store-load barrier is required).
+    PRODUCER.setVolatile(this, bottom);
+    final long top = (long) CONSUMER.getVolatile(this);
+    if (top > bottom) {
+      // Empty.
+      PRODUCER.setRelease(this, bottom + 1);
+      return defaultValue;
+    }
+
+    KType element = buffer[(int) bottom & (buffer.length - 1)];
+    if (top == bottom) {
+      // The last element, race with thieves for it.
+      if (!CONSUMER.compareAndSet(this, top, top + 1)) {
+        element = defaultValue;
+      }
+      PRODUCER.setRelease(this, bottom + 1);
+    }
+    return element;
+  }
+
+  /**
+   * Removes and returns the oldest element or returns the default value if the deque is empty. May
+   * be called from any thread (retries if another thread removes the same element first).
+   */
+  public KType stealOrDefault(KType defaultValue) {
+    while (true) {
+      final long top = (long) CONSUMER.getVolatile(this);
+      final long bottom = (long) PRODUCER.getVolatile(this);
+      if (top >= bottom) {
+        return defaultValue;
+      }
+      final KType [] buffer = Intrinsics.<KType[]> cast(this.buffer);
+      final KType element = buffer[(int) top & (buffer.length - 1)];
+      if (CONSUMER.compareAndSet(this, top, top + 1)) {
+        return element;
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * Copies elements between <code>top</code> and <code>bottom</code> to a buffer twice as large
+   * and publishes it.
+   */
+  private KType [] grow(KType [] buffer, long top, long bottom) {
+    final int length = buffer.length;
+    if (length == MAX_CAPACITY) {
+      throw new BufferAllocationException(
+          "Maximum capacity exceeded (%,d elements)", MAX_CAPACITY);
+    }
+    final KType [] newBuffer = allocate(length << 1);
+    final int oldMask = length - 1;
+    final int newMask = newBuffer.length - 1;
+    for (long i = top; i < bottom; i++) {
+      newBuffer[(int) i & newMask] = buffer[(int) i & oldMask];
+    }
+    this.buffer = newBuffer;
+    return newBuffer;
+  }
+
+  private KType [] allocate(int length) {
+    try {
+      return Intrinsics.<KType> newArray(length);
+    } catch (OutOfMemoryError e) {
+      throw new BufferAllocationException(
+          "Not enough memory to allocate a deque buffer of %,d elements", e, length);
+    }
+  }
+
+  /**
+   * @return Returns the current capacity (the length of the buffer).
+   */
+  public int capacity() {
+    return buffer.length;
+  }
+
+  /**
+   * @return Returns the number of elements in the deque. The value is only a snapshot if the deque
+   *         is concurrently modified.
+   */
+  public int size() {
+    final long top = (long) CONSUMER.getAcquire(this);
+    final long bottom = (long) PRODUCER.getAcquire(this);
+    return (int) Math.max(0, bottom - top);
+  }
+
+  /**
+   * @return Returns <code>true</code> if the deque is empty. The value is only a snapshot if the
+   *         deque is concurrently modified.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // long: 4 sequences, 3 * 16 padding
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + (4 + 3 * 16) * Long.BYTES
+        + RamUsageEstimator.shallowSizeOfArray(buffer);
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return ramBytesAllocated();
+  }
+
+  @Override
+  public String toString() {
+    return "WorkStealingDeque[size=" + size() + ", capacity=" + capacity() + "]";
+  }
+}
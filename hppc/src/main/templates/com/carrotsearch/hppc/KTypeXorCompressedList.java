@@ -0,0 +1,527 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("FLOAT", "DOUBLE"))) !*/
+package com.carrotsearch.hppc;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * An append-only, compressed list of <code>KType</code>s, intended for time series of
+ * measurements (metrics).
+ *
+ * <p>Each value is stored as the XOR of its bits with the bits of the previous value, as in
+ * Facebook's Gorilla time series database: an unchanged value takes a single bit; otherwise only
+ * the "meaningful" bits of the XOR (between its leading and trailing zeros) are stored, reusing the
+ * previous bit window if the new one fits in it. Slowly changing series typically compress to a
+ * fraction of their plain size.</p>
+ *
+ * <p>Values are grouped in blocks of {@link #BLOCK_SIZE}, each starting with an uncompressed
+ * value, so decoding can start at any block ({@link #iterator(int)},
+ * {@link #decodeBlock}). Sequential access ({@link #forEach(KTypeProcedure)},
+ * {@link #iterator()}) decodes values one after another; {@link #get(int)} decodes a prefix of
+ * the value's block.</p>
+ */
+/*! #if ($templateonly) !*/ @SuppressWarnings("unchecked") /*! #end !*/
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeXorCompressedList<KType> implements KTypeContainer<KType>, Accountable {
+  /**
+   * The number of values in a block.
+   */
+  public static final int BLOCK_SIZE = 128;
+
+  /**
+   * log2 of {@link #BLOCK_SIZE}.
+   */
+  private static final int BLOCK_SHIFT = 7;
+
+  /**
+   * The number of bits of a value.
+   */
+  private static final int WIDTH =
+      /*! #if ($TemplateOptions.isKTypeAnyOf("FLOAT")) Float.SIZE #else !*/
+      Double.SIZE
+      /*! #end !*/;
+
+  /**
+   * The number of bits storing the leading zeros of a window.
+   */
+  private static final int LEADING_BITS = 5;
+
+  /**
+   * The number of bits storing the length of a window (minus one).
+   */
+  private static final int LENGTH_BITS = 6;
+
+  /**
+   * The maximum number of leading zeros of a window.
+   */
+  private static final int MAX_LEADING = (1 << LEADING_BITS) - 1;
+
+  /**
+   * Reuse the same strategy instance.
+   */
+  private static final BoundedProportionalArraySizingStrategy DEFAULT_SIZING_STRATEGY =
+      BoundedProportionalArraySizingStrategy.DEFAULT_INSTANCE;
+
+  private static final long[] EMPTY_WORDS = new long[0];
+
+  /**
+   * Buffer resizing strategy.
+   */
+  protected final ArraySizingStrategy resizer;
+
+  /**
+   * The encoded values.
+   */
+  private long[] words = EMPTY_WORDS;
+
+  /**
+   * The number of used bits in {@link #words}.
+   */
+  private long bitCount;
+
+  /**
+   * The first bit of each block in {@link #words}.
+   */
+  private final LongArrayList blockOffsets = new LongArrayList();
+
+  /**
+   * The number of values.
+   */
+  private int size;
+
+  /**
+   * The bits of the last value.
+   */
+  private long previous;
+
+  /**
+   * Leading zeros of the current window, or <code>-1</code> at the start of a block.
+   */
+  private int windowLeading;
+
+  /**
+   * Trailing zeros of the current window.
+   */
+  private int windowTrailing;
+
+  /**
+   * New instance with sane defaults.
+   */
+  public KTypeXorCompressedList() {
+    this(DEFAULT_SIZING_STRATEGY);
+  }
+
+  /**
+   * New instance with the given resizing strategy of the encoded values' buffer.
+   */
+  public KTypeXorCompressedList(ArraySizingStrategy resizer) {
+    assert resizer != null;
+    this.resizer = resizer;
+  }
+
+  /**
+   * Appends a value to the end of the list.
+   */
+  public void add(KType e) {
+    // The longest encoding: control bits, a window header and all bits of the value.
+    ensureBitSpace(2 + LEADING_BITS + LENGTH_BITS + WIDTH);
+
+    final long bits = bits(e);
+    if ((size & (BLOCK_SIZE - 1)) == 0) {
+      blockOffsets.add(bitCount);
+      append(bits, WIDTH);
+      windowLeading = -1;
+    } else {
+      final long xor = bits ^ previous;
+      if (xor == 0) {
+        // '0': the same value.
+        append(0, 1);
+      } else {
+        final int leading =
+            Math.min(MAX_LEADING, Long.numberOfLeadingZeros(xor) - (Long.SIZE - WIDTH));
+        final int trailing = Long.numberOfTrailingZeros(xor);
+        if (windowLeading >= 0 && leading >= windowLeading && trailing >= windowTrailing) {
+          // '1', '0': meaningful bits fit in the current window.
+          append(0b01, 2);
+        } else {
+          // '1', '1': a new window, leading zeros and length follow.
+          final int length = WIDTH - leading - trailing;
+          append(0b11 | leading << 2 | (length - 1) << (2 + LEADING_BITS),
+                 2 + LEADING_BITS + LENGTH_BITS);
+          windowLeading = leading;
+          windowTrailing = trailing;
+        }
+        append(xor >>> windowTrailing, WIDTH - windowLeading - windowTrailing);
+      }
+    }
+    previous = bits;
+    size++;
+  }
+
+  /**
+   * Appends <code>length</code> values from an array, starting at <code>start</code>.
+   */
+  public void add(KType[] elements, int start, int length) {
+    assert length >= 0 && start >= 0 && start + length <= elements.length;
+    for (int i = start; i < start + length; i++) {
+      add(elements[i]);
+    }
+  }
+
+  /**
+   * Appends all values from another container.
+   */
+  public int addAll(KTypeContainer<? extends KType> container) {
+    for (KTypeCursor<? extends KType> cursor : container) {
+      add(cursor.value);
+    }
+    return container.size();
+  }
+
+  private void append(long value, int bits) {
+    BitStreamUtil.write(words, bitCount, value, bits);
+    bitCount += bits;
+  }
+
+  /**
+   * Ensures {@link #words} has room for <code>additionalBits</code> more bits.
+   */
+  private void ensureBitSpace(int additionalBits) {
+    final int required = BitStreamUtil.words(bitCount + additionalBits);
+    if (required > words.length) {
+      final int used = BitStreamUtil.words(bitCount);
+      final int newSize = resizer.grow(words.length, used, required - used);
+      try {
+        words = Arrays.copyOf(words, newSize);
+      } catch (OutOfMemoryError e) {
+        throw new BufferAllocationException(
+            "Not enough memory to allocate new buffers: %,d -> %,d",
+            e, words.length, newSize);
+      }
+    }
+  }
+
+  private static <KType> long bits(KType value) {
+    /*! #if ($TemplateOptions.isKTypeAnyOf("FLOAT")) return Float.floatToRawIntBits(value) & 0xffffffffL; #else !*/
+    return Double.doubleToRawLongBits(Intrinsics.<KType> numeric(value));
+    /*! #end !*/
+  }
+
+  private static <KType> KType value(long bits) {
+    /*! #if ($TemplateOptions.isKTypeAnyOf("FLOAT")) return Float.intBitsToFloat((int) bits); #else !*/
+    return Intrinsics.<KType> cast(Double.longBitsToDouble(bits));
+    /*! #end !*/
+  }
+
+  /**
+   * Sequentially decodes the bits of values, starting at a block.
+   */
+  private final class Decoder {
+    private int index;
+    private long position;
+    private long value;
+    private int leading;
+    private int trailing;
+
+    Decoder(int block) {
+      this.index = block << BLOCK_SHIFT;
+      this.position = block < blockOffsets.size() ? blockOffsets.get(block) : bitCount;
+    }
+
+    long next() {
+      assert index < size;
+      final long[] words = KTypeXorCompressedList.this.words;
+      if ((index++ & (BLOCK_SIZE - 1)) == 0) {
+        value = BitStreamUtil.read(words, position, WIDTH);
+        position += WIDTH;
+      } else if (BitStreamUtil.read(words, position++, 1) != 0) {
+        if (BitStreamUtil.read(words, position++, 1) != 0) {
+          final int header = (int) BitStreamUtil.read(words, position, LEADING_BITS + LENGTH_BITS);
+          position += LEADING_BITS + LENGTH_BITS;
+          leading = header & MAX_LEADING;
+          trailing = WIDTH - leading - ((header >>> LEADING_BITS) + 1);
+        }
+        final int length = WIDTH - leading - trailing;
+        value ^= BitStreamUtil.read(words, position, length) << trailing;
+        position += length;
+      }
+      return value;
+    }
+  }
+
+  /**
+   * @return Returns the value at the given index. This decodes all preceding values of its block.
+   */
+  public KType get(int index) {
+    assert (index >= 0 && index < size())
+        : "Index " + index + " out of bounds [" + 0 + ", " + size() + ").";
+    final Decoder decoder = new Decoder(index >>> BLOCK_SHIFT);
+    long bits;
+    do {
+      bits = decoder.next();
+    } while (decoder.index <= index);
+    return value(bits);
+  }
+
+  /**
+   * Decodes all values of a block to <code>target</code>, starting at <code>offset</code>.
+   *
+   * @param block The block index, between zero and {@link #blockCount()} (exclusive).
+   * @return Returns the number of decoded values: {@link #BLOCK_SIZE}, except for the last
+   * block.
+   */
+  public int decodeBlock(int block, KType[] target, int offset) {
+    assert block >= 0 && block < blockCount() : "Block " + block + " out of bounds.";
+    final int length = Math.min(BLOCK_SIZE, size - (block << BLOCK_SHIFT));
+    final Decoder decoder = new Decoder(block);
+    for (int i = 0; i < length; i++) {
+      target[offset + i] = value(decoder.next());
+    }
+    return length;
+  }
+
+  /**
+   * @return Returns the number of blocks.
+   */
+  public int blockCount() {
+    return blockOffsets.size();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean contains(KType e) {
+    final Decoder decoder = new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      if (Intrinsics.<KType> equals(e, value(decoder.next()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Removes all values. The encoded values' buffer is kept for reuse.
+   */
+  public void clear() {
+    Arrays.fill(words, 0, BitStreamUtil.words(bitCount), 0L);
+    blockOffsets.clear();
+    bitCount = 0;
+    size = 0;
+  }
+
+  /**
+   * Removes all values and releases internal buffers.
+   */
+  public void release() {
+    words = EMPTY_WORDS;
+    blockOffsets.release();
+    bitCount = 0;
+    size = 0;
+  }
+
+  /**
+   * Trims internal buffers to the space actually used by the encoded values.
+   */
+  public void trimToSize() {
+    words = Arrays.copyOf(words, BitStreamUtil.words(bitCount));
+    blockOffsets.trimToSize();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  /*! #if ($TemplateOptions.KTypePrimitive)
+  public KType [] toArray()
+      #else !*/
+  public Object [] toArray()
+  /*! #end !*/
+  {
+    final KType[] array = Intrinsics.<KType> newArray(size);
+    final Decoder decoder = new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      array[i] = value(decoder.next());
+    }
+    return array;
+  }
+
+  /* #if ($TemplateOptions.KTypeGeneric) */
+  @Override
+  public <T> T[] toArray(Class<T> componentClass) {
+    final T[] array = (T[]) java.lang.reflect.Array.newInstance(componentClass, size);
+    System.arraycopy(toArray(), 0, array, 0, size);
+    return array;
+  }
+  /* #end */
+
+  /**
+   * @return Returns a new {@link KTypeArrayList} with all values of this list.
+   */
+  public KTypeArrayList<KType> toList() {
+    final KTypeArrayList<KType> list = new KTypeArrayList<>(size);
+    list.add(Intrinsics.<KType[]> cast(toArray()));
+    return list;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypeProcedure<? super KType>> T forEach(T procedure) {
+    final Decoder decoder = new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      procedure.apply(value(decoder.next()));
+    }
+    return procedure;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T extends KTypePredicate<? super KType>> T forEach(T predicate) {
+    final Decoder decoder = new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      if (!predicate.apply(value(decoder.next()))) {
+        break;
+      }
+    }
+    return predicate;
+  }
+
+  /**
+   * An iterator decoding values sequentially.
+   */
+  private final class ValueIterator extends AbstractIterator<KTypeCursor<KType>> {
+    private final KTypeCursor<KType> cursor = new KTypeCursor<KType>();
+    private final Decoder decoder;
+
+    public ValueIterator(int block) {
+      decoder = new Decoder(block);
+      cursor.index = (block << BLOCK_SHIFT) - 1;
+    }
+
+    @Override
+    protected KTypeCursor<KType> fetch() {
+      final int index = cursor.index + 1;
+      if (index >= size) {
+        return done();
+      }
+      cursor.index = index;
+      cursor.value = value(decoder.next());
+      return cursor;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<KTypeCursor<KType>> iterator() {
+    return new ValueIterator(0);
+  }
+
+  /**
+   * Returns an iterator over the values starting at the first value of the given block. Cursor
+   * indexes are positions in the whole list.
+   *
+   * @param block The block index, between zero and {@link #blockCount()} (inclusive).
+   */
+  public Iterator<KTypeCursor<KType>> iterator(int block) {
+    assert block >= 0 && block <= blockCount() : "Block " + block + " out of bounds.";
+    return new ValueIterator(block);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    int h = 1;
+    final Decoder decoder = new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      h = 31 * h + BitMixer.mix(value(decoder.next()));
+    }
+    return h;
+  }
+
+  /**
+   * Returns <code>true</code> only if the other object is a list of the same class with the same
+   * values.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || getClass() != obj.getClass()) {
+      return false;
+    }
+    final KTypeXorCompressedList<KType> other = (KTypeXorCompressedList<KType>) obj;
+    if (other.size != size) {
+      return false;
+    }
+    final Decoder decoder = new Decoder(0);
+    final Decoder otherDecoder = other.new Decoder(0);
+    for (int i = 0; i < size; i++) {
+      if (!Intrinsics.<KType> equals(value(decoder.next()), value(otherDecoder.next()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Convert the contents of this container to a human-friendly string.
+   */
+  @Override
+  public String toString() {
+    return Arrays.toString(this.toArray());
+  }
+
+  @Override
+  public long ramBytesAllocated() {
+    // int: size, windowLeading, windowTrailing; long: bitCount, previous
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 3 * Integer.BYTES
+        + 2 * Long.BYTES
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + resizer.ramBytesAllocated()
+        + RamUsageEstimator.shallowSizeOfArray(words)
+        + blockOffsets.ramBytesAllocated();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    // int: size, windowLeading, windowTrailing; long: bitCount, previous
+    return RamUsageEstimator.NUM_BYTES_OBJECT_HEADER
+        + 3 * Integer.BYTES
+        + 2 * Long.BYTES
+        + 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF
+        + resizer.ramBytesUsed()
+        + RamUsageEstimator.shallowUsedSizeOfArray(words, BitStreamUtil.words(bitCount))
+        + blockOffsets.ramBytesUsed();
+  }
+}
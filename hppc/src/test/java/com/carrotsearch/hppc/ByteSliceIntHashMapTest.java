@@ -0,0 +1,254 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+
+import com.carrotsearch.randomizedtesting.RandomizedTest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class ByteSliceIntHashMapTest extends RandomizedTest {
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testPutGetWholeArrays() {
+    ByteSliceIntHashMap map = new ByteSliceIntHashMap();
+    assertEquals(0, map.put(bytes("foo"), 1));
+    assertEquals(0, map.put(bytes("bar"), 2));
+    assertEquals(1, map.put(bytes("foo"), 3));
+
+    assertEquals(2, map.size());
+    assertEquals(3, map.get(bytes("foo")));
+    assertEquals(2, map.get(bytes("bar")));
+    assertEquals(0, map.get(bytes("baz")));
+    assertEquals(6, map.keyBytesCount);
+  }
+
+  @Test
+  public void testEmptyKey() {
+    ByteSliceIntHashMap map = new ByteSliceIntHashMap();
+    byte[] empty = new byte[0];
+    assertFalse(map.containsKey(empty, 0, 0));
+    map.put(empty, 42);
+    assertTrue(map.containsKey(empty, 0, 0));
+    assertTrue(map.containsKey(bytes("abc"), 3, 0));
+    assertEquals(42, map.get(empty));
+    assertEquals(42, map.remove(empty, 0, 0));
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public void testSlices() {
+    ByteSliceIntHashMap map = new ByteSliceIntHashMap();
+    byte[] src = bytes("xxabcabcyy");
+    map.put(src, 2, 3, 7);
+    assertEquals(7, map.get(src, 5, 3));
+    assertEquals(0, map.get(src, 2, 4));
+    assertEquals(7, map.get(bytes("abc")));
+
+    int index = map.indexOf(src, 5, 3);
+    assertTrue(map.indexExists(index));
+    assertEquals(3, map.indexKeyLength(index));
+    int offset = map.indexKeyOffset(index);
+    int length = map.indexKeyLength(index);
+    assertEquals("abc", new String(map.keyBytes, offset, length, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testByteBufferKeys() {
+    ByteSliceIntHashMap map = new ByteSliceIntHashMap();
+    byte[] src = bytes("..hello..world");
+
+    ByteBuffer heap = ByteBuffer.wrap(src);
+    ByteBuffer direct = ByteBuffer.allocateDirect(src.length);
+    direct.put(src).flip();
+    ByteBuffer sliced = ByteBuffer.wrap(src, 1, src.length - 1).slice();
+
+    map.put(direct, 2, 5, 1);
+    assertEquals(1, map.get(src, 2, 5));
+    assertEquals(1, map.get(heap, 2, 5));
+    assertEquals(1, map.get(sliced, 1, 5));
+    assertEquals(2, map.addTo(heap, 2, 5, 1));
+    assertEquals(2, map.get(direct, 2, 5));
+
+    map.put(heap, 9, 5, 10);
+    assertEquals(10, map.get(direct, 9, 5));
+    assertEquals(0, direct.position());
+    assertEquals(src.length, direct.limit());
+
+    assertEquals(10, map.remove(direct, 9, 5));
+    assertFalse(map.containsKey(src, 9, 5));
+  }
+
+  @Test
+  public void testDirectBufferKeysDifferingAtEachByte() {
+    // Colliding hashes, so that keys are always compared byte by byte.
+    ByteSliceIntHashMap map =
+        new ByteSliceIntHashMap() {
+          @Override
+          protected int hashKey(byte[] key, int offset, int length) {
+            return length;
+          }
+
+          @Override
+          protected int hashKey(ByteBuffer key, int offset, int length) {
+            return length;
+          }
+        };
+    byte[] base = bytes("0123456789abcdefghijklmnopq");
+    ByteBuffer direct = ByteBuffer.allocateDirect(base.length + 1);
+    direct.put((byte) '.').put(base).flip();
+
+    map.put(direct, 1, base.length, 1);
+    assertEquals(1, map.get(base, 0, base.length));
+    for (int i = 0; i < base.length; i++) {
+      byte[] other = base.clone();
+      other[i]++;
+      ByteBuffer otherDirect = ByteBuffer.allocateDirect(other.length);
+      otherDirect.put(other).flip();
+      assertFalse(map.containsKey(otherDirect, 0, other.length));
+      map.put(otherDirect, 0, other.length, i + 2);
+      assertEquals(i + 2, map.get(other, 0, other.length));
+      assertEquals(1, map.get(direct, 1, base.length));
+    }
+    assertEquals(base.length + 1, map.size());
+  }
+
+  @Test
+  public void testHashConsistentAcrossSources() {
+    ByteSliceIntHashMap map = new ByteSliceIntHashMap();
+    for (int len = 0; len < 20; len++) {
+      byte[] key = new byte[len + 3];
+      getRandom().nextBytes(key);
+      ByteBuffer direct = ByteBuffer.allocateDirect(key.length);
+      direct.put(key).flip();
+      assertEquals(map.hashKey(key, 3, len), map.hashKey(direct, 3, len));
+    }
+  }
+
+  @Test
+  public void testIndexMethods() {
+    ByteSliceIntHashMap map = new ByteSliceIntHashMap();
+    byte[] key = bytes("key");
+    int index = map.indexOf(key, 0, key.length);
+    assertFalse(map.indexExists(index));
+    map.indexInsert(index, key, 0, key.length, 5);
+
+    index = map.indexOf(key, 0, key.length);
+    assertTrue(map.indexExists(index));
+    assertEquals(5, map.indexGet(index));
+    assertEquals(5, map.indexReplace(index, 6));
+    assertEquals(6, map.indexRemove(index));
+    assertEquals(0, map.size());
+  }
+
+  @Test
+  public void testClearResetsArena() {
+    ByteSliceIntHashMap map = new ByteSliceIntHashMap();
+    map.put(bytes("a"), 1);
+    map.put(bytes("bb"), 2);
+    map.clear();
+    assertEquals(0, map.size());
+    assertEquals(0, map.keyBytesCount);
+    assertFalse(map.containsKey(bytes("a"), 0, 1));
+
+    map.put(bytes("bb"), 3);
+    assertEquals(3, map.get(bytes("bb")));
+
+    map.release();
+    assertTrue(map.isEmpty());
+    assertEquals(0, map.keyBytes.length);
+  }
+
+  @Test
+  public void testForEach() {
+    ByteSliceIntHashMap map = new ByteSliceIntHashMap();
+    Map<String, Integer> ref = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      map.put(bytes("k" + i), i);
+      ref.put("k" + i, i);
+    }
+
+    Map<String, Integer> seen = new HashMap<>();
+    map.forEach(
+        (byte[] keyBytes, int keyOffset, int keyLength, int value) ->
+            seen.put(new String(keyBytes, keyOffset, keyLength, StandardCharsets.UTF_8), value));
+    assertEquals(ref, seen);
+  }
+
+  @Test
+  public void testClone() {
+    ByteSliceIntHashMap map = new ByteSliceIntHashMap();
+    map.put(bytes("a"), 1);
+    ByteSliceIntHashMap cloned = map.clone();
+    map.put(bytes("b"), 2);
+    cloned.put(bytes("c"), 3);
+
+    assertEquals(1, cloned.get(bytes("a")));
+    assertFalse(cloned.containsKey(bytes("b"), 0, 1));
+    assertFalse(map.containsKey(bytes("c"), 0, 1));
+  }
+
+  @Test
+  public void testAgainstHashMap() {
+    final int rounds = randomIntBetween(1000, 20000);
+    final int keySpace = randomIntBetween(10, 2000);
+    ByteSliceIntHashMap map = new ByteSliceIntHashMap(0);
+    HashMap<String, Integer> ref = new HashMap<>();
+    byte[] buffer = new byte[64];
+
+    for (int i = 0; i < rounds; i++) {
+      String k = Integer.toString(randomIntBetween(0, keySpace), 36);
+      byte[] kb = bytes(k);
+      int offset = randomIntBetween(0, buffer.length - kb.length);
+      System.arraycopy(kb, 0, buffer, offset, kb.length);
+
+      int value = randomInt();
+      switch (randomIntBetween(0, 3)) {
+        case 0:
+          {
+            Integer prev = ref.put(k, value);
+            assertEquals(prev == null ? 0 : prev, map.put(buffer, offset, kb.length, value));
+            break;
+          }
+        case 1:
+          {
+            Integer prev = ref.remove(k);
+            assertEquals(prev == null ? 0 : prev, map.remove(buffer, offset, kb.length));
+            break;
+          }
+        case 2:
+          {
+            int expected = ref.merge(k, value, Integer::sum);
+            assertEquals(expected, map.addTo(buffer, offset, kb.length, value));
+            break;
+          }
+        default:
+          {
+            assertEquals(ref.containsKey(k), map.containsKey(buffer, offset, kb.length));
+            int expected = ref.getOrDefault(k, -1);
+            assertEquals(expected, map.getOrDefault(kb, 0, kb.length, -1));
+            break;
+          }
+      }
+      assertEquals(ref.size(), map.size());
+    }
+
+    for (Map.Entry<String, Integer> e : ref.entrySet()) {
+      assertEquals(e.getValue().intValue(), map.get(bytes(e.getKey())));
+    }
+  }
+}
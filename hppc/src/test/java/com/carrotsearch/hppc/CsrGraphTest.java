@@ -0,0 +1,182 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+
+import com.carrotsearch.randomizedtesting.RandomizedTest;
+import org.junit.Test;
+
+public class CsrGraphTest extends RandomizedTest {
+  /**
+   * <pre>
+   * 0 -&gt; 2, 1
+   * 1 -&gt; 3
+   * 2 -&gt; 3, 4
+   * 3 -&gt; 0
+   * 5 -&gt; 4
+   * </pre>
+   */
+  private static CsrGraph smallGraph() {
+    return CsrGraph.fromEdges(
+        6, IntArrayList.from(0, 2, 1, 0, 5, 3, 2), IntArrayList.from(2, 4, 3, 1, 4, 0, 3));
+  }
+
+  @Test
+  public void testStructure() {
+    CsrGraph graph = smallGraph();
+    assertEquals(6, graph.nodeCount());
+    assertEquals(7, graph.edgeCount());
+
+    assertEquals(2, graph.degree(0));
+    assertEquals(0, graph.degree(4));
+    assertEquals(IntArrayList.from(2, 1), neighbors(graph, 0));
+    assertEquals(IntArrayList.from(4, 3), neighbors(graph, 2));
+    assertEquals(new IntArrayList(), neighbors(graph, 4));
+
+    IntArrayList list = new IntArrayList();
+    graph.forEachNeighbor(2, list::add);
+    assertEquals(IntArrayList.from(4, 3), list);
+  }
+
+  @Test
+  public void testTraversals() {
+    CsrGraph graph = smallGraph();
+
+    IntArrayList order = new IntArrayList();
+    BitSet visited = new BitSet(graph.nodeCount());
+    assertEquals(5, graph.bfs(0, visited, order::add));
+    assertEquals(IntArrayList.from(0, 2, 1, 4, 3), order);
+    assertEquals(0, graph.bfs(3, visited, order::add));
+    assertEquals(1, graph.bfs(5, visited, order::add));
+    assertEquals(6, visited.cardinality());
+
+    order.clear();
+    assertEquals(5, graph.dfs(0, new BitSet(graph.nodeCount()), order::add));
+    assertEquals(IntArrayList.from(0, 2, 4, 3, 1), order);
+
+    assertArrayEquals(new int[] {0, 1, 1, 2, 2, -1}, graph.bfsDistances(0));
+    assertArrayEquals(new int[] {-1, -1, -1, -1, 1, 0}, graph.bfsDistances(5));
+
+    try {
+      CsrGraph.fromEdges(100, new IntArrayList(), new IntArrayList())
+          .bfs(0, new BitSet(64), order::add);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testInvalidEdges() {
+    try {
+      CsrGraph.fromEdges(3, IntArrayList.from(0, 3), IntArrayList.from(1, 2));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+    try {
+      CsrGraph.fromEdges(3, IntArrayList.from(0, 1), IntArrayList.from(1, -1));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+    try {
+      CsrGraph.fromEdges(3, IntArrayList.from(0, 1), IntArrayList.from(1));
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testRandomGraphs() {
+    final int nodeCount = randomIntBetween(1, 2000);
+    final int edgeCount = randomIntBetween(0, 10000);
+    IntArrayList sources = new IntArrayList();
+    IntArrayList targets = new IntArrayList();
+    IntObjectHashMap<IntArrayList> reference = new IntObjectHashMap<>();
+    for (int i = 0; i < edgeCount; i++) {
+      int source = randomIntBetween(0, nodeCount - 1);
+      int target = randomIntBetween(0, nodeCount - 1);
+      sources.add(source);
+      targets.add(target);
+      if (!reference.containsKey(source)) {
+        reference.put(source, new IntArrayList());
+      }
+      reference.get(source).add(target);
+    }
+
+    CsrGraph graph = CsrGraph.fromEdges(nodeCount, sources, targets);
+    CsrGraph partitioned =
+        CsrGraph.fromEdgesPartitioned(nodeCount, sources, targets, randomIntBetween(2, 8));
+    for (int node = 0; node < nodeCount; node++) {
+      IntArrayList expected =
+          reference.containsKey(node) ? reference.get(node) : new IntArrayList();
+      assertEquals(expected, neighbors(graph, node));
+      assertEquals(expected, neighbors(partitioned, node));
+    }
+
+    // BFS distances must be consistent with edges: no edge shortens any distance.
+    int source = randomIntBetween(0, nodeCount - 1);
+    int[] distances = graph.bfsDistances(source);
+    BitSet reachable = new BitSet(nodeCount);
+    int visited = graph.dfs(source, reachable, node -> {});
+    int reached = 0;
+    for (int node = 0; node < nodeCount; node++) {
+      assertEquals(distances[node] >= 0, reachable.get(node));
+      if (distances[node] >= 0) {
+        reached++;
+        for (int e = graph.edgesStart(node); e < graph.edgesEnd(node); e++) {
+          int target = graph.target(e);
+          assertTrue(distances[target] >= 0 && distances[target] <= distances[node] + 1);
+        }
+      }
+    }
+    assertEquals(reached, visited);
+  }
+
+  @Test
+  public void testManyChunksFewEdges() {
+    // Per-chunk arrays of all nodes would take gigabytes here.
+    final int nodeCount = 1 << 22;
+    final int chunks = 1024;
+    IntArrayList sources = new IntArrayList();
+    IntArrayList targets = new IntArrayList();
+    sources.add(0, nodeCount - 1, nodeCount - 1);
+    targets.add(nodeCount - 1, 0, 1);
+    for (int i = 0; i < 2000; i++) {
+      sources.add(randomIntBetween(0, nodeCount - 1));
+      targets.add(randomIntBetween(0, nodeCount - 1));
+    }
+
+    CsrGraph graph = CsrGraph.fromEdges(nodeCount, sources, targets);
+    CsrGraph partitioned = CsrGraph.fromEdgesPartitioned(nodeCount, sources, targets, chunks);
+    CsrGraph parallel = CsrGraph.fromEdgesParallel(nodeCount, sources, targets);
+    assertEquals(IntArrayList.from(0, 1), neighbors(graph, nodeCount - 1));
+    for (int i = 0; i < sources.size(); i++) {
+      int node = sources.get(i);
+      assertEquals(neighbors(graph, node), neighbors(partitioned, node));
+      assertEquals(neighbors(graph, node), neighbors(parallel, node));
+    }
+    for (int node = 0; node <= nodeCount; node += 1 << 12) {
+      assertEquals(graph.edgesStart(node), partitioned.edgesStart(node));
+    }
+    assertEquals(graph.edgesEnd(nodeCount - 1), partitioned.edgesEnd(nodeCount - 1));
+  }
+
+  private static IntArrayList neighbors(CsrGraph graph, int node) {
+    IntArrayList list = new IntArrayList();
+    for (int edge = graph.edgesStart(node), end = graph.edgesEnd(node); edge < end; edge++) {
+      list.add(graph.target(edge));
+    }
+    return list;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+
+import com.carrotsearch.randomizedtesting.RandomizedTest;
+import org.junit.Test;
+
+public class DisjointSetTest extends RandomizedTest {
+  @Test
+  public void testUnionFind() {
+    DisjointSet sets = new DisjointSet(6);
+    assertEquals(6, sets.componentCount());
+
+    assertTrue(sets.union(0, 1));
+    assertTrue(sets.union(2, 3));
+    assertTrue(sets.union(1, 3));
+    assertFalse(sets.union(0, 2));
+    assertEquals(3, sets.componentCount());
+
+    assertTrue(sets.connected(0, 3));
+    assertFalse(sets.connected(0, 4));
+    assertEquals(sets.find(0), sets.find(2));
+    assertEquals(5, sets.find(5));
+
+    IntArrayList labels = IntArrayList.from(-1);
+    assertEquals(3, sets.labels(labels));
+    assertEquals(IntArrayList.from(-1, 0, 0, 0, 0, 1, 2), labels);
+  }
+
+  @Test
+  public void testAddAndGrow() {
+    DisjointSet sets = new DisjointSet();
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, sets.add());
+      if (i > 0) {
+        sets.union(i - 1, i);
+      }
+    }
+    assertEquals(1000, sets.size());
+    assertEquals(1, sets.componentCount());
+    assertTrue(sets.connected(0, 999));
+
+    sets.clear();
+    assertEquals(0, sets.size());
+    assertEquals(0, sets.add());
+    assertEquals(1, sets.componentCount());
+  }
+
+  @Test
+  public void testUnionAll() {
+    DisjointSet sets = new DisjointSet(5);
+    assertEquals(2, sets.unionAll(IntArrayList.from(0, 1, 3), IntArrayList.from(1, 0, 4)));
+    assertEquals(3, sets.componentCount());
+
+    try {
+      sets.unionAll(IntArrayList.from(0), new IntArrayList());
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void testAgainstGraphComponents() {
+    final int size = randomIntBetween(1, 1000);
+    IntArrayList first = new IntArrayList();
+    IntArrayList second = new IntArrayList();
+    for (int i = randomIntBetween(0, size); i > 0; i--) {
+      first.add(randomIntBetween(0, size - 1));
+      second.add(randomIntBetween(0, size - 1));
+    }
+
+    DisjointSet sets = new DisjointSet(size);
+    sets.unionAll(first, second);
+    IntArrayList labels = new IntArrayList();
+    assertEquals(sets.componentCount(), sets.labels(labels));
+
+    // Components of the undirected graph with the same edges.
+    IntArrayList sources = new IntArrayList();
+    IntArrayList targets = new IntArrayList();
+    sources.addAll(first);
+    sources.addAll(second);
+    targets.addAll(second);
+    targets.addAll(first);
+    CsrGraph graph = CsrGraph.fromEdges(size, sources, targets);
+
+    BitSet visited = new BitSet(size);
+    int components = 0;
+    for (int node = 0; node < size; node++) {
+      if (!visited.get(node)) {
+        components++;
+        final int label = labels.get(node);
+        graph.bfs(node, visited, n -> assertEquals(label, labels.get(n)));
+      }
+    }
+    assertEquals(components, sets.componentCount());
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+
+import com.carrotsearch.randomizedtesting.RandomizedTest;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class IntIndexedPriorityQueueTest extends RandomizedTest {
+  @Test
+  public void testUpdateAndRemove() {
+    int[] priority = {5, 3, 8, 1, 9};
+    IntIndexedPriorityQueue queue =
+        new IntIndexedPriorityQueue(2, (a, b) -> Integer.compare(priority[a], priority[b]));
+    for (int id = 0; id < priority.length; id++) {
+      queue.add(id);
+    }
+    assertEquals(5, queue.size());
+    assertEquals(3, queue.top());
+
+    priority[4] = 0;
+    queue.decreaseKey(4);
+    assertEquals(4, queue.top());
+
+    priority[4] = 10;
+    queue.update(4);
+    assertTrue(queue.remove(3));
+    assertFalse(queue.remove(3));
+    assertFalse(queue.contains(3));
+    assertFalse(queue.contains(100));
+
+    assertEquals(1, queue.removeTop());
+    assertEquals(0, queue.removeTop());
+    assertEquals(2, queue.removeTop());
+    assertEquals(4, queue.removeTop());
+    assertTrue(queue.isEmpty());
+
+    queue.add(3);
+    try {
+      queue.add(3);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+    queue.clear();
+    assertFalse(queue.contains(3));
+  }
+
+  @Test
+  public void testAgainstLinearScan() {
+    final int ids = randomIntBetween(1, 200);
+    final int[] priority = new int[ids];
+    IntIndexedPriorityQueue queue =
+        new IntIndexedPriorityQueue(
+            randomIntBetween(0, ids),
+            (a, b) -> Integer.compare(priority[a], priority[b]),
+            randomIntBetween(2, 8));
+    BitSet present = new BitSet(ids);
+
+    for (int round = 0; round < 2000; round++) {
+      final int id = randomIntBetween(0, ids - 1);
+      final int newPriority = randomIntBetween(0, 1000);
+      switch (randomIntBetween(0, 3)) {
+        case 0:
+          if (!present.get(id)) {
+            priority[id] = newPriority;
+            queue.add(id);
+            present.set(id);
+          }
+          break;
+        case 1:
+          if (present.get(id)) {
+            priority[id] = newPriority;
+            queue.update(id);
+          }
+          break;
+        case 2:
+          if (present.get(id) && newPriority < priority[id]) {
+            priority[id] = newPriority;
+            queue.decreaseKey(id);
+          }
+          break;
+        case 3:
+          assertEquals(present.get(id), queue.remove(id));
+          present.clear(id);
+          break;
+        default:
+          throw new RuntimeException();
+      }
+
+      assertEquals(present.cardinality(), queue.size());
+      if (!queue.isEmpty()) {
+        int min = Integer.MAX_VALUE;
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+          assertTrue(queue.contains(i));
+          min = Math.min(min, priority[i]);
+        }
+        assertEquals(min, priority[queue.top()]);
+        if (rarely()) {
+          present.clear(queue.removeTop());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDijkstraMatchesBfs() {
+    final int nodeCount = randomIntBetween(1, 500);
+    IntArrayList sources = new IntArrayList();
+    IntArrayList targets = new IntArrayList();
+    for (int i = randomIntBetween(0, 3000); i > 0; i--) {
+      sources.add(randomIntBetween(0, nodeCount - 1));
+      targets.add(randomIntBetween(0, nodeCount - 1));
+    }
+    CsrGraph graph = CsrGraph.fromEdges(nodeCount, sources, targets);
+
+    // Unit edge weights: shortest paths are BFS distances.
+    final int[] distance = new int[nodeCount];
+    Arrays.fill(distance, Integer.MAX_VALUE);
+    IntIndexedPriorityQueue queue =
+        new IntIndexedPriorityQueue(nodeCount, (a, b) -> Integer.compare(distance[a], distance[b]));
+    distance[0] = 0;
+    queue.add(0);
+    while (!queue.isEmpty()) {
+      final int node = queue.removeTop();
+      for (int e = graph.edgesStart(node); e < graph.edgesEnd(node); e++) {
+        final int target = graph.target(e);
+        if (distance[node] + 1 < distance[target]) {
+          final boolean queued = distance[target] != Integer.MAX_VALUE;
+          distance[target] = distance[node] + 1;
+          if (queued) {
+            queue.decreaseKey(target);
+          } else {
+            queue.add(target);
+          }
+        }
+      }
+    }
+
+    int[] expected = graph.bfsDistances(0);
+    for (int node = 0; node < nodeCount; node++) {
+      assertEquals(expected[node] < 0 ? Integer.MAX_VALUE : expected[node], distance[node]);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc;
+
+import com.carrotsearch.randomizedtesting.RandomizedTest;
+import java.util.Arrays;
+import java.util.Locale;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class ObjectCustomHashSetTest extends RandomizedTest {
+  private static final HashingStrategy<char[]> CHAR_ARRAY =
+      new HashingStrategy<char[]>() {
+        @Override
+        public int computeHashCode(char[] object) {
+          return Arrays.hashCode(object);
+        }
+
+        @Override
+        public boolean equals(char[] o1, char[] o2) {
+          return Arrays.equals(o1, o2);
+        }
+      };
+
+  private static final HashingStrategy<String> CASE_INSENSITIVE =
+      new HashingStrategy<String>() {
+        @Override
+        public int computeHashCode(String object) {
+          return object.toLowerCase(Locale.ROOT).hashCode();
+        }
+
+        @Override
+        public boolean equals(String o1, String o2) {
+          return o1.equalsIgnoreCase(o2);
+        }
+      };
+
+  @Test
+  public void testArrayKeys() {
+    ObjectCustomHashSet<char[]> set = new ObjectCustomHashSet<>(CHAR_ARRAY);
+    Assertions.assertThat(set.add("foo".toCharArray())).isTrue();
+    Assertions.assertThat(set.add("foo".toCharArray())).isFalse();
+    Assertions.assertThat(set.add("bar".toCharArray())).isTrue();
+    Assertions.assertThat(set.contains("bar".toCharArray())).isTrue();
+    Assertions.assertThat(set.contains("baz".toCharArray())).isFalse();
+    Assertions.assertThat(set.remove("foo".toCharArray())).isTrue();
+    Assertions.assertThat(set.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void testCaseInsensitive() {
+    ObjectCustomHashSet<String> set = ObjectCustomHashSet.from(CASE_INSENSITIVE, "Foo", "BAR");
+    Assertions.assertThat(set.contains("foo")).isTrue();
+    Assertions.assertThat(set.contains("bar")).isTrue();
+    Assertions.assertThat(set.add("FOO")).isFalse();
+    Assertions.assertThat(set.add(null)).isTrue();
+    Assertions.assertThat(set.size()).isEqualTo(3);
+
+    ObjectCustomHashSet<String> other = ObjectCustomHashSet.from(CASE_INSENSITIVE, "bar", "foo");
+    other.add(null);
+    Assertions.assertThat(other.hashCode()).isEqualTo(set.hashCode());
+    Assertions.assertThat(other).isEqualTo(set);
+  }
+
+  @Test
+  public void testGrowAndRemove() {
+    ObjectCustomHashSet<char[]> set = new ObjectCustomHashSet<>(0, CHAR_ARRAY);
+    ObjectHashSet<String> ref = new ObjectHashSet<>();
+    for (int i = 0; i < 5000; i++) {
+      String s = Integer.toString(randomIntBetween(0, 1000));
+      if (randomBoolean()) {
+        Assertions.assertThat(set.add(s.toCharArray())).isEqualTo(ref.add(s));
+      } else {
+        Assertions.assertThat(set.remove(s.toCharArray())).isEqualTo(ref.remove(s));
+      }
+    }
+    Assertions.assertThat(set.size()).isEqualTo(ref.size());
+  }
+}
@@ -105,6 +105,55 @@ public class IndirectSortTest {
     }
   }
 
+  /** Key-array orders are the same as (stable) merge sort orders with a comparator. */
+  @Test
+  public void testOrderOfKeys() {
+    final Random rnd = new Random(0x11223344);
+    for (int round = 0; round < 300; round++) {
+      final int[] ints = generateRandom(1000, 1 << rnd.nextInt(31), rnd);
+      final long[] longs = new long[ints.length];
+      final double[] doubles = new double[ints.length];
+      final double[] special = {Double.NaN, -0d, 0d, Double.NEGATIVE_INFINITY};
+      for (int i = 0; i < ints.length; i++) {
+        longs[i] = (long) ints[i] * rnd.nextInt(1 << 20);
+        doubles[i] =
+            rnd.nextInt(10) == 0 ? special[rnd.nextInt(special.length)] : rnd.nextGaussian();
+      }
+
+      final int start = rnd.nextInt(ints.length);
+      final int length = rnd.nextInt(ints.length - start + 1);
+      Assert.assertArrayEquals(
+          IndirectSort.mergesort(start, length, (a, b) -> Integer.compare(ints[a], ints[b])),
+          IndirectSort.order(ints, start, length));
+      Assert.assertArrayEquals(
+          IndirectSort.mergesort(start, length, (a, b) -> Long.compare(longs[a], longs[b])),
+          IndirectSort.order(longs, start, length));
+      Assert.assertArrayEquals(
+          IndirectSort.mergesort(start, length, (a, b) -> Double.compare(doubles[a], doubles[b])),
+          IndirectSort.order(doubles, start, length));
+    }
+  }
+
+  /** Parallel orders are the same as sequential orders. */
+  @Test
+  public void testParallelOrderOfKeys() {
+    final Random rnd = new Random(0x11223344);
+    final int[] ints = new int[5 * RadixSort.PARALLEL_THRESHOLD + rnd.nextInt(1000)];
+    final long[] longs = new long[ints.length];
+    final double[] doubles = new double[ints.length];
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = rnd.nextInt(1000) - 500;
+      longs[i] = rnd.nextLong();
+      doubles[i] = rnd.nextGaussian();
+    }
+
+    Assert.assertArrayEquals(IndirectSort.order(ints), IndirectSort.parallelOrder(ints));
+    Assert.assertArrayEquals(IndirectSort.order(longs), IndirectSort.parallelOrder(longs));
+    Assert.assertArrayEquals(IndirectSort.order(doubles), IndirectSort.parallelOrder(doubles));
+    assertOrder(
+        IndirectSort.parallelOrder(ints), ints.length, (a, b) -> Integer.compare(ints[a], ints[b]));
+  }
+
   private int[] generateRandom(final int maxSize, final int vocabulary, final Random rnd) {
     final int[] input = new int[2 + rnd.nextInt(maxSize)];
     for (int i = 0; i < input.length; i++) {
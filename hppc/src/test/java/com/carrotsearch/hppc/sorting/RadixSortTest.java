@@ -0,0 +1,263 @@
+/*
+ * HPPC
+ *
+ * Copyright (C) 2010-2024 Carrot Search s.c. and contributors
+ * All rights reserved.
+ *
+ * Refer to the full license file "LICENSE.txt":
+ * https://github.com/carrotsearch/hppc/blob/master/LICENSE.txt
+ */
+package com.carrotsearch.hppc.sorting;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.carrotsearch.hppc.XorShift128P;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test cases for {@link RadixSort}. */
+public class RadixSortTest {
+
+  /** Keys of different magnitudes, so that some radix passes are skipped. */
+  private static long randomKey(XorShift128P rnd, int round) {
+    switch (round % 4) {
+      case 0:
+        return rnd.nextLong();
+      case 1:
+        return rnd.nextInt(10) - 5;
+      case 2:
+        return rnd.nextInt(1 << 20);
+      default:
+        return -rnd.nextInt(1 << 12) * 1000L;
+    }
+  }
+
+  @Test
+  public void testInts() {
+    final XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    for (int round = 0; round < 200; round++) {
+      final int[] keys = new int[rnd.nextInt(2000)];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = (int) randomKey(rnd, round);
+      }
+      final int from = rnd.nextInt(keys.length + 1);
+      final int to = from + rnd.nextInt(keys.length - from + 1);
+
+      final int[] expected = keys.clone();
+      Arrays.sort(expected, from, to);
+      RadixSort.sort(keys, from, to);
+      assertArrayEquals(expected, keys);
+    }
+  }
+
+  @Test
+  public void testLongs() {
+    final XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    for (int round = 0; round < 200; round++) {
+      final long[] keys = new long[rnd.nextInt(2000)];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = randomKey(rnd, round);
+      }
+      final int from = rnd.nextInt(keys.length + 1);
+      final int to = from + rnd.nextInt(keys.length - from + 1);
+
+      final long[] expected = keys.clone();
+      Arrays.sort(expected, from, to);
+      RadixSort.sort(keys, from, to);
+      assertArrayEquals(expected, keys);
+    }
+  }
+
+  @Test
+  public void testExtremeValues() {
+    final int[] ints = {Integer.MAX_VALUE, 0, Integer.MIN_VALUE, -1, 1};
+    final long[] longs = {Long.MAX_VALUE, 0, Long.MIN_VALUE, -1, 1};
+    final int[] repeatedInts = new int[RadixSort.RADIX_SORT_THRESHOLD * ints.length];
+    final long[] repeatedLongs = new long[repeatedInts.length];
+    for (int i = 0; i < repeatedInts.length; i++) {
+      repeatedInts[i] = ints[i % ints.length];
+      repeatedLongs[i] = longs[i % longs.length];
+    }
+
+    final int[] expectedInts = repeatedInts.clone();
+    Arrays.sort(expectedInts);
+    RadixSort.sort(repeatedInts, 0, repeatedInts.length);
+    assertArrayEquals(expectedInts, repeatedInts);
+
+    final long[] expectedLongs = repeatedLongs.clone();
+    Arrays.sort(expectedLongs);
+    RadixSort.sort(repeatedLongs, 0, repeatedLongs.length);
+    assertArrayEquals(expectedLongs, repeatedLongs);
+  }
+
+  @Test
+  public void testIntValuesAreStable() {
+    final XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    for (int round = 0; round < 200; round++) {
+      final int[] keys = new int[rnd.nextInt(2000)];
+      final int[] values = new int[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = (int) randomKey(rnd, round);
+        values[i] = i;
+      }
+      final int[] original = keys.clone();
+
+      RadixSort.sort(keys, values, 0, keys.length);
+      for (int i = 0; i < keys.length; i++) {
+        assertEquals(original[values[i]], keys[i]);
+        if (i > 0) {
+          assertTrue(keys[i - 1] < keys[i] || values[i - 1] < values[i]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testLongValuesAreStable() {
+    final XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    for (int round = 0; round < 200; round++) {
+      final long[] keys = new long[rnd.nextInt(2000)];
+      final long[] values = new long[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = randomKey(rnd, round);
+        values[i] = i;
+      }
+      final long[] original = keys.clone();
+
+      RadixSort.sort(keys, values, 0, keys.length);
+      for (int i = 0; i < keys.length; i++) {
+        assertEquals(original[(int) values[i]], keys[i]);
+        if (i > 0) {
+          assertTrue(keys[i - 1] < keys[i] || values[i - 1] < values[i]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testLongKeysIntValues() {
+    final XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    for (int round = 0; round < 200; round++) {
+      final long[] keys = new long[rnd.nextInt(2000)];
+      final int[] values = new int[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = randomKey(rnd, round);
+        values[i] = i;
+      }
+      final long[] original = keys.clone();
+      final long[] expected = keys.clone();
+      Arrays.sort(expected);
+
+      RadixSort.sort(keys, values, 0, keys.length);
+      assertArrayEquals(expected, keys);
+      for (int i = 0; i < keys.length; i++) {
+        assertEquals(original[values[i]], keys[i]);
+        if (i > 0 && keys[i - 1] == keys[i]) {
+          assertTrue(values[i - 1] < values[i]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDoubleKeys() {
+    final XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    final double[] special = {
+      Double.NaN, -0d, 0d, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.MIN_VALUE
+    };
+    for (int round = 0; round < 200; round++) {
+      final double[] keys = new double[rnd.nextInt(2000)];
+      final int[] values = new int[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] =
+            rnd.nextInt(10) == 0
+                ? special[rnd.nextInt(special.length)]
+                : (rnd.nextInt(100) - 50) / (double) (1 + rnd.nextInt(3));
+        values[i] = i;
+      }
+      final double[] original = keys.clone();
+      final double[] expected = keys.clone();
+      Arrays.sort(expected);
+
+      RadixSort.sort(keys, values, 0, keys.length);
+      assertArrayEquals(expected, keys, 0);
+      for (int i = 0; i < keys.length; i++) {
+        assertEquals(0, Double.compare(original[values[i]], keys[i]));
+        if (i > 0 && Double.compare(keys[i - 1], keys[i]) == 0) {
+          assertTrue(values[i - 1] < values[i]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testParallelSort() {
+    final XorShift128P rnd = new XorShift128P(0xdeadbeefL);
+    for (int round = 0; round < 4; round++) {
+      final int length = 3 * RadixSort.PARALLEL_THRESHOLD + rnd.nextInt(1000);
+      final int from = rnd.nextInt(1000);
+      final long[] keys = new long[from + length];
+      final int[] values = new int[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = randomKey(rnd, round);
+        values[i] = i;
+      }
+      final int[] intKeys = new int[keys.length];
+      final long[] longValues = new long[keys.length];
+      final double[] doubleKeys = new double[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        intKeys[i] = (int) keys[i];
+        longValues[i] = i;
+        doubleKeys[i] = keys[i];
+      }
+
+      final long[] expectedKeys = keys.clone();
+      final int[] expectedValues = values.clone();
+      RadixSort.sort(expectedKeys, expectedValues, from, keys.length);
+      RadixSort.parallelSort(keys, values, from, keys.length);
+      assertArrayEquals(expectedKeys, keys);
+      assertArrayEquals(expectedValues, values);
+
+      final int[] expectedIntKeys = intKeys.clone();
+      final int[] intValues = new int[keys.length];
+      Arrays.setAll(intValues, i -> i);
+      final int[] expectedIntValues = intValues.clone();
+      RadixSort.sort(expectedIntKeys, expectedIntValues, from, keys.length);
+      RadixSort.parallelSort(intKeys, intValues, from, keys.length);
+      assertArrayEquals(expectedIntKeys, intKeys);
+      assertArrayEquals(expectedIntValues, intValues);
+
+      final long[] longKeys = expectedKeys.clone();
+      RadixSort.parallelSort(longKeys, longValues, from, keys.length);
+      assertArrayEquals(expectedKeys, longKeys);
+
+      final double[] expectedDoubleKeys = doubleKeys.clone();
+      final int[] doubleValues = new int[keys.length];
+      Arrays.setAll(doubleValues, i -> i);
+      final int[] expectedDoubleValues = doubleValues.clone();
+      RadixSort.sort(expectedDoubleKeys, expectedDoubleValues, from, keys.length);
+      RadixSort.parallelSort(doubleKeys, doubleValues, from, keys.length);
+      assertArrayEquals(expectedDoubleKeys, doubleKeys, 0);
+      assertArrayEquals(expectedDoubleValues, doubleValues);
+    }
+  }
+
+  @Test
+  public void testInvalidRange() {
+    try {
+      RadixSort.sort(new int[10], new int[5], 0, 10);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+    try {
+      RadixSort.sort(new long[10], 5, 4);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+  }
+}
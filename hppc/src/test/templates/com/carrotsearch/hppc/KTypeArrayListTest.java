@@ -330,6 +330,45 @@ public class KTypeArrayListTest<KType> extends AbstractKTypeTest<KType>
         assertEquals2(2, list.lastIndexOf(k2));
     }
 
+    /* */
+    @Test
+    public void testScansAgainstLinearSearch()
+    {
+        // Cover every position of a match relative to the unrolled blocks and the tail.
+        for (int size = 0; size < 19; size++) {
+            for (int round = 0; round < 20; round++) {
+                list.clear();
+                for (int i = 0; i < size; i++) {
+                    list.add(cast(randomIntBetween(0, 4)));
+                }
+
+                for (int v = 0; v <= 5; v++) {
+                    final KType key = cast(v);
+                    int first = -1, last = -1, count = 0;
+                    for (int i = 0; i < size; i++) {
+                        if (Intrinsics.<KType> equals(list.get(i), key)) {
+                            if (first < 0) first = i;
+                            last = i;
+                            count++;
+                        }
+                    }
+                    assertEquals(first, list.indexOf(key));
+                    assertEquals(last, list.lastIndexOf(key));
+                    assertEquals(first >= 0, list.contains(key));
+
+                    final KTypeArrayList<KType> copy = list.clone();
+                    assertEquals(list, copy);
+                    assertEquals(count, copy.removeAll(key));
+                    assertEquals(size - count, copy.size());
+                    assertEquals(-1, copy.indexOf(key));
+                    if (count > 0) {
+                        assertNotEquals(list, copy);
+                    }
+                }
+            }
+        }
+    }
+
     /* */
     @Test
     public void testEnsureCapacity()
@@ -624,6 +663,59 @@ public class KTypeArrayListTest<KType> extends AbstractKTypeTest<KType>
         assertEquals2(KTypeArrayList.from(key1, key2, key3, key3), list2);
     }
 
+    /*! #if ($TemplateOptions.KTypePrimitive)
+    @Test
+    public void testParallelSort() {
+        list = KTypeArrayList.from(key3, key1, key3, key2);
+        assertSame(list, list.parallelSort());
+        assertEquals2(KTypeArrayList.from(key1, key2, key3, key3), list);
+    }
+    #end !*/
+
+    /*! #if ($TemplateOptions.isKTypeAnyOf("INT", "LONG"))
+    @Test
+    public void testSortRadix() {
+        for (int round = 0; round < 100; round++) {
+            final int size = randomIntBetween(0, 500);
+            final int bound = 1 << randomIntBetween(0, 30);
+            final KTypeArrayList<KType> keys = new KTypeArrayList<KType>();
+            final KTypeArrayList<KType> payloads = new KTypeArrayList<KType>();
+            for (int i = 0; i < size; i++) {
+                keys.add(cast(round % 3 == 0 ? randomInt() : randomIntBetween(-bound, bound)));
+                payloads.add(cast(i));
+            }
+
+            final KTypeArrayList<KType> expected = keys.clone();
+            expected.sort();
+
+            final KTypeArrayList<KType> sorted = keys.clone();
+            assertSame(sorted, sorted.sortRadix());
+            assertEquals(expected, sorted);
+
+            final KTypeArrayList<KType> cosorted = keys.clone();
+            assertSame(cosorted, cosorted.sortRadix(payloads));
+            assertEquals(expected, cosorted);
+            int previous = -1;
+            for (int i = 0; i < size; i++) {
+                final int source = (int) Intrinsics.<KType> numeric(payloads.get(i));
+                assertEquals2(keys.get(source), cosorted.get(i));
+                // Stable: payloads of equal keys are in their original order.
+                if (i > 0 && Intrinsics.equals(cosorted.get(i - 1), cosorted.get(i))) {
+                    assertTrue(previous < source);
+                }
+                previous = source;
+            }
+        }
+
+        try {
+            KTypeArrayList.from(key1, key2).sortRadix(KTypeArrayList.from(key1));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+    #end !*/
+
     @Test
     public void testReverse() {
         for (int size = 0; size < 10; size++) {
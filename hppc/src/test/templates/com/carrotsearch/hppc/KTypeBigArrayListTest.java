@@ -0,0 +1,146 @@
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Random;
+
+import org.junit.*;
+
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * Tests for {@link KTypeBigArrayList}.
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeBigArrayListTest<KType> extends AbstractKTypeTest<KType>
+{
+    /* */
+    @Test
+    public void testAddGetSet()
+    {
+        KTypeBigArrayList<KType> list = new KTypeBigArrayList<>(KTypeBigArrayList.MIN_PAGE_SHIFT);
+        assertEquals(16, list.pageSize());
+        assertTrue(list.isEmpty());
+
+        for (int i = 0; i < 100; i++) {
+            list.add(cast(i));
+        }
+        assertEquals(100, list.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals2(cast(i), list.get(i));
+        }
+
+        assertEquals2(cast(17), list.set(17, key1));
+        assertEquals2(key1, list.get(17));
+        assertEquals2(cast(99), list.removeLast());
+        assertEquals(99, list.size());
+
+        list.clear();
+        assertTrue(list.isEmpty());
+        final long allocated = list.ramBytesAllocated();
+        list.release();
+        assertTrue(list.ramBytesAllocated() < allocated);
+
+        try {
+            new KTypeBigArrayList<KType>(KTypeBigArrayList.MAX_PAGE_SHIFT + 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    /* */
+    @Test
+    public void testBulkCopies()
+    {
+        final Random rnd = new Random(randomLong());
+        KTypeBigArrayList<KType> list = new KTypeBigArrayList<>(KTypeBigArrayList.MIN_PAGE_SHIFT);
+        KTypeArrayList<KType> reference = new KTypeArrayList<>();
+
+        for (int round = 0; round < 50; round++) {
+            final KType [] values = Intrinsics.<KType> newArray(rnd.nextInt(40));
+            for (int i = 0; i < values.length; i++) {
+                values[i] = cast(rnd.nextInt(1000));
+            }
+            final int offset = rnd.nextInt(values.length + 1);
+            final int length = rnd.nextInt(values.length - offset + 1);
+            list.add(values, offset, length);
+            for (int i = offset; i < offset + length; i++) {
+                reference.add(values[i]);
+            }
+        }
+        assertEquals(reference.size(), list.size());
+
+        final KType [] all = Intrinsics.<KType> newArray(reference.size() + 2);
+        list.get(0, all, 2, reference.size());
+        for (int i = 0; i < reference.size(); i++) {
+            assertEquals2(reference.get(i), all[i + 2]);
+        }
+
+        if (reference.size() > 20) {
+            final KType [] replacement = Intrinsics.<KType> newArray(15);
+            for (int i = 0; i < replacement.length; i++) {
+                replacement[i] = cast(i);
+            }
+            list.set(5, replacement, 0, replacement.length);
+            for (int i = 0; i < replacement.length; i++) {
+                assertEquals2(replacement[i], list.get(5 + i));
+            }
+        }
+    }
+
+    /* */
+    @Test
+    public void testForEach()
+    {
+        KTypeBigArrayList<KType> list = new KTypeBigArrayList<>(KTypeBigArrayList.MIN_PAGE_SHIFT);
+        for (int i = 0; i < 50; i++) {
+            list.add(cast(i));
+        }
+
+        final KTypeArrayList<KType> values = new KTypeArrayList<>();
+        list.forEach((KTypeProcedure<KType>) values::add, 10, 40);
+        assertEquals(30, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals2(cast(i + 10), values.get(i));
+        }
+
+        values.clear();
+        list.forEach((KTypeProcedure<KType>) values::add);
+        assertEquals(50, values.size());
+
+        final int [] count = new int [1];
+        list.forEach((KTypePredicate<KType>) v -> ++count[0] < 20);
+        assertEquals(20, count[0]);
+    }
+
+    /* */
+    @Test
+    public void testSort()
+    {
+        final Random rnd = new Random(randomLong());
+        for (int round = 0; round < 20; round++) {
+            KTypeBigArrayList<KType> list = new KTypeBigArrayList<>(KTypeBigArrayList.MIN_PAGE_SHIFT);
+            KTypeArrayList<KType> reference = new KTypeArrayList<>();
+            final int size = rnd.nextInt(500);
+            for (int i = 0; i < size; i++) {
+                final KType value = cast(rnd.nextInt(100));
+                list.add(value);
+                reference.add(value);
+            }
+
+            list.sort();
+            reference.sort();
+            assertEquals(reference.size(), list.size());
+            for (int i = 0; i < reference.size(); i++) {
+                assertEquals2(reference.get(i), list.get(i));
+            }
+
+            // The list remains usable after sorting.
+            list.add(key1);
+            assertEquals2(key1, list.get(size));
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.*;
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * Tests for {@link KTypeChunkedDeque}.
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeChunkedDequeTest<KType> extends AbstractKTypeTest<KType>
+{
+    /* */
+    @Test
+    public void testAddRemoveAcrossChunks()
+    {
+        KTypeChunkedDeque<KType> deque = new KTypeChunkedDeque<>(2, 1);
+        assertEquals(1, deque.chunkCount());
+
+        deque.addLast(k2);
+        deque.addLast(k3);
+        deque.addFirst(k1);
+        deque.addFirst(k0);
+        deque.addLast(k4);
+        assertListEquals(deque.toArray(), 0, 1, 2, 3, 4);
+        assertEquals(5, deque.size());
+        assertEquals(3, deque.chunkCount());
+        assertEquals2(k0, deque.getFirst());
+        assertEquals2(k4, deque.getLast());
+
+        assertEquals2(k0, deque.removeFirst());
+        assertEquals2(k4, deque.removeLast());
+        assertEquals2(k1, deque.removeFirst());
+        assertEquals2(k3, deque.removeLast());
+        assertListEquals(deque.toArray(), 2);
+        assertEquals(1, deque.chunkCount());
+
+        assertEquals2(k2, deque.removeLast());
+        assertTrue(deque.isEmpty());
+        assertEquals(0, deque.toArray().length);
+    }
+
+    /* */
+    @Test
+    public void testRemoveFirstLastOccurrence()
+    {
+        KTypeChunkedDeque<KType> deque = new KTypeChunkedDeque<>(3, 0);
+        deque.addLast(KTypeArrayList.from(k1, k2, k3, k1, k2, k3, k1));
+
+        assertEquals(1, deque.removeFirst(k2));
+        assertListEquals(deque.toArray(), 1, 3, 1, 2, 3, 1);
+        assertEquals(5, deque.removeLast(k1));
+        assertListEquals(deque.toArray(), 1, 3, 1, 2, 3);
+        assertEquals(-1, deque.removeFirst(k4));
+        assertEquals(-1, deque.removeLast(k4));
+
+        assertEquals(2, deque.removeAll(k3));
+        assertListEquals(deque.toArray(), 1, 1, 2);
+        assertEquals(1, deque.removeAll(new KTypePredicate<KType>() {
+            public boolean apply(KType v) { return v == key2; }
+        }));
+        assertListEquals(deque.toArray(), 1, 1);
+        assertEquals(2, deque.removeAll(k1));
+        assertTrue(deque.isEmpty());
+    }
+
+    /* */
+    @Test
+    public void testRemoveAllWithExceptionInPredicate()
+    {
+        KTypeChunkedDeque<KType> deque = new KTypeChunkedDeque<>(2, 0);
+        deque.addLast(KTypeArrayList.from(k0, k1, k2, k1, k4, k5));
+
+        try {
+            deque.removeAll(new KTypePredicate<KType>() {
+                public boolean apply(KType v) {
+                    if (v == key4) throw new RuntimeException();
+                    return v == key1;
+                }
+            });
+            fail();
+        } catch (RuntimeException e) {
+            // Expected.
+        }
+
+        // Elements before the exception are processed, the rest is kept.
+        assertListEquals(deque.toArray(), 0, 2, 4, 5);
+        assertEquals(4, deque.size());
+    }
+
+    /* */
+    @Test
+    public void testIterators()
+    {
+        KTypeChunkedDeque<KType> deque = new KTypeChunkedDeque<>(4, 1);
+        for (int i = 0; i < 10; i++) {
+            deque.addFirst(cast(i));
+        }
+
+        int expected = 9;
+        for (KTypeCursor<KType> c : deque) {
+            assertEquals(9 - expected, c.index);
+            assertEquals2(cast(expected--), c.value);
+        }
+        assertEquals(-1, expected);
+
+        for (Iterator<KTypeCursor<KType>> i = deque.descendingIterator(); i.hasNext(); ) {
+            KTypeCursor<KType> c = i.next();
+            expected++;
+            assertEquals(9 - expected, c.index);
+            assertEquals2(cast(expected), c.value);
+        }
+        assertEquals(9, expected);
+
+        final KTypeArrayList<KType> values = new KTypeArrayList<>();
+        deque.descendingForEach((KTypeProcedure<KType>) values::add);
+        assertListEquals(values.toArray(), 0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+
+        final int [] count = new int [1];
+        deque.forEach((KTypePredicate<KType>) v -> ++count[0] < 3);
+        assertEquals(3, count[0]);
+    }
+
+    /* */
+    @Test
+    public void testClearAndRelease()
+    {
+        KTypeChunkedDeque<KType> deque = new KTypeChunkedDeque<>(4, 2);
+        for (int i = 0; i < 20; i++) {
+            deque.addLast(cast(i));
+        }
+        long allocated = deque.ramBytesAllocated();
+        deque.clear();
+        assertTrue(deque.isEmpty());
+        assertEquals(1, deque.chunkCount());
+        assertTrue(deque.ramBytesAllocated() < allocated);
+        assertFalse(deque.contains(k1));
+
+        deque.addLast(k1);
+        assertTrue(deque.contains(k1));
+        deque.release();
+        assertTrue(deque.isEmpty());
+    }
+
+    /* */
+    @Test
+    public void testEqualsHashCodeClone()
+    {
+        KTypeChunkedDeque<KType> d1 = new KTypeChunkedDeque<>(3, 1);
+        KTypeChunkedDeque<KType> d2 = new KTypeChunkedDeque<>(5, 1);
+        for (int i = 0; i < 20; i++) {
+            d1.addFirst(cast(i));
+            d2.addFirst(cast(i));
+        }
+        assertEquals(d1, d2);
+        assertEquals(d1.hashCode(), d2.hashCode());
+
+        KTypeChunkedDeque<KType> cloned = d1.clone();
+        assertEquals(d1, cloned);
+        cloned.removeFirst();
+        assertFalse(d1.equals(cloned));
+        assertEquals(20, d1.size());
+    }
+
+    /* */
+    @Test
+    public void testAgainstArrayDeque()
+    {
+        final Random rnd = new Random(randomLong());
+        final KTypeChunkedDeque<KType> deque =
+            new KTypeChunkedDeque<>(randomIntBetween(2, 9), randomIntBetween(0, 3));
+        final KTypeArrayDeque<KType> reference = new KTypeArrayDeque<>();
+
+        for (int round = 0; round < 20000; round++) {
+            final KType value = cast(rnd.nextInt(20));
+            switch (rnd.nextInt(reference.isEmpty() ? 2 : 8)) {
+                case 0:
+                    deque.addFirst(value);
+                    reference.addFirst(value);
+                    break;
+                case 1:
+                    deque.addLast(value);
+                    reference.addLast(value);
+                    break;
+                case 2:
+                case 3:
+                    assertEquals2(reference.removeFirst(), deque.removeFirst());
+                    break;
+                case 4:
+                case 5:
+                    assertEquals2(reference.removeLast(), deque.removeLast());
+                    break;
+                case 6:
+                    assertEquals(reference.removeFirst(value) >= 0, deque.removeFirst(value) >= 0);
+                    break;
+                case 7:
+                    if (rnd.nextInt(10) == 0) {
+                        assertEquals(reference.removeAll(value), deque.removeAll(value));
+                    } else {
+                        assertEquals(reference.removeLast(value) >= 0, deque.removeLast(value) >= 0);
+                    }
+                    break;
+                default:
+                    throw new RuntimeException();
+            }
+
+            assertEquals(reference.size(), deque.size());
+            if (!reference.isEmpty()) {
+                assertEquals2(reference.getFirst(), deque.getFirst());
+                assertEquals2(reference.getLast(), deque.getLast());
+            }
+            if (rnd.nextInt(50) == 0) {
+                assertEquals(new KTypeArrayList<>(reference), new KTypeArrayList<>(deque));
+                assertEquals(reference.contains(value), deque.contains(value));
+            }
+        }
+        assertEquals(new KTypeArrayList<>(reference), new KTypeArrayList<>(deque));
+    }
+}
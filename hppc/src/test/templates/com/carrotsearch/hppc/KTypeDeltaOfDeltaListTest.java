@@ -0,0 +1,196 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.*;
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * Tests for {@link KTypeDeltaOfDeltaList}.
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeDeltaOfDeltaListTest<KType> extends AbstractKTypeTest<KType>
+{
+    private KType fromLong(long value)
+    {
+        /*! #if ($TemplateOptions.isKTypeAnyOf("INT")) return (int) value; #else !*/
+        return Intrinsics.<KType> cast(value);
+        /*! #end !*/
+    }
+
+    private void assertSameElements(KTypeArrayList<KType> expected,
+                                    KTypeDeltaOfDeltaList<KType> list)
+    {
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected.isEmpty(), list.isEmpty());
+        final int blockSize = KTypeDeltaOfDeltaList.BLOCK_SIZE;
+        assertEquals((expected.size() + blockSize - 1) / blockSize, list.blockCount());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals2(expected.get(i), list.get(i));
+        }
+        assertEquals(expected, list.toList());
+
+        int index = 0;
+        for (KTypeCursor<KType> c : list) {
+            assertEquals(index, c.index);
+            assertEquals2(expected.get(index++), c.value);
+        }
+        assertEquals(expected.size(), index);
+
+        final KTypeArrayList<KType> visited = new KTypeArrayList<>();
+        list.forEach((KTypeProcedure<KType>) visited::add);
+        assertEquals(expected, visited);
+
+        final KType [] block = Intrinsics.<KType> newArray(blockSize + 1);
+        for (int b = 0; b < list.blockCount(); b++) {
+            final int length = list.decodeBlock(b, block, 1);
+            for (int i = 0; i < length; i++) {
+                assertEquals2(expected.get(b * blockSize + i), block[i + 1]);
+            }
+
+            final Iterator<KTypeCursor<KType>> i = list.iterator(b);
+            final KTypeCursor<KType> first = i.next();
+            assertEquals(b * blockSize, first.index);
+            assertEquals2(block[1], first.value);
+        }
+        assertFalse(list.iterator(list.blockCount()).hasNext());
+    }
+
+    /* */
+    @Test
+    public void testEmpty()
+    {
+        final KTypeDeltaOfDeltaList<KType> list = new KTypeDeltaOfDeltaList<>();
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.blockCount());
+        assertFalse(list.contains(key1));
+        assertEquals(0, list.toArray().length);
+        assertFalse(list.iterator().hasNext());
+        assertEquals(new KTypeDeltaOfDeltaList<KType>(), list);
+    }
+
+    /* */
+    @Test
+    public void testAgainstArrayList()
+    {
+        final Random rnd = new Random(randomLong());
+        for (int round = 0; round < 100; round++) {
+            final KTypeArrayList<KType> expected = new KTypeArrayList<>();
+            final KTypeDeltaOfDeltaList<KType> list = new KTypeDeltaOfDeltaList<>();
+            final int size = rnd.nextInt(1000);
+            long value = rnd.nextLong();
+            for (int i = 0; i < size; i++) {
+                switch (round % 5) {
+                    case 0:
+                        // Regular timestamps, with an occasional gap.
+                        value += rnd.nextInt(20) == 0 ? 1000 * rnd.nextInt(100) : 1000;
+                        break;
+                    case 1:
+                        // Timestamps with jitter.
+                        value += 1000 + rnd.nextInt(2001) - 1000;
+                        break;
+                    case 2:
+                        // Widely varying steps (in both directions).
+                        final int bits = rnd.nextInt(31);
+                        value += rnd.nextInt(1 << bits) - rnd.nextInt(1 << bits);
+                        break;
+                    case 3:
+                        // Random values.
+                        value = rnd.nextLong();
+                        break;
+                    case 4:
+                        // Special values.
+                        final long [] special = {
+                            Long.MIN_VALUE, Long.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                            0, -1};
+                        value = special[rnd.nextInt(special.length)];
+                        break;
+                    default:
+                        throw new RuntimeException();
+                }
+                expected.add(fromLong(value));
+                list.add(fromLong(value));
+            }
+            assertSameElements(expected, list);
+
+            final KTypeDeltaOfDeltaList<KType> copy = new KTypeDeltaOfDeltaList<>();
+            copy.addAll(expected);
+            assertEquals(list, copy);
+            assertEquals(list.hashCode(), copy.hashCode());
+            assertEquals(expected.hashCode(), list.hashCode());
+
+            if (!expected.isEmpty()) {
+                final KType present = expected.get(rnd.nextInt(expected.size()));
+                assertTrue(list.contains(present));
+                copy.add(key1);
+                assertNotEquals(list, copy);
+            }
+        }
+    }
+
+    /* */
+    @Test
+    public void testClearAndRelease()
+    {
+        final KTypeDeltaOfDeltaList<KType> list = new KTypeDeltaOfDeltaList<>();
+        final KTypeArrayList<KType> expected = new KTypeArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            expected.add(cast(i % 7));
+        }
+        list.addAll(expected);
+
+        list.clear();
+        assertSameElements(new KTypeArrayList<KType>(), list);
+        list.add(Intrinsics.<KType[]> cast(expected.buffer), 0, expected.size());
+        list.trimToSize();
+        assertEquals(list.ramBytesAllocated(), list.ramBytesUsed());
+        assertSameElements(expected, list);
+
+        list.release();
+        assertSameElements(new KTypeArrayList<KType>(), list);
+        list.addAll(expected);
+        assertSameElements(expected, list);
+    }
+
+    /* */
+    @Test
+    public void testForEachPredicateStops()
+    {
+        final KTypeDeltaOfDeltaList<KType> list = new KTypeDeltaOfDeltaList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(cast(i % 10));
+        }
+        final int [] count = new int [1];
+        list.forEach((KTypePredicate<KType>) v -> ++count[0] < 300);
+        assertEquals(300, count[0]);
+    }
+
+    /* */
+    @Test
+    public void testCompression()
+    {
+        final Random rnd = new Random(randomLong());
+        final KTypeArrayList<KType> expected = new KTypeArrayList<>();
+        final KTypeDeltaOfDeltaList<KType> list = new KTypeDeltaOfDeltaList<>();
+        // Timestamps every second (in milliseconds), a few late by a little.
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < 100000; i++) {
+            timestamp += 1000;
+            final long value = rnd.nextInt(100) == 0 ? timestamp + rnd.nextInt(50) : timestamp;
+            expected.add(fromLong(value));
+            list.add(fromLong(value));
+        }
+        expected.trimToSize();
+        list.trimToSize();
+        assertSameElements(expected, list);
+        assertTrue(list.ramBytesUsed() * 10 < expected.ramBytesUsed());
+    }
+}
@@ -0,0 +1,80 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.isKTypeAnyOf("DOUBLE", "FLOAT", "BYTE"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import org.junit.*;
+
+/**
+ * Tests for {@link KTypeDisjointSet}.
+ */
+/*! #if ($TemplateOptions.KTypeGeneric) @SuppressWarnings("all") #end !*/
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeDisjointSetTest<KType> extends AbstractKTypeTest<KType>
+{
+    /**
+     * Per-test fresh initialized instance.
+     */
+    public KTypeDisjointSet<KType> sets = new KTypeDisjointSet<>();
+
+    /* */
+    @Test
+    public void testUnionFind()
+    {
+        assertTrue(sets.union(key1, key2));
+        assertTrue(sets.union(keyE, key3));
+        assertFalse(sets.union(key2, key1));
+        assertEquals(4, sets.size());
+        assertEquals(2, sets.componentCount());
+
+        assertTrue(sets.connected(key1, key2));
+        assertTrue(sets.connected(key3, keyE));
+        assertFalse(sets.connected(key1, key3));
+        assertFalse(sets.connected(key1, key4));
+        assertTrue(sets.connected(key4, key4));
+
+        KType root = sets.find(key1);
+        assertTrue(root == key1 || root == key2);
+        assertEquals2(root, sets.find(key2));
+        assertEquals2(key4, sets.find(key4));
+        assertEquals(4, sets.size());
+
+        IntArrayList labels = new IntArrayList();
+        assertEquals(2, sets.labels(labels));
+        assertEquals(IntArrayList.from(0, 0, 1, 1), labels);
+        assertEquals2(keyE, sets.keys.getKey(2));
+    }
+
+    /* */
+    @Test
+    public void testUnionAll()
+    {
+        KTypeArrayList<KType> first = KTypeArrayList.from(key1, key2, key3);
+        KTypeArrayList<KType> second = KTypeArrayList.from(key2, key1, key4);
+        assertEquals(2, sets.unionAll(first, second));
+        assertEquals(2, sets.componentCount());
+        assertEquals(1, sets.add(key2));
+        assertEquals(4, sets.add(key5));
+        assertEquals(3, sets.componentCount());
+
+        sets.clear();
+        assertEquals(0, sets.size());
+        assertEquals(0, sets.componentCount());
+        assertEquals(0, sets.add(key5));
+    }
+
+    /* */
+    @Test
+    public void testChains()
+    {
+        sets = new KTypeDisjointSet<>(0);
+        final int count = 1000;
+        for (int i = 1; i < count; i++) {
+            sets.union(cast(i), cast(i + 1));
+        }
+        assertEquals(count, sets.size());
+        assertEquals(1, sets.componentCount());
+        assertTrue(sets.connected(cast(1), cast(count)));
+    }
+}
@@ -0,0 +1,218 @@
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * Unit tests for {@link KTypeGapList}.
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeGapListTest<KType> extends AbstractKTypeTest<KType>
+{
+    /**
+     * Per-test fresh initialized instance.
+     */
+    public KTypeGapList<KType> list;
+
+    /* */
+    @Before
+    public void initialize()
+    {
+        list = new KTypeGapList<>();
+    }
+
+    /*! #if ($TemplateOptions.KTypeGeneric) !*/
+    @After
+    public void checkGapUninitialized()
+    {
+        if (list != null)
+        {
+            for (int i = list.gapStart; i < list.gapEnd; i++)
+                assertTrue(Intrinsics.<KType> empty() == list.buffer[i]);
+        }
+    }
+    /*! #end !*/
+
+    /* */
+    @Test
+    public void testInsertAndRemoveAroundGap()
+    {
+        list.add(key1, key2, key3, key4);
+        assertEquals(4, list.gapPosition());
+
+        list.insert(1, key5);
+        assertEquals(2, list.gapPosition());
+        assertListEquals(list.toArray(), 1, 5, 2, 3, 4);
+
+        // Removing the element before the gap does not move it further.
+        assertEquals2(key5, list.removeAt(1));
+        assertEquals(1, list.gapPosition());
+
+        // Neither does removing the element just after it.
+        assertEquals2(key2, list.removeAt(1));
+        assertEquals(1, list.gapPosition());
+        assertListEquals(list.toArray(), 1, 3, 4);
+
+        list.insert(3, asArray(6, 7, 8), 1, 2);
+        assertListEquals(list.toArray(), 1, 3, 4, 7, 8);
+
+        list.removeRange(1, 3);
+        assertListEquals(list.toArray(), 1, 7, 8);
+        assertEquals2(key8, list.removeLast());
+        assertEquals2(key7, list.set(1, key9));
+        assertEquals2(key9, list.get(1));
+        assertEquals(2, list.size());
+    }
+
+    /* */
+    @Test
+    public void testAgainstArrayList()
+    {
+        final Random rnd = new Random(randomLong());
+        final KTypeArrayList<KType> reference = new KTypeArrayList<>();
+
+        // Edits are clustered around a cursor that moves slowly.
+        int cursor = 0;
+        for (int round = 0; round < 5000; round++) {
+            cursor = Math.max(0, Math.min(reference.size(), cursor + rnd.nextInt(5) - 2));
+            final KType value = cast(rnd.nextInt(100));
+            switch (reference.isEmpty() ? 0 : rnd.nextInt(7)) {
+                case 0:
+                case 1:
+                case 2:
+                    list.insert(cursor, value);
+                    reference.insert(cursor, value);
+                    break;
+                case 3:
+                    final int at = Math.min(cursor, reference.size() - 1);
+                    assertEquals2(reference.removeAt(at), list.removeAt(at));
+                    break;
+                case 4:
+                    final int set = rnd.nextInt(reference.size());
+                    assertEquals2(reference.set(set, value), list.set(set, value));
+                    break;
+                case 5:
+                    assertEquals(reference.removeFirst(value), list.removeFirst(value));
+                    assertEquals(reference.removeLast(value), list.removeLast(value));
+                    break;
+                case 6:
+                    final int to = Math.min(reference.size(), cursor + rnd.nextInt(5));
+                    list.removeRange(cursor, to);
+                    reference.removeRange(cursor, to);
+                    break;
+                default:
+                    throw new RuntimeException();
+            }
+
+            assertEquals(reference.size(), list.size());
+            if (rnd.nextInt(50) == 0) {
+                assertEquals(reference, new KTypeArrayList<>(list));
+                assertEquals(reference.hashCode(), list.hashCode());
+                assertEquals(reference.indexOf(value), list.indexOf(value));
+                assertEquals(reference.lastIndexOf(value), list.lastIndexOf(value));
+                assertEquals(reference.contains(value), list.contains(value));
+            }
+        }
+
+        assertEquals(reference.removeAll(key1), list.removeAll(key1));
+        assertEquals(reference, new KTypeArrayList<>(list));
+
+        list.reverse();
+        reference.reverse();
+        assertEquals(reference, new KTypeArrayList<>(list));
+    }
+
+    /* */
+    @Test
+    public void testForEachSkipsGap()
+    {
+        for (int i = 0; i < 20; i++) {
+            list.add(cast(i));
+        }
+        list.insert(10, key1);
+        list.removeAt(10);
+        assertEquals(10, list.gapPosition());
+
+        final KTypeArrayList<KType> values = new KTypeArrayList<>();
+        list.forEach((KTypeProcedure<KType>) values::add, 5, 15);
+        assertEquals(10, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals2(cast(i + 5), values.get(i));
+        }
+
+        values.clear();
+        list.forEach((KTypeProcedure<KType>) values::add, 12, 18);
+        assertEquals2(cast(12), values.get(0));
+        assertEquals(6, values.size());
+
+        final int [] count = new int [1];
+        list.forEach((KTypePredicate<KType>) v -> ++count[0] < 15);
+        assertEquals(15, count[0]);
+
+        int index = 0;
+        for (KTypeCursor<KType> c : list) {
+            assertEquals(index, c.index);
+            assertEquals2(cast(index), c.value);
+            index++;
+        }
+        assertEquals(20, index);
+        assertEquals(10, list.gapPosition());
+    }
+
+    /* */
+    @Test
+    public void testRemoveAllWithExceptionInPredicate()
+    {
+        list.add(key1, key2, key3, key1, key4);
+        list.insert(2, key9);
+        try {
+            list.removeAll(new KTypePredicate<KType>() {
+                public boolean apply(KType v) {
+                    if (v == key3) throw new RuntimeException();
+                    return v == key1;
+                }
+            });
+            fail();
+        } catch (RuntimeException e) {
+            // Expected.
+        }
+        assertListEquals(list.toArray(), 2, 9, 3, 1, 4);
+    }
+
+    /* */
+    @Test
+    public void testSortCloneAndEquals()
+    {
+        list.add(key3, key1, key4, key2);
+        list.insert(1, key5);
+
+        final KTypeGapList<KType> cloned = list.clone();
+        cloned.removeAt(0);
+        assertEquals(5, list.size());
+
+        list.sort();
+        assertListEquals(list.toArray(), 1, 2, 3, 4, 5);
+        assertEquals(KTypeGapList.from(key1, key2, key3, key4, key5), list);
+        assertNotEquals(cloned, list);
+
+        list.clear();
+        assertTrue(list.isEmpty());
+        list.add(key1);
+        assertListEquals(list.toArray(), 1);
+
+        final long allocated = list.ramBytesAllocated();
+        list.release();
+        assertTrue(list.isEmpty());
+        assertTrue(list.ramBytesAllocated() < allocated);
+    }
+}
@@ -0,0 +1,170 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.isKTypeAnyOf("GENERIC", "BYTE", "FLOAT", "DOUBLE"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.*;
+
+/**
+ * Tests for {@link KTypeHashJoin}.
+ */
+/*! #if ($TemplateOptions.KTypeGeneric) @SuppressWarnings("all") #end !*/
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeHashJoinTest<KType> extends AbstractKTypeTest<KType>
+{
+    private KTypeArrayList<KType> randomColumn(int rows, int distinctKeys)
+    {
+        KTypeArrayList<KType> column = new KTypeArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            column.add(cast(randomIntBetween(0, distinctKeys)));
+        }
+        return column;
+    }
+
+    /**
+     * Encodes pairs as sorted <code>long</code>s for comparisons.
+     */
+    private static long[] pairs(IntArrayList left, IntArrayList right)
+    {
+        assertEquals(left.size(), right.size());
+        long[] pairs = new long[left.size()];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = ((long) left.get(i) << 32) | right.get(i);
+        }
+        Arrays.sort(pairs);
+        return pairs;
+    }
+
+    private long[] nestedLoopInner(KTypeArrayList<KType> left, KTypeArrayList<KType> right)
+    {
+        IntArrayList leftRows = new IntArrayList();
+        IntArrayList rightRows = new IntArrayList();
+        for (int i = 0; i < left.size(); i++) {
+            for (int j = 0; j < right.size(); j++) {
+                if (Intrinsics.<KType> equals(left.get(i), right.get(j))) {
+                    leftRows.add(i);
+                    rightRows.add(j);
+                }
+            }
+        }
+        return pairs(leftRows, rightRows);
+    }
+
+    private IntArrayList nestedLoopFilter(KTypeArrayList<KType> left, KTypeArrayList<KType> right, boolean matching)
+    {
+        IntArrayList leftRows = new IntArrayList();
+        for (int i = 0; i < left.size(); i++) {
+            if (right.contains(left.get(i)) == matching) {
+                leftRows.add(i);
+            }
+        }
+        return leftRows;
+    }
+
+    /* */
+    @Test
+    public void testChains()
+    {
+        KTypeArrayList<KType> build = KTypeArrayList.from(key1, key2, key1, keyE, key1);
+        KTypeHashJoin<KType> join = KTypeHashJoin.build(build);
+        assertEquals(5, join.size());
+
+        assertEquals(0, join.first(key1));
+        assertEquals(2, join.next(0));
+        assertEquals(4, join.next(2));
+        assertEquals(KTypeHashJoin.NOT_FOUND, join.next(4));
+
+        assertEquals(1, join.first(key2));
+        assertEquals(KTypeHashJoin.NOT_FOUND, join.next(1));
+        assertEquals(3, join.first(keyE));
+        assertEquals(KTypeHashJoin.NOT_FOUND, join.first(key3));
+    }
+
+    /* */
+    @Test
+    public void testInnerJoin()
+    {
+        KTypeArrayList<KType> left = randomColumn(randomIntBetween(0, 300), 50);
+        KTypeArrayList<KType> right = randomColumn(randomIntBetween(0, 300), 50);
+
+        IntArrayList leftRows = new IntArrayList();
+        IntArrayList rightRows = new IntArrayList();
+        int count = KTypeHashJoin.innerJoin(left, right, leftRows, rightRows);
+        assertEquals(leftRows.size(), count);
+        assertArrayEquals(nestedLoopInner(left, right), pairs(leftRows, rightRows));
+    }
+
+    /* */
+    @Test
+    public void testSemiAntiJoin()
+    {
+        KTypeArrayList<KType> left = randomColumn(randomIntBetween(0, 300), 50);
+        KTypeArrayList<KType> right = randomColumn(randomIntBetween(0, 300), 50);
+
+        IntArrayList semi = new IntArrayList();
+        int count = KTypeHashJoin.semiJoin(left, right, semi);
+        assertEquals(semi.size(), count);
+        assertEquals(nestedLoopFilter(left, right, true), semi);
+
+        IntArrayList anti = new IntArrayList();
+        count = KTypeHashJoin.antiJoin(left, right, anti);
+        assertEquals(anti.size(), count);
+        assertEquals(nestedLoopFilter(left, right, false), anti);
+    }
+
+    /* */
+    @Test
+    public void testProbeOrder()
+    {
+        KTypeArrayList<KType> build = KTypeArrayList.from(key2, key1, key2);
+        KTypeArrayList<KType> probe = KTypeArrayList.from(key1, key3, key2);
+
+        IntArrayList probeRows = new IntArrayList();
+        IntArrayList buildRows = new IntArrayList();
+        assertEquals(3, KTypeHashJoin.build(build).inner(probe, probeRows, buildRows));
+        assertEquals(IntArrayList.from(0, 2, 2), probeRows);
+        assertEquals(IntArrayList.from(1, 0, 2), buildRows);
+    }
+
+    /* */
+    @Test
+    public void testBuildParallel()
+    {
+        KTypeArrayList<KType> build = randomColumn(KTypeHashJoin.PARALLEL_THRESHOLD * randomIntBetween(2, 4), 10000);
+        KTypeArrayList<KType> probe = randomColumn(randomIntBetween(0, 1000), 20000);
+
+        KTypeHashJoin<KType> sequential = KTypeHashJoin.build(build);
+        KTypeHashJoin<KType> parallel = KTypeHashJoin.buildParallel(build);
+        assertEquals(sequential.size(), parallel.size());
+        assertProbesEqual(sequential, parallel, probe);
+
+        // Force partitioning, regardless of the number of available processors.
+        assertProbesEqual(sequential, KTypeHashJoin.buildPartitioned(build, randomIntBetween(1, 4)), probe);
+
+        // A partial last chunk of rows (or a single one).
+        build = randomColumn(KTypeHashJoin.PARALLEL_THRESHOLD * randomIntBetween(0, 1) + randomIntBetween(0, 1000), 10000);
+        assertProbesEqual(KTypeHashJoin.build(build), KTypeHashJoin.buildPartitioned(build, randomIntBetween(1, 4)), probe);
+    }
+
+    private void assertProbesEqual(KTypeHashJoin<KType> sequential, KTypeHashJoin<KType> parallel, KTypeArrayList<KType> probe)
+    {
+
+        IntArrayList expectedProbe = new IntArrayList();
+        IntArrayList expectedBuild = new IntArrayList();
+        sequential.inner(probe, expectedProbe, expectedBuild);
+
+        IntArrayList probeRows = new IntArrayList();
+        IntArrayList buildRows = new IntArrayList();
+        parallel.inner(probe, probeRows, buildRows);
+        assertEquals(expectedProbe, probeRows);
+        assertEquals(expectedBuild, buildRows);
+
+        IntArrayList expectedAnti = new IntArrayList();
+        IntArrayList anti = new IntArrayList();
+        sequential.anti(probe, expectedAnti);
+        parallel.anti(probe, anti);
+        assertEquals(expectedAnti, anti);
+    }
+}
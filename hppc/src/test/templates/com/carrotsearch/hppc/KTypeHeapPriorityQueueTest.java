@@ -0,0 +1,123 @@
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Arrays;
+/*! #if ($TemplateOptions.KTypeGeneric) !*/
+import java.util.Comparator;
+/*! #end !*/
+
+import org.junit.*;
+
+import com.carrotsearch.hppc.comparators.*;
+
+/**
+ * Tests for {@link KTypeHeapPriorityQueue}.
+ */
+/*! #if ($TemplateOptions.KTypeGeneric) @SuppressWarnings("all") #end !*/
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeHeapPriorityQueueTest<KType> extends AbstractKTypeTest<KType>
+{
+    /**
+     * Per-test fresh initialized instance.
+     */
+    public KTypeHeapPriorityQueue<KType> queue = new KTypeHeapPriorityQueue<>();
+
+    /* */
+    @Test
+    public void testAddRemoveTop()
+    {
+        queue.add(key3);
+        queue.add(key1);
+        queue.add(key4);
+        queue.add(key1);
+        queue.add(key2);
+        assertEquals(5, queue.size());
+        assertEquals2(key1, queue.top());
+
+        assertEquals2(key1, queue.removeTop());
+        assertEquals2(key1, queue.removeTop());
+        assertEquals2(key2, queue.replaceTop(key5));
+        assertEquals2(key3, queue.removeTop());
+        assertEquals2(key4, queue.removeTop());
+        assertEquals2(key5, queue.removeTop());
+        assertTrue(queue.isEmpty());
+    }
+
+    /* */
+    @Test
+    public void testComparator()
+    {
+        /*! #if ($TemplateOptions.KTypeGeneric) !*/
+        Comparator<KType> reversed = (a, b) -> ((Comparable<KType>) b).compareTo(a);
+        /*! #else
+        KTypeComparator<KType> reversed = (a, b) -> Integer.compare((int) b, (int) a);
+        #end !*/
+        queue = new KTypeHeapPriorityQueue<>(0, reversed, 2);
+        queue.addAll(KTypeArrayList.from(key2, key7, key1, key9, key5));
+        assertEquals2(key9, queue.removeTop());
+        assertEquals2(key7, queue.removeTop());
+        assertEquals2(key5, queue.removeTop());
+        assertEquals2(key2, queue.removeTop());
+        assertEquals2(key1, queue.removeTop());
+    }
+
+    /* */
+    @Test
+    public void testAgainstSortedArray()
+    {
+        final int arity = randomIntBetween(2, 8);
+        queue = new KTypeHeapPriorityQueue<>(randomIntBetween(0, 100), null, arity);
+
+        final int count = randomIntBetween(0, 1000);
+        final int [] expected = new int [count];
+        final KTypeArrayList<KType> batch = new KTypeArrayList<>();
+        for (int i = 0; i < count; i++) {
+            expected[i] = randomIntBetween(0, 100);
+            if (randomBoolean()) {
+                queue.add(cast(expected[i]));
+            } else {
+                batch.add(cast(expected[i]));
+            }
+            // Bulk additions either sift up or rebuild the heap.
+            if (rarely()) {
+                assertEquals(batch.size(), queue.addAll(batch));
+                batch.clear();
+            }
+        }
+        queue.addAll(batch);
+        assertEquals(count, queue.size());
+        assertEquals(count, queue.toArray().length);
+
+        Arrays.sort(expected);
+        final KTypeHeapPriorityQueue<KType> cloned = queue.clone();
+        for (int i = 0; i < count; i++) {
+            assertEquals2(cast(expected[i]), queue.removeTop());
+        }
+        assertEquals(0, queue.size());
+        assertEquals(count, cloned.size());
+    }
+
+    /* */
+    @Test
+    public void testClearAndRelease()
+    {
+        queue.addAll(KTypeArrayList.from(key1, key2, key3));
+        int count = 0;
+        for (com.carrotsearch.hppc.cursors.KTypeCursor<KType> c : queue) {
+            count++;
+        }
+        assertEquals(3, count);
+
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertFalse(queue.iterator().hasNext());
+        queue.add(key2);
+        assertEquals2(key2, queue.top());
+
+        queue.release();
+        assertEquals(0, queue.size());
+        assertEquals(0, queue.buffer.length);
+    }
+}
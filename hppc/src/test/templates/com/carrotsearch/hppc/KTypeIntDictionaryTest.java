@@ -0,0 +1,147 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.isKTypeAnyOf("DOUBLE", "FLOAT", "BYTE"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import org.junit.*;
+
+/**
+ * Tests for {@link KTypeIntDictionary}.
+ */
+/*! #if ($TemplateOptions.KTypeGeneric) @SuppressWarnings("all") #end !*/
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeIntDictionaryTest<KType> extends AbstractKTypeTest<KType>
+{
+    /**
+     * Per-test fresh initialized instance.
+     */
+    public KTypeIntDictionary<KType> dict = new KTypeIntDictionary<>();
+
+    /* */
+    @Test
+    public void testGetOrAdd()
+    {
+        assertEquals(0, dict.getOrAdd(key3));
+        assertEquals(1, dict.getOrAdd(key1));
+        assertEquals(0, dict.getOrAdd(key3));
+        assertEquals(2, dict.getOrAdd(keyE));
+        assertEquals(3, dict.size());
+
+        assertEquals(1, dict.get(key1));
+        assertEquals(2, dict.get(keyE));
+        assertEquals(KTypeIntDictionary.NOT_FOUND, dict.get(key2));
+        assertTrue(dict.contains(key3));
+        assertFalse(dict.contains(key2));
+
+        assertEquals2(key3, dict.getKey(0));
+        assertEquals2(key1, dict.getKey(1));
+        assertEquals2(keyE, dict.getKey(2));
+    }
+
+    /* */
+    @Test
+    public void testGrowth()
+    {
+        dict = new KTypeIntDictionary<>(0);
+        final int count = 5000;
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, dict.getOrAdd(cast(i + 1)));
+        }
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, dict.get(cast(i + 1)));
+            assertEquals2(cast(i + 1), dict.getKey(i));
+        }
+        assertEquals(count, dict.size());
+    }
+
+    /* */
+    @Test
+    public void testFreeze()
+    {
+        dict.getOrAdd(key1);
+        assertFalse(dict.isFrozen());
+        assertSame(dict, dict.freeze());
+        assertTrue(dict.isFrozen());
+
+        assertEquals(0, dict.getOrAdd(key1));
+        try {
+            dict.getOrAdd(key2);
+            fail();
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        assertEquals(1, dict.size());
+
+        dict.clear();
+        assertFalse(dict.isFrozen());
+        assertTrue(dict.isEmpty());
+        assertEquals(0, dict.getOrAdd(key2));
+    }
+
+    /* */
+    @Test
+    public void testEncodeDecode()
+    {
+        KType[] src = newArray(key1, key2, key1, key3, key2);
+        int[] ids = dict.encode(src, 1, src.length, new int[src.length - 1]);
+        assertArrayEquals(new int[] {0, 1, 2, 0}, ids);
+
+        KType[] decoded = dict.decode(ids, Intrinsics.<KType> newArray(ids.length));
+        assertEquals2(key2, decoded[0]);
+        assertEquals2(key1, decoded[1]);
+        assertEquals2(key3, decoded[2]);
+        assertEquals2(key2, decoded[3]);
+    }
+
+    /* */
+    @Test
+    public void testEncodeParallel()
+    {
+        final int length = randomIntBetween(KTypeIntDictionary.PARALLEL_THRESHOLD,
+                                            KTypeIntDictionary.PARALLEL_THRESHOLD * 5);
+        KType[] src = Intrinsics.<KType> newArray(length);
+        for (int i = 0; i < length; i++) {
+            src[i] = cast(randomIntBetween(0, 100));
+        }
+
+        KTypeIntDictionary<KType> expected = new KTypeIntDictionary<>();
+        // Pre-populate both with some keys so that both lookup and add paths are used.
+        for (int i = 0; i < 30; i++) {
+            expected.getOrAdd(cast(i * 2));
+            dict.getOrAdd(cast(i * 2));
+        }
+
+        int[] expectedIds = expected.encode(src, 0, length, new int[length]);
+        int[] ids = dict.encodeParallel(src, 0, length, new int[length]);
+        assertArrayEquals(expectedIds, ids);
+        assertEquals(expected.size(), dict.size());
+
+        dict.freeze();
+        int[] lookedUp = dict.lookupParallel(src, 0, length, new int[length]);
+        assertArrayEquals(expectedIds, lookedUp);
+    }
+
+    /* */
+    @Test
+    public void testLookupParallelMissing()
+    {
+        dict.getOrAdd(key1);
+        KType[] src = newArray(key1, key2);
+        assertArrayEquals(new int[] {0, KTypeIntDictionary.NOT_FOUND},
+                          dict.lookupParallel(src, 0, 2, new int[2]));
+        assertEquals(1, dict.size());
+    }
+
+    /* */
+    @Test
+    public void testRelease()
+    {
+        dict.getOrAdd(key1);
+        dict.freeze();
+        dict.release();
+        assertTrue(dict.isEmpty());
+        assertFalse(dict.isFrozen());
+        assertEquals(0, dict.getOrAdd(key2));
+    }
+}
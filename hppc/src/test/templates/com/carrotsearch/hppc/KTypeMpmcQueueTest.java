@@ -0,0 +1,156 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypeGeneric)) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+
+/**
+ * Tests for {@link KTypeMpmcQueue}.
+ */
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeMpmcQueueTest<KType> extends AbstractKTypeTest<KType>
+{
+    /* */
+    @Test
+    public void testOfferPoll()
+    {
+        KTypeMpmcQueue<KType> queue = new KTypeMpmcQueue<>(3);
+        assertEquals(4, queue.capacity());
+        assertEquals2(key9, queue.pollOrDefault(key9));
+        assertEquals(1, queue.emptyCount());
+
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(queue.offer(cast(i)));
+        }
+        assertFalse(queue.offer(key5));
+        assertEquals(1, queue.fullCount());
+        assertEquals(4, queue.size());
+        assertEquals(1.0, queue.fillRatio(), 0);
+
+        assertEquals2(key1, queue.pollOrDefault(key9));
+        assertTrue(queue.offer(key5));
+
+        final KTypeArrayList<KType> drained = KTypeArrayList.from(key0);
+        assertEquals(2, queue.drainTo(drained, 2));
+        assertEquals(2, queue.drainTo(drained));
+        assertEquals(0, queue.drainTo(drained));
+        assertEquals(KTypeArrayList.from(key0, key2, key3, key4, key5), drained);
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.contentionCount());
+
+        try {
+            new KTypeMpmcQueue<KType>(1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    /* */
+    @Test
+    public void testBlocking() throws Exception
+    {
+        final KTypeMpmcQueue<KType> queue = new KTypeMpmcQueue<>(2, WaitStrategy.parking(1000));
+        Thread consumer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 100; i++) {
+                    assertEquals2(cast(i), queue.take());
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        consumer.start();
+        for (int i = 0; i < 100; i++) {
+            queue.put(cast(i));
+        }
+        consumer.join();
+        assertTrue(queue.isEmpty());
+
+        Thread.currentThread().interrupt();
+        try {
+            queue.take();
+            fail();
+        } catch (InterruptedException e) {
+            // Expected.
+        }
+    }
+
+    /* */
+    @Test
+    public void testConcurrentProducersConsumers() throws Exception
+    {
+        // Each producer adds its own identifier, consumers count the identifiers they receive.
+        final int producers = randomIntBetween(1, 4);
+        final int consumers = randomIntBetween(1, 4);
+        final int perProducer = randomIntBetween(100, 5000);
+        final KTypeMpmcQueue<KType> queue = new KTypeMpmcQueue<>(
+            randomIntBetween(2, 64),
+            randomFrom(new WaitStrategy [] {
+                WaitStrategy.busySpin(), WaitStrategy.yielding(), WaitStrategy.parking() }));
+
+        final KType none = cast(producers);
+        final AtomicInteger consumed = new AtomicInteger();
+        final int [][] received = new int [consumers][producers];
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final KType id = cast(p);
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perProducer; i++) {
+                        queue.put(id);
+                    }
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            final int [] counts = received[c];
+            final boolean batched = randomBoolean();
+            threads.add(new Thread(() -> {
+                final KTypeArrayList<KType> batch = new KTypeArrayList<>();
+                while (consumed.get() < producers * perProducer) {
+                    batch.clear();
+                    if (batched) {
+                        queue.drainTo(batch, 8);
+                    } else {
+                        final KType id = queue.pollOrDefault(none);
+                        if (id != none) {
+                            batch.add(id);
+                        }
+                    }
+                    if (batch.isEmpty()) {
+                        Thread.yield();
+                    }
+                    for (int i = 0; i < batch.size(); i++) {
+                        counts[(int) Intrinsics.<KType> numeric(batch.get(i))]++;
+                    }
+                    consumed.addAndGet(batch.size());
+                }
+            }));
+        }
+
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        for (int p = 0; p < producers; p++) {
+            int total = 0;
+            for (int c = 0; c < consumers; c++) {
+                total += received[c][p];
+            }
+            assertEquals(perProducer, total);
+        }
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,283 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypeGeneric)) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.*;
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+
+/**
+ * Tests for {@link KTypeOffHeapArrayList}.
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeOffHeapArrayListTest<KType> extends AbstractKTypeTest<KType>
+{
+    /**
+     * A list with small pages, so that tests span many of them.
+     */
+    private KTypeOffHeapArrayList<KType> newList()
+    {
+        return new KTypeOffHeapArrayList<>(
+            KTypeOffHeapArrayList.MIN_PAGE_BYTES_SHIFT,
+            randomBoolean() ? ByteBuffer::allocateDirect : ByteBuffer::allocate);
+    }
+
+    /* */
+    @Test
+    public void testAgainstArrayList()
+    {
+        final Random rnd = new Random(randomLong());
+        try (KTypeOffHeapArrayList<KType> list = newList()) {
+            final KTypeArrayList<KType> reference = new KTypeArrayList<>();
+
+            for (int round = 0; round < 3000; round++) {
+                final KType value = cast(rnd.nextInt(100));
+                switch (reference.isEmpty() ? 0 : rnd.nextInt(8)) {
+                    case 0:
+                    case 1:
+                    case 2:
+                        list.add(value);
+                        reference.add(value);
+                        break;
+                    case 3:
+                        final int index = rnd.nextInt(reference.size() + 1);
+                        list.insert(index, value);
+                        reference.insert(index, value);
+                        break;
+                    case 4:
+                        final int at = rnd.nextInt(reference.size());
+                        assertEquals2(reference.removeAt(at), list.removeAt(at));
+                        break;
+                    case 5:
+                        final int set = rnd.nextInt(reference.size());
+                        assertEquals2(reference.set(set, value), list.set(set, value));
+                        break;
+                    case 6:
+                        assertEquals(reference.removeFirst(value), list.removeFirst(value));
+                        assertEquals(reference.removeLast(value), list.removeLast(value));
+                        break;
+                    case 7:
+                        assertEquals2(reference.removeLast(), list.removeLast());
+                        break;
+                    default:
+                        throw new RuntimeException();
+                }
+
+                assertEquals(reference.size(), list.size());
+                if (rnd.nextInt(100) == 0) {
+                    assertEquals(reference, new KTypeArrayList<>(list));
+                    assertEquals(reference.indexOf(value), list.indexOf(value));
+                    assertEquals(reference.lastIndexOf(value), list.lastIndexOf(value));
+                    assertEquals(reference.contains(value), list.contains(value));
+                    assertEquals(reference.hashCode(), list.hashCode());
+                }
+            }
+
+            final KType [] bulk = Intrinsics.<KType> newArray(1000);
+            for (int i = 0; i < bulk.length; i++) {
+                bulk[i] = cast(rnd.nextInt(100));
+                reference.add(bulk[i]);
+            }
+            list.add(bulk, 0, bulk.length);
+            assertEquals(reference, new KTypeArrayList<>(list));
+
+            assertEquals(reference.removeAll(key1), list.removeAll(key1));
+            list.removeRange(10, 100);
+            reference.removeRange(10, 100);
+            assertEquals(reference, new KTypeArrayList<>(list));
+
+            list.reverse();
+            reference.reverse();
+            assertEquals(reference, new KTypeArrayList<>(list));
+
+            list.sort();
+            reference.sort();
+            assertEquals(reference, new KTypeArrayList<>(list));
+
+            int i = 0;
+            for (KTypeCursor<KType> c : list) {
+                assertEquals(i, c.index);
+                assertEquals2(reference.get(i++), c.value);
+            }
+            assertEquals(reference.size(), i);
+
+            assertTrue(list.ramBytesAllocated() >= list.ramBytesUsed());
+            assertTrue(list.ramBytesUsed() >= (long) reference.size());
+        }
+    }
+
+    /* */
+    @Test
+    public void testShiftsAcrossPages()
+    {
+        final Random rnd = new Random(randomLong());
+        try (KTypeOffHeapArrayList<KType> list = newList()) {
+            final KTypeArrayList<KType> reference = new KTypeArrayList<>();
+            for (int i = 0; i < 20000; i++) {
+                final KType value = cast(rnd.nextInt());
+                list.add(value);
+                reference.add(value);
+            }
+
+            for (int round = 0; round < 50; round++) {
+                final KType value = cast(rnd.nextInt());
+                final int index = rnd.nextInt(reference.size() + 1);
+                list.insert(index, value);
+                reference.insert(index, value);
+
+                final int at = rnd.nextInt(reference.size());
+                assertEquals2(reference.removeAt(at), list.removeAt(at));
+
+                final int from = rnd.nextInt(reference.size());
+                final int to = from + rnd.nextInt(Math.min(10000, reference.size() - from) + 1);
+                list.removeRange(from, to);
+                reference.removeRange(from, to);
+                for (int i = to - from; i > 0; i--) {
+                    list.add(value);
+                    reference.add(value);
+                }
+            }
+            list.insert(0, key1);
+            reference.insert(0, key1);
+            list.insert(list.size(), key2);
+            reference.insert(reference.size(), key2);
+            assertEquals(reference, new KTypeArrayList<>(list));
+
+            list.removeRange(0, list.size());
+            assertTrue(list.isEmpty());
+        }
+    }
+
+    /* */
+    @Test
+    public void testSortMergesRuns()
+    {
+        final Random rnd = new Random(randomLong());
+        try (KTypeOffHeapArrayList<KType> list = newList()) {
+            // Longer than a single sorted run, with a partial last run.
+            final KType [] values = Intrinsics.<KType> newArray(5 * (1 << 19) + 123);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = cast(rnd.nextInt());
+            }
+            list.add(values, 0, values.length);
+
+            final KTypeArrayList<KType> reference = new KTypeArrayList<>();
+            reference.add(values, 0, values.length);
+            reference.sort();
+            list.sort();
+            assertEquals(reference, new KTypeArrayList<>(list));
+        }
+    }
+
+    /* */
+    @Test
+    public void testReverse()
+    {
+        final Random rnd = new Random(randomLong());
+        try (KTypeOffHeapArrayList<KType> list = newList()) {
+            final KTypeArrayList<KType> reference = new KTypeArrayList<>();
+            for (int size : new int [] {0, 1, 2, 3, 4097, 20000, 20001}) {
+                list.clear();
+                reference.clear();
+                for (int i = 0; i < size; i++) {
+                    final KType value = cast(rnd.nextInt());
+                    list.add(value);
+                    reference.add(value);
+                }
+                list.reverse();
+                reference.reverse();
+                assertEquals(reference, new KTypeArrayList<>(list));
+            }
+        }
+    }
+
+    /* */
+    @Test
+    public void testRemoveAllWithExceptionInPredicate()
+    {
+        KTypeOffHeapArrayList<KType> list = newList();
+        list.addAll(KTypeArrayList.from(k0, k1, k2, k1, k4));
+        try {
+            list.removeAll(new KTypePredicate<KType>() {
+                public boolean apply(KType v) {
+                    if (v == key2) throw new RuntimeException();
+                    return v == key1;
+                }
+            });
+            fail();
+        } catch (RuntimeException e) {
+            // Expected.
+        }
+        assertListEquals(list.toArray(), 0, 2, 1, 4);
+    }
+
+    /* */
+    @Test
+    public void testWriteAndMap() throws Exception
+    {
+        final KTypeOffHeapArrayList<KType> list = newList();
+        for (int i = 0; i < 5000; i++) {
+            list.add(cast(i));
+        }
+
+        final Path file = Files.createTempFile("hppc", ".bin");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                list.writeTo(channel);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final KTypeOffHeapArrayList<KType> mapped = KTypeOffHeapArrayList.map(channel);
+                assertTrue(mapped.isReadOnly());
+                assertEquals(list, mapped);
+                assertEquals2(list.get(4321), mapped.get(4321));
+                try {
+                    mapped.add(key1);
+                    fail();
+                } catch (ReadOnlyBufferException e) {
+                    // Expected.
+                }
+                mapped.close();
+                assertTrue(mapped.isEmpty());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /* */
+    @Test
+    public void testWrap() throws Exception
+    {
+        final KTypeOffHeapArrayList<KType> list = newList();
+        for (int i = 0; i < 100; i++) {
+            list.add(cast(i));
+        }
+        final java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        list.writeTo(java.nio.channels.Channels.newChannel(bytes));
+
+        final KTypeOffHeapArrayList<KType> wrapped =
+            KTypeOffHeapArrayList.wrap(ByteBuffer.wrap(bytes.toByteArray()));
+        assertEquals(list, wrapped);
+        try {
+            wrapped.set(0, key1);
+            fail();
+        } catch (ReadOnlyBufferException e) {
+            // Expected.
+        }
+
+        list.release();
+        assertTrue(list.isEmpty());
+        assertTrue(list.ramBytesAllocated() < wrapped.ramBytesAllocated());
+    }
+}
@@ -0,0 +1,178 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Random;
+
+import org.junit.*;
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * Tests for {@link KTypePackedList}.
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypePackedListTest<KType> extends AbstractKTypeTest<KType>
+{
+    private void assertSameElements(KTypeArrayList<KType> expected, KTypePackedList<KType> packed)
+    {
+        assertEquals(expected.size(), packed.size());
+        assertEquals(expected.isEmpty(), packed.isEmpty());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals2(expected.get(i), packed.get(i));
+        }
+        assertEquals(expected, packed.toList());
+
+        int index = 0;
+        for (KTypeCursor<KType> c : packed) {
+            assertEquals(index, c.index);
+            assertEquals2(expected.get(index++), c.value);
+        }
+        assertEquals(expected.size(), index);
+
+        final KTypeArrayList<KType> visited = new KTypeArrayList<>();
+        packed.forEach((KTypeProcedure<KType>) visited::add);
+        assertEquals(expected, visited);
+
+        final KType [] block = Intrinsics.<KType> newArray(KTypePackedList.BLOCK_SIZE + 1);
+        for (int b = 0; b < packed.blockCount(); b++) {
+            final int length = packed.decodeBlock(b, block, 1);
+            for (int i = 0; i < length; i++) {
+                assertEquals2(expected.get(b * KTypePackedList.BLOCK_SIZE + i), block[i + 1]);
+            }
+        }
+    }
+
+    /* */
+    @Test
+    public void testEmpty()
+    {
+        final KTypePackedList<KType> packed = new KTypePackedList<>(new KTypeArrayList<KType>());
+        assertTrue(packed.isEmpty());
+        assertEquals(0, packed.blockCount());
+        assertFalse(packed.contains(key1));
+        assertEquals(0, packed.toArray().length);
+        assertFalse(packed.iterator().hasNext());
+    }
+
+    /* */
+    @Test
+    public void testAgainstArrayList()
+    {
+        final Random rnd = new Random(randomLong());
+        for (int round = 0; round < 100; round++) {
+            final KTypeArrayList<KType> list = new KTypeArrayList<>();
+            final int size = rnd.nextInt(1000);
+            int value = rnd.nextInt(1000) - 500;
+            for (int i = 0; i < size; i++) {
+                switch (round % 5) {
+                    case 0:
+                        // Small values.
+                        value = rnd.nextInt(100);
+                        break;
+                    case 1:
+                        // Slowly increasing ids.
+                        value += rnd.nextInt(10);
+                        break;
+                    case 2:
+                        // Small values with rare outliers (exceptions).
+                        value = rnd.nextInt(50) == 0 ? rnd.nextInt() : rnd.nextInt(16);
+                        break;
+                    case 3:
+                        // A slowly decreasing sequence.
+                        value -= rnd.nextInt(3);
+                        break;
+                    case 4:
+                        // Full range.
+                        value = rnd.nextInt();
+                        break;
+                    default:
+                        throw new RuntimeException();
+                }
+                list.add(cast(value));
+            }
+
+            final KTypePackedList<KType> packed = new KTypePackedList<>(list);
+            final KTypePackedList<KType> deltas = new KTypePackedList<>(list, true);
+            assertFalse(packed.isDeltaEncoded());
+            assertTrue(deltas.isDeltaEncoded());
+            assertSameElements(list, packed);
+            assertSameElements(list, deltas);
+            assertEquals(packed, deltas);
+            assertEquals(packed.hashCode(), deltas.hashCode());
+
+            if (!list.isEmpty()) {
+                final KType present = list.get(rnd.nextInt(list.size()));
+                assertTrue(packed.contains(present));
+                assertTrue(deltas.contains(present));
+            }
+
+            final int from = rnd.nextInt(list.size() + 1);
+            final int to = from + rnd.nextInt(list.size() - from + 1);
+            final KTypeArrayList<KType> range = new KTypeArrayList<>();
+            final KType [] buffer = Intrinsics.<KType[]> cast(list.buffer);
+            range.add(buffer, from, to - from);
+            assertSameElements(range, new KTypePackedList<>(buffer, from, to, round % 2 == 0));
+        }
+    }
+
+    /* */
+    @Test
+    public void testForEachPredicateStops()
+    {
+        final KTypeArrayList<KType> list = new KTypeArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(cast(i));
+        }
+        final int [] count = new int [1];
+        new KTypePackedList<>(list).forEach((KTypePredicate<KType>) v -> ++count[0] < 300);
+        assertEquals(300, count[0]);
+    }
+
+    /* */
+    @Test
+    public void testCompression()
+    {
+        final Random rnd = new Random(randomLong());
+        final KTypeArrayList<KType> ids = new KTypeArrayList<>();
+        int id = rnd.nextInt(1000000);
+        for (int i = 0; i < 100000; i++) {
+            ids.add(cast(id += 1 + rnd.nextInt(20)));
+        }
+        ids.trimToSize();
+
+        final KTypePackedList<KType> packed = new KTypePackedList<>(ids, true);
+        assertSameElements(ids, packed);
+        // Differences need five bits, instead of 32 or 64.
+        assertTrue(packed.ramBytesUsed() * 4 < ids.ramBytesUsed());
+        assertEquals(packed.ramBytesAllocated(), packed.ramBytesUsed());
+
+        // Constant strides need no bits at all.
+        final KTypeArrayList<KType> stride = new KTypeArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            stride.add(cast(i * 3));
+        }
+        final KTypePackedList<KType> packedStride = new KTypePackedList<>(stride, true);
+        assertSameElements(stride, packedStride);
+        assertTrue(packedStride.ramBytesUsed() * 20 < stride.ramBytesUsed());
+    }
+
+    /*! #if ($TemplateOptions.isKTypeAnyOf("LONG"))
+    @Test
+    public void testFullRangeLongs()
+    {
+        final Random rnd = new Random(randomLong());
+        final LongArrayList list = new LongArrayList();
+        list.add(Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, Long.MAX_VALUE, Long.MIN_VALUE);
+        for (int i = 0; i < 1000; i++) {
+            list.add(rnd.nextInt(4) == 0 ? rnd.nextLong() : rnd.nextInt(1000));
+        }
+        assertSameElements(list, new LongPackedList(list));
+        assertSameElements(list, new LongPackedList(list, true));
+    }
+    #end !*/
+}
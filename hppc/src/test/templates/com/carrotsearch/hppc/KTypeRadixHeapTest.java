@@ -0,0 +1,86 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import org.junit.*;
+
+/**
+ * Tests for {@link KTypeRadixHeap}.
+ */
+/*! #if ($TemplateOptions.KTypeGeneric) @SuppressWarnings("all") #end !*/
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeRadixHeapTest<KType> extends AbstractKTypeTest<KType>
+{
+    /**
+     * Per-test fresh initialized instance.
+     */
+    public KTypeRadixHeap<KType> heap = new KTypeRadixHeap<>();
+
+    /* */
+    @Test
+    public void testAddRemoveTop()
+    {
+        heap.add(key5, 50);
+        heap.add(key1, 10);
+        heap.add(key9, 90);
+        heap.add(cast(-3), -30);
+        assertEquals(4, heap.size());
+
+        assertEquals2(cast(-3), heap.topKey());
+        assertEquals(-30, heap.topValue());
+        assertEquals(-30, heap.removeTop());
+        assertEquals(10, heap.removeTop());
+        assertEquals2(key1, heap.lastKey());
+
+        heap.add(key1, 11);
+        heap.add(key7, 70);
+        assertEquals(11, heap.removeTop());
+        assertEquals(50, heap.removeTop());
+        assertEquals(70, heap.removeTop());
+        assertEquals(90, heap.removeTop());
+        assertTrue(heap.isEmpty());
+        assertEquals2(key9, heap.lastKey());
+
+        try {
+            heap.add(key8, 0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+
+        heap.clear();
+        heap.add(key0, 0);
+        assertEquals(0, heap.removeTop());
+    }
+
+    /* */
+    @Test
+    public void testAgainstHeapPriorityQueue()
+    {
+        // Encode payloads (element ids) in the low bits of a reference queue's keys.
+        final KTypeHeapPriorityQueue<KType> reference = new KTypeHeapPriorityQueue<>();
+        final IntArrayList keyOf = new IntArrayList();
+        int nextId = 0;
+        int lastKey = randomIntBetween(-1000, 1000);
+        for (int round = 0; round < 5000; round++) {
+            if (heap.isEmpty() || randomBoolean()) {
+                final int key = lastKey
+                    + (randomBoolean() ? 0 : randomIntBetween(0, 1 << randomIntBetween(0, 16)));
+                heap.add(cast(key), nextId);
+                reference.add(cast(key));
+                keyOf.add(key);
+                nextId++;
+            } else {
+                final KType expected = reference.removeTop();
+                assertEquals2(expected, heap.topKey());
+                final int id = heap.removeTop();
+                assertEquals2(expected, cast(keyOf.get(id)));
+                assertEquals2(expected, heap.lastKey());
+                lastKey = keyOf.get(id);
+            }
+            assertEquals(reference.size(), heap.size());
+        }
+    }
+}
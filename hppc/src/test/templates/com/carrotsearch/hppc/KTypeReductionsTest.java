@@ -0,0 +1,116 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG", "FLOAT", "DOUBLE"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Random;
+
+import org.junit.*;
+
+/**
+ * Tests for {@link KTypeReductions}.
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeReductionsTest<KType> extends AbstractKTypeTest<KType>
+{
+    private KTypeArrayList<KType> randomList(Random rnd, int size)
+    {
+        final KTypeArrayList<KType> list = new KTypeArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(cast(rnd.nextInt(201) - 100));
+        }
+        return list;
+    }
+
+    /* */
+    @Test
+    public void testSmallLists()
+    {
+        final KTypeArrayList<KType> list = KTypeArrayList.from(key3, key1, key4, key1, key5, key9, key2);
+        assertEquals(25, KTypeReductions.sum(list), 0);
+        assertEquals(25 / 7d, KTypeReductions.mean(list), 0);
+        assertEquals2(key1, KTypeReductions.min(list));
+        assertEquals2(key9, KTypeReductions.max(list));
+        assertEquals(3 * 3 + 1 + 4 * 4 + 1 + 5 * 5 + 9 * 9 + 2 * 2, KTypeReductions.dot(list, list), 0);
+
+        final long [] histogram = KTypeReductions.histogram(list, key1, key5, 4);
+        assertArrayEquals(new long [] {2, 1, 1, 2}, histogram);
+
+        assertEquals(0, KTypeReductions.sum(new KTypeArrayList<KType>()), 0);
+        assertTrue(Double.isNaN(KTypeReductions.mean(new KTypeArrayList<KType>())));
+        assertEquals2(key4, KTypeReductions.min(KTypeArrayList.from(key4)));
+
+        try {
+            KTypeReductions.dot(list, KTypeArrayList.from(key1));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        try {
+            KTypeReductions.histogram(list, key5, key1, 4);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    /* */
+    @Test
+    public void testAgainstLinearLoops()
+    {
+        final Random rnd = new Random(randomLong());
+        for (int round = 0; round < 100; round++) {
+            final int size = rnd.nextInt(50) + 1;
+            final KTypeArrayList<KType> a = randomList(rnd, size);
+            final KTypeArrayList<KType> b = randomList(rnd, size);
+            final int from = rnd.nextInt(size);
+            final int to = from + 1 + rnd.nextInt(size - from);
+            final KType [] buffer = Intrinsics.<KType[]> cast(a.buffer);
+
+            double sum = 0, dot = 0;
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            final long [] histogram = new long [5];
+            for (int i = from; i < to; i++) {
+                final double v = Intrinsics.<KType> numeric(a.get(i));
+                sum += v;
+                dot += v * Intrinsics.<KType> numeric(b.get(i));
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+                if (v >= -50 && v <= 50) {
+                    histogram[Math.min(4, (int) ((v + 50) / 20))]++;
+                }
+            }
+
+            assertEquals(sum, KTypeReductions.sum(buffer, from, to), 0);
+            assertEquals(min, Intrinsics.<KType> numeric(KTypeReductions.min(buffer, from, to)), 0);
+            assertEquals(max, Intrinsics.<KType> numeric(KTypeReductions.max(buffer, from, to)), 0);
+            assertEquals(dot, KTypeReductions.dot(buffer, Intrinsics.<KType[]> cast(b.buffer), from, to), 0);
+            assertArrayEquals(histogram,
+                KTypeReductions.histogram(buffer, from, to, cast(-50), cast(50), new long [5]));
+        }
+    }
+
+    /* */
+    @Test
+    public void testParallelAgainstSequential()
+    {
+        final Random rnd = new Random(randomLong());
+        final int size = 3 * KTypeReductions.PARALLEL_THRESHOLD + rnd.nextInt(1000);
+        final KTypeArrayList<KType> a = randomList(rnd, size);
+        final KTypeArrayList<KType> b = randomList(rnd, size);
+
+        assertEquals(KTypeReductions.sum(a), KTypeReductions.parallelSum(a), 0);
+        assertEquals2(KTypeReductions.min(a), KTypeReductions.parallelMin(a));
+        assertEquals2(KTypeReductions.max(a), KTypeReductions.parallelMax(a));
+        assertEquals(KTypeReductions.dot(a, b), KTypeReductions.parallelDot(a, b), 0);
+        assertArrayEquals(
+            KTypeReductions.histogram(a, cast(-10), cast(90), 7),
+            KTypeReductions.parallelHistogram(a, cast(-10), cast(90), 7));
+
+        // A short range is reduced sequentially.
+        assertEquals(
+            KTypeReductions.sum(Intrinsics.<KType[]> cast(a.buffer), 10, 20),
+            KTypeReductions.parallelSum(Intrinsics.<KType[]> cast(a.buffer), 10, 20), 0);
+    }
+}
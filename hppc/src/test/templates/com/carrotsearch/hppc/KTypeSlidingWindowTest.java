@@ -0,0 +1,100 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG", "FLOAT", "DOUBLE"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Random;
+
+import org.junit.*;
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * Tests for {@link KTypeSlidingWindow}.
+ */
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeSlidingWindowTest<KType> extends AbstractKTypeTest<KType>
+{
+    /* */
+    @Test
+    public void testAddEvict()
+    {
+        KTypeSlidingWindow<KType> window = new KTypeSlidingWindow<>(3);
+        assertTrue(window.isEmpty());
+        assertTrue(Double.isNaN(window.mean()));
+
+        window.add(key5);
+        window.add(key1);
+        window.add(key3);
+        assertTrue(window.isFull());
+        assertEquals(9, window.sum(), 0);
+        assertEquals(3, window.mean(), 0);
+        assertEquals2(key1, window.min());
+        assertEquals2(key5, window.max());
+        assertEquals2(key5, window.oldest());
+        assertEquals2(key3, window.newest());
+
+        window.add(key2);
+        assertEquals(3, window.size());
+        assertEquals(6, window.sum(), 0);
+        assertEquals2(key1, window.min());
+        assertEquals2(key3, window.max());
+
+        window.add(key2);
+        assertEquals2(key2, window.min());
+        assertEquals2(key3, window.max());
+
+        assertEquals2(key3, window.removeOldest());
+        assertEquals2(key2, window.min());
+        assertEquals2(key2, window.max());
+
+        final KTypeArrayList<KType> values = new KTypeArrayList<>();
+        window.forEach((KTypeProcedure<KType>) values::add);
+        assertEquals(KTypeArrayList.from(key2, key2), values);
+
+        window.clear();
+        assertTrue(window.isEmpty());
+        assertEquals(0, window.sum(), 0);
+    }
+
+    /* */
+    @Test
+    public void testAgainstRescan()
+    {
+        final Random rnd = new Random(randomLong());
+        final int capacity = randomIntBetween(1, 50);
+        final KTypeSlidingWindow<KType> window = new KTypeSlidingWindow<>(capacity);
+        final KTypeArrayDeque<KType> reference = new KTypeArrayDeque<>();
+
+        for (int round = 0; round < 5000; round++) {
+            if (!reference.isEmpty() && rnd.nextInt(10) == 0) {
+                assertEquals2(reference.removeFirst(), window.removeOldest());
+            } else {
+                final KType value = cast(rnd.nextInt(100));
+                window.add(value);
+                reference.addLast(value);
+                if (reference.size() > capacity) {
+                    reference.removeFirst();
+                }
+            }
+
+            assertEquals(reference.size(), window.size());
+            if (!reference.isEmpty()) {
+                double sum = 0, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+                for (KTypeCursor<KType> c : reference) {
+                    final double v = Intrinsics.<KType> numeric(c.value);
+                    sum += v;
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+                assertEquals(sum, window.sum(), 0);
+                assertEquals(min, Intrinsics.<KType> numeric(window.min()), 0);
+                assertEquals(max, Intrinsics.<KType> numeric(window.max()), 0);
+                assertEquals2(reference.getFirst(), window.oldest());
+                assertEquals2(reference.getLast(), window.newest());
+            }
+        }
+    }
+}
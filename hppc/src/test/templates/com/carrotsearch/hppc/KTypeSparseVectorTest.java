@@ -0,0 +1,207 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.isKTypeAnyOf("GENERIC", "BYTE", "CHAR", "SHORT", "INT", "LONG"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import org.junit.*;
+
+/**
+ * Tests for {@link KTypeSparseVector}.
+ */
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeSparseVectorTest<KType> extends AbstractKTypeTest<KType>
+{
+    private static final double DELTA = 0;
+
+    /**
+     * A random vector of small integral values (so that all sums are exact) with indexes
+     * in <code>[0, dimensions)</code>.
+     */
+    private KTypeSparseVector<KType> randomVector(int dimensions, int nonZeros)
+    {
+        KTypeSparseVector<KType> vector = new KTypeSparseVector<>();
+        for (int index = 0; index < dimensions; index++) {
+            if (randomIntBetween(0, dimensions - 1) < nonZeros) {
+                vector.append(index, cast(randomIntBetween(-10, 10)));
+            }
+        }
+        return vector;
+    }
+
+    private double[] dense(KTypeSparseVector<KType> vector, int dimensions)
+    {
+        double[] dense = new double[dimensions];
+        for (int i = 0; i < vector.size(); i++) {
+            dense[vector.indices.get(i)] = Intrinsics.<KType> numeric(vector.values.get(i));
+        }
+        return dense;
+    }
+
+    /* */
+    @Test
+    public void testAppendGet()
+    {
+        KTypeSparseVector<KType> vector = new KTypeSparseVector<>();
+        assertTrue(vector.isEmpty());
+        vector.append(2, key1).append(5, key2).append(100, key3);
+        assertEquals(3, vector.size());
+
+        assertEquals2(key1, vector.get(2));
+        assertEquals2(key3, vector.get(100));
+        assertEquals2(Intrinsics.<KType> empty(), vector.get(3));
+        assertEquals(1, vector.position(5));
+        assertEquals(-3, vector.position(6));
+
+        try {
+            vector.append(100, key1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        try {
+            new KTypeSparseVector<KType>().append(-1, key1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    /* */
+    @Test
+    public void testDot()
+    {
+        final int dimensions = randomIntBetween(1, 2000);
+        KTypeSparseVector<KType> a = randomVector(dimensions, randomIntBetween(0, dimensions));
+        KTypeSparseVector<KType> b = randomVector(dimensions, randomIntBetween(0, dimensions));
+
+        double[] da = dense(a, dimensions);
+        double[] db = dense(b, dimensions);
+        double expected = 0;
+        for (int i = 0; i < dimensions; i++) {
+            expected += da[i] * db[i];
+        }
+
+        assertEquals(expected, a.dot(b), DELTA);
+        assertEquals(expected, b.dot(a), DELTA);
+        assertEquals(expected, a.dotMerge(b), DELTA);
+        assertEquals(expected, a.dotGalloping(b), DELTA);
+        assertEquals(expected, b.dotGalloping(a), DELTA);
+    }
+
+    /* */
+    @Test
+    public void testDotSameIndices()
+    {
+        KTypeSparseVector<KType> a = randomVector(1000, 300);
+        KTypeSparseVector<KType> b = a.clone();
+        b.scale(cast(2));
+
+        assertEquals(2 * a.dotMerge(a), a.dot(b), DELTA);
+        assertEquals(Math.sqrt(a.dotMerge(a)), a.norm(), 1e-9);
+        if (!a.isEmpty()) {
+            assertEquals(1, a.cosine(b), 1e-6);
+        }
+        assertEquals(0, a.cosine(new KTypeSparseVector<KType>()), DELTA);
+    }
+
+    /* */
+    @Test
+    public void testDotDense()
+    {
+        final int dimensions = randomIntBetween(1, 500);
+        KTypeSparseVector<KType> a = randomVector(dimensions, randomIntBetween(0, dimensions));
+        KType[] dense = Intrinsics.<KType> newArray(dimensions);
+        double expected = 0;
+        for (int i = 0; i < dimensions; i++) {
+            dense[i] = cast(randomIntBetween(-10, 10));
+            expected += Intrinsics.<KType> numeric(dense[i]) * Intrinsics.<KType> numeric(a.get(i));
+        }
+        assertEquals(expected, a.dot(dense), DELTA);
+
+        try {
+            new KTypeSparseVector<KType>().append(10, key1).dot(Intrinsics.<KType> newArray(10));
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // Expected.
+        }
+    }
+
+    /* */
+    @Test
+    public void testAxpy()
+    {
+        final int dimensions = randomIntBetween(1, 2000);
+        KTypeSparseVector<KType> y = randomVector(dimensions, randomIntBetween(0, dimensions));
+        KTypeSparseVector<KType> x = randomVector(dimensions, randomIntBetween(0, dimensions));
+        KType alpha = cast(randomIntBetween(-3, 3));
+
+        double[] dy = dense(y, dimensions);
+        double[] dx = dense(x, dimensions);
+
+        KTypeSparseVector<KType> result = y.axpy(alpha, x);
+        assertEquals(result, y.axpyMerge(alpha, x));
+        assertEquals(result, y.axpyGalloping(alpha, x));
+
+        int expectedSize = 0;
+        for (int i = 0; i < dimensions; i++) {
+            if (y.position(i) >= 0 || x.position(i) >= 0) {
+                expectedSize++;
+            }
+            assertEquals(Intrinsics.<KType> numeric(alpha) * dx[i] + dy[i], Intrinsics.<KType> numeric(result.get(i)), DELTA);
+        }
+        assertEquals(expectedSize, result.size());
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.indices.get(i - 1) < result.indices.get(i));
+        }
+
+        assertEquals(y.axpy(cast(1), x), y.add(x));
+    }
+
+    /* */
+    @Test
+    public void testGallop()
+    {
+        int[] array = {1, 3, 5, 7, 9, 11, 13, 15, 17};
+        assertEquals(0, KTypeSparseVector.gallop(array, 0, array.length, 0));
+        assertEquals(0, KTypeSparseVector.gallop(array, 0, array.length, 1));
+        assertEquals(3, KTypeSparseVector.gallop(array, 0, array.length, 6));
+        assertEquals(3, KTypeSparseVector.gallop(array, 2, array.length, 7));
+        assertEquals(8, KTypeSparseVector.gallop(array, 0, array.length, 17));
+        assertEquals(9, KTypeSparseVector.gallop(array, 0, array.length, 18));
+        assertEquals(5, KTypeSparseVector.gallop(array, 2, 5, 100));
+    }
+
+    /* */
+    @Test
+    public void testFromMap()
+    {
+        /*! #if ($templateonly) !*/ IntObjectHashMap<KType> /*! #else Int${TemplateOptions.KType.BoxedType}HashMap #end !*/ map =
+            new /*! #if ($templateonly) !*/ IntObjectHashMap<KType> /*! #else Int${TemplateOptions.KType.BoxedType}HashMap #end !*/ ();
+        KTypeSparseVector<KType> expected = new KTypeSparseVector<>();
+        for (int index = 0; index < 1000; index++) {
+            if (randomBoolean()) {
+                KType value = cast(randomIntBetween(-10, 10));
+                map.put(index, value);
+                expected.append(index, value);
+            }
+        }
+
+        assertEquals(expected, KTypeSparseVector.from(map));
+    }
+
+    /* */
+    @Test
+    public void testCloneEquals()
+    {
+        KTypeSparseVector<KType> a = new KTypeSparseVector<KType>().append(1, key1).append(3, key2);
+        KTypeSparseVector<KType> b = a.clone();
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+
+        b.append(4, key3);
+        assertNotEquals(a, b);
+        assertEquals(2, a.size());
+        assertEquals("[1=" + key1 + ", 3=" + key2 + "]", a.toString());
+    }
+}
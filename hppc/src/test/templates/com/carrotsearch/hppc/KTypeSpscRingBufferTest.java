@@ -0,0 +1,120 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypeGeneric)) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Random;
+
+import org.junit.*;
+
+/**
+ * Tests for {@link KTypeSpscRingBuffer}.
+ */
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeSpscRingBufferTest<KType> extends AbstractKTypeTest<KType>
+{
+    /* */
+    @Test
+    public void testOfferPoll()
+    {
+        KTypeSpscRingBuffer<KType> ring = new KTypeSpscRingBuffer<>(3);
+        assertEquals(4, ring.capacity());
+        assertTrue(ring.isEmpty());
+        assertEquals2(key9, ring.pollOrDefault(key9));
+
+        assertTrue(ring.offer(key1));
+        assertTrue(ring.offer(key2));
+        assertEquals(2, ring.offer(newArray(key3, key4, key5), 0, 3));
+        assertFalse(ring.offer(key5));
+        assertEquals(4, ring.size());
+
+        assertEquals2(key1, ring.pollOrDefault(key9));
+        KType [] target = Intrinsics.<KType> newArray(5);
+        assertEquals(2, ring.poll(target, 1, 2));
+        assertEquals2(key2, target[1]);
+        assertEquals2(key3, target[2]);
+
+        // Wraps around the end of the buffer.
+        assertEquals(3, ring.offer(newArray(key5, key6, key7, key8), 0, 4));
+        final KTypeArrayList<KType> drained = new KTypeArrayList<>();
+        assertEquals(2, ring.drain(drained::add, 2));
+        assertEquals(2, ring.drain(drained::add));
+        assertEquals(KTypeArrayList.from(key4, key5, key6, key7), drained);
+        assertEquals(0, ring.drain(drained::add));
+        assertEquals(0, ring.size());
+
+        try {
+            new KTypeSpscRingBuffer<KType>(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    /* */
+    @Test
+    public void testDrainFailure()
+    {
+        KTypeSpscRingBuffer<KType> ring = new KTypeSpscRingBuffer<>(4);
+        ring.offer(newArray(key1, key2, key3), 0, 3);
+        try {
+            ring.drain(v -> {
+                if (v == key2) {
+                    throw new RuntimeException();
+                }
+            });
+            fail();
+        } catch (RuntimeException e) {
+            // Expected.
+        }
+        assertEquals(1, ring.size());
+        assertEquals2(key3, ring.pollOrDefault(key9));
+    }
+
+    /* */
+    @Test
+    public void testConcurrentTransfer() throws Exception
+    {
+        final int count = randomIntBetween(1000, 20000);
+        final KTypeSpscRingBuffer<KType> ring = new KTypeSpscRingBuffer<>(randomIntBetween(1, 64));
+        final int batch = randomIntBetween(1, 16);
+        final Random random = new Random(randomLong());
+
+        Thread producer = new Thread(() -> {
+            final KType [] elements = Intrinsics.<KType> newArray(batch);
+            for (int i = 0; i < count;) {
+                final int length = Math.min(batch, count - i);
+                for (int j = 0; j < length; j++) {
+                    elements[j] = cast(i + j);
+                }
+                int offered = 0;
+                while (offered < length) {
+                    final int added = random.nextBoolean()
+                        ? ring.offer(elements, offered, length - offered)
+                        : (ring.offer(elements[offered]) ? 1 : 0);
+                    if (added == 0) {
+                        Thread.yield();
+                    }
+                    offered += added;
+                }
+                i += length;
+            }
+        });
+        producer.start();
+
+        final KTypeArrayList<KType> received = new KTypeArrayList<>();
+        while (received.size() < count) {
+            if (ring.drain(received::add) == 0) {
+                Thread.yield();
+            }
+        }
+        producer.join();
+
+        assertEquals(count, received.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals2(cast(i), received.get(i));
+        }
+        assertTrue(ring.isEmpty());
+    }
+}
@@ -0,0 +1,106 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("INT", "LONG", "FLOAT", "DOUBLE"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Random;
+
+import org.junit.*;
+
+/**
+ * Tests for {@link KTypeTimeBucketedWindow}.
+ */
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeTimeBucketedWindowTest<KType> extends AbstractKTypeTest<KType>
+{
+    /* */
+    @Test
+    public void testBucketExpiry()
+    {
+        // Four buckets of 10 time units each.
+        KTypeTimeBucketedWindow<KType> window = new KTypeTimeBucketedWindow<>(4, 10);
+        assertTrue(window.isEmpty());
+
+        assertTrue(window.add(100, key5));
+        assertTrue(window.add(105, key1));
+        assertTrue(window.add(112, key3));
+        assertTrue(window.add(131, key2));
+        assertEquals(4, window.count());
+        assertEquals(11, window.sum(), 0);
+        assertEquals2(key1, window.min());
+        assertEquals2(key5, window.max());
+        assertEquals(4 * 1000 / 40.0, window.rate(1000), 0);
+
+        // Bucket [100, 110) expires, out-of-order samples within the window are accepted.
+        assertTrue(window.add(140, key4));
+        assertTrue(window.add(115, key6));
+        assertFalse(window.add(109, key9));
+        assertEquals(4, window.count());
+        assertEquals(15, window.sum(), 0);
+        assertEquals2(key2, window.min());
+        assertEquals2(key6, window.max());
+
+        window.advance(155);
+        assertEquals(2, window.count());
+        assertEquals2(key2, window.min());
+        assertEquals2(key4, window.max());
+
+        // Moving past the whole window expires everything.
+        window.advance(1000);
+        assertTrue(window.isEmpty());
+        assertTrue(Double.isNaN(window.mean()));
+        assertFalse(window.add(-5, key1));
+        assertTrue(window.add(1000, key1));
+        assertEquals(1, window.count());
+    }
+
+    /* */
+    @Test
+    public void testAgainstRescan()
+    {
+        final Random rnd = new Random(randomLong());
+        final int buckets = randomIntBetween(1, 10);
+        final int width = randomIntBetween(1, 10);
+        final KTypeTimeBucketedWindow<KType> window = new KTypeTimeBucketedWindow<>(buckets, width);
+        final LongArrayList timestamps = new LongArrayList();
+        final KTypeArrayList<KType> values = new KTypeArrayList<>();
+
+        long now = rnd.nextInt(1000) - 500;
+        long latest = Long.MIN_VALUE;
+        for (int round = 0; round < 2000; round++) {
+            now += rnd.nextInt(3 * width);
+            final long timestamp = now - rnd.nextInt(buckets * width + 1);
+            final KType value = cast(rnd.nextInt(100));
+            final long latestBucket =
+                Math.max(latest == Long.MIN_VALUE ? Long.MIN_VALUE : Math.floorDiv(latest, width),
+                         Math.floorDiv(timestamp, width));
+            final boolean expected = Math.floorDiv(timestamp, width) > latestBucket - buckets;
+            assertEquals(expected, window.add(timestamp, value));
+            if (expected) {
+                timestamps.add(timestamp);
+                values.add(value);
+                latest = Math.max(latest, timestamp);
+            }
+
+            final long first = Math.floorDiv(latest, width) - buckets + 1;
+            long count = 0;
+            double sum = 0, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < timestamps.size(); i++) {
+                if (Math.floorDiv(timestamps.get(i), width) >= first) {
+                    final double v = Intrinsics.<KType> numeric(values.get(i));
+                    count++;
+                    sum += v;
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+            }
+            assertEquals(count, window.count());
+            assertEquals(sum, window.sum(), 0);
+            if (count > 0) {
+                assertEquals(min, Intrinsics.<KType> numeric(window.min()), 0);
+                assertEquals(max, Intrinsics.<KType> numeric(window.max()), 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypePrimitive or $TemplateOptions.isKTypeAnyOf("DOUBLE", "FLOAT"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import org.junit.*;
+
+import com.carrotsearch.hppc.cursors.*;
+
+/**
+ * Tests for {@link KTypeVTypeCachedHashMap}.
+ */
+/*! #if ($TemplateOptions.anyGeneric) @SuppressWarnings("all") #end !*/
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeVTypeCachedHashMapTest<KType, VType> extends AbstractKTypeVTypeTest<KType, VType>
+{
+    /**
+     * Counts calls to {@link KTypeVTypeCachedHashMap#hashKey}.
+     */
+    private static class CountingMap<KType, VType> extends KTypeVTypeCachedHashMap<KType, VType>
+    {
+        int hashCalls;
+
+        CountingMap(int expectedElements) {
+            super(expectedElements);
+        }
+
+        @Override
+        public int hashKey(KType key) {
+            hashCalls++;
+            return super.hashKey(key);
+        }
+    }
+
+    /**
+     * Per-test fresh initialized instance.
+     */
+    public KTypeVTypeCachedHashMap<KType, VType> map = new KTypeVTypeCachedHashMap<>();
+
+    @After
+    public void checkHashesConsistent()
+    {
+        if (map != null)
+        {
+            for (int i = 0; i <= map.mask; i++)
+            {
+                if (!Intrinsics.<KType> isEmpty(map.keys[i]))
+                {
+                    assertEquals(map.hashKey(Intrinsics.<KType> cast(map.keys[i])), map.hashes[i]);
+                }
+            }
+        }
+    }
+
+    /* */
+    @Test
+    public void testPutGetRemove()
+    {
+        map.put(key1, value1);
+        map.put(key2, value2);
+        assertEquals2(value1, map.put(key1, value3));
+        assertEquals2(value3, map.get(key1));
+        assertTrue(map.containsKey(key2));
+        assertEquals2(value2, map.remove(key2));
+        assertFalse(map.containsKey(key2));
+        assertEquals(1, map.size());
+
+        map.put(Intrinsics.<KType> empty(), value1);
+        assertEquals2(value1, map.get(Intrinsics.<KType> empty()));
+        assertEquals(2, map.size());
+    }
+
+    /* */
+    @Test
+    public void testAgainstHashMap()
+    {
+        KTypeVTypeHashMap<KType, VType> ref = new KTypeVTypeHashMap<>();
+        map = new KTypeVTypeCachedHashMap<>(0);
+        for (int i = 0; i < 5000; i++) {
+            KType key = cast(randomIntBetween(0, 1000));
+            VType value = vcast(i);
+            switch (randomIntBetween(0, 3)) {
+                case 0:
+                    assertEquals2(ref.put(key, value), map.put(key, value));
+                    break;
+                case 1:
+                    assertEquals2(ref.remove(key), map.remove(key));
+                    break;
+                case 2:
+                    assertEquals(ref.putIfAbsent(key, value), map.putIfAbsent(key, value));
+                    break;
+                default:
+                    assertEquals(ref.containsKey(key), map.containsKey(key));
+                    break;
+            }
+            assertEquals(ref.size(), map.size());
+        }
+
+        for (KTypeVTypeCursor<KType, VType> c : ref) {
+            assertEquals2(c.value, map.get(c.key));
+        }
+
+        int removed = map.removeAll(ref.keys());
+        assertEquals(ref.size(), removed);
+        assertTrue(map.isEmpty());
+    }
+
+    /* */
+    @Test
+    public void testRehashReusesHashes()
+    {
+        CountingMap<KType, VType> map = new CountingMap<>(0);
+        final int keys = 1000;
+        for (int i = 1; i <= keys; i++) {
+            map.put(cast(i), vcast(i));
+        }
+        assertEquals(keys, map.hashCalls);
+
+        map.ensureCapacity(keys * 4);
+        for (int i = 1; i <= keys; i += 2) {
+            map.remove(cast(i));
+        }
+        assertEquals(keys + keys / 2, map.hashCalls);
+    }
+
+    /* */
+    @Test
+    public void testClone()
+    {
+        map.put(key1, value1);
+        KTypeVTypeCachedHashMap<KType, VType> cloned = map.clone();
+        cloned.put(key2, value2);
+        map.remove(key1);
+
+        assertNotSame(map.hashes, cloned.hashes);
+        assertEquals2(value1, cloned.get(key1));
+        assertEquals(2, cloned.size());
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,142 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypePrimitive or $TemplateOptions.isKTypeAnyOf("DOUBLE", "FLOAT"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Objects;
+
+import org.junit.*;
+
+import com.carrotsearch.hppc.cursors.*;
+
+/**
+ * Tests for {@link KTypeVTypeCustomHashMap}.
+ */
+/*! #if ($TemplateOptions.anyGeneric) @SuppressWarnings("all") #end !*/
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeVTypeCustomHashMapTest<KType, VType> extends AbstractKTypeVTypeTest<KType, VType>
+{
+    /**
+     * Keys are equal if their hash codes have the same parity.
+     */
+    private static final HashingStrategy<Object> PARITY = new HashingStrategy<Object>() {
+        @Override
+        public int computeHashCode(Object object) {
+            return object.hashCode() & 1;
+        }
+
+        @Override
+        public boolean equals(Object o1, Object o2) {
+            return (o1.hashCode() & 1) == (o2.hashCode() & 1);
+        }
+    };
+
+    /**
+     * Default object equality.
+     */
+    private static final HashingStrategy<Object> DEFAULT = new HashingStrategy<Object>() {
+        @Override
+        public int computeHashCode(Object object) {
+            return object.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o1, Object o2) {
+            return Objects.equals(o1, o2);
+        }
+    };
+
+    /**
+     * Per-test fresh initialized instance.
+     */
+    public KTypeVTypeCustomHashMap<KType, VType> map = new KTypeVTypeCustomHashMap<>(PARITY);
+
+    /* */
+    @Test
+    public void testStrategyEquality()
+    {
+        map.put(key1, value1);
+        assertTrue(map.containsKey(key3));
+        assertFalse(map.containsKey(key2));
+
+        assertEquals2(value1, map.put(key3, value2));
+        assertEquals(1, map.size());
+        assertEquals2(value2, map.get(key5));
+        assertEquals2(key1, map.keys().toArray()[0]);
+
+        map.put(key2, value3);
+        assertEquals(2, map.size());
+        assertEquals2(value2, map.remove(key7));
+        assertEquals2(value3, map.get(key4));
+        assertEquals(1, map.size());
+    }
+
+    /* */
+    @Test
+    public void testEmptyKey()
+    {
+        map.put(Intrinsics.<KType> empty(), value1);
+        map.put(key1, value2);
+        assertEquals(2, map.size());
+        assertEquals2(value1, map.get(Intrinsics.<KType> empty()));
+        assertEquals2(value2, map.get(key3));
+    }
+
+    /* */
+    @Test
+    public void testRehashAndRemoveWithDefaultStrategy()
+    {
+        KTypeVTypeCustomHashMap<KType, VType> map = new KTypeVTypeCustomHashMap<>(0, DEFAULT);
+        KTypeVTypeHashMap<KType, VType> ref = new KTypeVTypeHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            KType key = cast(randomIntBetween(1, 500));
+            VType value = vcast(i);
+            if (randomBoolean()) {
+                assertEquals2(ref.put(key, value), map.put(key, value));
+            } else {
+                assertEquals2(ref.remove(key), map.remove(key));
+            }
+        }
+
+        assertEquals(ref.size(), map.size());
+        for (KTypeVTypeCursor<KType, VType> c : ref) {
+            assertEquals2(c.value, map.get(c.key));
+        }
+    }
+
+    /* */
+    @Test
+    public void testCloningConstructor()
+    {
+        map.put(key1, value1);
+        map.put(key2, value2);
+
+        KTypeVTypeCustomHashMap<KType, VType> copy = new KTypeVTypeCustomHashMap<>(map, PARITY);
+        assertEquals(2, copy.size());
+        assertEquals2(value1, copy.get(key3));
+        assertEquals2(value2, copy.get(key4));
+        assertSame(PARITY, copy.strategy());
+    }
+
+    /* */
+    @Test
+    public void testHashCodeEquals()
+    {
+        KTypeVTypeCustomHashMap<KType, VType> l1 = KTypeVTypeCustomHashMap.from(
+            newArray(key1, key2),
+            newvArray(value1, value2), PARITY);
+
+        KTypeVTypeCustomHashMap<KType, VType> l2 = KTypeVTypeCustomHashMap.from(
+            newArray(key4, key3),
+            newvArray(value2, value1), PARITY);
+
+        KTypeVTypeCustomHashMap<KType, VType> l3 = KTypeVTypeCustomHashMap.from(
+            newArray(key1, key2),
+            newvArray(value2, value1), PARITY);
+
+        assertEquals(l1.hashCode(), l2.hashCode());
+        assertEquals(l1, l2);
+        assertFalse(l1.equals(l3));
+    }
+}
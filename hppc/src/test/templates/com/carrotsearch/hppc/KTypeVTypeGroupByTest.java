@@ -0,0 +1,157 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.isKTypeAnyOf("GENERIC", "BYTE", "FLOAT", "DOUBLE") or $TemplateOptions.isVTypeAnyOf("GENERIC", "BYTE", "SHORT", "CHAR"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import org.junit.*;
+
+import com.carrotsearch.hppc.cursors.*;
+
+/**
+ * Tests for {@link KTypeVTypeGroupBy}.
+ */
+/*! #if ($TemplateOptions.anyGeneric) @SuppressWarnings("all") #end !*/
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeVTypeGroupByTest<KType, VType> extends AbstractKTypeVTypeTest<KType, VType>
+{
+    private KType[] keys;
+    private VType[] values;
+
+    private void randomRows(int rows, int distinctKeys)
+    {
+        keys = Intrinsics.<KType> newArray(rows);
+        values = Intrinsics.<VType> newArray(rows);
+        for (int i = 0; i < rows; i++) {
+            keys[i] = cast(randomIntBetween(0, distinctKeys));
+            values[i] = vcast(randomIntBetween(-100, 100));
+        }
+    }
+
+    private KTypeVTypeHashMap<KType, VType> reference(int from, int to, int op)
+    {
+        KTypeVTypeHashMap<KType, VType> ref = new KTypeVTypeHashMap<>();
+        for (int i = from; i < to; i++) {
+            int index = ref.indexOf(keys[i]);
+            if (!ref.indexExists(index)) {
+                ref.indexInsert(index, keys[i], values[i]);
+            } else {
+                VType current = ref.indexGet(index);
+                VType value = values[i];
+                switch (op) {
+                    case 0:
+                        ref.indexReplace(index, Intrinsics.<VType> add(current, value));
+                        break;
+                    case 1:
+                        if (Intrinsics.<VType> numeric(value) < Intrinsics.<VType> numeric(current)) {
+                            ref.indexReplace(index, value);
+                        }
+                        break;
+                    default:
+                        if (Intrinsics.<VType> numeric(value) > Intrinsics.<VType> numeric(current)) {
+                            ref.indexReplace(index, value);
+                        }
+                        break;
+                }
+            }
+        }
+        return ref;
+    }
+
+    private void assertSameMap(KTypeVTypeHashMap<KType, VType> expected, KTypeVTypeHashMap<KType, VType> actual)
+    {
+        assertEquals(expected.size(), actual.size());
+        for (KTypeVTypeCursor<KType, VType> c : expected) {
+            assertTrue(actual.containsKey(c.key));
+            assertEquals2(c.value, actual.get(c.key));
+        }
+    }
+
+    /* */
+    @Test
+    public void testSumMinMax()
+    {
+        randomRows(randomIntBetween(0, 5000), randomIntBetween(1, 500));
+        int from = randomIntBetween(0, keys.length);
+        int to = randomIntBetween(from, keys.length);
+
+        assertSameMap(reference(from, to, 0),
+            KTypeVTypeGroupBy.sum(keys, values, from, to, new KTypeVTypeHashMap<KType, VType>()));
+        assertSameMap(reference(from, to, 1),
+            KTypeVTypeGroupBy.min(keys, values, from, to, new KTypeVTypeHashMap<KType, VType>()));
+        assertSameMap(reference(from, to, 2),
+            KTypeVTypeGroupBy.max(keys, values, from, to, new KTypeVTypeHashMap<KType, VType>()));
+    }
+
+    /* */
+    @Test
+    public void testAccumulatesIntoTarget()
+    {
+        randomRows(1000, 100);
+        KTypeVTypeHashMap<KType, VType> target = new KTypeVTypeHashMap<>(0);
+        KTypeVTypeGroupBy.sum(keys, values, 0, 500, target);
+        KTypeVTypeGroupBy.sum(keys, values, 500, 1000, target);
+        assertSameMap(reference(0, 1000, 0), target);
+    }
+
+    /* */
+    @Test
+    public void testParallel()
+    {
+        randomRows(KTypeVTypeGroupBy.PARALLEL_THRESHOLD * randomIntBetween(2, 5) + randomIntBetween(0, 100),
+                   randomIntBetween(1, 1000));
+
+        assertSameMap(reference(0, keys.length, 0), KTypeVTypeGroupBy.sumParallel(keys, values, 0, keys.length));
+        assertSameMap(reference(0, keys.length, 1), KTypeVTypeGroupBy.minParallel(keys, values, 0, keys.length));
+        assertSameMap(reference(3, keys.length, 2), KTypeVTypeGroupBy.maxParallel(keys, values, 3, keys.length));
+    }
+
+    /* */
+    @Test
+    public void testSubclassedTarget()
+    {
+        randomRows(1000, 100);
+        final int [] inserts = new int [1];
+        KTypeVTypeHashMap<KType, VType> target = new KTypeVTypeHashMap<KType, VType>() {
+            @Override
+            public void indexInsert(int index, KType key, VType value)
+            {
+                inserts[0]++;
+                super.indexInsert(index, key, value);
+            }
+        };
+
+        KTypeVTypeHashMap<KType, VType> expected = reference(0, keys.length, 0);
+        assertSameMap(expected, KTypeVTypeGroupBy.sum(keys, values, 0, keys.length, target));
+        assertEquals(expected.size(), inserts[0]);
+    }
+
+    /*! #if ($TemplateOptions.isVTypeAnyOf("INT")) !*/
+    /* */
+    @Test
+    public void testCount()
+    {
+        randomRows(KTypeVTypeGroupBy.PARALLEL_THRESHOLD * 2 + randomIntBetween(0, 100), 100);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = vcast(1);
+        }
+
+        KTypeVTypeHashMap<KType, VType> expected = reference(0, keys.length, 0);
+        assertSameMap(expected, KTypeVTypeGroupBy.count(keys, 0, keys.length, new KTypeVTypeHashMap<KType, VType>()));
+        assertSameMap(expected, KTypeVTypeGroupBy.countParallel(keys, 0, keys.length));
+    }
+    /*! #end !*/
+
+    /* */
+    @Test
+    public void testInvalidRange()
+    {
+        randomRows(10, 5);
+        try {
+            KTypeVTypeGroupBy.sum(keys, values, 5, 11, new KTypeVTypeHashMap<KType, VType>());
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // Expected.
+        }
+    }
+}
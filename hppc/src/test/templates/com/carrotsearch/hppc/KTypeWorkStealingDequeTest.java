@@ -0,0 +1,133 @@
+/*! #set($TemplateOptions.ignored = ($TemplateOptions.KTypeGeneric)) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+
+/**
+ * Tests for {@link KTypeWorkStealingDeque}.
+ */
+/* ! ${TemplateOptions.generatedAnnotation} ! */
+public class KTypeWorkStealingDequeTest<KType> extends AbstractKTypeTest<KType>
+{
+    /* */
+    @Test
+    public void testPushPopSteal()
+    {
+        KTypeWorkStealingDeque<KType> deque = new KTypeWorkStealingDeque<>(3);
+        assertEquals(4, deque.capacity());
+        assertTrue(deque.isEmpty());
+        assertEquals2(key9, deque.popOrDefault(key9));
+        assertEquals2(key9, deque.stealOrDefault(key9));
+
+        for (int i = 1; i <= 6; i++) {
+            deque.push(cast(i));
+        }
+        assertEquals(8, deque.capacity());
+        assertEquals(6, deque.size());
+
+        // The owner pops the most recent, thieves steal the oldest elements.
+        assertEquals2(key6, deque.popOrDefault(key9));
+        assertEquals2(key1, deque.stealOrDefault(key9));
+        assertEquals2(key2, deque.stealOrDefault(key9));
+        assertEquals2(key5, deque.popOrDefault(key9));
+        assertEquals(2, deque.size());
+
+        // Wrap around the buffer without growing.
+        for (int i = 6; i <= 9; i++) {
+            deque.push(cast(i));
+        }
+        assertEquals(8, deque.capacity());
+        assertEquals2(key3, deque.stealOrDefault(key0));
+        assertEquals2(key4, deque.stealOrDefault(key0));
+        assertEquals2(key6, deque.stealOrDefault(key0));
+        assertEquals2(key9, deque.popOrDefault(key0));
+        assertEquals2(key8, deque.popOrDefault(key0));
+        assertEquals2(key7, deque.popOrDefault(key0));
+        assertEquals2(key0, deque.popOrDefault(key0));
+        assertEquals2(key0, deque.stealOrDefault(key0));
+        assertTrue(deque.isEmpty());
+
+        try {
+            new KTypeWorkStealingDeque<KType>(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    /* */
+    @Test
+    public void testConcurrentSteals() throws Exception
+    {
+        // The owner pushes (and pops some of) values, each pushed value must be taken exactly once
+        // (values are taken modulo 100, so they fit in every key type).
+        final int count = randomIntBetween(1000, 20000);
+        final int thieves = randomIntBetween(1, 3);
+        final KTypeWorkStealingDeque<KType> deque =
+            new KTypeWorkStealingDeque<>(randomIntBetween(1, 64));
+        final KType none = cast(-1);
+        final AtomicInteger taken = new AtomicInteger();
+        final int [][] received = new int [thieves + 1][100];
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < thieves; t++) {
+            final int [] counts = received[t + 1];
+            threads.add(new Thread(() -> {
+                while (taken.get() < count) {
+                    final KType v = deque.stealOrDefault(none);
+                    if (v == none) {
+                        Thread.yield();
+                    } else {
+                        counts[(int) Intrinsics.<KType> numeric(v)]++;
+                        taken.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+
+        final int [] ownerCounts = received[0];
+        final Random rnd = new Random(randomLong());
+        for (int i = 0; i < count; i++) {
+            deque.push(cast(i % 100));
+            if (rnd.nextInt(4) == 0) {
+                final KType v = deque.popOrDefault(none);
+                if (v != none) {
+                    ownerCounts[(int) Intrinsics.<KType> numeric(v)]++;
+                    taken.incrementAndGet();
+                }
+            }
+        }
+        while (taken.get() < count) {
+            final KType v = deque.popOrDefault(none);
+            if (v == none) {
+                Thread.yield();
+            } else {
+                ownerCounts[(int) Intrinsics.<KType> numeric(v)]++;
+                taken.incrementAndGet();
+            }
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        for (int v = 0; v < 100; v++) {
+            int total = 0;
+            for (int[] counts : received) {
+                total += counts[v];
+            }
+            assertEquals("Value " + v, count / 100 + (v < count % 100 ? 1 : 0), total);
+        }
+        assertTrue(deque.isEmpty());
+    }
+}
@@ -0,0 +1,198 @@
+/*! #set($TemplateOptions.ignored = (!$TemplateOptions.isKTypeAnyOf("FLOAT", "DOUBLE"))) !*/
+package com.carrotsearch.hppc;
+
+import static org.junit.Assert.*;
+import static com.carrotsearch.hppc.TestUtils.*;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.*;
+
+import com.carrotsearch.hppc.cursors.KTypeCursor;
+import com.carrotsearch.hppc.predicates.KTypePredicate;
+import com.carrotsearch.hppc.procedures.KTypeProcedure;
+
+/**
+ * Tests for {@link KTypeXorCompressedList}.
+ */
+/*! ${TemplateOptions.generatedAnnotation} !*/
+public class KTypeXorCompressedListTest<KType> extends AbstractKTypeTest<KType>
+{
+    private KType fromDouble(double value)
+    {
+        /*! #if ($TemplateOptions.isKTypeAnyOf("FLOAT")) return (float) value; #else !*/
+        return Intrinsics.<KType> cast(value);
+        /*! #end !*/
+    }
+
+    private void assertSameElements(KTypeArrayList<KType> expected,
+                                    KTypeXorCompressedList<KType> list)
+    {
+        assertEquals(expected.size(), list.size());
+        assertEquals(expected.isEmpty(), list.isEmpty());
+        final int blockSize = KTypeXorCompressedList.BLOCK_SIZE;
+        assertEquals((expected.size() + blockSize - 1) / blockSize, list.blockCount());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals2(expected.get(i), list.get(i));
+        }
+        assertEquals(expected, list.toList());
+
+        int index = 0;
+        for (KTypeCursor<KType> c : list) {
+            assertEquals(index, c.index);
+            assertEquals2(expected.get(index++), c.value);
+        }
+        assertEquals(expected.size(), index);
+
+        final KTypeArrayList<KType> visited = new KTypeArrayList<>();
+        list.forEach((KTypeProcedure<KType>) visited::add);
+        assertEquals(expected, visited);
+
+        final KType [] block = Intrinsics.<KType> newArray(blockSize + 1);
+        for (int b = 0; b < list.blockCount(); b++) {
+            final int length = list.decodeBlock(b, block, 1);
+            for (int i = 0; i < length; i++) {
+                assertEquals2(expected.get(b * blockSize + i), block[i + 1]);
+            }
+
+            final Iterator<KTypeCursor<KType>> i = list.iterator(b);
+            final KTypeCursor<KType> first = i.next();
+            assertEquals(b * blockSize, first.index);
+            assertEquals2(block[1], first.value);
+        }
+        assertFalse(list.iterator(list.blockCount()).hasNext());
+    }
+
+    /* */
+    @Test
+    public void testEmpty()
+    {
+        final KTypeXorCompressedList<KType> list = new KTypeXorCompressedList<>();
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.blockCount());
+        assertFalse(list.contains(key1));
+        assertEquals(0, list.toArray().length);
+        assertFalse(list.iterator().hasNext());
+        assertEquals(new KTypeXorCompressedList<KType>(), list);
+    }
+
+    /* */
+    @Test
+    public void testAgainstArrayList()
+    {
+        final Random rnd = new Random(randomLong());
+        for (int round = 0; round < 100; round++) {
+            final KTypeArrayList<KType> expected = new KTypeArrayList<>();
+            final KTypeXorCompressedList<KType> list = new KTypeXorCompressedList<>();
+            final int size = rnd.nextInt(1000);
+            double value = rnd.nextInt(1000);
+            for (int i = 0; i < size; i++) {
+                switch (round % 5) {
+                    case 0:
+                        // Mostly unchanged values.
+                        if (rnd.nextInt(10) == 0) {
+                            value = rnd.nextInt(100);
+                        }
+                        break;
+                    case 1:
+                        // A random walk with two decimal places.
+                        value = Math.round(value * 100 + rnd.nextInt(21) - 10) / 100d;
+                        break;
+                    case 2:
+                        // Random values.
+                        value = rnd.nextDouble() * 1e6;
+                        break;
+                    case 3:
+                        // Random bits.
+                        value = Double.longBitsToDouble(rnd.nextLong());
+                        break;
+                    case 4:
+                        // Special values.
+                        final double [] special = {
+                            Double.NaN, 0d, -0d, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                            Double.MIN_VALUE, Double.MAX_VALUE, 1d, -1d};
+                        value = special[rnd.nextInt(special.length)];
+                        break;
+                    default:
+                        throw new RuntimeException();
+                }
+                expected.add(fromDouble(value));
+                list.add(fromDouble(value));
+            }
+            assertSameElements(expected, list);
+
+            final KTypeXorCompressedList<KType> copy = new KTypeXorCompressedList<>();
+            copy.addAll(expected);
+            assertEquals(list, copy);
+            assertEquals(list.hashCode(), copy.hashCode());
+            assertEquals(expected.hashCode(), list.hashCode());
+
+            if (!expected.isEmpty()) {
+                final KType present = expected.get(rnd.nextInt(expected.size()));
+                assertTrue(list.contains(present));
+                copy.add(key1);
+                assertNotEquals(list, copy);
+            }
+        }
+    }
+
+    /* */
+    @Test
+    public void testClearAndRelease()
+    {
+        final KTypeXorCompressedList<KType> list = new KTypeXorCompressedList<>();
+        final KTypeArrayList<KType> expected = new KTypeArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            expected.add(cast(i % 7));
+        }
+        list.addAll(expected);
+
+        list.clear();
+        assertSameElements(new KTypeArrayList<KType>(), list);
+        list.add(Intrinsics.<KType[]> cast(expected.buffer), 0, expected.size());
+        list.trimToSize();
+        assertEquals(list.ramBytesAllocated(), list.ramBytesUsed());
+        assertSameElements(expected, list);
+
+        list.release();
+        assertSameElements(new KTypeArrayList<KType>(), list);
+        list.addAll(expected);
+        assertSameElements(expected, list);
+    }
+
+    /* */
+    @Test
+    public void testForEachPredicateStops()
+    {
+        final KTypeXorCompressedList<KType> list = new KTypeXorCompressedList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(cast(i % 10));
+        }
+        final int [] count = new int [1];
+        list.forEach((KTypePredicate<KType>) v -> ++count[0] < 300);
+        assertEquals(300, count[0]);
+    }
+
+    /* */
+    @Test
+    public void testCompression()
+    {
+        final Random rnd = new Random(randomLong());
+        final KTypeArrayList<KType> expected = new KTypeArrayList<>();
+        final KTypeXorCompressedList<KType> list = new KTypeXorCompressedList<>();
+        // A gauge that rarely changes.
+        int value = 50;
+        for (int i = 0; i < 100000; i++) {
+            if (rnd.nextInt(20) == 0) {
+                value += rnd.nextInt(3) - 1;
+            }
+            expected.add(cast(value));
+            list.add(cast(value));
+        }
+        expected.trimToSize();
+        list.trimToSize();
+        assertSameElements(expected, list);
+        assertTrue(list.ramBytesUsed() * 5 < expected.ramBytesUsed());
+    }
+}